@@ -0,0 +1,110 @@
+package assignment.benchmark;
+
+import assignment.model.FlatRealMatrix;
+import assignment.report.Report;
+import assignment.report.ResultFormatter;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the result formatting: the formatter used by the controller and the streamed report.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(3)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FormattingBenchmark {
+
+    /**
+     * The dimension of the matrix.
+     */
+    @Param({"10", "100", "1000", "4000"})
+    public int size;
+
+    /**
+     * The kind of the matrix.
+     */
+    @Param({"RANDOM", "DIAGONALLY_DOMINANT", "NEAR_SINGULAR"})
+    public MatrixType type;
+
+    /**
+     * The formatted matrix.
+     */
+    private RealMatrix matrix;
+
+    /**
+     * The formatted vector.
+     */
+    private RealVector vector;
+
+    /**
+     * The report of the matrix and the vector.
+     */
+    private Report report;
+
+    /**
+     * Generates the inputs.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        matrix = new FlatRealMatrix(size, size, type.generate(size, size));
+        vector = new ArrayRealVector(Arrays.copyOf(MatrixType.RANDOM.generate(size, -size), size), false);
+        report = Report.builder().matrix("Original matrix", matrix).vector("Original vector", vector).build();
+    }
+
+    /**
+     * Formats the matrix.
+     *
+     * @return the text.
+     */
+    @Benchmark
+    public StringBuilder formatMatrix() {
+        return new ResultFormatter().formatMatrix(matrix);
+    }
+
+    /**
+     * Formats the vector.
+     *
+     * @return the text.
+     */
+    @Benchmark
+    public StringBuilder formatVector() {
+        return new ResultFormatter().formatVector(vector);
+    }
+
+    /**
+     * Streams the report of the matrix and the vector to a writer discarding the text.
+     *
+     * @return the writer.
+     * @throws IOException never, the writer discards the text.
+     */
+    @Benchmark
+    public Writer writeReport() throws IOException {
+        Writer writer = Writer.nullWriter();
+        report.writeTo(writer);
+        return writer;
+    }
+}
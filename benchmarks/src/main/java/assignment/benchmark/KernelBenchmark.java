@@ -0,0 +1,115 @@
+package assignment.benchmark;
+
+import assignment.model.Factorization;
+import assignment.model.FlatRealMatrix;
+import assignment.model.SolverBackend;
+import assignment.model.SolverOptions;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the scalar against the vector kernels in the sequential blocked LU-decomposition, the substitutions
+ * and the inverse.
+ * <br>Every combination of the parameters runs in its own fork, so the kernels are selected by setting the system
+ * property {@code assignment.kernels} before the first factorization loads them. The forks get the module
+ * {@code jdk.incubator.vector}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 3, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class KernelBenchmark {
+
+    /**
+     * The dimension of the matrix.
+     */
+    @Param({"100", "1000", "2000"})
+    public int size;
+
+    /**
+     * The kernels, {@code scalar} or {@code vector}.
+     */
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    /**
+     * The sequential options of the blocked backend.
+     */
+    private SolverOptions options;
+
+    /**
+     * The matrix.
+     */
+    private FlatRealMatrix matrix;
+
+    /**
+     * The right-hand side.
+     */
+    private double[] vector;
+
+    /**
+     * The factorization of the matrix.
+     */
+    private Factorization factorization;
+
+    /**
+     * Selects the kernels and generates the inputs.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("assignment.kernels", kernels);
+        options = SolverOptions.defaults().withBackend(SolverBackend.BLOCKED).withParallelism(1);
+        matrix = new FlatRealMatrix(size, size, MatrixType.RANDOM.generate(size, size));
+        vector = Arrays.copyOf(MatrixType.RANDOM.generate(size, -size), size);
+        factorization = SolverBackend.BLOCKED.factorize(matrix, options);
+    }
+
+    /**
+     * Factorizes the matrix.
+     *
+     * @return the factorization.
+     */
+    @Benchmark
+    public Factorization factorize() {
+        return SolverBackend.BLOCKED.factorize(matrix, options);
+    }
+
+    /**
+     * Solves the equation with the existing factorization.
+     *
+     * @return the solution.
+     */
+    @Benchmark
+    public double[] solve() {
+        return factorization.solve(vector);
+    }
+
+    /**
+     * Computes the inverse from the existing factorization.
+     *
+     * @return the inverse.
+     */
+    @Benchmark
+    public RealMatrix inverse() {
+        return factorization.getInverse();
+    }
+}
@@ -0,0 +1,160 @@
+package assignment.benchmark;
+
+import assignment.model.Factorization;
+import assignment.model.FlatRealMatrix;
+import assignment.model.LinearEquation;
+import assignment.model.MatrixParser;
+import assignment.model.SolverOptions;
+import assignment.model.SolverPath;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the stages of {@link LinearEquation}: parsing, factorization, the whole construction, the solution,
+ * the inverse and the determinant.
+ * <br>The factorization cache is disabled, so every invocation does the full work.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(3)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LinearEquationBenchmark {
+
+    /**
+     * The dimension of the matrix.
+     */
+    @Param({"10", "100", "1000", "4000"})
+    public int size;
+
+    /**
+     * The kind of the matrix.
+     */
+    @Param({"RANDOM", "DIAGONALLY_DOMINANT", "NEAR_SINGULAR"})
+    public MatrixType type;
+
+    /**
+     * The options without the factorization cache.
+     */
+    private SolverOptions options;
+
+    /**
+     * The matrix in the input format.
+     */
+    private String matrixText;
+
+    /**
+     * The vector in the input format.
+     */
+    private String vectorText;
+
+    /**
+     * The parsed matrix.
+     */
+    private FlatRealMatrix matrix;
+
+    /**
+     * The equation built from the texts.
+     */
+    private LinearEquation equation;
+
+    /**
+     * Generates the inputs.
+     *
+     * @throws Exception if the equation can not be built.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        options = SolverOptions.defaults().withCache(null);
+        double[] data = type.generate(size, size);
+        double[] vector = MatrixType.RANDOM.generate(size, -size);
+        matrixText = MatrixType.toText(data, size);
+        vectorText = MatrixType.toText(Arrays.copyOf(vector, size), size);
+        matrix = new FlatRealMatrix(size, size, data);
+        equation = new LinearEquation(matrixText, vectorText, options);
+    }
+
+    /**
+     * Parses the matrix text.
+     *
+     * @return the entries.
+     * @throws IOException never, the input is a string.
+     */
+    @Benchmark
+    public double[] parse() throws IOException {
+        return new MatrixParser(matrixText).parseMatrix();
+    }
+
+    /**
+     * Factorizes the parsed matrix on the path selected by its structure.
+     *
+     * @return the factorization.
+     */
+    @Benchmark
+    public Factorization factorize() {
+        return SolverPath.factorizeDetected(matrix, options);
+    }
+
+    /**
+     * Builds the equation from the texts: parsing and factorization.
+     *
+     * @return the equation.
+     * @throws Exception if the input is invalid.
+     */
+    @Benchmark
+    public LinearEquation construct() throws Exception {
+        return new LinearEquation(matrixText, vectorText, options);
+    }
+
+    /**
+     * Solves the equation with the existing factorization.
+     *
+     * @return the solution.
+     * @throws Exception if the matrix is singular.
+     */
+    @Benchmark
+    public RealVector solution() throws Exception {
+        return equation.getSolution();
+    }
+
+    /**
+     * Computes the inverse from the existing factorization.
+     * <br>{@link LinearEquation#getInverseMatrix()} keeps its result, so the factorization is called directly.
+     *
+     * @return the inverse.
+     */
+    @Benchmark
+    public RealMatrix inverse() {
+        return equation.getFactorization().getInverse();
+    }
+
+    /**
+     * Computes the determinant from the existing factorization.
+     *
+     * @return the determinant.
+     */
+    @Benchmark
+    public double determinant() {
+        return equation.getDeterminant();
+    }
+}
@@ -0,0 +1,89 @@
+package assignment.benchmark;
+
+import java.util.Random;
+
+/**
+ * The kinds of matrices used by the benchmarks.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+public enum MatrixType {
+
+    /**
+     * Entries drawn from the standard normal distribution.
+     */
+    RANDOM {
+        @Override
+        void adjust(double[] data, int n, Random random) {
+        }
+    },
+
+    /**
+     * Random entries with the dimension added to the diagonal, no row exchanges are needed.
+     */
+    DIAGONALLY_DOMINANT {
+        @Override
+        void adjust(double[] data, int n, Random random) {
+            for (int i = 0; i < n; i++) {
+                data[i * n + i] += n;
+            }
+        }
+    },
+
+    /**
+     * Random entries with the last row a copy of the first one perturbed by 1e-8, so the smallest pivot is tiny but
+     * above the singularity threshold.
+     */
+    NEAR_SINGULAR {
+        @Override
+        void adjust(double[] data, int n, Random random) {
+            if (n > 1) {
+                for (int j = 0; j < n; j++) {
+                    data[(n - 1) * n + j] = data[j] + 1e-8 * random.nextGaussian();
+                }
+            }
+        }
+    };
+
+    /**
+     * Modifies the random entries to give the matrix its kind.
+     *
+     * @param data   the entries in row-major order.
+     * @param n      the dimension.
+     * @param random the source of random numbers.
+     */
+    abstract void adjust(double[] data, int n, Random random);
+
+    /**
+     * Generates a matrix of this kind.
+     *
+     * @param n    the dimension.
+     * @param seed the seed of the random numbers.
+     * @return the entries in row-major order.
+     */
+    public double[] generate(int n, long seed) {
+        Random random = new Random(seed);
+        double[] data = new double[n * n];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextGaussian();
+        }
+        adjust(data, n, random);
+        return data;
+    }
+
+    /**
+     * Formats the entries in the input format of the application: one line per row, elements separated by spaces.
+     *
+     * @param data    the entries in row-major order.
+     * @param columns the number of columns.
+     * @return the text.
+     */
+    public static String toText(double[] data, int columns) {
+        StringBuilder text = new StringBuilder(data.length * 24);
+        for (int i = 0; i < data.length; i++) {
+            text.append(data[i]).append((i + 1) % columns == 0 ? '\n' : ' ');
+        }
+        return text.toString();
+    }
+}
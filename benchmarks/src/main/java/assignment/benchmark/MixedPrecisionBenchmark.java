@@ -0,0 +1,89 @@
+package assignment.benchmark;
+
+import assignment.model.FlatRealMatrix;
+import assignment.model.SolverBackend;
+import assignment.model.SolverOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of a solve from scratch: the double precision factorization and substitutions against the single
+ * precision factorization with the iterative refinement of {@link SolverBackend#MIXED_PRECISION}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MixedPrecisionBenchmark {
+
+    /**
+     * The dimension of the matrix.
+     */
+    @Param({"100", "1000", "2000"})
+    public int size;
+
+    /**
+     * The kind of the matrix.
+     */
+    @Param({"RANDOM", "NEAR_SINGULAR"})
+    public MatrixType type;
+
+    /**
+     * The implementation of the LU-decomposition.
+     */
+    @Param({"BLOCKED", "MIXED_PRECISION"})
+    public SolverBackend backend;
+
+    /**
+     * The options of the backend.
+     */
+    private SolverOptions options;
+
+    /**
+     * The matrix.
+     */
+    private FlatRealMatrix matrix;
+
+    /**
+     * The right-hand side.
+     */
+    private double[] vector;
+
+    /**
+     * Generates the inputs.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        options = SolverOptions.defaults().withBackend(backend);
+        matrix = new FlatRealMatrix(size, size, type.generate(size, size));
+        vector = Arrays.copyOf(MatrixType.RANDOM.generate(size, -size), size);
+    }
+
+    /**
+     * Factorizes the matrix and solves the equation.
+     *
+     * @return the solution.
+     */
+    @Benchmark
+    public double[] solve() {
+        return backend.factorize(matrix, options).solve(vector);
+    }
+}
@@ -0,0 +1,92 @@
+package assignment.benchmark;
+
+import assignment.model.FlatRealMatrix;
+import assignment.model.SolverBackend;
+import assignment.model.SolverOptions;
+
+import java.util.Random;
+
+/**
+ * Prints the scaling of the parallel LU-decomposition from one thread to all available processors.
+ * <br>Usage: {@code ParallelScalingReport [dimension...]}, the default dimensions are 1000 and 2000.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+public class ParallelScalingReport {
+
+    /**
+     * The number of measured repetitions per configuration, the best one is reported.
+     */
+    private static final int REPETITIONS = 3;
+
+    /**
+     * Private constructor of the command-line tool.
+     */
+    private ParallelScalingReport() {
+    }
+
+    /**
+     * Runs the report.
+     *
+     * @param args the dimensions of the matrices.
+     */
+    public static void main(String[] args) {
+        int[] dimensions = args.length > 0 ? new int[args.length] : new int[]{1000, 2000};
+        for (int i = 0; i < args.length; i++) {
+            dimensions[i] = Integer.parseInt(args[i]);
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.printf("# available processors: %d, java %s%n", processors, System.getProperty("java.version"));
+        System.out.printf("%8s %8s %12s %10s %8s %10s%n", "n", "threads", "time [ms]", "GFLOP/s", "speedup", "efficiency");
+        for (int n : dimensions) {
+            FlatRealMatrix matrix = randomMatrix(n);
+            double flops = 2.0 / 3.0 * n * (double) n * n;
+            double sequential = 0;
+            for (int threads = 1; threads <= processors; threads = nextThreads(threads, processors)) {
+                SolverOptions options = SolverOptions.defaults().withParallelism(threads).withSequentialThreshold(0);
+                SolverBackend.BLOCKED.factorize(matrix, options);
+                long best = Long.MAX_VALUE;
+                for (int r = 0; r < REPETITIONS; r++) {
+                    long start = System.nanoTime();
+                    SolverBackend.BLOCKED.factorize(matrix, options);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                if (threads == 1) {
+                    sequential = best;
+                }
+                System.out.printf("%8d %8d %12.1f %10.2f %8.2f %10.2f%n", n, threads, best / 1e6, flops / best,
+                        sequential / best, sequential / best / threads);
+            }
+        }
+    }
+
+    /**
+     * Returns the next number of threads: powers of two followed by the number of processors.
+     *
+     * @param threads    the current number of threads.
+     * @param processors the number of processors.
+     * @return the next number of threads, greater than {@code processors} at the end.
+     */
+    private static int nextThreads(int threads, int processors) {
+        if (threads == processors) {
+            return processors + 1;
+        }
+        return Math.min(threads * 2, processors);
+    }
+
+    /**
+     * Creates a random matrix with entries in [-1, 1).
+     *
+     * @param n the dimension.
+     * @return the matrix.
+     */
+    private static FlatRealMatrix randomMatrix(int n) {
+        Random random = new Random(n);
+        double[] data = new double[n * n];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextDouble() * 2 - 1;
+        }
+        return new FlatRealMatrix(n, n, data);
+    }
+}
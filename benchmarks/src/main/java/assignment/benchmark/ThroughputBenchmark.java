@@ -0,0 +1,114 @@
+package assignment.benchmark;
+
+import assignment.model.FlatRealMatrix;
+import assignment.model.SolverOptions;
+import assignment.model.SolverPath;
+import assignment.model.SystemBatch;
+import assignment.model.ThroughputEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of many small independent systems: one factorization object per system against one
+ * {@link SystemBatch} solved by the {@link ThroughputEngine}. The score is the number of systems per second.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ThroughputBenchmark {
+
+    /**
+     * The number of systems of one invocation.
+     */
+    private static final int SYSTEMS = 4096;
+
+    /**
+     * The dimension of the systems.
+     */
+    @Param({"4", "16", "64"})
+    public int size;
+
+    /**
+     * The matrices.
+     */
+    private FlatRealMatrix[] matrices;
+
+    /**
+     * The right-hand sides.
+     */
+    private double[][] vectors;
+
+    /**
+     * The same systems in one batch.
+     */
+    private SystemBatch batch;
+
+    /**
+     * The engine with one thread per processor.
+     */
+    private ThroughputEngine engine;
+
+    /**
+     * Generates the systems.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        matrices = new FlatRealMatrix[SYSTEMS];
+        vectors = new double[SYSTEMS][];
+        batch = new SystemBatch(SYSTEMS, size);
+        for (int i = 0; i < SYSTEMS; i++) {
+            double[] data = MatrixType.RANDOM.generate(size, i);
+            matrices[i] = new FlatRealMatrix(size, size, data);
+            vectors[i] = Arrays.copyOf(MatrixType.RANDOM.generate(size, -i - 1), size);
+            batch.add(data, vectors[i]);
+        }
+        engine = new ThroughputEngine();
+    }
+
+    /**
+     * Factorizes and solves every system on its detected path, one after another.
+     *
+     * @return the sum of the first entries of the solutions.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SYSTEMS)
+    public double factorizationPerSystem() {
+        SolverOptions options = SolverOptions.defaults();
+        double sum = 0.0;
+        for (int i = 0; i < SYSTEMS; i++) {
+            sum += SolverPath.factorizeDetected(matrices[i], options).solve(vectors[i])[0];
+        }
+        return sum;
+    }
+
+    /**
+     * Solves the batch on the engine.
+     *
+     * @return the number of singular systems.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SYSTEMS)
+    public int engine() {
+        return engine.solve(batch).getSingular();
+    }
+}
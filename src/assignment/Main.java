@@ -1,5 +1,6 @@
 package assignment;
 
+import assignment.model.SolverMetrics;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -31,6 +32,7 @@ public class Main extends Application {
      * @param args the command-line arguments as an array od {@code String}
      */
     public static void main(String[] args) {
+        SolverMetrics.registerMBean();
         launch(args);
     }
 }
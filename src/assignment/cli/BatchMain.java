@@ -0,0 +1,128 @@
+package assignment.cli;
+
+import assignment.model.SolverMetrics;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+/**
+ * The headless entry point of the application: solves linear systems read from files or the standard input.
+ * <br>Unlike {@link assignment.Main} it does not use JavaFX, so no JavaFX class is loaded and the JVM starts
+ * quickly. The options are described by {@link BatchOptions#USAGE}.
+ * <br>The exit status is 0 if every system was solved (a singular matrix is a result too), 1 if some systems could
+ * not be read or solved and 2 if the arguments are invalid or an input or output failed.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see BatchRunner
+ */
+public final class BatchMain {
+
+    /**
+     * The exit status when some systems failed.
+     */
+    private static final int EXIT_FAILED_SYSTEMS = 1;
+
+    /**
+     * The exit status of invalid arguments or a failed input or output.
+     */
+    private static final int EXIT_ERROR = 2;
+
+    /**
+     * The size of the buffer of the text output.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Private constructor of the entry point.
+     */
+    private BatchMain() {
+    }
+
+    /**
+     * Solves the systems and exits with the status of the run.
+     *
+     * @param args the command-line arguments, see {@link BatchOptions#USAGE}.
+     */
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Solves the systems.
+     * <br>The number of systems and the throughput are printed to the standard error.
+     *
+     * @param args the command-line arguments.
+     * @return the exit status.
+     */
+    static int run(String[] args) {
+        BatchOptions options;
+        try {
+            options = BatchOptions.parse(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(BatchOptions.USAGE);
+            return EXIT_ERROR;
+        }
+        if (options.isHelp()) {
+            System.out.println(BatchOptions.USAGE);
+            return 0;
+        }
+        if (options.getMetrics() != null) {
+            // watched through JMX while a long run is going on, written to the file at the end
+            SolverMetrics.registerMBean();
+        }
+        long start = System.nanoTime();
+        BatchRunner runner;
+        try (Writer output = openOutput(options)) {
+            runner = new BatchRunner(options, output, System.err);
+            runner.run();
+        } catch (IOException ex) {
+            System.err.println("Error! " + ex.getMessage());
+            return EXIT_ERROR;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return EXIT_ERROR;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (options.getMetrics() != null) {
+            try {
+                Files.writeString(options.getMetrics(), SolverMetrics.global().getDump() + "\n",
+                        StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                System.err.println("Error! " + ex.getMessage());
+                return EXIT_ERROR;
+            }
+        }
+        int systems = runner.getSolved() + runner.getFailed();
+        System.err.println(String.format(Locale.ROOT, "%d systems (%d singular, %d failed) in %.3f s, %.1f systems/s",
+                systems, runner.getSingular(), runner.getFailed(), seconds, systems / seconds));
+        return runner.getFailed() > 0 ? EXIT_FAILED_SYSTEMS : 0;
+    }
+
+    /**
+     * Opens the destination of the text results, or creates the directory of the binary files.
+     *
+     * @param options the options.
+     * @return the buffered writer in UTF-8 or {@code null} for the binary format.
+     * @throws IOException if the output can not be opened.
+     */
+    private static Writer openOutput(BatchOptions options) throws IOException {
+        if (options.getFormat() == BatchOptions.OutputFormat.BINARY) {
+            Files.createDirectories(options.getOutput());
+            return null;
+        }
+        if (options.getOutput() != null) {
+            return Files.newBufferedWriter(options.getOutput(), StandardCharsets.UTF_8);
+        }
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,450 @@
+package assignment.cli;
+
+import assignment.model.SolverBackend;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The options of the command line, immutable.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see BatchMain
+ */
+public final class BatchOptions {
+
+    /**
+     * The formats of the results.
+     */
+    public enum OutputFormat {
+
+        /**
+         * Text written to the standard output or to one file, the results of the systems separated by
+         * {@value SystemReader#DELIMITER}.
+         */
+        TEXT,
+
+        /**
+         * One file per system in the binary format of {@link assignment.report.ResultFile}, written to a directory.
+         */
+        BINARY
+    }
+
+    /**
+     * The description of the options printed by {@code --help}.
+     */
+    public static final String USAGE = String.join("\n",
+            "Usage: java -jar linear-equation-1.0-cli.jar [options] [file ...]",
+            "Solves the linear systems of the files, or of the standard input if no file or '-' is given.",
+            "Systems are separated by a line '" + SystemReader.DELIMITER + "'; the matrix is followed by an empty line"
+                    + " and the vector, a matrix without a vector is inverted.",
+            "",
+            "  -w, --workers N       number of systems solved at the same time (default: number of processors)",
+            "  -f, --format FORMAT   text or binary (default: text)",
+            "  -o, --output PATH     text: the output file (default: standard output);",
+            "                        binary: the directory of the files system-NNNNNN.bin (required)",
+            "  -r, --report          text: write the whole report instead of the solutions only",
+            "  -m, --mixed-precision factorize in single precision and refine the solutions in double precision",
+            "                        (L, U and the determinant keep single precision)",
+            "  -t, --throughput      solve the systems with vectors in batches on the throughput engine, for many"
+                    + " small systems;",
+            "                        text solutions only, without the condition estimate",
+            "  -d, --determinant     compute only the determinant of every matrix: its value, sign and logarithm of"
+                    + " the",
+            "                        absolute value, which does not overflow; the vectors are ignored",
+            "      --metrics FILE    write the stage timings, flop rates and allocations as JSON to the file",
+            "  -h, --help            print this help");
+
+    /**
+     * The number of systems solved at the same time.
+     */
+    private final int workers;
+
+    /**
+     * The format of the results.
+     */
+    private final OutputFormat format;
+
+    /**
+     * The output file or directory or {@code null} for the standard output.
+     */
+    private final Path output;
+
+    /**
+     * True if the whole reports are written instead of the solutions only.
+     */
+    private final boolean report;
+
+    /**
+     * True if the matrices are factorized by {@link SolverBackend#MIXED_PRECISION}.
+     */
+    private final boolean mixedPrecision;
+
+    /**
+     * The file of the metrics or {@code null} to skip them.
+     */
+    private final Path metrics;
+
+    /**
+     * True if the systems with vectors are solved in batches by {@link assignment.model.ThroughputEngine}.
+     */
+    private final boolean throughput;
+
+    /**
+     * True if only the determinants of the matrices are computed.
+     */
+    private final boolean determinant;
+
+    /**
+     * True if only the help is printed.
+     */
+    private final boolean help;
+
+    /**
+     * The input files, an empty list or {@code "-"} stands for the standard input.
+     */
+    private final List<String> inputs;
+
+    /**
+     * Creates the options.
+     *
+     * @param workers        the number of systems solved at the same time.
+     * @param format         the format of the results.
+     * @param output         the output file or directory or {@code null}.
+     * @param report         true to write the whole reports.
+     * @param mixedPrecision true to factorize in single precision.
+     * @param metrics        the file of the metrics or {@code null}.
+     * @param throughput     true to solve in batches on the throughput engine.
+     * @param determinant    true to compute only the determinants.
+     * @param help           true to print only the help.
+     * @param inputs         the input files.
+     */
+    private BatchOptions(int workers, OutputFormat format, Path output, boolean report, boolean mixedPrecision,
+                         Path metrics, boolean throughput, boolean determinant, boolean help, List<String> inputs) {
+        this.workers = workers;
+        this.format = format;
+        this.output = output;
+        this.report = report;
+        this.mixedPrecision = mixedPrecision;
+        this.metrics = metrics;
+        this.throughput = throughput;
+        this.determinant = determinant;
+        this.help = help;
+        this.inputs = inputs;
+    }
+
+    /**
+     * Returns the default options: one worker per processor, text on the standard output read from the standard
+     * input.
+     *
+     * @return the default options.
+     */
+    public static BatchOptions defaults() {
+        return new BatchOptions(Runtime.getRuntime().availableProcessors(), OutputFormat.TEXT, null, false, false,
+                null, false, false, false, Collections.emptyList());
+    }
+
+    /**
+     * Parses the arguments of the command line, see {@link BatchOptions#USAGE}.
+     *
+     * @param args the arguments.
+     * @return the options.
+     * @throws IllegalArgumentException if an argument is unknown, a value is missing or invalid, or the binary format
+     *                                  has no output directory.
+     */
+    public static BatchOptions parse(String[] args) {
+        BatchOptions options = defaults();
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-w":
+                case "--workers":
+                    String workers = value(args, ++i, arg);
+                    try {
+                        options = options.withWorkers(Integer.parseInt(workers));
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException("Invalid number of workers: " + workers, ex);
+                    }
+                    break;
+                case "-f":
+                case "--format":
+                    String format = value(args, ++i, arg);
+                    try {
+                        options = options.withFormat(OutputFormat.valueOf(format.toUpperCase(Locale.ROOT)));
+                    } catch (IllegalArgumentException ex) {
+                        throw new IllegalArgumentException("Unknown format: " + format, ex);
+                    }
+                    break;
+                case "-o":
+                case "--output":
+                    options = options.withOutput(Paths.get(value(args, ++i, arg)));
+                    break;
+                case "-r":
+                case "--report":
+                    options = options.withReport(true);
+                    break;
+                case "-m":
+                case "--mixed-precision":
+                    options = options.withMixedPrecision(true);
+                    break;
+                case "-t":
+                case "--throughput":
+                    options = options.withThroughput(true);
+                    break;
+                case "-d":
+                case "--determinant":
+                    options = options.withDeterminant(true);
+                    break;
+                case "--metrics":
+                    options = options.withMetrics(Paths.get(value(args, ++i, arg)));
+                    break;
+                case "-h":
+                case "--help":
+                    return options.withHelp(true);
+                default:
+                    if (arg.startsWith("-") && !arg.equals("-")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    inputs.add(arg);
+            }
+        }
+        if (options.format == OutputFormat.BINARY && options.output == null) {
+            throw new IllegalArgumentException("The binary format needs an output directory (--output)");
+        }
+        if (options.throughput && (options.format == OutputFormat.BINARY || options.report || options.mixedPrecision)) {
+            throw new IllegalArgumentException("The throughput engine writes the solutions as text only");
+        }
+        if (options.determinant && (options.format == OutputFormat.BINARY || options.report || options.mixedPrecision
+                || options.throughput)) {
+            throw new IllegalArgumentException("The determinants are written as text only");
+        }
+        return options.withInputs(inputs);
+    }
+
+    /**
+     * Returns the value of an option.
+     *
+     * @param args   the arguments.
+     * @param index  the index of the value.
+     * @param option the option.
+     * @return the value.
+     * @throws IllegalArgumentException if the value is missing.
+     */
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + option);
+        }
+        return args[index];
+    }
+
+    /**
+     * Returns the options with the given number of systems solved at the same time.
+     *
+     * @param workers the number of workers.
+     * @return the modified options.
+     * @throws IllegalArgumentException if the number of workers is not positive.
+     */
+    public BatchOptions withWorkers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Workers must be positive: " + workers);
+        }
+        return new BatchOptions(workers, format, output, report, mixedPrecision, metrics, throughput, determinant, help,
+                inputs);
+    }
+
+    /**
+     * Returns the options with the given format of the results.
+     *
+     * @param format the format.
+     * @return the modified options.
+     */
+    public BatchOptions withFormat(OutputFormat format) {
+        return new BatchOptions(workers, format, output, report, mixedPrecision, metrics, throughput, determinant, help,
+                inputs);
+    }
+
+    /**
+     * Returns the options with the given output.
+     *
+     * @param output the output file, the output directory of the binary format or {@code null} for the standard
+     *               output.
+     * @return the modified options.
+     */
+    public BatchOptions withOutput(Path output) {
+        return new BatchOptions(workers, format, output, report, mixedPrecision, metrics, throughput, determinant, help,
+                inputs);
+    }
+
+    /**
+     * Returns the options writing the whole reports or the solutions only.
+     *
+     * @param report true to write the whole reports.
+     * @return the modified options.
+     */
+    public BatchOptions withReport(boolean report) {
+        return new BatchOptions(workers, format, output, report, mixedPrecision, metrics, throughput, determinant, help,
+                inputs);
+    }
+
+    /**
+     * Returns the options factorizing in single precision with iterative refinement or in double precision.
+     *
+     * @param mixedPrecision true to factorize by {@link SolverBackend#MIXED_PRECISION}.
+     * @return the modified options.
+     */
+    public BatchOptions withMixedPrecision(boolean mixedPrecision) {
+        return new BatchOptions(workers, format, output, report, mixedPrecision, metrics, throughput, determinant, help,
+                inputs);
+    }
+
+    /**
+     * Returns the options writing the solver metrics to a file at the end of the run.
+     *
+     * @param metrics the file of the metrics or {@code null} to skip them.
+     * @return the modified options.
+     */
+    public BatchOptions withMetrics(Path metrics) {
+        return new BatchOptions(workers, format, output, report, mixedPrecision, metrics, throughput, determinant, help,
+                inputs);
+    }
+
+    /**
+     * Returns the options solving the systems with vectors in batches on the throughput engine or one by one.
+     *
+     * @param throughput true to solve by {@link assignment.model.ThroughputEngine}.
+     * @return the modified options.
+     */
+    public BatchOptions withThroughput(boolean throughput) {
+        return new BatchOptions(workers, format, output, report, mixedPrecision, metrics, throughput, determinant, help,
+                inputs);
+    }
+
+    /**
+     * Returns the options computing only the determinants of the matrices or solving the systems.
+     *
+     * @param determinant true to compute only the determinants by {@link assignment.model.LinearEquation#determinant}.
+     * @return the modified options.
+     */
+    public BatchOptions withDeterminant(boolean determinant) {
+        return new BatchOptions(workers, format, output, report, mixedPrecision, metrics, throughput, determinant, help,
+                inputs);
+    }
+
+    /**
+     * Returns the options printing only the help.
+     *
+     * @param help true to print only the help.
+     * @return the modified options.
+     */
+    public BatchOptions withHelp(boolean help) {
+        return new BatchOptions(workers, format, output, report, mixedPrecision, metrics, throughput, determinant, help,
+                inputs);
+    }
+
+    /**
+     * Returns the options with the given input files.
+     *
+     * @param inputs the input files, {@code "-"} stands for the standard input.
+     * @return the modified options.
+     */
+    public BatchOptions withInputs(List<String> inputs) {
+        return new BatchOptions(workers, format, output, report, mixedPrecision, metrics, throughput, determinant, help,
+                List.copyOf(inputs));
+    }
+
+    /**
+     * Returns the number of systems solved at the same time.
+     *
+     * @return the number of workers.
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Returns the format of the results.
+     *
+     * @return the format.
+     */
+    public OutputFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the output.
+     *
+     * @return the output file or directory or {@code null} for the standard output.
+     */
+    public Path getOutput() {
+        return output;
+    }
+
+    /**
+     * Checks if the whole reports are written.
+     *
+     * @return true for the whole reports, false for the solutions only.
+     */
+    public boolean isReport() {
+        return report;
+    }
+
+    /**
+     * Checks if the matrices are factorized in single precision with iterative refinement.
+     *
+     * @return true if the backend is {@link SolverBackend#MIXED_PRECISION}.
+     */
+    public boolean isMixedPrecision() {
+        return mixedPrecision;
+    }
+
+    /**
+     * Returns the file of the solver metrics.
+     *
+     * @return the file or {@code null} if the metrics are not written.
+     */
+    public Path getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Checks if the systems with vectors are solved in batches by the throughput engine.
+     *
+     * @return true if the systems are solved by {@link assignment.model.ThroughputEngine}.
+     */
+    public boolean isThroughput() {
+        return throughput;
+    }
+
+    /**
+     * Checks if only the determinants of the matrices are computed.
+     *
+     * @return true if the vectors are ignored and the determinants are written instead of the solutions.
+     */
+    public boolean isDeterminant() {
+        return determinant;
+    }
+
+    /**
+     * Checks if only the help is printed.
+     *
+     * @return true if only the help is printed.
+     */
+    public boolean isHelp() {
+        return help;
+    }
+
+    /**
+     * Returns the input files.
+     *
+     * @return the file names, an empty list stands for the standard input.
+     */
+    public List<String> getInputs() {
+        return inputs;
+    }
+}
@@ -0,0 +1,508 @@
+package assignment.cli;
+
+import assignment.exception.LinearEquationException;
+import assignment.exception.MatrixException;
+import assignment.exception.VectorException;
+import assignment.model.Determinant;
+import assignment.model.LinearEquation;
+import assignment.model.MatrixParser;
+import assignment.model.SolverBackend;
+import assignment.model.SolverOptions;
+import assignment.model.SystemBatch;
+import assignment.model.ThroughputEngine;
+import assignment.report.ComputationResult;
+import assignment.report.ResultFile;
+import assignment.report.ResultFormatter;
+import org.apache.commons.math3.linear.ArrayRealVector;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves the systems of the inputs on a pool of workers and writes the results in the order of the input.
+ * <br>The inputs are read one system at a time while the workers solve the systems read before; at most
+ * {@link BatchRunner#IN_FLIGHT_PER_WORKER} systems per worker are read ahead, so the memory does not grow with the
+ * number of systems. The processors are shared between the workers: every system is factorized with
+ * {@code processors / workers} threads.
+ * <br>The text results are written by the calling thread, the binary files by the workers.
+ * <br>With {@link BatchOptions#isThroughput()} the calling thread parses {@link BatchRunner#THROUGHPUT_CHUNK} systems
+ * at a time into one {@link SystemBatch}, which the workers of a {@link ThroughputEngine} solve together.
+ * <br>With {@link BatchOptions#isDeterminant()} the workers compute only the determinants of the matrices by
+ * {@link LinearEquation#determinant(String, SolverOptions)}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see BatchOptions
+ */
+public class BatchRunner {
+
+    /**
+     * The number of systems read ahead for every worker.
+     */
+    private static final int IN_FLIGHT_PER_WORKER = 2;
+
+    /**
+     * The number of systems parsed into one batch of the throughput engine.
+     */
+    private static final int THROUGHPUT_CHUNK = 1 << 14;
+
+    /**
+     * The name of the standard input.
+     */
+    private static final String STDIN = "-";
+
+    /**
+     * The options of the command line.
+     */
+    private final BatchOptions options;
+
+    /**
+     * The options of the solver used by the workers.
+     */
+    private final SolverOptions solverOptions;
+
+    /**
+     * The destination of the text results or {@code null} for the binary format.
+     */
+    private final Writer output;
+
+    /**
+     * The destination of the error messages.
+     */
+    private final PrintStream errors;
+
+    /**
+     * The formatter of the solutions, used only by the calling thread.
+     */
+    private final ResultFormatter formatter = new ResultFormatter();
+
+    /**
+     * The number of systems with a result.
+     */
+    private int solved;
+
+    /**
+     * The number of singular matrices.
+     */
+    private int singular;
+
+    /**
+     * The number of systems which could not be read or solved.
+     */
+    private int failed;
+
+    /**
+     * Creates the runner.
+     *
+     * @param options the options of the command line.
+     * @param output  the destination of the text results, it is not closed, or {@code null} for the binary format.
+     * @param errors  the destination of the error messages.
+     */
+    public BatchRunner(BatchOptions options, Writer output, PrintStream errors) {
+        this.options = options;
+        this.output = output;
+        this.errors = errors;
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.solverOptions = SolverOptions.defaults()
+                .withParallelism(Math.max(1, processors / options.getWorkers()))
+                .withBackend(options.isMixedPrecision() ? SolverBackend.MIXED_PRECISION : SolverBackend.BLOCKED);
+    }
+
+    /**
+     * Solves every system of the inputs.
+     *
+     * @throws IOException          if an input can not be read or the text results can not be written.
+     * @throws InterruptedException if the thread was interrupted while waiting for a result.
+     */
+    public void run() throws IOException, InterruptedException {
+        if (options.isThroughput()) {
+            runThroughput();
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(options.getWorkers(), new WorkerFactory());
+        try {
+            Deque<Future<Outcome>> pending = new ArrayDeque<>();
+            int limit = IN_FLIGHT_PER_WORKER * options.getWorkers();
+            int nextIndex = 1;
+            List<String> inputs = options.getInputs().isEmpty() ? List.of(STDIN) : options.getInputs();
+            for (String input : inputs) {
+                try (SystemReader reader = open(input, nextIndex)) {
+                    InputSystem system;
+                    while ((system = reader.next()) != null) {
+                        InputSystem task = system;
+                        pending.add(executor.submit(() -> solve(task)));
+                        if (pending.size() >= limit) {
+                            write(pending.poll());
+                        }
+                    }
+                    nextIndex = reader.getNextIndex();
+                }
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Solves every system of the inputs in batches on the throughput engine.
+     * <br>The systems with a vector are parsed into the batch; the inversions, the coordinate format and the input
+     * errors are handled one by one as by the workers.
+     *
+     * @throws IOException if an input can not be read or the text results can not be written.
+     */
+    private void runThroughput() throws IOException {
+        ThroughputEngine engine = new ThroughputEngine(options.getWorkers());
+        SystemBatch batch = new SystemBatch(THROUGHPUT_CHUNK, 4);
+        List<Outcome> chunk = new ArrayList<>(THROUGHPUT_CHUNK);
+        int nextIndex = 1;
+        List<String> inputs = options.getInputs().isEmpty() ? List.of(STDIN) : options.getInputs();
+        for (String input : inputs) {
+            try (SystemReader reader = open(input, nextIndex)) {
+                InputSystem system;
+                while ((system = reader.next()) != null) {
+                    chunk.add(add(batch, system));
+                    if (chunk.size() == THROUGHPUT_CHUNK) {
+                        writeChunk(engine, batch, chunk);
+                    }
+                }
+                nextIndex = reader.getNextIndex();
+            }
+        }
+        writeChunk(engine, batch, chunk);
+    }
+
+    /**
+     * Parses a system with a vector into the batch, or solves any other system at once.
+     *
+     * @param batch  the batch of the throughput engine.
+     * @param system the system.
+     * @return the outcome with the index of the system in the batch, or the results or the error.
+     */
+    private Outcome add(SystemBatch batch, InputSystem system) {
+        String matrixText = system.getMatrixText();
+        if (!system.hasVector() || MatrixParser.isCoordinateFormat(matrixText)) {
+            return solve(system);
+        }
+        double[] matrix;
+        double[] vector;
+        try {
+            MatrixParser parser = new MatrixParser(matrixText);
+            matrix = parser.parseMatrix();
+            if (parser.getRows() != parser.getColumns()) {
+                return new Outcome(system, null, new MatrixException(new IllegalArgumentException(
+                        "Matrix is not square: " + parser.getRows() + "x" + parser.getColumns())).getUserMessage());
+            }
+        } catch (IOException | RuntimeException ex) {
+            return new Outcome(system, null, new MatrixException(ex).getUserMessage());
+        }
+        try {
+            vector = new MatrixParser(system.getVectorText()).parseVector();
+        } catch (IOException | RuntimeException ex) {
+            return new Outcome(system, null, new VectorException(ex).getUserMessage());
+        }
+        if (vector.length * vector.length != matrix.length) {
+            return new Outcome(system, null, new LinearEquationException(new IllegalArgumentException(
+                    vector.length + " != " + (int) Math.sqrt(matrix.length))).getUserMessage());
+        }
+        return new Outcome(system, batch.add(matrix, vector));
+    }
+
+    /**
+     * Solves the batch and writes the outcomes of the chunk in the order of the input, then clears both.
+     *
+     * @param engine the throughput engine.
+     * @param batch  the batch of the chunk.
+     * @param chunk  the outcomes of the systems of the chunk.
+     * @throws IOException if the text can not be written.
+     */
+    private void writeChunk(ThroughputEngine engine, SystemBatch batch, List<Outcome> chunk) throws IOException {
+        engine.solve(batch);
+        for (Outcome outcome : chunk) {
+            if (outcome.slot < 0) {
+                write(outcome);
+                continue;
+            }
+            solved++;
+            if (batch.isSingular(outcome.slot)) {
+                singular++;
+            }
+            if (output == null) {
+                continue;
+            }
+            if (solved + failed > 1) {
+                output.write(SystemReader.DELIMITER + "\n");
+            }
+            if (batch.isSingular(outcome.slot)) {
+                output.write("Singular matrix\n");
+            } else {
+                StringBuilder text = new StringBuilder();
+                formatter.appendVector(text, new ArrayRealVector(batch.getSolution(outcome.slot), false));
+                output.append(text);
+            }
+        }
+        batch.clear();
+        chunk.clear();
+    }
+
+    /**
+     * Opens the reader of an input.
+     *
+     * @param input      the file name or {@code "-"} for the standard input.
+     * @param firstIndex the index of the first system of the input.
+     * @return the reader of the systems in UTF-8.
+     * @throws IOException if the file can not be opened.
+     */
+    private SystemReader open(String input, int firstIndex) throws IOException {
+        if (input.equals(STDIN)) {
+            return new SystemReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), "stdin", firstIndex);
+        }
+        return new SystemReader(Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8), input, firstIndex);
+    }
+
+    /**
+     * Solves one system on a worker; the binary results are written to the output directory.
+     *
+     * @param system the system.
+     * @return the results or the error message.
+     */
+    private Outcome solve(InputSystem system) {
+        try {
+            if (options.isDeterminant()) {
+                return new Outcome(system, LinearEquation.determinant(system.getMatrixText(), solverOptions));
+            }
+            ComputationResult result = system.hasVector()
+                    ? ComputationResult.solve(new LinearEquation(system.getMatrixText(), system.getVectorText(),
+                    solverOptions))
+                    : ComputationResult.invert(new LinearEquation(system.getMatrixText(), solverOptions));
+            if (options.getFormat() == BatchOptions.OutputFormat.BINARY) {
+                ResultFile.writeBinary(result, binaryFile(system));
+            }
+            return new Outcome(system, result, null);
+        } catch (LinearEquationException ex) {
+            return new Outcome(system, null, ex.getUserMessage());
+        } catch (IOException ex) {
+            return new Outcome(system, null, "Error! Saved failed. " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns the binary file of the system.
+     *
+     * @param system the system.
+     * @return the file {@code system-NNNNNN.bin} in the output directory.
+     */
+    private Path binaryFile(InputSystem system) {
+        return options.getOutput().resolve(String.format("system-%06d.bin", system.getIndex()));
+    }
+
+    /**
+     * Waits for the results of a system and writes them.
+     *
+     * @param future the results of the system.
+     * @throws IOException          if the text can not be written.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    private void write(Future<Outcome> future) throws IOException, InterruptedException {
+        try {
+            write(future.get());
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Worker failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Writes the results of a system.
+     * <br>Text results of consecutive systems are separated by the line {@value SystemReader#DELIMITER}; a singular
+     * matrix or an error is written in place of the solution, so the output keeps one block per input system.
+     * <br>Errors and the warnings of ill-conditioned matrices are printed to the error stream.
+     *
+     * @param outcome the results or the error of the system.
+     * @throws IOException if the text can not be written.
+     */
+    private void write(Outcome outcome) throws IOException {
+        ComputationResult result = outcome.result;
+        Determinant determinant = outcome.determinant;
+        if (outcome.error != null) {
+            failed++;
+            errors.println(outcome.system.getSource() + ": system " + outcome.system.getIndex() + ": "
+                    + outcome.error);
+        } else if (determinant != null) {
+            solved++;
+            if (determinant.getSign() == 0) {
+                singular++;
+            }
+        } else {
+            solved++;
+            if (result.isSingular()) {
+                singular++;
+            } else if (result.isIllConditioned()) {
+                errors.println(outcome.system.getSource() + ": system " + outcome.system.getIndex()
+                        + ": warning: ill-conditioned matrix, reciprocal condition number = "
+                        + result.getReciprocalCondition());
+            }
+        }
+        if (output == null) {
+            return;
+        }
+        if (solved + failed > 1) {
+            output.write(SystemReader.DELIMITER + "\n");
+        }
+        if (outcome.error != null) {
+            output.write(outcome.error + "\n");
+        } else if (determinant != null) {
+            output.write("Determinant = " + determinant + "\nSign = " + determinant.getSign()
+                    + "\nLogarithm of the absolute value = " + determinant.getLogAbsolute() + "\n");
+        } else if (options.isReport()) {
+            result.toReport().writeTo(output);
+            output.write('\n');
+        } else if (result.isSingular()) {
+            output.write("Singular matrix\n");
+        } else {
+            StringBuilder text = new StringBuilder();
+            if (result.getSolution() != null) {
+                formatter.appendVector(text, result.getSolution());
+            } else {
+                formatter.appendMatrix(text, result.getInverseMatrix());
+            }
+            output.append(text);
+        }
+    }
+
+    /**
+     * Returns the number of systems with a result, including the singular ones.
+     *
+     * @return the number of solved systems.
+     */
+    public int getSolved() {
+        return solved;
+    }
+
+    /**
+     * Returns the number of singular matrices.
+     *
+     * @return the number of singular systems.
+     */
+    public int getSingular() {
+        return singular;
+    }
+
+    /**
+     * Returns the number of systems which could not be read or solved.
+     *
+     * @return the number of failed systems.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * The results of one system: the computation or the error.
+     */
+    private static final class Outcome {
+
+        /**
+         * The system.
+         */
+        final InputSystem system;
+
+        /**
+         * The results or {@code null} if the system failed.
+         */
+        final ComputationResult result;
+
+        /**
+         * The determinant if only the determinant was computed or {@code null}.
+         */
+        final Determinant determinant;
+
+        /**
+         * The error message or {@code null}.
+         */
+        final String error;
+
+        /**
+         * The index of the system in the batch of the throughput engine or -1.
+         */
+        final int slot;
+
+        /**
+         * Creates the outcome.
+         *
+         * @param system the system.
+         * @param result the results or {@code null}.
+         * @param error  the error message or {@code null}.
+         */
+        Outcome(InputSystem system, ComputationResult result, String error) {
+            this.system = system;
+            this.result = result;
+            this.determinant = null;
+            this.error = error;
+            this.slot = -1;
+        }
+
+        /**
+         * Creates the outcome of a system of which only the determinant was computed.
+         *
+         * @param system      the system.
+         * @param determinant the determinant of the matrix.
+         */
+        Outcome(InputSystem system, Determinant determinant) {
+            this.system = system;
+            this.result = null;
+            this.determinant = determinant;
+            this.error = null;
+            this.slot = -1;
+        }
+
+        /**
+         * Creates the outcome of a system solved by the throughput engine.
+         *
+         * @param system the system.
+         * @param slot   the index of the system in the batch.
+         */
+        Outcome(InputSystem system, int slot) {
+            this.system = system;
+            this.result = null;
+            this.determinant = null;
+            this.error = null;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * Creates the daemon worker threads named {@code solver-N}.
+     */
+    private static final class WorkerFactory implements ThreadFactory {
+
+        /**
+         * The number of the next thread.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "solver-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package assignment.cli;
+
+/**
+ * One linear system read from the input of the command line: the text of the matrix and of the optional vector.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SystemReader
+ */
+public final class InputSystem {
+
+    /**
+     * The name of the input, a file name or {@code "stdin"}.
+     */
+    private final String source;
+
+    /**
+     * The position of the system in the whole batch, counted from 1.
+     */
+    private final int index;
+
+    /**
+     * The text of the matrix.
+     */
+    private final String matrixText;
+
+    /**
+     * The text of the vector or {@code null} to compute the inverse.
+     */
+    private final String vectorText;
+
+    /**
+     * Creates the system.
+     *
+     * @param source     the name of the input.
+     * @param index      the position of the system in the whole batch, counted from 1.
+     * @param matrixText the text of the matrix.
+     * @param vectorText the text of the vector or {@code null} to compute the inverse.
+     */
+    public InputSystem(String source, int index, String matrixText, String vectorText) {
+        this.source = source;
+        this.index = index;
+        this.matrixText = matrixText;
+        this.vectorText = vectorText;
+    }
+
+    /**
+     * Returns the name of the input.
+     *
+     * @return a file name or {@code "stdin"}.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the position of the system in the whole batch.
+     *
+     * @return the index counted from 1.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the text of the matrix.
+     *
+     * @return the matrix in the format of {@link assignment.model.MatrixParser}.
+     */
+    public String getMatrixText() {
+        return matrixText;
+    }
+
+    /**
+     * Returns the text of the vector.
+     *
+     * @return the vector or {@code null} if the inverse is computed.
+     */
+    public String getVectorText() {
+        return vectorText;
+    }
+
+    /**
+     * Checks if the system has a right-hand side.
+     *
+     * @return true if the system is solved, false if the matrix is inverted.
+     */
+    public boolean hasVector() {
+        return vectorText != null;
+    }
+}
@@ -0,0 +1,121 @@
+package assignment.cli;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader of the linear systems of one input, one system at a time.
+ * <br>Systems are separated by a line {@value SystemReader#DELIMITER}. Within a system the matrix comes first, one
+ * row per line, and the vector follows after an empty line; a system without the vector is inverted. Empty lines
+ * before the matrix are skipped and an input may end with the delimiter, so
+ * <pre>
+ * 4 3
+ * 6 3
+ *
+ * 1 2
+ * ---
+ * 2 0
+ * 0 2
+ * </pre>
+ * is a system A × x = b followed by the inversion of a matrix.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see InputSystem
+ */
+public class SystemReader implements Closeable {
+
+    /**
+     * The line separating two systems.
+     */
+    public static final String DELIMITER = "---";
+
+    /**
+     * The size of the character buffer.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The input.
+     */
+    private final BufferedReader reader;
+
+    /**
+     * The name of the input.
+     */
+    private final String source;
+
+    /**
+     * The index of the next system.
+     */
+    private int nextIndex;
+
+    /**
+     * Creates the reader.
+     *
+     * @param reader     the input, closed by {@link SystemReader#close()}.
+     * @param source     the name of the input, a file name or {@code "stdin"}.
+     * @param firstIndex the index of the first system in the whole batch.
+     */
+    public SystemReader(Reader reader, String source, int firstIndex) {
+        this.reader = new BufferedReader(reader, BUFFER_SIZE);
+        this.source = source;
+        this.nextIndex = firstIndex;
+    }
+
+    /**
+     * Reads the next system.
+     *
+     * @return the system or {@code null} at the end of the input.
+     * @throws IOException if the input can not be read.
+     */
+    public InputSystem next() throws IOException {
+        StringBuilder matrix = new StringBuilder();
+        StringBuilder vector = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.equals(DELIMITER)) {
+                if (matrix.length() > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (trimmed.isEmpty()) {
+                if (matrix.length() > 0 && vector == null) {
+                    vector = new StringBuilder();
+                }
+            } else if (vector != null) {
+                vector.append(line).append('\n');
+            } else {
+                matrix.append(line).append('\n');
+            }
+        }
+        if (matrix.length() == 0) {
+            return null;
+        }
+        String vectorText = vector != null && vector.length() > 0 ? vector.toString() : null;
+        return new InputSystem(source, nextIndex++, matrix.toString(), vectorText);
+    }
+
+    /**
+     * Returns the index of the system read next.
+     *
+     * @return the index following the last system read.
+     */
+    public int getNextIndex() {
+        return nextIndex;
+    }
+
+    /**
+     * Closes the input.
+     *
+     * @throws IOException if the input can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
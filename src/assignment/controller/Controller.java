@@ -1,19 +1,38 @@
 package assignment.controller;
 
+import assignment.exception.LinearEquationException;
 import assignment.exception.MatrixException;
 import assignment.exception.VectorException;
+import assignment.model.ComputationStage;
 import assignment.model.LinearEquation;
+import assignment.model.SolverOptions;
+import assignment.report.ComputationResult;
+import assignment.report.Report;
+import assignment.report.ResultFile;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.ScrollBar;
 import javafx.scene.control.TextArea;
 import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The main controller of the application.
@@ -38,12 +57,27 @@ public class Controller {
     @FXML
     private TextArea bTextArea;
     /**
-     * Display area for the results.
+     * Display list for the results, its items are the indexes of the lines of {@link Controller#report}.
+     * <br>Only the lines of the visible cells are formatted.
      *
-     * @see TextArea
+     * @see ListView
+     */
+    @FXML
+    private ListView<Integer> displayListView;
+    /**
+     * Scroll bar selecting the first column shown by {@link Controller#displayListView}.
+     *
+     * @see ScrollBar
+     */
+    @FXML
+    private ScrollBar columnScrollBar;
+    /**
+     * Check box showing the summary of the results instead of all rows.
+     *
+     * @see CheckBox
      */
     @FXML
-    private TextArea displayTextArea;
+    private CheckBox summaryCheckBox;
     /**
      * Text field for save or load message.
      *
@@ -58,6 +92,68 @@ public class Controller {
      */
     @FXML
     private Text errorText;
+    /**
+     * Progress of the running computation.
+     *
+     * @see ProgressBar
+     */
+    @FXML
+    private ProgressBar progressBar;
+    /**
+     * Stage of the running computation.
+     *
+     * @see Label
+     */
+    @FXML
+    private Label progressLabel;
+    /**
+     * Button cancelling the running computation.
+     *
+     * @see Button
+     */
+    @FXML
+    private Button cancelBtn;
+
+    /**
+     * The executor of the computations: one worker thread and at most one waiting task.
+     * <br>Starting a computation cancels the previous one, so repeated requests do not queue up.
+     */
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), runnable -> {
+        Thread thread = new Thread(runnable, "computation");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    /**
+     * The number of matrix columns shown at once.
+     */
+    private static final int COLUMN_WINDOW = 8;
+
+    /**
+     * The number of rows shown at each end of a matrix in the summary.
+     */
+    private static final int SUMMARY_ROWS = 5;
+
+    /**
+     * The latest computation or {@code null} if none is running.
+     */
+    private ComputationTask currentTask;
+
+    /**
+     * The results shown in {@link Controller#displayListView} or {@code null}.
+     */
+    private Report report;
+
+    /**
+     * The results of {@link Controller#report} or {@code null} if the report was loaded from a text file.
+     */
+    private ComputationResult result;
+
+    /**
+     * The report shown, {@link Controller#report} or its summary.
+     */
+    private Report shownReport = Report.builder().build();
 
     /**
      * Default constructor.
@@ -66,138 +162,297 @@ public class Controller {
     }
 
     /**
-     * Computes the LU-decomposition of the matrix with pivoting.
+     * Sets up {@link Controller#displayListView}: every cell formats its line of the shown report, limited to the
+     * columns selected by {@link Controller#columnScrollBar}.
+     */
+    @FXML
+    void initialize() {
+        displayListView.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Integer index, boolean empty) {
+                super.updateItem(index, empty);
+                setText(empty || index == null || index >= shownReport.size() ? null
+                        : shownReport.getLine(index, (int) columnScrollBar.getValue(), COLUMN_WINDOW));
+            }
+        });
+        columnScrollBar.valueProperty().addListener((observable, oldValue, newValue) -> displayListView.refresh());
+        showReport(null);
+    }
+
+    /**
+     * Computes the LU-decomposition of the matrix with pivoting in the background.
      * <br>If matrix is singular and not exist LU-decomposition, it shows the original matrix and communities.
      * <br>If matrix is non-singular and exists LU-decomposition, it shows the original, lower and upper matrix, original vector, solution and determinant.
+     * <br>The header names the decomposition chosen from the structure of the matrix.
+     * <br>A computation still running is cancelled.
      * <br>Clears {@link Controller#errorText} and {@link Controller#savedOrLoadedText}.
      */
     @FXML
     void computeLUWithPivoting() {
-        try {
-            clearErrorText();
-            clearSavedOrLoadedText();
-            LinearEquation linearEquation = new LinearEquation(aTextArea.getText(), bTextArea.getText());
-            StringBuffer stringBuff = new StringBuffer();
-
-            if (!linearEquation.isLUDecomposition() && linearEquation.isSingularMatrix()) {
-                errorText.setText("No LU decomposition singular matrix");
-                stringBuff.append("No LU decomposition singular matrix\n");
-                stringBuff.append("Original matrix\n").append(prepareMatrix(linearEquation.getMatrix())).append("\n");
-                stringBuff.append("Original vector\n").append(prepareVector(linearEquation.getVector())).append("\n");
-                stringBuff.append("Singular matrix");
-            } else {
-                stringBuff.append("LU Decomposition with scaled partial pivoting\n");
-                stringBuff.append("Original matrix\n").append(prepareMatrix(linearEquation.getMatrix())).append("\n");
-                stringBuff.append("Original vector\n").append(prepareVector(linearEquation.getVector())).append("\n");
-                stringBuff.append("Lower matrix\n").append(prepareMatrix(linearEquation.getLowerMatrix())).append("\n");
-                stringBuff.append("Upper matrix\n").append(prepareMatrix(linearEquation.getUpperMatrix())).append("\n");
-                stringBuff.append("Solution\n").append(prepareVector(linearEquation.getSolution())).append("\n");
-                stringBuff.append("Determinant = ").append(linearEquation.getDeterminant());
+        clearErrorText();
+        clearSavedOrLoadedText();
+        String matrixString = aTextArea.getText();
+        String vectorString = bTextArea.getText();
+        start(new ComputationTask("Error in input data.") {
+            @Override
+            protected ComputationResult call() throws Exception {
+                LinearEquation linearEquation = new LinearEquation(matrixString, vectorString, options());
+                stageStarted(ComputationStage.SOLVE);
+                ComputationResult result = ComputationResult.solve(linearEquation);
+                return format(result);
             }
-            displayTextArea.setText(stringBuff.toString());
-        } catch (MatrixException ex) {
-            errorText.setText("Error in matrix input.");
-        } catch (VectorException ex) {
-            errorText.setText("Error in vector input.");
-        } catch (Exception ex) {
-            errorText.setText("Error in input data.");
-        }
+        });
     }
 
     /**
-     * Computes the inverse of the matrix.
+     * Computes the inverse of the matrix in the background.
      * <br>If matrix is singular and not exist LU-decomposition, it shows the original matrix and communities.
      * <br>If matrix is non-singular and exists LU-decomposition, it shows the original, lower, upper and inverse matrix and determinant.
+     * <br>A computation still running is cancelled.
      * <br>Clears {@link Controller#errorText} and {@link Controller#savedOrLoadedText}.
      */
     @FXML
     public void computeInverse() {
-        try {
-            clearErrorText();
-            clearSavedOrLoadedText();
-            LinearEquation linearEquation = new LinearEquation(aTextArea.getText());
-            StringBuffer stringBuff = new StringBuffer();
-            if (!linearEquation.isLUDecomposition() && linearEquation.isSingularMatrix()) {
-                errorText.setText("No LU decomposition singular matrix");
-                stringBuff.append("No LU decomposition singular matrix\n");
-                stringBuff.append("Original matrix\n").append(prepareMatrix(linearEquation.getMatrix())).append("\n");
-                stringBuff.append("Singular matrix");
-            } else {
-                stringBuff.append("Matrix Inversion\n");
-                stringBuff.append("Original matrix\n").append(prepareMatrix(linearEquation.getMatrix())).append("\n");
-                stringBuff.append("Lower matrix\n").append(prepareMatrix(linearEquation.getLowerMatrix())).append("\n");
-                stringBuff.append("Upper matrix\n").append(prepareMatrix(linearEquation.getUpperMatrix())).append("\n");
-                stringBuff.append("Inverse matrix\n").append(prepareMatrix(linearEquation.getInverseMatrix())).append("\n");
-                stringBuff.append("Determinant = ").append(linearEquation.getDeterminant());
+        clearErrorText();
+        clearSavedOrLoadedText();
+        String matrixString = aTextArea.getText();
+        start(new ComputationTask("Error in matrix input.") {
+            @Override
+            protected ComputationResult call() throws Exception {
+                LinearEquation linearEquation = new LinearEquation(matrixString, options());
+                stageStarted(ComputationStage.SOLVE);
+                ComputationResult result = ComputationResult.invert(linearEquation);
+                return format(result);
             }
-            displayTextArea.setText(stringBuff.toString());
-        } catch (Exception ex) {
-            errorText.setText("Error in matrix input.");
+        });
+    }
+
+    /**
+     * Reads the matrix from the text file chosen by the user and computes its LU-decomposition in the background while
+     * the file is read.
+     * <br>The matrix is not shown in {@link Controller#aTextArea}, so files too large for a text area can be solved.
+     * If {@link Controller#bTextArea} contains a vector, the system is solved, otherwise the matrix is inverted.
+     * <br>A computation still running is cancelled.
+     * <br>Clears {@link Controller#errorText} and {@link Controller#savedOrLoadedText}.
+     */
+    @FXML
+    public void computeFromMatrixFile() {
+        clearErrorText();
+        clearSavedOrLoadedText();
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open Matrix File");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Text Files", "*.txt", "*.mtx"),
+                new FileChooser.ExtensionFilter("All Files", "*.*"));
+        File selectedFile = fileChooser.showOpenDialog(null);
+        if (selectedFile == null) {
+            return;
         }
+        Path matrixFile = selectedFile.toPath();
+        String vectorString = bTextArea.getText();
+        boolean solve = vectorString != null && !vectorString.isBlank();
+        start(new ComputationTask(solve ? "Error in input data." : "Error in matrix input.") {
+            @Override
+            protected ComputationResult call() throws Exception {
+                ComputationResult result;
+                if (solve) {
+                    LinearEquation linearEquation = new LinearEquation(matrixFile, vectorString, options());
+                    stageStarted(ComputationStage.SOLVE);
+                    result = ComputationResult.solve(linearEquation);
+                } else {
+                    LinearEquation linearEquation = new LinearEquation(matrixFile, options());
+                    stageStarted(ComputationStage.SOLVE);
+                    result = ComputationResult.invert(linearEquation);
+                }
+                return format(result);
+            }
+        });
     }
 
     /**
-     * Prepares the matrix data.
+     * Cancels the running computation.
+     */
+    @FXML
+    public void cancelComputation() {
+        if (currentTask != null) {
+            currentTask.cancel();
+        }
+    }
+
+    /**
+     * Runs the computation on {@link Controller#EXECUTOR}, superseding the previous one.
+     * <br>The previous task is cancelled, so its thread stops at the next check of cancellation and its result is
+     * never shown. The progress bar and the label follow the new task.
+     *
+     * @param task the computation.
+     */
+    private void start(ComputationTask task) {
+        if (currentTask != null) {
+            currentTask.cancel();
+        }
+        currentTask = task;
+        task.setOnSucceeded(event -> {
+            if (task == currentTask) {
+                ComputationResult result = task.getValue();
+                showResult(result, task.report);
+                errorText.setText(result.isSingular() ? "No LU decomposition singular matrix" : null);
+                finish(task, null);
+            }
+        });
+        task.setOnFailed(event -> {
+            if (task == currentTask) {
+                errorText.setText(describeFailure(task));
+                finish(task, "Failed");
+            }
+        });
+        task.setOnCancelled(event -> {
+            if (task == currentTask) {
+                finish(task, "Cancelled");
+            }
+        });
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressLabel.textProperty().bind(task.messageProperty());
+        cancelBtn.setDisable(false);
+        EXECUTOR.execute(task);
+    }
+
+    /**
+     * Detaches the progress controls from the finished task.
+     *
+     * @param task    the finished task.
+     * @param message the message left in the progress label or {@code null}.
+     */
+    private void finish(ComputationTask task, String message) {
+        progressBar.progressProperty().unbind();
+        progressLabel.textProperty().unbind();
+        progressBar.setProgress(task.getState() == Worker.State.SUCCEEDED ? 1.0 : 0.0);
+        progressLabel.setText(message);
+        cancelBtn.setDisable(true);
+        currentTask = null;
+    }
+
+    /**
+     * Describes the error of the failed computation.
+     *
+     * @param task the failed task.
+     * @return the message for {@link Controller#errorText}.
+     */
+    private String describeFailure(ComputationTask task) {
+        Throwable ex = task.getException();
+        if (ex instanceof MatrixException || ex instanceof VectorException) {
+            return ((LinearEquationException) ex).getUserMessage();
+        }
+        return task.inputError;
+    }
+
+    /**
+     * Shows the computed results in {@link Controller#displayListView} and keeps them for saving in the binary
+     * format.
      *
-     * @param matrix input vector.
-     * @return matrix data in string buffer.
-     */
-    private StringBuffer prepareMatrix(RealMatrix matrix) {
-        StringBuffer stringBuff = new StringBuffer();
-        Arrays.stream(matrix.getData())
-                .forEach(
-                        (row) -> {
-                            Arrays.stream(row)
-                                    .forEach((el) -> stringBuff.append("\t").append(String.format("% 3.7f", el == -0 ? 0 : el)));
-                            stringBuff.append("\n");
-                        }
-                );
-        return stringBuff;
+     * @param result the results.
+     */
+    private void showResult(ComputationResult result) {
+        showResult(result, result.toReport());
     }
 
     /**
-     * Prepares the vector data.
+     * Shows the report of the computed results in {@link Controller#displayListView} and keeps the results for saving
+     * in the binary format.
      *
-     * @param vector input vector.
-     * @return vector data in string buffer.
-     */
-    private StringBuffer prepareVector(RealVector vector) {
-        StringBuffer stringBuff = new StringBuffer();
-        Arrays.stream(vector.toArray())
-                .forEach(
-                        (el) -> stringBuff.append("\t").append(String.format("% .7f", el == -0 ? 0 : el))
-                );
-        stringBuff.append("\n");
-        return stringBuff;
+     * @param result the results.
+     * @param report the report of the results.
+     */
+    private void showResult(ComputationResult result, Report report) {
+        showReport(report);
+        this.result = result;
+    }
+
+    /**
+     * Shows the report in {@link Controller#displayListView}, or its summary if {@link Controller#summaryCheckBox}
+     * is selected.
+     * <br>The results kept for the binary format are dropped, {@link Controller#showResult(ComputationResult)} sets
+     * them.
+     *
+     * @param report the results or {@code null} to clear the display.
+     */
+    private void showReport(Report report) {
+        this.report = report;
+        this.result = null;
+        updateDisplay();
+    }
+
+    /**
+     * Shows {@link Controller#report} or its summary, according to {@link Controller#summaryCheckBox}.
+     * <br>The list gets one item per line; the lines are formatted only when their cells become visible.
+     */
+    @FXML
+    void updateDisplay() {
+        if (report == null) {
+            shownReport = Report.builder().build();
+        } else {
+            shownReport = summaryCheckBox.isSelected() ? report.summary(SUMMARY_ROWS) : report;
+        }
+        int lines = shownReport.size();
+        displayListView.setItems(FXCollections.observableList(new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return lines;
+            }
+        }));
+        columnScrollBar.setMax(Math.max(0, shownReport.getColumnCount() - COLUMN_WINDOW));
+        columnScrollBar.setValue(0);
+        columnScrollBar.setVisibleAmount(COLUMN_WINDOW);
+        displayListView.refresh();
     }
 
     /**
-     * Clears {@link Controller#displayTextArea}.
+     * Clears {@link Controller#displayListView}.
      * <br>Clears {@link Controller#errorText} and {@link Controller#savedOrLoadedText}.
      */
     public void clearOutputs() {
         clearErrorText();
         clearSavedOrLoadedText();
-        displayTextArea.clear();
+        showReport(null);
     }
 
     /**
-     * Saves results form the {@link Controller#displayTextArea} to the file chosen by the user.
+     * Saves the whole results shown in {@link Controller#displayListView} to the file chosen by the user.
+     * <br>A file with the extension {@code .bin} gets the binary format of {@link ResultFile}, any other file the
+     * text streamed line by line.
      * <br>Prints communicates in {@link Controller#savedOrLoadedText}.
      * <br>Clears {@link Controller#errorText}.
      */
     public void saveResults() {
         clearErrorText();
         clearSavedOrLoadedText();
-        if (!displayTextArea.getText().isEmpty()) {
+        if (report != null) {
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Open Resource File");
-            fileChooser.getExtensionFilters().add(
-                    new FileChooser.ExtensionFilter("Text File (*.txt)", "*.txt"));
+            fileChooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("Text File (*.txt)", "*.txt"),
+                    new FileChooser.ExtensionFilter("Binary results (*.bin)", "*.bin"));
             File selectedFile = fileChooser.showSaveDialog(null);
             if (selectedFile != null) {
-                saveTextToFile(displayTextArea.getText(), selectedFile.getAbsolutePath());
-                savedOrLoadedText.setText("Saved!");
+                boolean binary = selectedFile.getName().toLowerCase(Locale.ROOT).endsWith(".bin");
+                if (binary && result == null) {
+                    savedOrLoadedText.setText("Error! Loaded text results can be saved only as text.");
+                    return;
+                }
+                try {
+                    if (binary) {
+                        ResultFile.writeBinary(result, selectedFile.toPath());
+                    } else {
+                        ResultFile.writeText(report, selectedFile.toPath());
+                    }
+                    savedOrLoadedText.setText("Saved!");
+                } catch (IOException ex) {
+                    savedOrLoadedText.setText("Error! Saved failed.");
+                }
             }
         } else{
             savedOrLoadedText.setText("No results! Compute LU factorisation of the matrix with pivoting or inverse of the matrix before saving the results.");
@@ -205,7 +460,9 @@ public class Controller {
     }
 
     /**
-     * Loads results form the file chosen by the user and prints they in {@link Controller#displayTextArea}.
+     * Loads results form the file chosen by the user and prints they in {@link Controller#displayListView}.
+     * <br>Binary files are recognised by their header and their matrices are rebuilt, so they can be saved again in
+     * either format; text files are shown line by line.
      * <br>Prints communicates in {@link Controller#savedOrLoadedText}.
      * <br>Clears {@link Controller#errorText} and {@link Controller#savedOrLoadedText}.
      */
@@ -214,50 +471,27 @@ public class Controller {
         clearSavedOrLoadedText();
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Open Resource File");
-        fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Results", "*.txt", "*.bin"),
+                new FileChooser.ExtensionFilter("Text Files", "*.txt"),
+                new FileChooser.ExtensionFilter("Binary results", "*.bin"));
         File selectedFile = fileChooser.showOpenDialog(null);
         if (selectedFile != null) {
-            displayTextArea.setText(loadTextFromFile(selectedFile));
-            savedOrLoadedText.setText("Loaded!");
+            try {
+                if (ResultFile.isBinary(selectedFile.toPath())) {
+                    showResult(ResultFile.readBinary(selectedFile.toPath()));
+                } else {
+                    showReport(ResultFile.readText(selectedFile.toPath()));
+                }
+                savedOrLoadedText.setText("Loaded!");
+            } catch (IOException ex) {
+                savedOrLoadedText.setText("Error! Loaded failed.");
+            }
         } else {
             savedOrLoadedText.setText("Error! Loaded failed.");
         }
     }
 
-    /**
-     * Loads data form the file.
-     *
-     * @param file the file.
-     * @return the data in {@code String} format.
-     */
-    private String loadTextFromFile(File file) {
-        try {
-            return new String(Files.readAllBytes(Paths.get(file.getAbsolutePath())));
-        } catch (IOException e) {
-            savedOrLoadedText.setText("Error! Loaded failed.");
-        }
-        return null;
-    }
-
-    /**
-     * Saves data to the file.
-     *
-     * @param content  data to save in {@code String} format.
-     * @param fileName the name of the file.
-     */
-    private void saveTextToFile(String content, String fileName) {
-        try {
-            FileOutputStream fos = new FileOutputStream(fileName);
-            DataOutputStream outStream = new DataOutputStream(new BufferedOutputStream(fos));
-            byte[] data=content.getBytes("UTF-8");
-            outStream.write(data);
-            outStream.close();
-        } catch (IOException ex) {
-            savedOrLoadedText.setText("Error! Saved failed.");
-        }
-    }
-
     /**
      * Clears {@link Controller#savedOrLoadedText} field.
      */
@@ -271,4 +505,78 @@ public class Controller {
     private void clearErrorText() {
         errorText.setText(null);
     }
-}
\ No newline at end of file
+
+    /**
+     * A computation of the results running off the JavaFX application thread.
+     * <br>The progress follows the {@link ComputationStage}s; a cancelled task stops at the next stage or between
+     * the blocks of the factorization kernels. The results are formatted lazily by the viewer.
+     */
+    private abstract static class ComputationTask extends Task<ComputationResult> {
+
+        /**
+         * The message shown when the computation fails with an unexpected error.
+         */
+        final String inputError;
+
+        /**
+         * The report of the results, set before the task succeeds.
+         */
+        volatile Report report;
+
+        /**
+         * Creates the task.
+         *
+         * @param inputError the message shown when the computation fails with an unexpected error.
+         */
+        ComputationTask(String inputError) {
+            this.inputError = inputError;
+        }
+
+        /**
+         * Returns the solver options reporting the progress to this task.
+         *
+         * @return the solver options.
+         */
+        SolverOptions options() {
+            return SolverOptions.defaults().withProgressListener(this::stageStarted);
+        }
+
+        /**
+         * Creates the report of the results and computes the norms shown by its summary, so that neither is done on
+         * the JavaFX application thread.
+         *
+         * @param result the results.
+         * @return the results.
+         */
+        ComputationResult format(ComputationResult result) {
+            stageStarted(ComputationStage.FORMAT);
+            Report formatted = result.toReport();
+            formatted.computeNorms();
+            report = formatted;
+            return result;
+        }
+
+        /**
+         * Reports the start of a stage.
+         *
+         * @param stage the started stage.
+         * @throws CancellationException if the task was cancelled.
+         */
+        void stageStarted(ComputationStage stage) {
+            checkCancelled();
+            updateMessage(stage.getDescription());
+            updateProgress(stage.ordinal(), ComputationStage.values().length);
+        }
+
+        /**
+         * Stops the computation if the task was cancelled.
+         *
+         * @throws CancellationException if the task was cancelled.
+         */
+        void checkCancelled() {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+        }
+    }
+}
@@ -9,6 +9,11 @@ package assignment.exception;
  */
 public class LinearEquationException extends Exception {
 
+    /**
+     * The serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
     /**
      * Constructs an {@code LinearEquationException} with the specified detail cause.
      *
@@ -18,4 +23,33 @@ public class LinearEquationException extends Exception {
     public LinearEquationException(Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Returns the message shown to the user: the part of the input which failed followed by the description of the
+     * cause, e.g. {@code Error in matrix input. Invalid number "x" at row 2, column 3}.
+     *
+     * @return the message.
+     */
+    public String getUserMessage() {
+        return describeInput() + describeCause();
+    }
+
+    /**
+     * Describes the part of the input which failed.
+     *
+     * @return the first sentence of {@link LinearEquationException#getUserMessage()}.
+     */
+    protected String describeInput() {
+        return "Error in input data.";
+    }
+
+    /**
+     * Describes the cause of the input error, e.g. the row and column of an invalid number.
+     *
+     * @return the message of the cause preceded by a space or an empty {@code String}.
+     */
+    public String describeCause() {
+        Throwable cause = getCause();
+        return cause != null && cause.getMessage() != null ? " " + cause.getMessage() : "";
+    }
 }
@@ -10,6 +10,11 @@ package assignment.exception;
  */
 public class MatrixException extends LinearEquationException {
 
+    /**
+     * The serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
     /**
      * Constructs an {@code MatrixException} with the specified detail cause.
      *
@@ -19,4 +24,9 @@ public class MatrixException extends LinearEquationException {
     public MatrixException(Throwable cause) {
         super(cause);
     }
+
+    @Override
+    protected String describeInput() {
+        return "Error in matrix input.";
+    }
 }
@@ -10,6 +10,11 @@ package assignment.exception;
  */
 public class VectorException extends LinearEquationException {
 
+    /**
+     * The serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
     /**
      * Constructs an {@code VectorException} with the specified detail cause.
      *
@@ -19,4 +24,9 @@ public class VectorException extends LinearEquationException {
     public VectorException(Throwable cause) {
         super(cause);
     }
+
+    @Override
+    protected String describeInput() {
+        return "Error in vector input.";
+    }
 }
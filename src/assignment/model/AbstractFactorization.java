@@ -0,0 +1,142 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+/**
+ * Base class of factorizations which do not keep the packed LU factors.
+ * <br>By default the multiple right-hand side solve runs {@link Factorization#solve(double[])} column by column;
+ * the inverse and its selected columns are solved for the unit vectors.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see Factorization
+ */
+public abstract class AbstractFactorization implements Factorization {
+
+    /**
+     * The dimension of the matrix.
+     */
+    protected final int n;
+
+    /**
+     * Creates the factorization of a matrix of the given dimension.
+     *
+     * @param n the dimension of the matrix.
+     */
+    protected AbstractFactorization(int n) {
+        this.n = n;
+    }
+
+    @Override
+    public int getDimension() {
+        return n;
+    }
+
+    /**
+     * Checks the dimension of the right-hand side and the singularity of the matrix before a solve.
+     *
+     * @param b the right-hand side vector.
+     * @throws DimensionMismatchException if the vector dimension does not match.
+     * @throws SingularMatrixException    if the decomposed matrix is singular.
+     */
+    protected void checkSolvable(double[] b) {
+        if (b.length != n) {
+            throw new DimensionMismatchException(b.length, n);
+        }
+        if (isSingular()) {
+            throw new SingularMatrixException();
+        }
+    }
+
+    /**
+     * Creates the n × n permutation matrix of the pivot vector.
+     *
+     * @param pivot the pivot vector, row i of the matrix has its one in the column {@code pivot[i]}.
+     * @return the permutation matrix.
+     */
+    protected static FlatRealMatrix permutationMatrix(int[] pivot) {
+        int size = pivot.length;
+        FlatRealMatrix p = new FlatRealMatrix(size, size);
+        for (int i = 0; i < size; i++) {
+            p.getDataRef()[i * size + pivot[i]] = 1.0;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the identity permutation vector.
+     *
+     * @param size the dimension.
+     * @return the vector {@code 0, 1, ..., size - 1}.
+     */
+    protected static int[] identityPivot(int size) {
+        int[] pivot = new int[size];
+        for (int i = 0; i < size; i++) {
+            pivot[i] = i;
+        }
+        return pivot;
+    }
+
+    @Override
+    public double[] solve(double[] b, int columns) {
+        if (columns < 1 || b.length != n * columns) {
+            throw new DimensionMismatchException(b.length, n * Math.max(columns, 1));
+        }
+        double[] x = new double[b.length];
+        double[] column = new double[n];
+        for (int j = 0; j < columns; j++) {
+            for (int i = 0; i < n; i++) {
+                column[i] = b[i * columns + j];
+            }
+            double[] solution = solve(column);
+            for (int i = 0; i < n; i++) {
+                x[i * columns + j] = solution[i];
+            }
+        }
+        return x;
+    }
+
+    @Override
+    public RealMatrix getInverse() {
+        return getInverseColumns(identityPivot(n));
+    }
+
+    /**
+     * Returns the selected columns of the inverse by one multiple right-hand side solve of the unit vectors.
+     *
+     * @param columns the indices of the columns.
+     * @return the n × k matrix of the selected columns.
+     */
+    @Override
+    public RealMatrix getInverseColumns(int... columns) {
+        if (isSingular()) {
+            throw new SingularMatrixException();
+        }
+        double[] units = new double[n * columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            if (columns[j] < 0 || columns[j] >= n) {
+                throw new OutOfRangeException(columns[j], 0, n - 1);
+            }
+            units[columns[j] * columns.length + j] = 1.0;
+        }
+        return new FlatRealMatrix(n, columns.length, solve(units, columns.length));
+    }
+
+    @Override
+    public double[] getInverseDiagonal() {
+        if (isSingular()) {
+            throw new SingularMatrixException();
+        }
+        double[] diagonal = new double[n];
+        double[] unit = new double[n];
+        for (int j = 0; j < n; j++) {
+            unit[j] = 1.0;
+            diagonal[j] = solve(unit)[j];
+            unit[j] = 0.0;
+        }
+        return diagonal;
+    }
+}
@@ -0,0 +1,277 @@
+package assignment.model;
+
+import org.apache.commons.math3.linear.RealMatrix;
+
+/**
+ * LU-decomposition with partial pivoting of a banded matrix, P × A = L × U.
+ * <br>Only the band is stored: row i keeps the columns {@code [i - kl, i + kl + ku]}, where kl and ku are the lower
+ * and upper bandwidths; the extra kl diagonals hold the fill-in of U caused by the row exchanges. The work is
+ * O(n × kl × (kl + ku)) instead of O(n<sup>3</sup>), a tridiagonal matrix is solved in linear time.
+ * <br>The multipliers of every step are kept in the order of the elimination; {@link BandedLUFactorization#getL()}
+ * applies the later row exchanges to them, so the returned factors satisfy P × A = L × U.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SolverPath#BANDED
+ */
+public class BandedLUFactorization extends AbstractFactorization {
+
+    /**
+     * The lower bandwidth.
+     */
+    private final int kl;
+
+    /**
+     * The number of stored columns of every row.
+     */
+    private final int width;
+
+    /**
+     * The band of U, row i starts at {@code i * width} with the column {@code i - kl}.
+     */
+    private final double[] band;
+
+    /**
+     * The multipliers of step k in {@code [k * kl, (k + 1) * kl)}, for the rows below the pivot row.
+     */
+    private final double[] multipliers;
+
+    /**
+     * The row exchanged with row k at step k.
+     */
+    private final int[] swaps;
+
+    /**
+     * True if the number of row exchanges is even.
+     */
+    private boolean even = true;
+
+    /**
+     * True if a pivot smaller than {@link PackedLUFactorization#SINGULARITY_THRESHOLD} was found.
+     */
+    private boolean singular;
+
+    /**
+     * Calculates the LU-decomposition of the given banded matrix.
+     *
+     * @param matrix the matrix to decompose, it is not modified.
+     * @param kl     the lower bandwidth, entries further below the diagonal are ignored.
+     * @param ku     the upper bandwidth, entries further above the diagonal are ignored.
+     */
+    public BandedLUFactorization(FlatRealMatrix matrix, int kl, int ku) {
+        super(matrix.getRowDimension());
+        this.kl = kl;
+        this.width = 2 * kl + ku + 1;
+        this.band = new double[n * width];
+        this.multipliers = new double[n * kl];
+        this.swaps = new int[n];
+        double[] a = matrix.getDataRef();
+        for (int i = 0; i < n; i++) {
+            for (int j = Math.max(0, i - kl); j <= Math.min(n - 1, i + ku); j++) {
+                band[index(i, j)] = a[i * n + j];
+            }
+        }
+        factorize(ku);
+    }
+
+    /**
+     * Returns the position of the entry in the band.
+     *
+     * @param i the row.
+     * @param j the column within the stored band of the row.
+     * @return the index in {@link BandedLUFactorization#band}.
+     */
+    private int index(int i, int j) {
+        return i * width + j - i + kl;
+    }
+
+    /**
+     * Eliminates the band column by column.
+     *
+     * @param ku the upper bandwidth of the matrix.
+     */
+    private void factorize(int ku) {
+        for (int k = 0; k < n; k++) {
+            int last = Math.min(n - 1, k + kl);
+            int p = k;
+            double largest = Math.abs(band[index(k, k)]);
+            for (int i = k + 1; i <= last; i++) {
+                double value = Math.abs(band[index(i, k)]);
+                if (value > largest) {
+                    largest = value;
+                    p = i;
+                }
+            }
+            if (largest < PackedLUFactorization.SINGULARITY_THRESHOLD) {
+                singular = true;
+                return;
+            }
+            swaps[k] = p;
+            int end = Math.min(n - 1, k + kl + ku);
+            if (p != k) {
+                for (int j = k; j <= end; j++) {
+                    double t = band[index(k, j)];
+                    band[index(k, j)] = band[index(p, j)];
+                    band[index(p, j)] = t;
+                }
+                even = !even;
+            }
+            int pivotRow = index(k, k) - k;
+            double pivot = band[pivotRow + k];
+            for (int i = k + 1; i <= last; i++) {
+                int row = index(i, k) - k;
+                double m = band[row + k] / pivot;
+                multipliers[k * kl + i - k - 1] = m;
+                band[row + k] = 0.0;
+                if (m != 0.0) {
+                    for (int j = k + 1; j <= end; j++) {
+                        band[row + j] -= m * band[pivotRow + j];
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public SolverPath getPath() {
+        return SolverPath.BANDED;
+    }
+
+    @Override
+    public RealMatrix getL() {
+        if (singular) {
+            return null;
+        }
+        FlatRealMatrix l = new FlatRealMatrix(n, n);
+        double[] data = l.getDataRef();
+        for (int k = 0; k < n; k++) {
+            int p = swaps[k];
+            if (p != k) {
+                for (int j = 0; j < k; j++) {
+                    double t = data[k * n + j];
+                    data[k * n + j] = data[p * n + j];
+                    data[p * n + j] = t;
+                }
+            }
+            data[k * n + k] = 1.0;
+            for (int i = k + 1; i <= Math.min(n - 1, k + kl); i++) {
+                data[i * n + k] = multipliers[k * kl + i - k - 1];
+            }
+        }
+        return l;
+    }
+
+    @Override
+    public RealMatrix getU() {
+        if (singular) {
+            return null;
+        }
+        FlatRealMatrix u = new FlatRealMatrix(n, n);
+        double[] data = u.getDataRef();
+        int upper = width - kl - 1;
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j <= Math.min(n - 1, i + upper); j++) {
+                data[i * n + j] = band[index(i, j)];
+            }
+        }
+        return u;
+    }
+
+    @Override
+    public RealMatrix getP() {
+        return singular ? null : permutationMatrix(getPivot());
+    }
+
+    @Override
+    public int[] getPivot() {
+        int[] pivot = identityPivot(n);
+        if (!singular) {
+            for (int k = 0; k < n; k++) {
+                int t = pivot[k];
+                pivot[k] = pivot[swaps[k]];
+                pivot[swaps[k]] = t;
+            }
+        }
+        return pivot;
+    }
+
+    @Override
+    public double getDeterminant() {
+        return getLogDeterminant().getValue();
+    }
+
+    @Override
+    public Determinant getLogDeterminant() {
+        if (singular) {
+            return Determinant.ZERO;
+        }
+        Determinant.Product product = new Determinant.Product(even ? 1 : -1);
+        for (int i = 0; i < n; i++) {
+            product.multiply(band[index(i, i)]);
+        }
+        return product.toDeterminant();
+    }
+
+    @Override
+    public boolean isSingular() {
+        return singular;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        checkSolvable(b);
+        double[] x = b.clone();
+        for (int k = 0; k < n; k++) {
+            int p = swaps[k];
+            double xk = x[p];
+            x[p] = x[k];
+            x[k] = xk;
+            if (xk != 0.0) {
+                for (int i = k + 1; i <= Math.min(n - 1, k + kl); i++) {
+                    x[i] -= multipliers[k * kl + i - k - 1] * xk;
+                }
+            }
+        }
+        int upper = width - kl - 1;
+        for (int i = n - 1; i >= 0; i--) {
+            int row = index(i, i) - i;
+            double sum = x[i];
+            for (int j = i + 1; j <= Math.min(n - 1, i + upper); j++) {
+                sum -= band[row + j] * x[j];
+            }
+            x[i] = sum / band[row + i];
+        }
+        return x;
+    }
+
+    /**
+     * Solves A<sup>T</sup> × x = b: the substitution with U<sup>T</sup> runs over the band of U, then the eliminations
+     * are undone in reverse order with the transposed multipliers and row exchanges.
+     */
+    @Override
+    public double[] solveTransposed(double[] b) {
+        checkSolvable(b);
+        double[] x = b.clone();
+        int upper = width - kl - 1;
+        for (int i = 0; i < n; i++) {
+            int row = index(i, i) - i;
+            double xi = x[i] / band[row + i];
+            x[i] = xi;
+            if (xi != 0.0) {
+                for (int j = i + 1; j <= Math.min(n - 1, i + upper); j++) {
+                    x[j] -= band[row + j] * xi;
+                }
+            }
+        }
+        for (int k = n - 1; k >= 0; k--) {
+            double sum = x[k];
+            for (int i = k + 1; i <= Math.min(n - 1, k + kl); i++) {
+                sum -= multipliers[k * kl + i - k - 1] * x[i];
+            }
+            int p = swaps[k];
+            x[k] = x[p];
+            x[p] = sum;
+        }
+        return x;
+    }
+}
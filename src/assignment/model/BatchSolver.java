@@ -0,0 +1,272 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Solves many right-hand sides against one factorization.
+ * <br>Vectors submitted concurrently are coalesced: the thread which finds the solver idle solves every waiting vector
+ * in micro-batches of at most {@link BatchSolver#getMaxBatchSize()} columns with one multiple right-hand side solve,
+ * while the other threads only enqueue their vectors. Every solve costs O(n²), the factorization is never repeated.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see Factorization#solve(double[], int)
+ */
+public class BatchSolver {
+
+    /**
+     * The default maximum number of vectors solved together.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    /**
+     * The factorization of the matrix.
+     */
+    private final Factorization factorization;
+
+    /**
+     * The maximum number of vectors solved together.
+     */
+    private final int maxBatchSize;
+
+    /**
+     * The vectors waiting for a solve.
+     */
+    private final Queue<PendingSolve> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * True while a thread is solving the waiting vectors.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * Creates a batch solver with the default maximum batch size.
+     *
+     * @param factorization the factorization of the matrix.
+     */
+    public BatchSolver(Factorization factorization) {
+        this(factorization, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a batch solver.
+     *
+     * @param factorization the factorization of the matrix.
+     * @param maxBatchSize  the maximum number of vectors solved together.
+     * @throws IllegalArgumentException if the batch size is not positive.
+     */
+    public BatchSolver(Factorization factorization, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        this.factorization = factorization;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of vectors solved together.
+     *
+     * @return the maximum batch size.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Solves A × X = B for the right-hand side B, possibly together with vectors submitted by other threads.
+     * <br>The returned future is completed exceptionally if the dimension does not match or the matrix is singular.
+     *
+     * @param b the right-hand side.
+     * @return the future solution.
+     */
+    public CompletableFuture<double[]> submit(double[] b) {
+        PendingSolve pending = new PendingSolve(b);
+        if (b.length != factorization.getDimension()) {
+            pending.future.completeExceptionally(new DimensionMismatchException(b.length, factorization.getDimension()));
+            return pending.future;
+        }
+        queue.add(pending);
+        while (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                drain();
+            } finally {
+                draining.set(false);
+            }
+        }
+        return pending.future;
+    }
+
+    /**
+     * Solves A × X = B for the right-hand sides stored as columns of a row-major n × k matrix.
+     *
+     * @param b       the right-hand sides in row-major order.
+     * @param columns the number of right-hand sides.
+     * @return the solutions in row-major order.
+     */
+    public double[] solve(double[] b, int columns) {
+        return factorization.solve(b, columns);
+    }
+
+    /**
+     * Solves a stream of right-hand sides lazily, {@link BatchSolver#getMaxBatchSize()} vectors at a time.
+     *
+     * @param vectors the right-hand sides.
+     * @return the solutions in the order of the right-hand sides.
+     */
+    public Stream<double[]> solveAll(Stream<double[]> vectors) {
+        Iterator<double[]> source = vectors.iterator();
+        Iterator<double[]> solutions = new Iterator<double[]>() {
+
+            private double[][] batch = new double[0][];
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < batch.length || source.hasNext();
+            }
+
+            @Override
+            public double[] next() {
+                if (next == batch.length) {
+                    if (!source.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    batch = solveBatch(source);
+                    next = 0;
+                }
+                return batch[next++];
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(solutions, Spliterator.ORDERED), false)
+                .onClose(vectors::close);
+    }
+
+    /**
+     * Solves the next batch of vectors of the iterator.
+     *
+     * @param source the right-hand sides.
+     * @return the solutions of the batch.
+     */
+    private double[][] solveBatch(Iterator<double[]> source) {
+        double[][] vectors = new double[maxBatchSize][];
+        int count = 0;
+        while (count < maxBatchSize && source.hasNext()) {
+            double[] b = source.next();
+            if (b.length != factorization.getDimension()) {
+                throw new DimensionMismatchException(b.length, factorization.getDimension());
+            }
+            vectors[count++] = b;
+        }
+        double[] x = factorization.solve(gather(vectors, count), count);
+        double[][] solutions = new double[count][];
+        for (int j = 0; j < count; j++) {
+            solutions[j] = scatter(x, count, j);
+        }
+        return solutions;
+    }
+
+    /**
+     * Solves the waiting vectors in batches until the queue is empty.
+     */
+    private void drain() {
+        PendingSolve[] batch = new PendingSolve[maxBatchSize];
+        double[][] vectors = new double[maxBatchSize][];
+        while (true) {
+            int count = 0;
+            PendingSolve pending;
+            while (count < maxBatchSize && (pending = queue.poll()) != null) {
+                batch[count] = pending;
+                vectors[count] = pending.vector;
+                count++;
+            }
+            if (count == 0) {
+                return;
+            }
+            try {
+                double[] x = count == 1
+                        ? factorization.solve(vectors[0])
+                        : factorization.solve(gather(vectors, count), count);
+                for (int j = 0; j < count; j++) {
+                    batch[j].future.complete(count == 1 ? x : scatter(x, count, j));
+                }
+            } catch (RuntimeException ex) {
+                for (int j = 0; j < count; j++) {
+                    batch[j].future.completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the vectors as the columns of a row-major matrix.
+     *
+     * @param vectors the vectors.
+     * @param count   the number of vectors.
+     * @return the matrix in row-major order.
+     */
+    private double[] gather(double[][] vectors, int count) {
+        int n = factorization.getDimension();
+        double[] b = new double[n * count];
+        for (int j = 0; j < count; j++) {
+            double[] vector = vectors[j];
+            for (int i = 0; i < n; i++) {
+                b[i * count + j] = vector[i];
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Copies a column of a row-major matrix.
+     *
+     * @param x       the matrix in row-major order.
+     * @param columns the number of columns.
+     * @param column  the copied column.
+     * @return the column.
+     */
+    private double[] scatter(double[] x, int columns, int column) {
+        int n = factorization.getDimension();
+        double[] vector = new double[n];
+        for (int i = 0; i < n; i++) {
+            vector[i] = x[i * columns + column];
+        }
+        return vector;
+    }
+
+    /**
+     * A right-hand side waiting for its solution.
+     */
+    private static final class PendingSolve {
+
+        /**
+         * The right-hand side.
+         */
+        private final double[] vector;
+
+        /**
+         * The future solution.
+         */
+        private final CompletableFuture<double[]> future = new CompletableFuture<>();
+
+        /**
+         * Creates the pending solve.
+         *
+         * @param vector the right-hand side.
+         */
+        private PendingSolve(double[] vector) {
+            this.vector = vector;
+        }
+    }
+}
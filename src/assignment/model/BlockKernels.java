@@ -0,0 +1,228 @@
+package assignment.model;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Compute kernels of the blocked LU factorization working on one row-major array.
+ * <br>All methods take the leading dimension {@code n}, element (i, j) is stored at {@code i * n + j}. The row updates
+ * and block products run on the {@link Kernels} chosen at startup.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see BlockedLUFactorization
+ */
+final class BlockKernels {
+
+    /**
+     * Private constructor of the utility class.
+     */
+    private BlockKernels() {
+    }
+
+    /**
+     * Stops a long computation between two blocks if the calling thread was interrupted, e.g. by a cancelled task.
+     * <br>The interrupt status is kept, so the caller can still see it.
+     *
+     * @throws CancellationException if the current thread is interrupted.
+     */
+    static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Computation interrupted");
+        }
+    }
+
+    /**
+     * Updates the rows {@code [k0, k1)} of the columns {@code [c0, c1)} with the unit lower triangular
+     * block L11 stored in the rows and columns {@code [k0, k1)}, i.e. computes U12 = L11<sup>-1</sup> × A12.
+     *
+     * @param a  the packed matrix.
+     * @param n  the leading dimension.
+     * @param k0 the first row and column of the diagonal block.
+     * @param k1 the end of the diagonal block.
+     * @param c0 the first column to update.
+     * @param c1 the end of the columns to update.
+     */
+    static void lowerSolve(double[] a, int n, int k0, int k1, int c0, int c1) {
+        for (int j = k0; j < k1; j++) {
+            int rowJ = j * n;
+            for (int i = j + 1; i < k1; i++) {
+                int rowI = i * n;
+                double l = a[rowI + j];
+                if (l != 0.0) {
+                    Kernels.INSTANCE.subtractScaled(l, a, rowJ + c0, a, rowI + c0, c1 - c0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Subtracts L21 × U12 from the block of the rows {@code [r0, r1)} and columns {@code [c0, c1)}.
+     * <br>L21 is stored in the columns {@code [k0, k1)} of the updated rows, U12 in the rows {@code [k0, k1)} of the
+     * updated columns.
+     *
+     * @param a  the packed matrix.
+     * @param n  the leading dimension.
+     * @param k0 the first inner index.
+     * @param k1 the end of the inner indices.
+     * @param r0 the first row to update.
+     * @param r1 the end of the rows to update.
+     * @param c0 the first column to update.
+     * @param c1 the end of the columns to update.
+     */
+    static void multiplySubtract(double[] a, int n, int k0, int k1, int r0, int r1, int c0, int c1) {
+        Kernels.INSTANCE.multiplySubtract(a, r0 * n + c0, n, a, r0 * n + k0, n, a, k0 * n + c0, n, r1 - r0, c1 - c0,
+                k1 - k0);
+    }
+
+    /**
+     * Subtracts A × B from C, where the three matrices are stored in separate row-major arrays.
+     *
+     * @param c       the updated matrix.
+     * @param cOffset the index of the first entry of C.
+     * @param ldc     the row stride of C.
+     * @param a       the left factor.
+     * @param aOffset the index of the first entry of A.
+     * @param lda     the row stride of A.
+     * @param b       the right factor.
+     * @param bOffset the index of the first entry of B.
+     * @param ldb     the row stride of B.
+     * @param rows    the number of rows of C and A.
+     * @param columns the number of columns of C and B.
+     * @param inner   the number of columns of A and rows of B.
+     */
+    static void multiplySubtract(double[] c, int cOffset, int ldc, double[] a, int aOffset, int lda,
+                                 double[] b, int bOffset, int ldb, int rows, int columns, int inner) {
+        Kernels.INSTANCE.multiplySubtract(c, cOffset, ldc, a, aOffset, lda, b, bOffset, ldb, rows, columns, inner);
+    }
+
+    /**
+     * Subtracts U12<sup>T</sup> × U12 from the upper triangle of the trailing block starting at row and column
+     * {@code r0}, where U12 is stored in the rows {@code [k0, k1)} of the columns from {@code r0}.
+     * <br>Two rows and four inner indices are processed per pass like in {@link ScalarKernels}, only the columns from
+     * the diagonal of each row are updated.
+     *
+     * @param a  the matrix.
+     * @param n  the leading dimension.
+     * @param k0 the first inner index.
+     * @param k1 the end of the inner indices.
+     * @param r0 the first row and column of the trailing block.
+     */
+    static void symmetricUpdateUpper(double[] a, int n, int k0, int k1, int r0) {
+        int i = r0;
+        for (; i + 1 < n; i += 2) {
+            int row0 = i * n;
+            int row1 = row0 + n;
+            int k = k0;
+            for (; k + 3 < k1; k += 4) {
+                int u0 = k * n;
+                int u1 = u0 + n;
+                int u2 = u1 + n;
+                int u3 = u2 + n;
+                double l00 = a[u0 + i];
+                double l01 = a[u1 + i];
+                double l02 = a[u2 + i];
+                double l03 = a[u3 + i];
+                double l10 = a[u0 + i + 1];
+                double l11 = a[u1 + i + 1];
+                double l12 = a[u2 + i + 1];
+                double l13 = a[u3 + i + 1];
+                a[row0 + i] -= l00 * l00 + l01 * l01 + l02 * l02 + l03 * l03;
+                for (int c = i + 1; c < n; c++) {
+                    double b0 = a[u0 + c];
+                    double b1 = a[u1 + c];
+                    double b2 = a[u2 + c];
+                    double b3 = a[u3 + c];
+                    a[row0 + c] -= l00 * b0 + l01 * b1 + l02 * b2 + l03 * b3;
+                    a[row1 + c] -= l10 * b0 + l11 * b1 + l12 * b2 + l13 * b3;
+                }
+            }
+            for (; k < k1; k++) {
+                int u = k * n;
+                double l0 = a[u + i];
+                double l1 = a[u + i + 1];
+                a[row0 + i] -= l0 * l0;
+                for (int c = i + 1; c < n; c++) {
+                    double b = a[u + c];
+                    a[row0 + c] -= l0 * b;
+                    a[row1 + c] -= l1 * b;
+                }
+            }
+        }
+        for (; i < n; i++) {
+            int row = i * n;
+            for (int k = k0; k < k1; k++) {
+                int u = k * n;
+                double l = a[u + i];
+                for (int c = i; c < n; c++) {
+                    a[row + c] -= l * a[u + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Inverts the upper triangular part of the matrix in place, the strictly lower part is not touched.
+     * <br>Rows are computed from the bottom: row i of U<sup>-1</sup> is a combination of the rows below it, accumulated
+     * with contiguous row updates.
+     *
+     * @param a    the matrix.
+     * @param n    the leading dimension.
+     * @param work a work row of at least n elements.
+     */
+    static void invertUpper(double[] a, int n, double[] work) {
+        for (int i = n - 1; i >= 0; i--) {
+            int row = i * n;
+            double inverse = 1.0 / a[row + i];
+            for (int j = i + 1; j < n; j++) {
+                work[j] = 0.0;
+            }
+            // work accumulates minus the combination of the rows below
+            int k = i + 1;
+            for (; k + 3 < n; k += 4) {
+                double u0 = a[row + k];
+                double u1 = a[row + k + 1];
+                double u2 = a[row + k + 2];
+                int s0 = k * n;
+                int s1 = s0 + n;
+                int s2 = s1 + n;
+                // row k + m of the inverse starts at its diagonal, the lower part still holds L
+                work[k] -= u0 * a[s0 + k];
+                work[k + 1] -= u0 * a[s0 + k + 1] + u1 * a[s1 + k + 1];
+                work[k + 2] -= u0 * a[s0 + k + 2] + u1 * a[s1 + k + 2] + u2 * a[s2 + k + 2];
+                Kernels.INSTANCE.multiplySubtract(work, k + 3, n, a, row + k, n, a, s0 + k + 3, n, 1, n - k - 3, 4);
+            }
+            for (; k < n; k++) {
+                Kernels.INSTANCE.subtractScaled(a[row + k], a, k * n + k, work, k, n - k);
+            }
+            a[row + i] = inverse;
+            for (int j = i + 1; j < n; j++) {
+                a[row + j] = inverse * work[j];
+            }
+        }
+    }
+
+    /**
+     * Inverts the unit lower triangular matrix stored in the strictly lower part in place.
+     * <br>The diagonal and the upper part are not touched; the unit diagonal of the inverse is implicit.
+     *
+     * @param a    the matrix.
+     * @param n    the leading dimension.
+     * @param work a work row of at least n elements.
+     */
+    static void invertUnitLower(double[] a, int n, double[] work) {
+        for (int i = 1; i < n; i++) {
+            int row = i * n;
+            for (int j = 0; j < i; j++) {
+                work[j] = 0.0;
+            }
+            for (int k = 0; k < i; k++) {
+                double l = a[row + k];
+                if (l != 0.0) {
+                    Kernels.INSTANCE.subtractScaled(l, a, k * n, work, 0, k);
+                    work[k] -= l;
+                }
+            }
+            System.arraycopy(work, 0, a, row, i);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package assignment.model;
+
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Right-looking blocked LU-decomposition with partial pivoting on a row-major array.
+ * <br>A panel of {@link BlockedLUFactorization#PANEL_SIZE} columns is factorized with row exchanges,
+ * then the trailing matrix is updated block by block with a register-tiled matrix product,
+ * so most of the work runs on data which stays in the cache.
+ * <br>With a {@link ForkJoinPool} the trailing update is split into tiles: every block of columns is solved with
+ * L11 and then updated in blocks of rows by separate tasks.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see BlockKernels
+ */
+public class BlockedLUFactorization extends PackedLUFactorization {
+
+    /**
+     * The number of columns of a panel.
+     */
+    static final int PANEL_SIZE = 64;
+
+    /**
+     * The number of columns of the trailing matrix updated at once.
+     */
+    static final int COLUMN_BLOCK = 512;
+
+    /**
+     * The number of rows of the trailing matrix updated by one task.
+     */
+    static final int ROW_BLOCK = 128;
+
+    /**
+     * The pools of the parallel factorization by parallelism.
+     */
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * The pool running the trailing update or {@code null} if the factorization is sequential.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Calculates the LU-decomposition of the given matrix.
+     *
+     * @param matrix the matrix to decompose, it is not modified.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    public BlockedLUFactorization(FlatRealMatrix matrix) {
+        this(matrix, null);
+    }
+
+    /**
+     * Calculates the LU-decomposition of the given matrix using the threads of the pool.
+     *
+     * @param matrix the matrix to decompose, it is not modified.
+     * @param pool   the pool running the trailing update or {@code null} to run on the calling thread.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    public BlockedLUFactorization(FlatRealMatrix matrix, ForkJoinPool pool) {
+        this(matrix.getRowDimension(), copyOfSquare(matrix), pool);
+    }
+
+    /**
+     * Calculates the LU-decomposition of the matrix in place, without a copy of it.
+     *
+     * @param n    the dimension of the matrix.
+     * @param data the matrix in row-major order; it is overwritten by the factors.
+     * @param pool the pool running the trailing update or {@code null} to run on the calling thread.
+     */
+    BlockedLUFactorization(int n, double[] data, ForkJoinPool pool) {
+        super(n, data);
+        this.pool = pool;
+        for (int k0 = 0; k0 < n && !singular; k0 += PANEL_SIZE) {
+            BlockKernels.checkCancelled();
+            int k1 = Math.min(k0 + PANEL_SIZE, n);
+            factorPanel(k0, k1);
+            if (!singular) {
+                updateTrailingMatrix(k0, k1);
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the entries of a square matrix.
+     *
+     * @param matrix the matrix.
+     * @return the entries in row-major order.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    private static double[] copyOfSquare(FlatRealMatrix matrix) {
+        if (matrix.getRowDimension() != matrix.getColumnDimension()) {
+            throw new NonSquareMatrixException(matrix.getRowDimension(), matrix.getColumnDimension());
+        }
+        return Arrays.copyOf(matrix.getDataRef(), matrix.getDataRef().length);
+    }
+
+    /**
+     * Factorizes the columns {@code [k0, k1)} of the rows below {@code k0} with partial pivoting.
+     * <br>Row exchanges are applied to whole rows.
+     *
+     * @param k0 the first column of the panel.
+     * @param k1 the end of the panel.
+     */
+    private void factorPanel(int k0, int k1) {
+        for (int j = k0; j < k1; j++) {
+            int max = j;
+            double largest = Math.abs(lu[j * n + j]);
+            for (int i = j + 1; i < n; i++) {
+                double value = Math.abs(lu[i * n + j]);
+                if (value > largest) {
+                    largest = value;
+                    max = i;
+                }
+            }
+            if (largest < SINGULARITY_THRESHOLD) {
+                singular = true;
+                return;
+            }
+            if (max != j) {
+                swapRows(max, j);
+            }
+            int rowJ = j * n;
+            double diagonal = lu[rowJ + j];
+            for (int i = j + 1; i < n; i++) {
+                int rowI = i * n;
+                double l = lu[rowI + j] / diagonal;
+                lu[rowI + j] = l;
+                if (l != 0.0) {
+                    Kernels.INSTANCE.subtractScaled(l, lu, rowJ + j + 1, lu, rowI + j + 1, k1 - j - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the rows {@code [k0, k1)} of U right of the panel and subtracts their product with the panel
+     * part of L from the trailing matrix.
+     *
+     * @param k0 the first column of the panel.
+     * @param k1 the end of the panel.
+     */
+    private void updateTrailingMatrix(int k0, int k1) {
+        if (pool != null && k1 < n) {
+            pool.invoke(new ColumnBlockTask(k0, k1, k1, n));
+            return;
+        }
+        for (int c0 = k1; c0 < n; c0 += COLUMN_BLOCK) {
+            BlockKernels.checkCancelled();
+            int c1 = Math.min(c0 + COLUMN_BLOCK, n);
+            BlockKernels.lowerSolve(lu, n, k0, k1, c0, c1);
+            BlockKernels.multiplySubtract(lu, n, k0, k1, k1, n, c0, c1);
+        }
+    }
+
+    /**
+     * Returns the shared pool with the given number of threads.
+     *
+     * @param parallelism the number of threads.
+     * @return the pool.
+     */
+    static ForkJoinPool pool(int parallelism) {
+        if (parallelism == ForkJoinPool.getCommonPoolParallelism()) {
+            return ForkJoinPool.commonPool();
+        }
+        return POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+
+    /**
+     * Task solving a range of columns of U12 and updating them in the trailing matrix.
+     */
+    private final class ColumnBlockTask extends RecursiveAction {
+
+        /**
+         * The serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first column of the panel.
+         */
+        private final int k0;
+
+        /**
+         * The end of the panel.
+         */
+        private final int k1;
+
+        /**
+         * The first column of the range.
+         */
+        private final int c0;
+
+        /**
+         * The end of the column range.
+         */
+        private final int c1;
+
+        /**
+         * Creates the task.
+         *
+         * @param k0 the first column of the panel.
+         * @param k1 the end of the panel.
+         * @param c0 the first column of the range.
+         * @param c1 the end of the column range.
+         */
+        ColumnBlockTask(int k0, int k1, int c0, int c1) {
+            this.k0 = k0;
+            this.k1 = k1;
+            this.c0 = c0;
+            this.c1 = c1;
+        }
+
+        @Override
+        protected void compute() {
+            if (c1 - c0 > COLUMN_BLOCK) {
+                int middle = c0 + (c1 - c0) / 2;
+                invokeAll(new ColumnBlockTask(k0, k1, c0, middle), new ColumnBlockTask(k0, k1, middle, c1));
+                return;
+            }
+            BlockKernels.lowerSolve(lu, n, k0, k1, c0, c1);
+            new RowBlockTask(k0, k1, k1, n, c0, c1).compute();
+        }
+    }
+
+    /**
+     * Task subtracting L21 × U12 from a tile of the trailing matrix.
+     */
+    private final class RowBlockTask extends RecursiveAction {
+
+        /**
+         * The serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first column of the panel.
+         */
+        private final int k0;
+
+        /**
+         * The end of the panel.
+         */
+        private final int k1;
+
+        /**
+         * The first row of the tile.
+         */
+        private final int r0;
+
+        /**
+         * The end of the rows of the tile.
+         */
+        private final int r1;
+
+        /**
+         * The first column of the tile.
+         */
+        private final int c0;
+
+        /**
+         * The end of the columns of the tile.
+         */
+        private final int c1;
+
+        /**
+         * Creates the task.
+         *
+         * @param k0 the first column of the panel.
+         * @param k1 the end of the panel.
+         * @param r0 the first row of the tile.
+         * @param r1 the end of the rows of the tile.
+         * @param c0 the first column of the tile.
+         * @param c1 the end of the columns of the tile.
+         */
+        RowBlockTask(int k0, int k1, int r0, int r1, int c0, int c1) {
+            this.k0 = k0;
+            this.k1 = k1;
+            this.r0 = r0;
+            this.r1 = r1;
+            this.c0 = c0;
+            this.c1 = c1;
+        }
+
+        @Override
+        protected void compute() {
+            if (r1 - r0 > ROW_BLOCK) {
+                int middle = r0 + (r1 - r0) / 2;
+                invokeAll(new RowBlockTask(k0, k1, r0, middle, c0, c1), new RowBlockTask(k0, k1, middle, r1, c0, c1));
+                return;
+            }
+            BlockKernels.multiplySubtract(lu, n, k0, k1, r0, r1, c0, c1);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+/**
+ * Cholesky decomposition A = U<sup>T</sup> × U of a symmetric positive definite matrix.
+ * <br>Only the upper triangle is read and factorized, by a right-looking algorithm with panels of
+ * {@link CholeskyFactorization#PANEL_SIZE} rows; it needs half the work of the LU-decomposition and no pivoting.
+ * <br>The factors are exposed as L = U<sup>T</sup> and U with P = I, so L × U = A.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SolverPath#CHOLESKY
+ */
+public class CholeskyFactorization extends AbstractFactorization {
+
+    /**
+     * The number of rows factorized before the trailing matrix is updated.
+     */
+    static final int PANEL_SIZE = 64;
+
+    /**
+     * The factor U in the upper triangle of a row-major array, the strictly lower part is 0.
+     */
+    private final double[] u;
+
+    /**
+     * Creates the factorization from the computed factor.
+     *
+     * @param n the dimension of the matrix.
+     * @param u the factor U in row-major order.
+     */
+    private CholeskyFactorization(int n, double[] u) {
+        super(n);
+        this.u = u;
+    }
+
+    /**
+     * Calculates the Cholesky decomposition of the given matrix.
+     * <br>The symmetry of the matrix is not checked, the strictly lower triangle is ignored.
+     *
+     * @param matrix the symmetric matrix to decompose, it is not modified.
+     * @return the factorization or {@code null} if the matrix is not positive definite, i.e. a pivot is not larger
+     * than {@link PackedLUFactorization#SINGULARITY_THRESHOLD}.
+     */
+    public static CholeskyFactorization factorize(FlatRealMatrix matrix) {
+        int n = matrix.getRowDimension();
+        double[] a = matrix.getDataRef().clone();
+        for (int k0 = 0; k0 < n; k0 += PANEL_SIZE) {
+            BlockKernels.checkCancelled();
+            int k1 = Math.min(k0 + PANEL_SIZE, n);
+            for (int k = k0; k < k1; k++) {
+                int rowK = k * n;
+                double d = a[rowK + k];
+                if (!(d > PackedLUFactorization.SINGULARITY_THRESHOLD)) {
+                    return null;
+                }
+                double diagonal = Math.sqrt(d);
+                double inverse = 1.0 / diagonal;
+                a[rowK + k] = diagonal;
+                for (int j = k + 1; j < n; j++) {
+                    a[rowK + j] *= inverse;
+                }
+                for (int i = k + 1; i < k1; i++) {
+                    double c = a[rowK + i];
+                    if (c != 0.0) {
+                        int rowI = i * n;
+                        for (int j = i; j < n; j++) {
+                            a[rowI + j] -= c * a[rowK + j];
+                        }
+                    }
+                }
+            }
+            BlockKernels.symmetricUpdateUpper(a, n, k0, k1, k1);
+        }
+        for (int i = 1; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                a[i * n + j] = 0.0;
+            }
+        }
+        return new CholeskyFactorization(n, a);
+    }
+
+    @Override
+    public SolverPath getPath() {
+        return SolverPath.CHOLESKY;
+    }
+
+    /**
+     * Returns L = U<sup>T</sup>, a new matrix on every call, so the callers may modify it and share the factorization
+     * between threads.
+     *
+     * @return the L matrix.
+     */
+    @Override
+    public RealMatrix getL() {
+        FlatRealMatrix l = new FlatRealMatrix(n, n);
+        double[] data = l.getDataRef();
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                data[j * n + i] = u[i * n + j];
+            }
+        }
+        return l;
+    }
+
+    /**
+     * Returns U, a new matrix on every call.
+     *
+     * @return the U matrix.
+     */
+    @Override
+    public RealMatrix getU() {
+        return new FlatRealMatrix(n, n, u.clone());
+    }
+
+    @Override
+    public RealMatrix getP() {
+        return permutationMatrix(identityPivot(n));
+    }
+
+    @Override
+    public int[] getPivot() {
+        return identityPivot(n);
+    }
+
+    @Override
+    public double getDeterminant() {
+        return getLogDeterminant().getValue();
+    }
+
+    @Override
+    public Determinant getLogDeterminant() {
+        Determinant.Product product = new Determinant.Product(1);
+        for (int i = 0; i < n; i++) {
+            double diagonal = u[i * n + i];
+            product.multiply(diagonal);
+            product.multiply(diagonal);
+        }
+        return product.toDeterminant();
+    }
+
+    /**
+     * Checks if the decomposed matrix is singular.
+     *
+     * @return false, a matrix with a small pivot is not decomposed.
+     */
+    @Override
+    public boolean isSingular() {
+        return false;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        checkSolvable(b);
+        double[] x = b.clone();
+        for (int k = 0; k < n; k++) {
+            int row = k * n;
+            double xk = x[k] / u[row + k];
+            x[k] = xk;
+            if (xk != 0.0) {
+                Kernels.INSTANCE.subtractScaled(xk, u, row + k + 1, x, k + 1, n - k - 1);
+            }
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            int row = i * n;
+            x[i] = (x[i] - Kernels.INSTANCE.dot(u, row + i + 1, x, i + 1, n - i - 1)) / u[row + i];
+        }
+        return x;
+    }
+
+    /**
+     * Solves A<sup>T</sup> × x = b, which is A × x = b for the symmetric matrix.
+     */
+    @Override
+    public double[] solveTransposed(double[] b) {
+        return solve(b);
+    }
+
+    /**
+     * Solves the linear equation A × X = B for several right-hand sides, updating whole rows of B at once.
+     *
+     * @param b       the right-hand sides in row-major order.
+     * @param columns the number of right-hand sides k.
+     * @return the solutions in row-major order.
+     */
+    @Override
+    public double[] solve(double[] b, int columns) {
+        if (columns < 1 || b.length != n * columns) {
+            throw new DimensionMismatchException(b.length, n * Math.max(columns, 1));
+        }
+        double[] x = b.clone();
+        for (int k = 0; k < n; k++) {
+            int row = k * n;
+            int xk = k * columns;
+            double inverse = 1.0 / u[row + k];
+            for (int c = 0; c < columns; c++) {
+                x[xk + c] *= inverse;
+            }
+            for (int j = k + 1; j < n; j++) {
+                double factor = u[row + j];
+                if (factor != 0.0) {
+                    int xj = j * columns;
+                    for (int c = 0; c < columns; c++) {
+                        x[xj + c] -= factor * x[xk + c];
+                    }
+                }
+            }
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            int row = i * n;
+            int xi = i * columns;
+            for (int j = i + 1; j < n; j++) {
+                double factor = u[row + j];
+                if (factor != 0.0) {
+                    int xj = j * columns;
+                    for (int c = 0; c < columns; c++) {
+                        x[xi + c] -= factor * x[xj + c];
+                    }
+                }
+            }
+            double inverse = 1.0 / u[row + i];
+            for (int c = 0; c < columns; c++) {
+                x[xi + c] *= inverse;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Returns the diagonal of the inverse from the inverse of U: A<sup>-1</sup> = U<sup>-1</sup> ×
+     * U<sup>-T</sup>, so every diagonal entry is the squared norm of a row of U<sup>-1</sup>.
+     *
+     * @return the diagonal entries of the inverse.
+     * @throws SingularMatrixException never, the decomposed matrix is not singular.
+     */
+    @Override
+    public double[] getInverseDiagonal() {
+        double[] w = u.clone();
+        BlockKernels.invertUpper(w, n, new double[n]);
+        double[] diagonal = new double[n];
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            double sum = 0.0;
+            for (int j = i; j < n; j++) {
+                sum += w[row + j] * w[row + j];
+            }
+            diagonal[i] = sum;
+        }
+        return diagonal;
+    }
+}
@@ -0,0 +1,135 @@
+package assignment.model;
+
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+
+/**
+ * Reference {@link Factorization} delegating to the commons-math {@link LUDecomposition}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see LUDecomposition
+ */
+public class CommonsMathFactorization implements Factorization {
+
+    /**
+     * The LU-decomposition.
+     *
+     * @see LUDecomposition
+     */
+    private final LUDecomposition luDecomposition;
+
+    /**
+     * The solver of the decomposition, created once.
+     *
+     * @see DecompositionSolver
+     */
+    private final DecompositionSolver solver;
+
+    /**
+     * Calculates the LU-decomposition of the given matrix.
+     *
+     * @param matrix the matrix to decompose.
+     * @throws org.apache.commons.math3.linear.NonSquareMatrixException if the matrix is not square.
+     */
+    public CommonsMathFactorization(RealMatrix matrix) {
+        luDecomposition = new LUDecomposition(matrix);
+        solver = luDecomposition.getSolver();
+    }
+
+    @Override
+    public int getDimension() {
+        return luDecomposition.getPivot().length;
+    }
+
+    @Override
+    public SolverPath getPath() {
+        return SolverPath.LU;
+    }
+
+    /**
+     * Returns a copy of L: {@link LUDecomposition} caches its factors and the factorization may be shared by the
+     * {@link FactorizationCache}.
+     *
+     * @return the L matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getL() {
+        RealMatrix l = luDecomposition.getL();
+        return l == null ? null : l.copy();
+    }
+
+    @Override
+    public RealMatrix getU() {
+        RealMatrix u = luDecomposition.getU();
+        return u == null ? null : u.copy();
+    }
+
+    @Override
+    public RealMatrix getP() {
+        RealMatrix p = luDecomposition.getP();
+        return p == null ? null : p.copy();
+    }
+
+    @Override
+    public int[] getPivot() {
+        return luDecomposition.getPivot();
+    }
+
+    @Override
+    public double getDeterminant() {
+        return luDecomposition.getDeterminant();
+    }
+
+    @Override
+    public boolean isSingular() {
+        return !solver.isNonSingular();
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        return solver.solve(new ArrayRealVector(b, false)).toArray();
+    }
+
+    @Override
+    public double[] solve(double[] b, int columns) {
+        RealMatrix x = solver.solve(new FlatRealMatrix(b.length / columns, columns, b));
+        double[] solution = new double[b.length];
+        for (int i = 0; i < x.getRowDimension(); i++) {
+            for (int j = 0; j < columns; j++) {
+                solution[i * columns + j] = x.getEntry(i, j);
+            }
+        }
+        return solution;
+    }
+
+    @Override
+    public RealMatrix getInverse() {
+        return solver.getInverse();
+    }
+
+    @Override
+    public RealMatrix getInverseColumns(int... columns) {
+        int n = getDimension();
+        RealMatrix identityColumns = new FlatRealMatrix(n, columns.length);
+        for (int j = 0; j < columns.length; j++) {
+            identityColumns.setEntry(columns[j], j, 1.0);
+        }
+        return solver.solve(identityColumns);
+    }
+
+    @Override
+    public double[] getInverseDiagonal() {
+        int n = getDimension();
+        double[] diagonal = new double[n];
+        ArrayRealVector unit = new ArrayRealVector(n);
+        for (int j = 0; j < n; j++) {
+            unit.setEntry(j, 1.0);
+            diagonal[j] = solver.solve(unit).getEntry(j);
+            unit.setEntry(j, 0.0);
+        }
+        return diagonal;
+    }
+}
@@ -0,0 +1,54 @@
+package assignment.model;
+
+/**
+ * The stages of solving a linear equation, in the order of the computation.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see ProgressListener
+ */
+public enum ComputationStage {
+
+    /**
+     * Parsing the matrix and the vector.
+     */
+    PARSE("Parsing"),
+
+    /**
+     * Decomposing the matrix.
+     */
+    FACTOR("Factorizing"),
+
+    /**
+     * Computing the solution or the inverse from the decomposition.
+     */
+    SOLVE("Solving"),
+
+    /**
+     * Formatting the results.
+     */
+    FORMAT("Formatting");
+
+    /**
+     * The description of the stage shown to the user.
+     */
+    private final String description;
+
+    /**
+     * Creates the stage.
+     *
+     * @param description the description of the stage.
+     */
+    ComputationStage(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Returns the description of the stage shown to the user.
+     *
+     * @return the description.
+     */
+    public String getDescription() {
+        return description;
+    }
+}
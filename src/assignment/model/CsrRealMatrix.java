@@ -0,0 +1,331 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.AbstractRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Read-only implementation of {@link RealMatrix} in the compressed sparse row (CSR) format.
+ * <br>The non-zero entries of row i are {@code values[rowPointers[i] .. rowPointers[i + 1])} in the columns
+ * {@code columnIndices[...]}, sorted by column. Only the non-zero entries are stored, so the memory grows with the
+ * number of non-zeros instead of the square of the dimension.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see AbstractRealMatrix
+ */
+public class CsrRealMatrix extends AbstractRealMatrix {
+
+    /**
+     * The number of rows.
+     */
+    private final int rows;
+
+    /**
+     * The number of columns.
+     */
+    private final int columns;
+
+    /**
+     * The start of every row in the index and value arrays, {@code rows + 1} elements.
+     */
+    private final int[] rowPointers;
+
+    /**
+     * The column index of every stored entry.
+     */
+    private final int[] columnIndices;
+
+    /**
+     * The value of every stored entry.
+     */
+    private final double[] values;
+
+    /**
+     * Creates a matrix using the input arrays without copying them.
+     *
+     * @param rows          the number of rows.
+     * @param columns       the number of columns.
+     * @param rowPointers   the start of every row, {@code rows + 1} elements.
+     * @param columnIndices the column index of every stored entry, sorted within a row.
+     * @param values        the value of every stored entry.
+     * @throws NotStrictlyPositiveException if the row or column dimension is not positive.
+     */
+    public CsrRealMatrix(int rows, int columns, int[] rowPointers, int[] columnIndices, double[] values)
+            throws NotStrictlyPositiveException {
+        super(rows, columns);
+        if (rowPointers.length != rows + 1 || columnIndices.length < rowPointers[rows]
+                || values.length < rowPointers[rows]) {
+            throw new IllegalArgumentException("Inconsistent CSR arrays");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    /**
+     * Creates a sparse copy of the non-zero entries of a dense matrix.
+     *
+     * @param matrix the dense matrix.
+     * @return the sparse matrix.
+     */
+    public static CsrRealMatrix fromDense(FlatRealMatrix matrix) {
+        int rows = matrix.getRowDimension();
+        int columns = matrix.getColumnDimension();
+        double[] data = matrix.getDataRef();
+        int count = 0;
+        for (double value : data) {
+            if (value != 0.0) {
+                count++;
+            }
+        }
+        int[] pointers = new int[rows + 1];
+        int[] indices = new int[count];
+        double[] values = new double[count];
+        int k = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                double value = data[i * columns + j];
+                if (value != 0.0) {
+                    indices[k] = j;
+                    values[k++] = value;
+                }
+            }
+            pointers[i + 1] = k;
+        }
+        return new CsrRealMatrix(rows, columns, pointers, indices, values);
+    }
+
+    /**
+     * Creates a matrix from coordinate triplets; entries with the same coordinates are added.
+     *
+     * @param rows     the number of rows.
+     * @param columns  the number of columns.
+     * @param count    the number of triplets.
+     * @param rowOf    the zero-based row of every triplet.
+     * @param columnOf the zero-based column of every triplet.
+     * @param valueOf  the value of every triplet.
+     * @return the sparse matrix.
+     * @throws OutOfRangeException if a coordinate is out of range.
+     */
+    public static CsrRealMatrix fromTriplets(int rows, int columns, int count, int[] rowOf, int[] columnOf,
+                                             double[] valueOf) {
+        int[] pointers = new int[rows + 1];
+        for (int t = 0; t < count; t++) {
+            if (rowOf[t] < 0 || rowOf[t] >= rows) {
+                throw new OutOfRangeException(rowOf[t] + 1, 1, rows);
+            }
+            if (columnOf[t] < 0 || columnOf[t] >= columns) {
+                throw new OutOfRangeException(columnOf[t] + 1, 1, columns);
+            }
+            pointers[rowOf[t] + 1]++;
+        }
+        for (int i = 0; i < rows; i++) {
+            pointers[i + 1] += pointers[i];
+        }
+        int[] next = Arrays.copyOf(pointers, rows);
+        int[] indices = new int[count];
+        double[] values = new double[count];
+        for (int t = 0; t < count; t++) {
+            int k = next[rowOf[t]]++;
+            indices[k] = columnOf[t];
+            values[k] = valueOf[t];
+        }
+        // sort every row by column and add duplicates
+        int longest = 0;
+        for (int i = 0; i < rows; i++) {
+            longest = Math.max(longest, pointers[i + 1] - pointers[i]);
+        }
+        long[] keys = new long[longest];
+        double[] sorted = new double[longest];
+        int[] compactPointers = new int[rows + 1];
+        int write = 0;
+        for (int i = 0; i < rows; i++) {
+            int start = pointers[i];
+            int end = pointers[i + 1];
+            sortRow(indices, values, start, end, keys, sorted);
+            for (int k = start; k < end; k++) {
+                if (write > compactPointers[i] && indices[write - 1] == indices[k]) {
+                    values[write - 1] += values[k];
+                } else {
+                    indices[write] = indices[k];
+                    values[write++] = values[k];
+                }
+            }
+            compactPointers[i + 1] = write;
+        }
+        return new CsrRealMatrix(rows, columns, compactPointers, Arrays.copyOf(indices, write),
+                Arrays.copyOf(values, write));
+    }
+
+    /**
+     * Returns the transposed matrix, which is the compressed sparse column form of this matrix.
+     *
+     * @return the transposed matrix.
+     */
+    public CsrRealMatrix transposeSparse() {
+        int count = rowPointers[rows];
+        int[] pointers = new int[columns + 1];
+        for (int k = 0; k < count; k++) {
+            pointers[columnIndices[k] + 1]++;
+        }
+        for (int j = 0; j < columns; j++) {
+            pointers[j + 1] += pointers[j];
+        }
+        int[] next = Arrays.copyOf(pointers, columns);
+        int[] indices = new int[count];
+        double[] transposed = new double[count];
+        for (int i = 0; i < rows; i++) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                int position = next[columnIndices[k]]++;
+                indices[position] = i;
+                transposed[position] = values[k];
+            }
+        }
+        return new CsrRealMatrix(columns, rows, pointers, indices, transposed);
+    }
+
+    /**
+     * Returns a dense copy of the matrix.
+     *
+     * @return the dense matrix.
+     */
+    public FlatRealMatrix toDense() {
+        FlatRealMatrix dense = new FlatRealMatrix(rows, columns);
+        double[] data = dense.getDataRef();
+        for (int i = 0; i < rows; i++) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                data[i * columns + columnIndices[k]] = values[k];
+            }
+        }
+        return dense;
+    }
+
+    /**
+     * Returns the number of stored entries.
+     *
+     * @return the number of non-zeros.
+     */
+    public int getNonZeroCount() {
+        return rowPointers[rows];
+    }
+
+    /**
+     * Returns the ratio of stored entries to all entries.
+     *
+     * @return the density between 0 and 1.
+     */
+    public double getDensity() {
+        return rowPointers[rows] / ((double) rows * columns);
+    }
+
+    /**
+     * Returns a reference to the row pointer array.
+     *
+     * @return the start of every row.
+     */
+    public int[] getRowPointers() {
+        return rowPointers;
+    }
+
+    /**
+     * Returns a reference to the column index array.
+     *
+     * @return the column index of every stored entry.
+     */
+    public int[] getColumnIndices() {
+        return columnIndices;
+    }
+
+    /**
+     * Returns a reference to the value array.
+     *
+     * @return the value of every stored entry.
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    @Override
+    public RealMatrix createMatrix(int rowDimension, int columnDimension) throws NotStrictlyPositiveException {
+        return new FlatRealMatrix(rowDimension, columnDimension);
+    }
+
+    @Override
+    public RealMatrix copy() {
+        return new CsrRealMatrix(rows, columns, rowPointers.clone(), columnIndices.clone(), values.clone());
+    }
+
+    @Override
+    public double getEntry(int row, int column) throws OutOfRangeException {
+        if (row < 0 || row >= rows) {
+            throw new OutOfRangeException(row, 0, rows - 1);
+        }
+        if (column < 0 || column >= columns) {
+            throw new OutOfRangeException(column, 0, columns - 1);
+        }
+        int k = Arrays.binarySearch(columnIndices, rowPointers[row], rowPointers[row + 1], column);
+        return k >= 0 ? values[k] : 0.0;
+    }
+
+    /**
+     * Not supported, the matrix is read-only.
+     *
+     * @param row    the row index.
+     * @param column the column index.
+     * @param value  the new value.
+     * @throws MathUnsupportedOperationException always.
+     */
+    @Override
+    public void setEntry(int row, int column, double value) {
+        throw new MathUnsupportedOperationException();
+    }
+
+    @Override
+    public int getRowDimension() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnDimension() {
+        return columns;
+    }
+
+    /**
+     * Sorts the entries of a row by column in O(k log k), keeping the order of the entries with the same column.
+     * <br>Every entry is packed into one {@code long}, the column in the high and the position in the row in the low
+     * 32 bits, so {@link Arrays#sort(long[], int, int)} orders the entries without boxing. A sorted row is left as is.
+     *
+     * @param indices the column indices.
+     * @param values  the values.
+     * @param start   the start of the row.
+     * @param end     the end of the row.
+     * @param keys    the scratch array of the packed keys, at least as long as the row.
+     * @param sorted  the scratch array of the sorted values, at least as long as the row.
+     */
+    private static void sortRow(int[] indices, double[] values, int start, int end, long[] keys, double[] sorted) {
+        int k = start + 1;
+        while (k < end && indices[k - 1] <= indices[k]) {
+            k++;
+        }
+        if (k >= end) {
+            return;
+        }
+        int length = end - start;
+        for (int m = 0; m < length; m++) {
+            keys[m] = (long) indices[start + m] << 32 | m;
+        }
+        Arrays.sort(keys, 0, length);
+        for (int m = 0; m < length; m++) {
+            indices[start + m] = (int) (keys[m] >>> 32);
+            sorted[m] = values[start + (int) keys[m]];
+        }
+        System.arraycopy(sorted, 0, values, start, length);
+    }
+}
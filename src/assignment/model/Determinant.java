@@ -0,0 +1,242 @@
+package assignment.model;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * The determinant of a matrix as its sign and the logarithm of its absolute value, immutable.
+ * <br>The product of the pivots of a matrix with n in the hundreds easily leaves the range of {@code double}, e.g. the
+ * determinant of 0.1 × I is 10<sup>-n</sup>. The absolute value is therefore kept as a mantissa in [1, 2) and a
+ * {@code long} binary exponent: every pivot is multiplied into the mantissa and the exponent of the product is moved to
+ * the exponent, so the determinant neither overflows nor underflows and is rounded once per pivot, as the plain
+ * product would be.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see Factorization#getLogDeterminant()
+ * @see LinearEquation#determinant(String, SolverOptions)
+ */
+public final class Determinant {
+
+    /**
+     * The determinant of a singular matrix.
+     */
+    public static final Determinant ZERO = new Determinant(0, 1.0, 0);
+
+    /**
+     * The significant digits of {@link Determinant#toString()}.
+     */
+    private static final MathContext DIGITS = new MathContext(16);
+
+    /**
+     * The largest binary exponent {@link BigDecimal#pow(int, MathContext)} accepts.
+     */
+    private static final long MAX_BINARY_EXPONENT = 999_999_999;
+
+    /**
+     * The natural logarithm of 2.
+     */
+    private static final double LN_2 = Math.log(2.0);
+
+    /**
+     * The sign of the determinant: 1, -1 or 0 for a singular matrix.
+     */
+    private final int sign;
+
+    /**
+     * The mantissa of the absolute value in [1, 2).
+     */
+    private final double mantissa;
+
+    /**
+     * The binary exponent of the absolute value.
+     */
+    private final long exponent;
+
+    /**
+     * Creates the determinant sign × mantissa × 2<sup>exponent</sup>.
+     *
+     * @param sign     the sign.
+     * @param mantissa the mantissa in [1, 2).
+     * @param exponent the binary exponent.
+     */
+    private Determinant(int sign, double mantissa, long exponent) {
+        this.sign = sign;
+        this.mantissa = mantissa;
+        this.exponent = exponent;
+    }
+
+    /**
+     * Returns the sign of the determinant.
+     *
+     * @return 1 if the determinant is positive, -1 if it is negative, 0 if the matrix is singular.
+     */
+    public int getSign() {
+        return sign;
+    }
+
+    /**
+     * Returns the natural logarithm of the absolute value of the determinant, finite for every regular matrix.
+     *
+     * @return log |det A|, negative infinity if the matrix is singular.
+     */
+    public double getLogAbsolute() {
+        return sign == 0 ? Double.NEGATIVE_INFINITY : Math.log(mantissa) + exponent * LN_2;
+    }
+
+    /**
+     * Returns the determinant as a {@code double}.
+     *
+     * @return the determinant, infinite if it overflows and zero if it underflows.
+     * @see Determinant#isRepresentable()
+     */
+    public double getValue() {
+        if (sign == 0) {
+            return 0.0;
+        }
+        long clamped = Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, exponent));
+        return Math.scalb(sign * mantissa, (int) clamped);
+    }
+
+    /**
+     * Checks if {@link Determinant#getValue()} is the determinant, i.e. the value neither overflows nor underflows.
+     *
+     * @return true if the value is finite and is zero only for a singular matrix.
+     */
+    public boolean isRepresentable() {
+        double value = getValue();
+        return sign == 0 || value != 0.0 && !Double.isInfinite(value);
+    }
+
+    /**
+     * Returns the product of the determinants, e.g. of two factors of a matrix.
+     *
+     * @param other the other determinant.
+     * @return the product.
+     */
+    public Determinant multiply(Determinant other) {
+        if (sign == 0 || other.sign == 0) {
+            return ZERO;
+        }
+        Product product = new Product(sign * other.sign);
+        product.multiply(mantissa * other.mantissa);
+        product.exponent += exponent + other.exponent;
+        return product.toDeterminant();
+    }
+
+    /**
+     * Returns the determinant in decimal scientific notation, also when it is not representable, e.g.
+     * {@code -1.2345678901234E-500}.
+     *
+     * @return the determinant.
+     */
+    @Override
+    public String toString() {
+        if (isRepresentable()) {
+            return Double.toString(getValue());
+        }
+        int binaryExponent = (int) Math.max(-MAX_BINARY_EXPONENT, Math.min(MAX_BINARY_EXPONENT, exponent));
+        BigDecimal value = new BigDecimal(mantissa).multiply(BigDecimal.valueOf(2).pow(binaryExponent, DIGITS))
+                .round(DIGITS).stripTrailingZeros();
+        String digits = value.unscaledValue().toString();
+        long decimalExponent = digits.length() - 1L - value.scale();
+        return (sign < 0 ? "-" : "") + digits.charAt(0) + "." + (digits.length() > 1 ? digits.substring(1) : "0")
+                + "E" + decimalExponent;
+    }
+
+    /**
+     * Returns the sign of a permutation.
+     *
+     * @param permutation the permutation.
+     * @return 1 for an even permutation, -1 for an odd one.
+     */
+    static int parity(int[] permutation) {
+        boolean[] visited = new boolean[permutation.length];
+        int sign = 1;
+        for (int i = 0; i < permutation.length; i++) {
+            if (!visited[i]) {
+                int length = 0;
+                for (int j = i; !visited[j]; j = permutation[j]) {
+                    visited[j] = true;
+                    length++;
+                }
+                if (length % 2 == 0) {
+                    sign = -sign;
+                }
+            }
+        }
+        return sign;
+    }
+
+    /**
+     * The product of the pivots of a factorization, accumulated without overflow.
+     */
+    static final class Product {
+
+        /**
+         * Scales a subnormal factor into the normal range.
+         */
+        private static final double SUBNORMAL_SCALE = 0x1p64;
+
+        /**
+         * The sign of the product.
+         */
+        private int sign;
+
+        /**
+         * The mantissa of the absolute value in [1, 2).
+         */
+        private double mantissa = 1.0;
+
+        /**
+         * The binary exponent of the absolute value.
+         */
+        private long exponent;
+
+        /**
+         * Creates the product of no factors.
+         *
+         * @param sign the sign of the row exchanges, 1 or -1.
+         */
+        Product(int sign) {
+            this.sign = sign;
+        }
+
+        /**
+         * Multiplies the product by a factor.
+         *
+         * @param factor the factor, e.g. a pivot.
+         */
+        void multiply(double factor) {
+            if (factor == 0.0) {
+                sign = 0;
+                return;
+            }
+            if (factor < 0.0) {
+                sign = -sign;
+                factor = -factor;
+            }
+            int shift = 0;
+            if (Math.getExponent(factor) < Double.MIN_EXPONENT) {
+                factor *= SUBNORMAL_SCALE;
+                shift = -64;
+            }
+            int e = Math.getExponent(factor);
+            mantissa *= Math.scalb(factor, -e);
+            exponent += e + shift;
+            if (mantissa >= 2.0) {
+                mantissa *= 0.5;
+                exponent++;
+            }
+        }
+
+        /**
+         * Returns the product.
+         *
+         * @return the determinant.
+         */
+        Determinant toDeterminant() {
+            return sign == 0 ? ZERO : new Determinant(sign, mantissa, exponent);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+/**
+ * Factorization of a square matrix A which can be used to solve the linear equation A × X = B.
+ * <br>The factors satisfy P × A × Q = L × U, where P and Q are permutation matrices, L is a lower triangular matrix
+ * and U is an upper triangular matrix. Q is the identity unless the factorization orders the columns, like the sparse
+ * and the streamed paths, see {@link Factorization#getColumnPermutation()}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SolverBackend
+ */
+public interface Factorization {
+
+    /**
+     * Returns the number of rows and columns of the decomposed matrix.
+     *
+     * @return the dimension of the matrix.
+     */
+    int getDimension();
+
+    /**
+     * Returns the kind of the factorization.
+     *
+     * @return the path which computed the factorization.
+     */
+    SolverPath getPath();
+
+    /**
+     * Returns the matrix L of the decomposition.
+     *
+     * @return the L matrix or {@code null} if the decomposed matrix is singular.
+     */
+    RealMatrix getL();
+
+    /**
+     * Returns the matrix U of the decomposition.
+     *
+     * @return the U matrix or {@code null} if the decomposed matrix is singular.
+     */
+    RealMatrix getU();
+
+    /**
+     * Returns the permutation matrix P of the decomposition.
+     *
+     * @return the P matrix or {@code null} if the decomposed matrix is singular.
+     */
+    RealMatrix getP();
+
+    /**
+     * Returns the pivot permutation vector.
+     * <br>Row i of P × A is row {@code pivot[i]} of A.
+     *
+     * @return a copy of the pivot vector.
+     */
+    int[] getPivot();
+
+    /**
+     * Returns the column permutation matrix Q of the decomposition.
+     * <br>The default implementation builds it from {@link Factorization#getColumnPermutation()}.
+     *
+     * @return the Q matrix or {@code null} if the decomposed matrix is singular.
+     */
+    default RealMatrix getQ() {
+        if (isSingular()) {
+            return null;
+        }
+        int[] q = getColumnPermutation();
+        FlatRealMatrix matrix = new FlatRealMatrix(q.length, q.length);
+        for (int k = 0; k < q.length; k++) {
+            matrix.getDataRef()[q[k] * q.length + k] = 1.0;
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns the column permutation vector.
+     * <br>Column k of A × Q is column {@code q[k]} of A. The default implementation returns the identity, for the
+     * factorizations which do not exchange columns.
+     *
+     * @return a copy of the column permutation vector.
+     */
+    default int[] getColumnPermutation() {
+        return AbstractFactorization.identityPivot(getDimension());
+    }
+
+    /**
+     * Returns the determinant of the decomposed matrix.
+     *
+     * @return the determinant or 0 if the decomposed matrix is singular.
+     */
+    double getDeterminant();
+
+    /**
+     * Returns the determinant of the decomposed matrix as its sign and the logarithm of its absolute value, which
+     * unlike {@link Factorization#getDeterminant()} does not overflow or underflow for large matrices.
+     * <br>As det(P × A × Q) = det(L × U), the default implementation multiplies the diagonals of L and U by the signs
+     * of the row and column permutations. It reads L and U by entry, so the implementations keeping their own factors
+     * override it.
+     *
+     * @return the determinant, {@link Determinant#ZERO} if the decomposed matrix is singular.
+     */
+    default Determinant getLogDeterminant() {
+        if (isSingular()) {
+            return Determinant.ZERO;
+        }
+        RealMatrix l = getL();
+        RealMatrix u = getU();
+        Determinant.Product product = new Determinant.Product(Determinant.parity(getPivot())
+                * Determinant.parity(getColumnPermutation()));
+        for (int i = 0; i < getDimension(); i++) {
+            product.multiply(l.getEntry(i, i));
+            product.multiply(u.getEntry(i, i));
+        }
+        return product.toDeterminant();
+    }
+
+    /**
+     * Checks if the decomposed matrix is singular.
+     *
+     * @return true if the decomposed matrix is singular.
+     */
+    boolean isSingular();
+
+    /**
+     * Solves the linear equation A × X = B for the vector B.
+     *
+     * @param b the right-hand side vector.
+     * @return the solution vector X.
+     * @throws org.apache.commons.math3.linear.SingularMatrixException       if the decomposed matrix is singular.
+     * @throws org.apache.commons.math3.exception.DimensionMismatchException if the vector dimension does not match.
+     */
+    double[] solve(double[] b);
+
+    /**
+     * Solves the linear equation A × X = B for several right-hand sides at once.
+     * <br>B and X are n × k matrices stored in row-major order, the factorization is reused for every column.
+     *
+     * @param b       the right-hand sides in row-major order.
+     * @param columns the number of right-hand sides k.
+     * @return the solutions in row-major order.
+     * @throws org.apache.commons.math3.linear.SingularMatrixException       if the decomposed matrix is singular.
+     * @throws org.apache.commons.math3.exception.DimensionMismatchException if the matrix dimension does not match.
+     */
+    double[] solve(double[] b, int columns);
+
+    /**
+     * Solves the transposed linear equation A<sup>T</sup> × x = b with the same factors.
+     * <br>As A<sup>T</sup> = Q × U<sup>T</sup> × L<sup>T</sup> × P, the default implementation solves
+     * U<sup>T</sup> × y = Q<sup>T</sup> × b, then L<sup>T</sup> × z = y and permutes z back by the pivot vector. It
+     * reads L and U by entry, so the implementations keeping their own factors override it.
+     *
+     * @param b the right-hand side vector.
+     * @return the solution vector x.
+     * @throws SingularMatrixException    if the decomposed matrix is singular.
+     * @throws DimensionMismatchException if the vector dimension does not match.
+     * @see ConditionEstimator
+     */
+    default double[] solveTransposed(double[] b) {
+        int n = getDimension();
+        if (b.length != n) {
+            throw new DimensionMismatchException(b.length, n);
+        }
+        if (isSingular()) {
+            throw new SingularMatrixException();
+        }
+        RealMatrix l = getL();
+        RealMatrix u = getU();
+        int[] q = getColumnPermutation();
+        double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            y[k] = b[q[k]];
+        }
+        for (int i = 0; i < n; i++) {
+            double sum = y[i];
+            for (int j = 0; j < i; j++) {
+                sum -= u.getEntry(j, i) * y[j];
+            }
+            y[i] = sum / u.getEntry(i, i);
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = y[i];
+            for (int j = i + 1; j < n; j++) {
+                sum -= l.getEntry(j, i) * y[j];
+            }
+            y[i] = sum / l.getEntry(i, i);
+        }
+        int[] pivot = getPivot();
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[pivot[i]] = y[i];
+        }
+        return x;
+    }
+
+    /**
+     * Returns the inverse of the decomposed matrix.
+     *
+     * @return the inverse matrix.
+     * @throws org.apache.commons.math3.linear.SingularMatrixException if the decomposed matrix is singular.
+     */
+    RealMatrix getInverse();
+
+    /**
+     * Returns the selected columns of the inverse without forming the whole inverse.
+     *
+     * @param columns the indices of the columns.
+     * @return the n × k matrix of the selected columns.
+     * @throws org.apache.commons.math3.linear.SingularMatrixException if the decomposed matrix is singular.
+     * @throws org.apache.commons.math3.exception.OutOfRangeException  if a column index is out of range.
+     */
+    RealMatrix getInverseColumns(int... columns);
+
+    /**
+     * Returns the diagonal of the inverse without forming the whole inverse.
+     *
+     * @return the diagonal entries of the inverse.
+     * @throws org.apache.commons.math3.linear.SingularMatrixException if the decomposed matrix is singular.
+     */
+    double[] getInverseDiagonal();
+}
@@ -0,0 +1,313 @@
+package assignment.model;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of factorizations keyed by the content of the matrix.
+ * <br>The key is a 64-bit hash of the entries and the backend; on a hash match the stored copy of the matrix is
+ * compared entry by entry, so a collision is counted as a miss and never returns a wrong factorization.
+ * <br>The cache is bounded by the estimated number of bytes of the stored matrices and factors.
+ * <br>Every entry may hold the {@link BatchSolver} of its factorization, evicted together with the factorization.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see Factorization
+ */
+public class FactorizationCache {
+
+    /**
+     * The cache shared by the default {@link SolverOptions}.
+     */
+    private static final FactorizationCache SHARED =
+            new FactorizationCache(Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 8));
+
+    /**
+     * The maximum number of bytes held by the cache.
+     */
+    private final long maxBytes;
+
+    /**
+     * The entries in access order.
+     */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The entries by the identity of their factorization.
+     */
+    private final Map<Factorization, Entry> byFactorization = new IdentityHashMap<>();
+
+    /**
+     * The estimated number of bytes held by the cache.
+     */
+    private long bytes;
+
+    /**
+     * The number of lookups which found the factorization.
+     */
+    private long hits;
+
+    /**
+     * The number of lookups which computed the factorization.
+     */
+    private long misses;
+
+    /**
+     * The number of evicted entries.
+     */
+    private long evictions;
+
+    /**
+     * The number of hash matches with a different matrix.
+     */
+    private long collisions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes the maximum number of bytes held by the cache.
+     */
+    public FactorizationCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cache shared by the default {@link SolverOptions}.
+     *
+     * @return the shared cache.
+     */
+    public static FactorizationCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the cached factorization of the matrix or computes and stores it.
+     * <br>The factorization is computed outside of the lock, so lookups of other matrices are not blocked.
+     *
+     * @param matrix  the matrix.
+     * @param options the solver options, the options selecting the factorization are part of the key.
+     * @return the factorization.
+     */
+    public Factorization factorize(FlatRealMatrix matrix, SolverOptions options) {
+        return factorize(matrix, options, null);
+    }
+
+    /**
+     * Returns the cached factorization of the matrix or computes and stores it, counting the floating-point
+     * operations of a computed factorization in the timer.
+     *
+     * @param matrix  the matrix.
+     * @param options the solver options.
+     * @param timer   the timer of the decomposition or {@code null}.
+     * @return the factorization.
+     */
+    Factorization factorize(FlatRealMatrix matrix, SolverOptions options, SolverMetrics.StageTimer timer) {
+        double[] data = matrix.getDataRef();
+        long key = hash(data, matrix.getRowDimension(), options);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.rows == matrix.getRowDimension() && Arrays.equals(entry.data, data)) {
+                    hits++;
+                    SolverMetrics.global().cacheHit();
+                    return entry.factorization;
+                }
+                collisions++;
+            }
+            misses++;
+        }
+        SolverMetrics.global().cacheMiss();
+        Factorization factorization = SolverPath.factorizeDetected(matrix, options);
+        if (timer != null) {
+            timer.addFlops(SolverMetrics.factorizationFlops(factorization));
+        }
+        put(key, new Entry(matrix.getRowDimension(), data.clone(), factorization));
+        return factorization;
+    }
+
+    /**
+     * Removes all entries.
+     * <br>The counters are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        byFactorization.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the batch solver of a cached factorization, created on the first call.
+     * <br>The batch solver is stored in the entry of the factorization and evicted with it; a factorization which is
+     * not cached, e.g. already evicted or larger than the cache, gets a new batch solver which is not stored.
+     *
+     * @param factorization the factorization returned by {@link FactorizationCache#factorize}.
+     * @return the batch solver.
+     */
+    public synchronized BatchSolver batchSolver(Factorization factorization) {
+        Entry entry = byFactorization.get(factorization);
+        if (entry == null) {
+            return new BatchSolver(factorization);
+        }
+        if (entry.batchSolver == null) {
+            entry.batchSolver = new BatchSolver(factorization);
+        }
+        return entry.batchSolver;
+    }
+
+    /**
+     * Returns the maximum number of bytes held by the cache.
+     *
+     * @return the capacity in bytes.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the estimated number of bytes held by the cache.
+     *
+     * @return the size in bytes.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of cached factorizations.
+     *
+     * @return the number of entries.
+     */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups which found the factorization.
+     *
+     * @return the number of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups which computed the factorization.
+     *
+     * @return the number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within the capacity.
+     *
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of hash matches with a different matrix.
+     *
+     * @return the number of collisions.
+     */
+    public synchronized long getCollisions() {
+        return collisions;
+    }
+
+    /**
+     * Stores the entry and evicts the least recently used entries above the capacity.
+     *
+     * @param key   the hash of the matrix.
+     * @param entry the entry.
+     */
+    private synchronized void put(long key, Entry entry) {
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.bytes;
+            byFactorization.remove(previous.factorization);
+        }
+        bytes += entry.bytes;
+        byFactorization.put(entry.factorization, entry);
+        Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            byFactorization.remove(eldest.factorization);
+            bytes -= eldest.bytes;
+            evictions++;
+        }
+    }
+
+    /**
+     * Computes the 64-bit hash of the matrix and the options selecting the factorization.
+     *
+     * @param data    the entries of the matrix.
+     * @param rows    the number of rows.
+     * @param options the solver options.
+     * @return the hash.
+     */
+    static long hash(double[] data, int rows, SolverOptions options) {
+        long variant = 31L * options.getBackend().ordinal() + (options.isStructureDetection() ? 7 : 0)
+                + Double.doubleToLongBits(options.getSparseThreshold());
+        long h = 0x9E3779B97F4A7C15L * (rows + 31L * variant + 1);
+        for (double value : data) {
+            h = (h ^ Double.doubleToLongBits(value)) * 0x100000001B3L;
+            h ^= h >>> 29;
+        }
+        return h;
+    }
+
+    /**
+     * A cached factorization with the copy of its matrix.
+     */
+    private static final class Entry {
+
+        /**
+         * The number of rows of the matrix.
+         */
+        private final int rows;
+
+        /**
+         * The copy of the entries of the matrix.
+         */
+        private final double[] data;
+
+        /**
+         * The factorization.
+         */
+        private final Factorization factorization;
+
+        /**
+         * The estimated size: the matrix, the packed or separate L and U factors and the pivot vector.
+         */
+        private final long bytes;
+
+        /**
+         * The batch solver of the factorization, created on the first request.
+         */
+        private BatchSolver batchSolver;
+
+        /**
+         * Creates the entry.
+         *
+         * @param rows          the number of rows of the matrix.
+         * @param data          the copy of the entries of the matrix.
+         * @param factorization the factorization.
+         */
+        private Entry(int rows, double[] data, Factorization factorization) {
+            this.rows = rows;
+            this.data = data;
+            this.factorization = factorization;
+            this.bytes = 8L * data.length * 4 + 4L * rows;
+        }
+    }
+}
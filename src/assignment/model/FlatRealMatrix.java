@@ -0,0 +1,155 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.NullArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.AbstractRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of {@link RealMatrix} backed by a single row-major {@code double} array.
+ * <br>Element (i, j) is stored at index {@code i * columns + j}, so rows are contiguous in memory.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see AbstractRealMatrix
+ */
+public class FlatRealMatrix extends AbstractRealMatrix {
+
+    /**
+     * The number of rows.
+     */
+    private final int rows;
+
+    /**
+     * The number of columns.
+     */
+    private final int columns;
+
+    /**
+     * The entries of the matrix in row-major order.
+     */
+    private final double[] data;
+
+    /**
+     * Creates a matrix filled with zeros.
+     *
+     * @param rows    the number of rows.
+     * @param columns the number of columns.
+     * @throws NotStrictlyPositiveException if the row or column dimension is not positive.
+     */
+    public FlatRealMatrix(int rows, int columns) throws NotStrictlyPositiveException {
+        super(rows, columns);
+        this.rows = rows;
+        this.columns = columns;
+        this.data = new double[rows * columns];
+    }
+
+    /**
+     * Creates a matrix using the input array as the underlying data array, without copying it.
+     *
+     * @param rows    the number of rows.
+     * @param columns the number of columns.
+     * @param data    the entries of the matrix in row-major order.
+     * @throws NotStrictlyPositiveException if the row or column dimension is not positive.
+     * @throws IllegalArgumentException     if the length of the array does not match the dimensions.
+     */
+    public FlatRealMatrix(int rows, int columns, double[] data) throws NotStrictlyPositiveException {
+        super(rows, columns);
+        if (data == null) {
+            throw new NullArgumentException();
+        }
+        if (data.length != rows * columns) {
+            throw new IllegalArgumentException("Expected " + rows * columns + " entries, got " + data.length);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.data = data;
+    }
+
+    /**
+     * Returns a reference to the underlying row-major data array.
+     *
+     * @return the underlying data array.
+     */
+    public double[] getDataRef() {
+        return data;
+    }
+
+    @Override
+    public RealMatrix createMatrix(int rowDimension, int columnDimension) throws NotStrictlyPositiveException {
+        return new FlatRealMatrix(rowDimension, columnDimension);
+    }
+
+    @Override
+    public RealMatrix copy() {
+        return new FlatRealMatrix(rows, columns, Arrays.copyOf(data, data.length));
+    }
+
+    @Override
+    public double getEntry(int row, int column) throws OutOfRangeException {
+        checkIndex(row, column);
+        return data[row * columns + column];
+    }
+
+    @Override
+    public void setEntry(int row, int column, double value) throws OutOfRangeException {
+        checkIndex(row, column);
+        data[row * columns + column] = value;
+    }
+
+    @Override
+    public void addToEntry(int row, int column, double increment) throws OutOfRangeException {
+        checkIndex(row, column);
+        data[row * columns + column] += increment;
+    }
+
+    @Override
+    public void multiplyEntry(int row, int column, double factor) throws OutOfRangeException {
+        checkIndex(row, column);
+        data[row * columns + column] *= factor;
+    }
+
+    @Override
+    public double[] getRow(int row) throws OutOfRangeException {
+        checkIndex(row, 0);
+        return Arrays.copyOfRange(data, row * columns, (row + 1) * columns);
+    }
+
+    @Override
+    public double[][] getData() {
+        double[][] out = new double[rows][];
+        for (int i = 0; i < rows; i++) {
+            out[i] = Arrays.copyOfRange(data, i * columns, (i + 1) * columns);
+        }
+        return out;
+    }
+
+    @Override
+    public int getRowDimension() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnDimension() {
+        return columns;
+    }
+
+    /**
+     * Checks the row and column index.
+     *
+     * @param row    the row index.
+     * @param column the column index.
+     * @throws OutOfRangeException if one of the indices is out of range.
+     */
+    private void checkIndex(int row, int column) throws OutOfRangeException {
+        if (row < 0 || row >= rows) {
+            throw new OutOfRangeException(row, 0, rows - 1);
+        }
+        if (column < 0 || column >= columns) {
+            throw new OutOfRangeException(column, 0, columns - 1);
+        }
+    }
+}
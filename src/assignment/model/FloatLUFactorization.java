@@ -0,0 +1,382 @@
+package assignment.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Blocked LU-decomposition with partial pivoting in single precision, the inner solver of
+ * {@link MixedPrecisionFactorization}.
+ * <br>The algorithm is the one of {@link BlockedLUFactorization} on a row-major {@code float} array: half the memory
+ * traffic and twice the elements per vector register of the {@code double} kernels. The factors are accurate to
+ * about 10<sup>-7</sup> relative to the matrix, so the solutions are refined against the {@code double} matrix.
+ * <br>The substitutions read the {@code float} factors and compute in {@code double}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see MixedPrecisionFactorization
+ */
+final class FloatLUFactorization {
+
+    /**
+     * The dimension of the matrix.
+     */
+    private final int n;
+
+    /**
+     * The packed factors: L below the diagonal with its unit diagonal implied, U on and above the diagonal.
+     */
+    private final float[] lu;
+
+    /**
+     * The row order: row i of P × A is row {@code pivot[i]} of A.
+     */
+    private final int[] pivot;
+
+    /**
+     * True if a pivot was below {@link PackedLUFactorization#SINGULARITY_THRESHOLD} in single precision.
+     */
+    private boolean singular;
+
+    /**
+     * True if an odd number of rows was exchanged.
+     */
+    private boolean oddExchanges;
+
+    /**
+     * The pool running the trailing update or {@code null} if the factorization is sequential.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Rounds the matrix to single precision and calculates its LU-decomposition.
+     *
+     * @param matrix the square matrix, it is not modified.
+     * @param pool   the pool running the trailing update or {@code null} to run on the calling thread.
+     */
+    FloatLUFactorization(FlatRealMatrix matrix, ForkJoinPool pool) {
+        this.n = matrix.getRowDimension();
+        this.pool = pool;
+        double[] data = matrix.getDataRef();
+        lu = new float[data.length];
+        for (int i = 0; i < data.length; i++) {
+            lu[i] = (float) data[i];
+        }
+        pivot = AbstractFactorization.identityPivot(n);
+        for (int k0 = 0; k0 < n && !singular; k0 += BlockedLUFactorization.PANEL_SIZE) {
+            BlockKernels.checkCancelled();
+            int k1 = Math.min(k0 + BlockedLUFactorization.PANEL_SIZE, n);
+            factorPanel(k0, k1);
+            if (!singular && k1 < n) {
+                if (pool != null) {
+                    pool.invoke(new ColumnBlockTask(k0, k1, k1, n));
+                } else {
+                    for (int c0 = k1; c0 < n; c0 += BlockedLUFactorization.COLUMN_BLOCK) {
+                        BlockKernels.checkCancelled();
+                        updateColumns(k0, k1, c0, Math.min(c0 + BlockedLUFactorization.COLUMN_BLOCK, n));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Factorizes the columns {@code [k0, k1)} of the rows below {@code k0} with partial pivoting.
+     *
+     * @param k0 the first column of the panel.
+     * @param k1 the end of the panel.
+     */
+    private void factorPanel(int k0, int k1) {
+        for (int j = k0; j < k1; j++) {
+            int max = j;
+            float largest = Math.abs(lu[j * n + j]);
+            for (int i = j + 1; i < n; i++) {
+                float value = Math.abs(lu[i * n + j]);
+                if (value > largest) {
+                    largest = value;
+                    max = i;
+                }
+            }
+            if (largest < PackedLUFactorization.SINGULARITY_THRESHOLD) {
+                singular = true;
+                return;
+            }
+            if (max != j) {
+                swapRows(max, j);
+            }
+            int rowJ = j * n;
+            float diagonal = lu[rowJ + j];
+            for (int i = j + 1; i < n; i++) {
+                int rowI = i * n;
+                float l = lu[rowI + j] / diagonal;
+                lu[rowI + j] = l;
+                if (l != 0.0f) {
+                    for (int c = j + 1; c < k1; c++) {
+                        lu[rowI + c] -= l * lu[rowJ + c];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Exchanges two whole rows and their pivots.
+     *
+     * @param i the first row.
+     * @param j the second row.
+     */
+    private void swapRows(int i, int j) {
+        int rowI = i * n;
+        int rowJ = j * n;
+        for (int c = 0; c < n; c++) {
+            float value = lu[rowI + c];
+            lu[rowI + c] = lu[rowJ + c];
+            lu[rowJ + c] = value;
+        }
+        int p = pivot[i];
+        pivot[i] = pivot[j];
+        pivot[j] = p;
+        oddExchanges = !oddExchanges;
+    }
+
+    /**
+     * Computes the rows {@code [k0, k1)} of U in the columns {@code [c0, c1)} and subtracts their product with the
+     * panel part of L from the trailing rows.
+     * <br>The rows of U are copied to separate arrays and every trailing row is updated in a separate buffer, four
+     * inner indices per pass: the JIT compiler vectorizes a loop only if its loads and stores do not share an array
+     * at different offsets, which the in-place kernel of {@link BlockKernels} does.
+     *
+     * @param k0 the first column of the panel.
+     * @param k1 the end of the panel.
+     * @param c0 the first updated column.
+     * @param c1 the end of the updated columns.
+     */
+    private void updateColumns(int k0, int k1, int c0, int c1) {
+        int width = c1 - c0;
+        float[][] u = new float[k1 - k0][];
+        for (int j = k0; j < k1; j++) {
+            int rowJ = j * n;
+            float[] uj = new float[width];
+            System.arraycopy(lu, rowJ + c0, uj, 0, width);
+            for (int i = k0; i < j; i++) {
+                float l = lu[rowJ + i];
+                if (l != 0.0f) {
+                    float[] ui = u[i - k0];
+                    for (int c = 0; c < width; c++) {
+                        uj[c] -= l * ui[c];
+                    }
+                }
+            }
+            System.arraycopy(uj, 0, lu, rowJ + c0, width);
+            u[j - k0] = uj;
+        }
+        float[] row = new float[width];
+        for (int i = k1; i < n; i++) {
+            int rowI = i * n;
+            System.arraycopy(lu, rowI + c0, row, 0, width);
+            int k = k0;
+            for (; k + 3 < k1; k += 4) {
+                float l0 = lu[rowI + k];
+                float l1 = lu[rowI + k + 1];
+                float l2 = lu[rowI + k + 2];
+                float l3 = lu[rowI + k + 3];
+                float[] u0 = u[k - k0];
+                float[] u1 = u[k - k0 + 1];
+                float[] u2 = u[k - k0 + 2];
+                float[] u3 = u[k - k0 + 3];
+                for (int c = 0; c < width; c++) {
+                    row[c] -= l0 * u0[c] + l1 * u1[c] + l2 * u2[c] + l3 * u3[c];
+                }
+            }
+            for (; k < k1; k++) {
+                float l = lu[rowI + k];
+                float[] uk = u[k - k0];
+                for (int c = 0; c < width; c++) {
+                    row[c] -= l * uk[c];
+                }
+            }
+            System.arraycopy(row, 0, lu, rowI + c0, width);
+        }
+    }
+
+    /**
+     * Checks if a pivot was too small in single precision.
+     *
+     * @return true if the factorization failed.
+     */
+    boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * Solves P × A × x = L × U × x = P × b with the single precision factors.
+     *
+     * @param b the right-hand side, it is not modified.
+     * @return the approximate solution.
+     */
+    double[] solve(double[] b) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            double sum = b[pivot[i]];
+            int row = i * n;
+            for (int k = 0; k < i; k++) {
+                sum -= lu[row + k] * x[k];
+            }
+            x[i] = sum;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = x[i];
+            int row = i * n;
+            for (int k = i + 1; k < n; k++) {
+                sum -= lu[row + k] * x[k];
+            }
+            x[i] = sum / lu[row + i];
+        }
+        return x;
+    }
+
+    /**
+     * Solves A<sup>T</sup> × x = b with the single precision factors, by substitutions with U<sup>T</sup> and
+     * L<sup>T</sup> subtracting whole rows of the factors so that they are read in storage order.
+     *
+     * @param b the right-hand side, it is not modified.
+     * @return the approximate solution.
+     */
+    double[] solveTransposed(double[] b) {
+        double[] y = b.clone();
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            double yi = y[i] / lu[row + i];
+            y[i] = yi;
+            if (yi != 0.0) {
+                for (int k = i + 1; k < n; k++) {
+                    y[k] -= yi * lu[row + k];
+                }
+            }
+        }
+        for (int i = n - 1; i > 0; i--) {
+            double yi = y[i];
+            if (yi != 0.0) {
+                int row = i * n;
+                for (int k = 0; k < i; k++) {
+                    y[k] -= yi * lu[row + k];
+                }
+            }
+        }
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[pivot[i]] = y[i];
+        }
+        return x;
+    }
+
+    /**
+     * Returns the unit lower triangular factor widened to {@code double}.
+     *
+     * @return the L matrix.
+     */
+    FlatRealMatrix getL() {
+        FlatRealMatrix l = new FlatRealMatrix(n, n);
+        double[] data = l.getDataRef();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                data[i * n + j] = lu[i * n + j];
+            }
+            data[i * n + i] = 1.0;
+        }
+        return l;
+    }
+
+    /**
+     * Returns the upper triangular factor widened to {@code double}.
+     *
+     * @return the U matrix.
+     */
+    FlatRealMatrix getU() {
+        FlatRealMatrix u = new FlatRealMatrix(n, n);
+        double[] data = u.getDataRef();
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                data[i * n + j] = lu[i * n + j];
+            }
+        }
+        return u;
+    }
+
+    /**
+     * Returns the pivot vector.
+     *
+     * @return a copy of the pivot vector.
+     */
+    int[] getPivot() {
+        return pivot.clone();
+    }
+
+    /**
+     * Returns the determinant, the product of the single precision pivots computed in {@code double}.
+     *
+     * @return the determinant with the relative accuracy of the single precision factors.
+     */
+    Determinant getLogDeterminant() {
+        Determinant.Product product = new Determinant.Product(oddExchanges ? -1 : 1);
+        for (int i = 0; i < n; i++) {
+            product.multiply(lu[i * n + i]);
+        }
+        return product.toDeterminant();
+    }
+
+    /**
+     * Task updating a range of columns of the trailing matrix.
+     */
+    private final class ColumnBlockTask extends RecursiveAction {
+
+        /**
+         * The serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first column of the panel.
+         */
+        private final int k0;
+
+        /**
+         * The end of the panel.
+         */
+        private final int k1;
+
+        /**
+         * The first column of the range.
+         */
+        private final int c0;
+
+        /**
+         * The end of the column range.
+         */
+        private final int c1;
+
+        /**
+         * Creates the task.
+         *
+         * @param k0 the first column of the panel.
+         * @param k1 the end of the panel.
+         * @param c0 the first column of the range.
+         * @param c1 the end of the column range.
+         */
+        ColumnBlockTask(int k0, int k1, int c0, int c1) {
+            this.k0 = k0;
+            this.k1 = k1;
+            this.c0 = c0;
+            this.c1 = c1;
+        }
+
+        @Override
+        protected void compute() {
+            if (c1 - c0 > BlockedLUFactorization.COLUMN_BLOCK / 2) {
+                int middle = c0 + (c1 - c0) / 2;
+                invokeAll(new ColumnBlockTask(k0, k1, c0, middle), new ColumnBlockTask(k0, k1, middle, c1));
+                return;
+            }
+            updateColumns(k0, k1, c0, c1);
+        }
+    }
+}
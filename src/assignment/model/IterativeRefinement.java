@@ -0,0 +1,232 @@
+package assignment.model;
+
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Iterative refinement of the solution of A × x = b: the residual r = b - A × x is computed in double precision and
+ * the correction solved from A × d = r with the available factors is added to x.
+ * <br>The refinement stops when the residual is as small as the one of a backward stable double precision solve,
+ * {@code ||r|| < sqrt(n) × eps × ||A|| × ||x||} in the infinity norm (the test of the LAPACK routine
+ * {@code dsgesv}), when the residual stops decreasing or after the maximum number of steps.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see MixedPrecisionFactorization
+ */
+final class IterativeRefinement {
+
+    /**
+     * The maximum number of corrections of a single precision solution, as in {@code dsgesv}.
+     */
+    static final int MAX_ITERATIONS = 30;
+
+    /**
+     * The maximum number of corrections of a double precision solution; one or two suffice unless the matrix is
+     * nearly singular.
+     */
+    static final int DOUBLE_ITERATIONS = 5;
+
+    /**
+     * The unit roundoff of {@code double}, 2<sup>-53</sup>.
+     */
+    private static final double EPSILON = Math.ulp(1.0) / 2;
+
+    /**
+     * Private constructor of the utility class.
+     */
+    private IterativeRefinement() {
+    }
+
+    /**
+     * Refines the solution of A × x = b.
+     *
+     * @param a             the matrix A in double precision.
+     * @param matrixNorm    the infinity norm of A.
+     * @param solver        the approximate solver of A × x = b.
+     * @param b             the right-hand side.
+     * @param maxIterations the maximum number of corrections.
+     * @param fallback      true if the solver uses the double precision factorization of a mixed precision solve.
+     * @return the solution with the smallest residual found.
+     */
+    static RefinedSolution refine(RealMatrix a, double matrixNorm, UnaryOperator<double[]> solver, double[] b,
+                                  int maxIterations, boolean fallback) {
+        return refine(x -> residual(a, x, b), matrixNorm, solver, b, maxIterations, fallback);
+    }
+
+    /**
+     * Refines the solution of the transposed equation A<sup>T</sup> × x = b.
+     *
+     * @param a             the matrix A in double precision.
+     * @param matrixNorm    the one norm of A, the infinity norm of A<sup>T</sup>.
+     * @param solver        the approximate solver of A<sup>T</sup> × x = b.
+     * @param b             the right-hand side.
+     * @param maxIterations the maximum number of corrections.
+     * @return the solution with the smallest residual found.
+     */
+    static RefinedSolution refineTransposed(FlatRealMatrix a, double matrixNorm, UnaryOperator<double[]> solver,
+                                            double[] b, int maxIterations) {
+        return refine(x -> transposedResidual(a, x, b), matrixNorm, solver, b, maxIterations, false);
+    }
+
+    /**
+     * Refines a solution with the given residual.
+     *
+     * @param residual      the residual of a solution.
+     * @param matrixNorm    the infinity norm of the matrix of the equation.
+     * @param solver        the approximate solver of the equation.
+     * @param b             the right-hand side.
+     * @param maxIterations the maximum number of corrections.
+     * @param fallback      true if the solver uses the double precision factorization of a mixed precision solve.
+     * @return the solution with the smallest residual found.
+     */
+    private static RefinedSolution refine(UnaryOperator<double[]> residual, double matrixNorm,
+                                          UnaryOperator<double[]> solver, double[] b, int maxIterations,
+                                          boolean fallback) {
+        int n = b.length;
+        double tolerance = Math.sqrt(n) * EPSILON * matrixNorm;
+        double[] x = solver.apply(b);
+        double[] best = x;
+        double bestNorm = Double.POSITIVE_INFINITY;
+        int bestIterations = 0;
+        for (int iteration = 0; ; iteration++) {
+            double[] r = residual.apply(x);
+            double residualNorm = infinityNorm(r);
+            if (!(residualNorm < bestNorm)) {
+                break;
+            }
+            best = x;
+            bestNorm = residualNorm;
+            bestIterations = iteration;
+            if (residualNorm <= tolerance * infinityNorm(x) || iteration == maxIterations) {
+                break;
+            }
+            BlockKernels.checkCancelled();
+            double[] d = solver.apply(r);
+            double[] next = new double[n];
+            for (int i = 0; i < n; i++) {
+                next[i] = x[i] + d[i];
+            }
+            x = next;
+        }
+        boolean converged = bestNorm <= tolerance * infinityNorm(best);
+        return new RefinedSolution(best, bestNorm, bestIterations, converged, fallback);
+    }
+
+    /**
+     * Computes the residual b - A × x in double precision.
+     *
+     * @param a the matrix.
+     * @param x the solution.
+     * @param b the right-hand side.
+     * @return the residual.
+     */
+    static double[] residual(RealMatrix a, double[] x, double[] b) {
+        int n = b.length;
+        double[] r = new double[n];
+        if (a instanceof FlatRealMatrix) {
+            double[] data = ((FlatRealMatrix) a).getDataRef();
+            for (int i = 0; i < n; i++) {
+                r[i] = b[i] - Kernels.INSTANCE.dot(data, i * n, x, 0, n);
+            }
+        } else if (a instanceof CsrRealMatrix) {
+            CsrRealMatrix sparse = (CsrRealMatrix) a;
+            int[] rowPointers = sparse.getRowPointers();
+            int[] columnIndices = sparse.getColumnIndices();
+            double[] values = sparse.getValues();
+            for (int i = 0; i < n; i++) {
+                double sum = 0.0;
+                for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                    sum += values[k] * x[columnIndices[k]];
+                }
+                r[i] = b[i] - sum;
+            }
+        } else {
+            double[] ax = a.operate(x);
+            for (int i = 0; i < n; i++) {
+                r[i] = b[i] - ax[i];
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Computes the residual b - A<sup>T</sup> × x in double precision, subtracting the rows of A scaled by the
+     * entries of x so that the matrix is read in storage order.
+     *
+     * @param a the matrix.
+     * @param x the solution.
+     * @param b the right-hand side.
+     * @return the residual.
+     */
+    static double[] transposedResidual(FlatRealMatrix a, double[] x, double[] b) {
+        int n = b.length;
+        double[] data = a.getDataRef();
+        double[] r = b.clone();
+        for (int i = 0; i < n; i++) {
+            if (x[i] != 0.0) {
+                Kernels.INSTANCE.subtractScaled(x[i], data, i * n, r, 0, n);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the infinity norm of a vector.
+     *
+     * @param v the vector.
+     * @return the largest magnitude of an entry, NaN if an entry is NaN.
+     */
+    static double infinityNorm(double[] v) {
+        double norm = 0.0;
+        for (double value : v) {
+            double magnitude = Math.abs(value);
+            if (!(magnitude <= norm)) {
+                norm = magnitude;
+            }
+        }
+        return norm;
+    }
+
+    /**
+     * Returns the infinity norm of a matrix, the largest sum of the magnitudes of a row.
+     *
+     * @param a the matrix.
+     * @return the norm.
+     */
+    static double infinityNorm(RealMatrix a) {
+        int rows = a.getRowDimension();
+        int columns = a.getColumnDimension();
+        if (a instanceof CsrRealMatrix) {
+            CsrRealMatrix sparse = (CsrRealMatrix) a;
+            int[] rowPointers = sparse.getRowPointers();
+            double[] values = sparse.getValues();
+            double norm = 0.0;
+            for (int i = 0; i < rows; i++) {
+                double sum = 0.0;
+                for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                    sum += Math.abs(values[k]);
+                }
+                norm = Math.max(norm, sum);
+            }
+            return norm;
+        }
+        double[] data = a instanceof FlatRealMatrix ? ((FlatRealMatrix) a).getDataRef() : null;
+        double norm = 0.0;
+        for (int i = 0; i < rows; i++) {
+            double sum = 0.0;
+            if (data != null) {
+                for (int j = 0; j < columns; j++) {
+                    sum += Math.abs(data[i * columns + j]);
+                }
+            } else {
+                for (int j = 0; j < columns; j++) {
+                    sum += Math.abs(a.getEntry(i, j));
+                }
+            }
+            norm = Math.max(norm, sum);
+        }
+        return norm;
+    }
+}
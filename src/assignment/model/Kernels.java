@@ -0,0 +1,125 @@
+package assignment.model;
+
+import java.util.Locale;
+
+/**
+ * The innermost loops of the factorizations and substitutions: the product update of a block, the update of a row by
+ * a multiple of another row and the dot product of two rows.
+ * <br>The implementation is chosen once when the class is loaded: {@link VectorKernels} if the incubating module
+ * {@code jdk.incubator.vector} is present ({@code --add-modules jdk.incubator.vector}) and the processor has vector
+ * registers of at least two {@code double} values, {@link ScalarKernels} otherwise. The system property
+ * {@value Kernels#PROPERTY} set to {@code scalar} forces the scalar loops.
+ * <br>Every method works on row-major arrays with explicit offsets and row strides; the ranges must lie within the
+ * arrays.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see BlockKernels
+ */
+abstract class Kernels {
+
+    /**
+     * The name of the system property selecting the implementation, {@code scalar} or {@code vector}.
+     */
+    static final String PROPERTY = "assignment.kernels";
+
+    /**
+     * The name of the module of the Vector API.
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The implementation chosen at startup.
+     */
+    static final Kernels INSTANCE = select();
+
+    /**
+     * Chooses the implementation.
+     * <br>{@link VectorKernels} is loaded by name, so the scalar loops run without linking the Vector API classes
+     * when the module is missing.
+     *
+     * @return the vector kernels if they can be used, the scalar kernels otherwise.
+     */
+    private static Kernels select() {
+        String requested = System.getProperty(PROPERTY, "vector").toLowerCase(Locale.ROOT);
+        if (!"scalar".equals(requested) && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                Kernels kernels = (Kernels) Class.forName("assignment.model.VectorKernels")
+                        .getDeclaredConstructor().newInstance();
+                if (kernels.getLanes() > 1) {
+                    return kernels;
+                }
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                // the scalar loops below
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    /**
+     * Returns the description of the implementation chosen at startup, e.g. for the output of the benchmarks.
+     *
+     * @return the name of the implementation and its vector width.
+     */
+    static String describe() {
+        return INSTANCE.getName() + ", " + INSTANCE.getLanes() + " double lanes";
+    }
+
+    /**
+     * Returns the name of the implementation.
+     *
+     * @return the name.
+     */
+    abstract String getName();
+
+    /**
+     * Returns the number of {@code double} values processed by one instruction.
+     *
+     * @return the vector length, 1 for the scalar loops.
+     */
+    abstract int getLanes();
+
+    /**
+     * Subtracts A × B from C.
+     * <br>C and B may be parts of the same array as long as the updated entries of C are not read as entries of A or B.
+     *
+     * @param c       the updated matrix.
+     * @param cOffset the index of the first entry of C.
+     * @param ldc     the row stride of C.
+     * @param a       the left factor.
+     * @param aOffset the index of the first entry of A.
+     * @param lda     the row stride of A.
+     * @param b       the right factor.
+     * @param bOffset the index of the first entry of B.
+     * @param ldb     the row stride of B.
+     * @param rows    the number of rows of C and A.
+     * @param columns the number of columns of C and B.
+     * @param inner   the number of columns of A and rows of B.
+     */
+    abstract void multiplySubtract(double[] c, int cOffset, int ldc, double[] a, int aOffset, int lda,
+                                   double[] b, int bOffset, int ldb, int rows, int columns, int inner);
+
+    /**
+     * Subtracts a multiple of the vector x from the vector y, y = y - alpha × x.
+     *
+     * @param alpha   the factor.
+     * @param x       the subtracted vector.
+     * @param xOffset the index of the first entry of x.
+     * @param y       the updated vector.
+     * @param yOffset the index of the first entry of y.
+     * @param length  the number of entries.
+     */
+    abstract void subtractScaled(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length);
+
+    /**
+     * Returns the dot product of two vectors.
+     *
+     * @param a       the first vector.
+     * @param aOffset the index of the first entry of a.
+     * @param b       the second vector.
+     * @param bOffset the index of the first entry of b.
+     * @param length  the number of entries.
+     * @return the sum of the products of the entries.
+     */
+    abstract double dot(double[] a, int aOffset, double[] b, int bOffset, int length);
+}
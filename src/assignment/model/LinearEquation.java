@@ -3,12 +3,17 @@ package assignment.model;
 import assignment.exception.LinearEquationException;
 import assignment.exception.MatrixException;
 import assignment.exception.VectorException;
-import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.MatrixDimensionMismatchException;
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
 
 /**
  * Calculates the LU decomposition of a matrix.
@@ -21,9 +26,23 @@ import java.util.Arrays;
 public class LinearEquation {
 
     /**
-     * The matrix.
+     * The reciprocal condition number below which the matrix is singular to working precision: the rounding errors of
+     * the factors, about {@code eps × ||A||}, may account for all of A<sup>-1</sup>, so no digit of a solution or of
+     * the inverse can be trusted.
+     */
+    public static final double NEARLY_SINGULAR_RCOND = Math.ulp(1.0);
+
+    /**
+     * The reciprocal condition number below which the matrix is ill-conditioned: more than half of the 16 significant
+     * digits of a solution or of the inverse may be lost.
+     */
+    public static final double ILL_CONDITIONED_RCOND = 1e-8;
+
+    /**
+     * The matrix, a {@link FlatRealMatrix}, a {@link CsrRealMatrix} if it was given in the coordinate format or a
+     * {@link MappedRealMatrix} if it was read from a binary file.
      *
-     * @see RealMatrix
+     * @see FlatRealMatrix
      */
     private RealMatrix matrix;
 
@@ -37,9 +56,31 @@ public class LinearEquation {
     /**
      * The LU-decomposition.
      *
-     * @see LUDecomposition
+     * @see Factorization
+     */
+    private Factorization factorization;
+
+    /**
+     * The options of the decomposition, used again when an updated matrix is factorized from scratch.
+     */
+    private SolverOptions options = SolverOptions.defaults();
+
+    /**
+     * The solver of further right-hand sides, created on first use.
+     *
+     * @see BatchSolver
+     */
+    private BatchSolver batchSolver;
+
+    /**
+     * The inverse of the matrix, computed on first request.
+     */
+    private RealMatrix inverse;
+
+    /**
+     * The estimated reciprocal condition number, NaN until it is requested.
      */
-    private LUDecomposition luDecomposition;
+    private double reciprocalCondition = Double.NaN;
 
     /**
      * Calculates the LU-decomposition of the given matrix.
@@ -49,9 +90,29 @@ public class LinearEquation {
      * @throws LinearEquationException if the errors during the conversion or LU-decomposition process appeared.
      */
     public LinearEquation(String matrixString, String vectorString) throws LinearEquationException {
-        createRealMatrix(convertStringToDouble2DArray(matrixString));
-        createRealVector(convertStringToDoubleArray(vectorString));
-        luDecomposition = new LUDecomposition(matrix);
+        this(matrixString, vectorString, SolverOptions.defaults());
+    }
+
+    /**
+     * Calculates the LU-decomposition of the given matrix using the given options.
+     * <br>The progress listener of the options is notified before parsing and before the decomposition.
+     *
+     * @param matrixString the input matrix in {@code String} format.
+     * @param vectorString the input matrix in {@code String} format.
+     * @param options      the solver options.
+     * @throws LinearEquationException if the errors during the conversion or LU-decomposition process appeared.
+     */
+    public LinearEquation(String matrixString, String vectorString, SolverOptions options) throws LinearEquationException {
+        options.getProgressListener().stageStarted(ComputationStage.PARSE);
+        SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.PARSE, 0);
+        try {
+            createRealMatrix(matrixString);
+            createRealVector(convertStringToDoubleArray(vectorString));
+        } finally {
+            timer.close();
+        }
+        options.getProgressListener().stageStarted(ComputationStage.FACTOR);
+        factorize(options);
     }
 
     /**
@@ -61,95 +122,516 @@ public class LinearEquation {
      * @throws MatrixException if the errors during the conversion or LU-decomposition process appeared.
      */
     public LinearEquation(String matrixString) throws MatrixException {
-        createRealMatrix(convertStringToDouble2DArray(matrixString));
-        luDecomposition = new LUDecomposition(matrix);
+        this(matrixString, SolverOptions.defaults());
     }
 
     /**
-     * Converts {@code String} data to a 2-dimensional array of double.
+     * Calculates the LU-decomposition of the given matrix using the given options.
+     * <br>The progress listener of the options is notified before parsing and before the decomposition.
      *
-     * @param matrixString the input {@code String}.
-     * @return the 2-dimensional double array.
-     * @throws MatrixException if the errors during the conversion process appeared.
+     * @param matrixString the input matrix in {@code String} format.
+     * @param options      the solver options.
+     * @throws MatrixException if the errors during the conversion or LU-decomposition process appeared.
+     */
+    public LinearEquation(String matrixString, SolverOptions options) throws MatrixException {
+        options.getProgressListener().stageStarted(ComputationStage.PARSE);
+        SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.PARSE, 0);
+        try {
+            createRealMatrix(matrixString);
+        } finally {
+            timer.close();
+        }
+        options.getProgressListener().stageStarted(ComputationStage.FACTOR);
+        factorize(options);
+    }
+
+    /**
+     * Reads the matrix from a text file and calculates its LU-decomposition while the file is read.
+     * <br>The rows are read, parsed and eliminated at the same time by {@link MatrixFileReader}: the decomposition
+     * with column pivoting of {@link StreamedLUFactorization} starts on the first panel of rows as soon as it is
+     * parsed, so the file is never held in memory as text and reading overlaps the decomposition. A file in the
+     * coordinate format is read whole and decomposed as by {@link LinearEquation#LinearEquation(String, String,
+     * SolverOptions)}.
+     * <br>The progress listener of the options is notified before reading and before the decomposition.
+     *
+     * @param matrixFile   the file of the matrix in the text format.
+     * @param vectorString the input vector in {@code String} format.
+     * @param options      the solver options.
+     * @throws LinearEquationException if the errors during the reading, conversion or LU-decomposition process
+     *                                 appeared.
+     */
+    public LinearEquation(Path matrixFile, String vectorString, SolverOptions options) throws LinearEquationException {
+        readMatrixFile(matrixFile, options);
+        createRealVector(convertStringToDoubleArray(vectorString));
+    }
+
+    /**
+     * Reads the matrix from a text file and calculates its LU-decomposition while the file is read.
+     *
+     * @param matrixFile the file of the matrix in the text format.
+     * @param options    the solver options.
+     * @throws MatrixException if the errors during the reading, conversion or LU-decomposition process appeared.
+     * @see LinearEquation#LinearEquation(Path, String, SolverOptions)
+     */
+    public LinearEquation(Path matrixFile, SolverOptions options) throws MatrixException {
+        readMatrixFile(matrixFile, options);
+    }
+
+    /**
+     * Calculates only the determinant of the given matrix.
+     *
+     * @param matrixString the input matrix in {@code String} format.
+     * @return the sign and the logarithm of the absolute value of the determinant.
+     * @throws MatrixException if the errors during the conversion or elimination process appeared.
+     * @see LinearEquation#determinant(String, SolverOptions)
+     */
+    public static Determinant determinant(String matrixString) throws MatrixException {
+        return determinant(matrixString, SolverOptions.defaults());
+    }
+
+    /**
+     * Calculates only the determinant of the given matrix using the given options, e.g. for log-likelihoods.
+     * <br>No vector is parsed and no {@link LinearEquation} is created: the parsed array is eliminated in place by the
+     * blocked LU-decomposition, with the threads of the options, and the pivots are multiplied without overflow by
+     * {@link Determinant}, so the matrix is held in memory once and L and U are never formed. A matrix in the
+     * coordinate format with the density below the sparse threshold is decomposed by {@link SparseLUFactorization}.
+     * <br>The progress listener of the options is notified before parsing and before the elimination.
+     *
+     * @param matrixString the input matrix in {@code String} format.
+     * @param options      the solver options.
+     * @return the sign and the logarithm of the absolute value of the determinant, {@link Determinant#ZERO} if a pivot
+     * is below the singularity threshold.
+     * @throws MatrixException if the errors during the conversion or elimination process appeared.
      */
-    private double[][] convertStringToDouble2DArray(String matrixString) throws MatrixException {
+    public static Determinant determinant(String matrixString, SolverOptions options) throws MatrixException {
+        options.getProgressListener().stageStarted(ComputationStage.PARSE);
+        int n;
+        double[] data;
+        CsrRealMatrix sparse = null;
+        SolverMetrics.StageTimer parseTimer = SolverMetrics.global().start(ComputationStage.PARSE, 0);
         try {
-            String lines[] = endOfLineChars(matrixString);
-            double[][] m = new double[lines.length][lines.length];
-            for (int i = 0; i < lines.length; i++) {
-                m[i] = Arrays.stream(spaceChars(lines[i]))
-                        .mapToDouble(Double::parseDouble)
-                        .toArray();
+            MatrixParser parser = new MatrixParser(matrixString);
+            if (MatrixParser.isCoordinateFormat(matrixString)) {
+                sparse = parser.parseCoordinates();
+                n = sparse.getRowDimension();
+                data = null;
+                if (!sparse.isSquare()) {
+                    throw new IllegalArgumentException("Matrix is not square: " + n + "x"
+                            + sparse.getColumnDimension());
+                }
+            } else {
+                data = parser.parseMatrix();
+                n = parser.getRows();
+                if (n != parser.getColumns()) {
+                    throw new IllegalArgumentException("Matrix is not square: " + n + "x" + parser.getColumns());
+                }
+            }
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        } finally {
+            parseTimer.close();
+        }
+        options.getProgressListener().stageStarted(ComputationStage.FACTOR);
+        SolverMetrics metrics = SolverMetrics.global();
+        try (SolverMetrics.StageTimer timer = metrics.start(ComputationStage.FACTOR, n)) {
+            Factorization factors;
+            if (sparse != null && options.isSparse(n, sparse.getDensity())) {
+                factors = new SparseLUFactorization(sparse);
+            } else {
+                if (sparse != null) {
+                    data = sparse.toDense().getDataRef();
+                }
+                factors = new BlockedLUFactorization(n, data, options.isParallel(n)
+                        ? BlockedLUFactorization.pool(options.getParallelism()) : null);
+                timer.addFlops(SolverMetrics.factorizationFlops(factors));
+            }
+            if (factors.isSingular()) {
+                metrics.singularInput();
             }
-            return m;
+            return factors.getLogDeterminant();
         } catch (Exception ex) {
             throw new MatrixException(ex);
         }
     }
 
     /**
-     * Converts {@code String} data to a 2-dimensional array of double.
+     * Calculates the LU-decomposition of the matrix stored in a memory-mapped file.
+     * <br>The decomposition is computed out of core into the factors file and reused while the matrix file is
+     * unchanged, so neither the matrix nor the factors have to fit the heap.
      *
-     * @param vectorString the input {@code String}.
-     * @return the 1-dimensional double array.
-     * @throws VectorException if the errors during the conversion process appeared.
+     * @param matrixFile   the matrix written by {@link MappedRealMatrix}.
+     * @param factorsFile  the file of the factors, created if it does not exist.
+     * @param vectorString the input vector in {@code String} format.
+     * @throws LinearEquationException if the errors during the reading or LU-decomposition process appeared.
      */
-    private double[] convertStringToDoubleArray(String vectorString) throws VectorException {
+    public LinearEquation(Path matrixFile, Path factorsFile, String vectorString) throws LinearEquationException {
+        createMappedMatrix(matrixFile, factorsFile);
+        createRealVector(convertStringToDoubleArray(vectorString));
+    }
+
+    /**
+     * Calculates the LU-decomposition of the matrix stored in a memory-mapped file.
+     *
+     * @param matrixFile  the matrix written by {@link MappedRealMatrix}.
+     * @param factorsFile the file of the factors, created if it does not exist.
+     * @throws MatrixException if the errors during the reading or LU-decomposition process appeared.
+     */
+    public LinearEquation(Path matrixFile, Path factorsFile) throws MatrixException {
+        createMappedMatrix(matrixFile, factorsFile);
+    }
+
+    /**
+     * Maps the matrix file and opens or computes its factors, as an alternative to
+     * {@link LinearEquation#createRealMatrix(String)} and {@link LinearEquation#factorize(SolverOptions)}.
+     *
+     * @param matrixFile  the matrix file.
+     * @param factorsFile the file of the factors.
+     * @throws MatrixException if the files can not be read or written or the matrix is not square.
+     */
+    private void createMappedMatrix(Path matrixFile, Path factorsFile) throws MatrixException {
+        SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.FACTOR, 0);
         try {
-            return Arrays.stream(spaceChars(vectorString))
-                    .mapToDouble(Double::parseDouble)
-                    .toArray();
+            MappedRealMatrix mapped = MappedRealMatrix.open(matrixFile, false);
+            matrix = mapped;
+            factorization = MappedLUFactorization.openOrFactorize(mapped, factorsFile);
         } catch (Exception ex) {
-            throw new VectorException(ex);
+            throw new MatrixException(ex);
+        } finally {
+            timer.close();
         }
     }
 
     /**
-     * Creates a {@link RealMatrix} using the data from the input array.
+     * Reads the matrix file and decomposes it while it is read, as an alternative to
+     * {@link LinearEquation#createRealMatrix(String)} and {@link LinearEquation#factorize(SolverOptions)}.
      *
-     * @param matrixData input array.
-     * @throws MatrixException if the errors during the creation process appeared.
+     * @param matrixFile the file of the matrix.
+     * @param options    the solver options.
+     * @throws MatrixException if the file can not be read, an element is not a number or the matrix is not square.
      */
-    private void createRealMatrix(double[][] matrixData) throws MatrixException {
+    private void readMatrixFile(Path matrixFile, SolverOptions options) throws MatrixException {
+        this.options = options;
         try {
-            matrix = MatrixUtils.createRealMatrix(matrixData);
+            if (MatrixFileReader.isCoordinateFormat(matrixFile)) {
+                options.getProgressListener().stageStarted(ComputationStage.PARSE);
+                SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.PARSE, 0);
+                try {
+                    createRealMatrix(new String(Files.readAllBytes(matrixFile), StandardCharsets.UTF_8));
+                } finally {
+                    timer.close();
+                }
+                options.getProgressListener().stageStarted(ComputationStage.FACTOR);
+                factorize(options);
+                return;
+            }
+            MatrixFileReader reader = new MatrixFileReader(matrixFile, options);
+            factorization = reader.readAndFactorize();
+            matrix = reader.getMatrix();
+            countSingular(SolverMetrics.global());
+        } catch (MatrixException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new MatrixException(ex);
         }
     }
 
     /**
-     * Creates a {@link RealVector} using the data from the input array.
+     * Saves the matrix and its LU factors in the binary format read by
+     * {@link LinearEquation#LinearEquation(Path, Path, String)}.
      *
-     * @param vectorData input array.
-     * @throws VectorException if data is empty or data is null.
+     * @param matrixFile  the file of the matrix, overwritten if it exists.
+     * @param factorsFile the file of the factors, overwritten if it exists.
+     * @throws MatrixException if the files can not be written.
      */
-    private void createRealVector(double[] vectorData) throws VectorException {
+    public void saveBinary(Path matrixFile, Path factorsFile) throws MatrixException {
+        try (MappedRealMatrix mapped = MappedRealMatrix.copyOf(matrix, matrixFile)) {
+            MappedLUFactorization.save(factorization, mapped, factorsFile).getStorage().close();
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        }
+    }
+
+    /**
+     * Calculates the decomposition of the matrix selected by its structure and the options.
+     * <br>A matrix with the density below the sparse threshold of the options is decomposed by
+     * {@link SparseLUFactorization}; a dense matrix is analyzed by {@link MatrixStructure} and decomposed on the
+     * cheapest {@link SolverPath}, the general matrices by the selected backend.
+     * <br>The factorization of a dense matrix seen before is taken from the cache of the options.
+     *
+     * @param options the solver options.
+     * @throws MatrixException if the errors during the decomposition process appeared.
+     */
+    private void factorize(SolverOptions options) throws MatrixException {
+        this.options = options;
+        reciprocalCondition = Double.NaN;
+        SolverMetrics metrics = SolverMetrics.global();
+        try (SolverMetrics.StageTimer timer = metrics.start(ComputationStage.FACTOR, matrix.getRowDimension())) {
+            if (matrix instanceof CsrRealMatrix) {
+                CsrRealMatrix sparse = (CsrRealMatrix) matrix;
+                if (options.isSparse(sparse.getRowDimension(), sparse.getDensity())) {
+                    factorization = new SparseLUFactorization(sparse);
+                    countSingular(metrics);
+                    return;
+                }
+                matrix = sparse.toDense();
+            }
+            FlatRealMatrix dense = (FlatRealMatrix) matrix;
+            FactorizationCache cache = options.getCache();
+            if (cache != null) {
+                factorization = cache.factorize(dense, options, timer);
+            } else {
+                factorization = SolverPath.factorizeDetected(dense, options);
+                timer.addFlops(SolverMetrics.factorizationFlops(factorization));
+            }
+            countSingular(metrics);
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        }
+    }
+
+    /**
+     * Counts the decomposed matrix in the metrics if it is singular.
+     *
+     * @param metrics the metrics.
+     */
+    private void countSingular(SolverMetrics metrics) {
+        if (factorization.isSingular()) {
+            metrics.singularInput();
+        }
+    }
+
+    /**
+     * Sets the entry (row, column) of the matrix and updates the decomposition by a rank-1 update.
+     *
+     * @param row    the row of the entry.
+     * @param column the column of the entry.
+     * @param value  the new value.
+     * @throws MatrixException if the index is out of range or the matrix is not held in memory.
+     * @see LinearEquation#update(RealMatrix, RealMatrix)
+     */
+    public synchronized void updateEntry(int row, int column, double value) throws MatrixException {
         try {
-            vector = MatrixUtils.createRealVector(vectorData);
+            FlatRealMatrix dense = denseMatrix();
+            double[] u = new double[dense.getRowDimension()];
+            double[] v = new double[u.length];
+            u[row] = value - dense.getEntry(row, column);
+            v[column] = 1.0;
+            double[] data = dense.getDataRef().clone();
+            data[row * u.length + column] = value;
+            applyUpdate(new FlatRealMatrix(u.length, u.length, data), new double[][]{u}, new double[][]{v});
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        }
+    }
+
+    /**
+     * Replaces a row of the matrix and updates the decomposition by a rank-1 update.
+     *
+     * @param row    the index of the row.
+     * @param values the new row.
+     * @throws MatrixException if the index or the dimension is out of range or the matrix is not held in memory.
+     * @see LinearEquation#update(RealMatrix, RealMatrix)
+     */
+    public synchronized void updateRow(int row, RealVector values) throws MatrixException {
+        try {
+            FlatRealMatrix dense = denseMatrix();
+            double[] u = new double[dense.getRowDimension()];
+            if (values.getDimension() != u.length) {
+                throw new DimensionMismatchException(values.getDimension(), u.length);
+            }
+            u[row] = 1.0;
+            double[] v = values.subtract(dense.getRowVector(row)).toArray();
+            double[] data = dense.getDataRef().clone();
+            System.arraycopy(values.toArray(), 0, data, row * u.length, u.length);
+            applyUpdate(new FlatRealMatrix(u.length, u.length, data), new double[][]{u}, new double[][]{v});
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        }
+    }
+
+    /**
+     * Replaces a column of the matrix and updates the decomposition by a rank-1 update.
+     *
+     * @param column the index of the column.
+     * @param values the new column.
+     * @throws MatrixException if the index or the dimension is out of range or the matrix is not held in memory.
+     * @see LinearEquation#update(RealMatrix, RealMatrix)
+     */
+    public synchronized void updateColumn(int column, RealVector values) throws MatrixException {
+        try {
+            FlatRealMatrix dense = denseMatrix();
+            double[] v = new double[dense.getColumnDimension()];
+            if (values.getDimension() != v.length) {
+                throw new DimensionMismatchException(values.getDimension(), v.length);
+            }
+            v[column] = 1.0;
+            double[] u = values.subtract(dense.getColumnVector(column)).toArray();
+            double[] data = dense.getDataRef().clone();
+            for (int i = 0; i < v.length; i++) {
+                data[i * v.length + column] = values.getEntry(i);
+            }
+            applyUpdate(new FlatRealMatrix(v.length, v.length, data), new double[][]{u}, new double[][]{v});
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        }
+    }
+
+    /**
+     * Adds U × V<sup>T</sup> to the matrix and updates the decomposition instead of computing it again.
+     * <br>The factors of the matrix are kept and the solutions and the determinant are corrected by the
+     * Sherman-Morrison-Woodbury formula, see {@link UpdatedFactorization}: an update of rank k costs O(n² × k), the
+     * following solves O(n² + n × k). Once the accumulated rank exceeds n / {@link UpdatedFactorization#RANK_DIVISOR}
+     * or the correction becomes unstable, the updated matrix is factorized from scratch with the options of the
+     * equation.
+     * <br>The inverse computed before is discarded; a sparse matrix is converted to a dense one, a memory-mapped
+     * matrix can not be updated.
+     *
+     * @param u the n × k matrix U.
+     * @param v the n × k matrix V.
+     * @throws MatrixException if the dimensions do not match or the matrix is not held in memory.
+     */
+    public synchronized void update(RealMatrix u, RealMatrix v) throws MatrixException {
+        try {
+            FlatRealMatrix dense = denseMatrix();
+            int n = dense.getRowDimension();
+            int rank = u.getColumnDimension();
+            if (u.getRowDimension() != n || v.getRowDimension() != n || v.getColumnDimension() != rank) {
+                throw new MatrixDimensionMismatchException(v.getRowDimension(), v.getColumnDimension(),
+                        u.getRowDimension(), rank);
+            }
+            double[][] us = new double[rank][];
+            double[][] vs = new double[rank][];
+            double[] data = dense.getDataRef().clone();
+            for (int j = 0; j < rank; j++) {
+                us[j] = u.getColumn(j);
+                vs[j] = v.getColumn(j);
+                for (int i = 0; i < n; i++) {
+                    if (us[j][i] != 0.0) {
+                        Kernels.INSTANCE.subtractScaled(-us[j][i], vs[j], 0, data, i * n, n);
+                    }
+                }
+            }
+            applyUpdate(new FlatRealMatrix(n, n, data), us, vs);
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        }
+    }
+
+    /**
+     * Returns the matrix as a {@link FlatRealMatrix} for an update.
+     *
+     * @return the dense matrix.
+     * @throws UnsupportedOperationException if the matrix is memory-mapped.
+     */
+    private FlatRealMatrix denseMatrix() {
+        if (matrix instanceof FlatRealMatrix) {
+            return (FlatRealMatrix) matrix;
+        }
+        if (matrix instanceof CsrRealMatrix) {
+            return ((CsrRealMatrix) matrix).toDense();
+        }
+        throw new UnsupportedOperationException("A memory-mapped matrix can not be updated");
+    }
+
+    /**
+     * Replaces the matrix by the updated matrix, equal to the matrix plus the rank-1 updates
+     * u<sub>j</sub> × v<sub>j</sub><sup>T</sup>, and updates or recomputes the decomposition by the updates.
+     * <br>The entries of the updated matrix are written by the caller, so they do not drift by the rounding of the
+     * updates. The fields of the equation are replaced only after the decomposition succeeded.
+     *
+     * @param updatedMatrix the updated matrix.
+     * @param u             the column vectors of the updates.
+     * @param v             the row vectors of the updates.
+     * @throws MatrixException if the updated matrix can not be decomposed.
+     */
+    private void applyUpdate(FlatRealMatrix updatedMatrix, double[][] u, double[][] v) throws MatrixException {
+        FlatRealMatrix dense = denseMatrix();
+        int n = dense.getRowDimension();
+        UpdatedFactorization updated = factorization instanceof UpdatedFactorization
+                ? (UpdatedFactorization) factorization
+                : UpdatedFactorization.of(factorization, dense, options);
+        try (SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.FACTOR, n)) {
+            for (int j = 0; j < u.length && !updated.isRefactorizationDue(); j++) {
+                updated = updated.update(updatedMatrix, u[j], v[j]);
+                timer.addFlops(2.0 * n * n);
+            }
+        }
+        RealMatrix previous = matrix;
+        matrix = updatedMatrix;
+        if (updated.isRefactorizationDue()) {
+            try {
+                factorize(options);
+            } catch (MatrixException ex) {
+                matrix = previous;
+                throw ex;
+            }
+        } else {
+            factorization = updated;
+        }
+        inverse = null;
+        batchSolver = null;
+        reciprocalCondition = Double.NaN;
+    }
+
+    /**
+     * Converts {@code String} data to an array of double.
+     *
+     * @param vectorString the input {@code String}.
+     * @return the 1-dimensional double array.
+     * @throws VectorException if the errors during the conversion process appeared.
+     */
+    private double[] convertStringToDoubleArray(String vectorString) throws VectorException {
+        try {
+            return new MatrixParser(vectorString).parseVector();
         } catch (Exception ex) {
             throw new VectorException(ex);
         }
     }
 
     /**
-     * Splits the {@code String} around the space character.
+     * Creates a {@link RealMatrix} from the {@code String} data.
+     * <br>The elements are parsed straight into the row-major array backing the matrix; input in the MatrixMarket
+     * coordinate format or as triplets {@code i j value} without its header is stored as a {@link CsrRealMatrix}.
      *
-     * @param s the input {@code String}.
-     * @return string computed by splitting the {@code String} around the space character.
+     * @param matrixString the input {@code String}.
+     * @throws MatrixException if the errors during the conversion or creation process appeared,
+     *                         the cause contains the row and column of the invalid element.
      */
-    private String[] spaceChars(String s) {
-        return s.split("\\s+");
+    private void createRealMatrix(String matrixString) throws MatrixException {
+        try {
+            MatrixParser parser = new MatrixParser(matrixString);
+            if (MatrixParser.isCoordinateFormat(matrixString)) {
+                CsrRealMatrix sparse = parser.parseCoordinates();
+                if (!sparse.isSquare()) {
+                    throw new IllegalArgumentException("Matrix is not square: " + sparse.getRowDimension()
+                            + "x" + sparse.getColumnDimension());
+                }
+                matrix = sparse;
+                return;
+            }
+            double[] matrixData = parser.parseMatrix();
+            if (parser.getRows() != parser.getColumns()) {
+                throw new IllegalArgumentException("Matrix is not square: " + parser.getRows()
+                        + "x" + parser.getColumns());
+            }
+            matrix = new FlatRealMatrix(parser.getRows(), parser.getColumns(), matrixData);
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        }
     }
 
     /**
-     * Splits the {@code String} around the end of the line.
+     * Creates a {@link RealVector} using the data from the input array.
      *
-     * @param s the input {@code String}.
-     * @return string computed by splitting the {@code String} around the end of the line.
+     * @param vectorData input array.
+     * @throws VectorException if data is empty or data is null.
      */
-    private String[] endOfLineChars(String s) {
-        return s.split("\\r?\\n");
+    private void createRealVector(double[] vectorData) throws VectorException {
+        try {
+            vector = MatrixUtils.createRealVector(vectorData);
+        } catch (Exception ex) {
+            throw new VectorException(ex);
+        }
     }
 
     /**
@@ -177,7 +659,7 @@ public class LinearEquation {
      * @return the L matrix.
      */
     public RealMatrix getLowerMatrix() {
-        return luDecomposition.getL();
+        return factorization.getL();
     }
 
     /**
@@ -187,18 +669,66 @@ public class LinearEquation {
      * @return the U matrix.
      */
     public RealMatrix getUpperMatrix() {
-        return luDecomposition.getU();
+        return factorization.getU();
+    }
+
+    /**
+     * Returns the column order of the decomposition, L × U = P × A × Q.
+     * <br>The columns are ordered only on the sparse and the streamed paths, otherwise the order is the identity.
+     *
+     * @return the column permutation, column k of A × Q is column {@code q[k]} of A.
+     */
+    public int[] getColumnPermutation() {
+        return factorization.getColumnPermutation();
     }
 
     /**
      * Returns the pseudo-inverse of the decomposed matrix.
+     * <br>The inverse is computed from the factors on the first call and kept for the next ones.
      *
      * @return pseudo-inverse matrix.
      * @throws MatrixException if the decomposed matrix is singular and the decomposition can not compute a pseudo-inverse.
      */
-    public RealMatrix getInverseMatrix() throws MatrixException {
+    public synchronized RealMatrix getInverseMatrix() throws MatrixException {
+        try {
+            if (inverse == null) {
+                int n = factorization.getDimension();
+                try (SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.SOLVE, n)) {
+                    inverse = factorization.getInverse();
+                    timer.addFlops(4.0 / 3.0 * n * n * n);
+                }
+            }
+            return inverse;
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        }
+    }
+
+    /**
+     * Returns the selected columns of the inverse of the matrix without computing the whole inverse.
+     *
+     * @param columns the indices of the columns.
+     * @return the matrix of the selected columns.
+     * @throws MatrixException if the decomposed matrix is singular or a column index is out of range.
+     */
+    public RealMatrix getInverseColumns(int... columns) throws MatrixException {
+        try {
+            return factorization.getInverseColumns(columns);
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        }
+    }
+
+    /**
+     * Returns the diagonal of the inverse of the matrix without computing the whole inverse.
+     * <br>For a covariance matrix these are the variances.
+     *
+     * @return the diagonal of the inverse.
+     * @throws MatrixException if the decomposed matrix is singular.
+     */
+    public RealVector getInverseDiagonal() throws MatrixException {
         try {
-            return luDecomposition.getSolver().getInverse();
+            return new ArrayRealVector(factorization.getInverseDiagonal(), false);
         } catch (Exception ex) {
             throw new MatrixException(ex);
         }
@@ -212,19 +742,156 @@ public class LinearEquation {
      */
     public RealVector getSolution() throws LinearEquationException {
         try {
-            return luDecomposition.getSolver().solve(vector);
+            return new ArrayRealVector(solve(vector.toArray(), 1), false);
         } catch (Exception ex) {
             throw new LinearEquationException(ex);
         }
     }
 
+    /**
+     * Solves the linear equation for right-hand sides in row-major order, measured as a
+     * {@link ComputationStage#SOLVE} stage of 2 n² operations per right-hand side.
+     *
+     * @param b       the right-hand sides.
+     * @param columns the number of right-hand sides.
+     * @return the solutions.
+     */
+    private double[] solve(double[] b, int columns) {
+        int n = factorization.getDimension();
+        try (SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.SOLVE, n)) {
+            double[] x = columns == 1 ? factorization.solve(b) : factorization.solve(b, columns);
+            timer.addFlops(2.0 * n * n * columns);
+            return x;
+        }
+    }
+
+    /**
+     * Solves the linear equation A × X = B and refines the solution in double precision against the matrix until its
+     * residual B - A × X is as small as the one of a backward stable solve.
+     * <br>With {@link SolverBackend#MIXED_PRECISION} the single precision solution is refined, falling back to the
+     * double precision factors if the refinement does not converge; otherwise the solution of the factorization is
+     * corrected at most a few times.
+     *
+     * @return the solution with its residual norm and the number of refinement steps.
+     * @throws LinearEquationException if the matrices dimensions do not match or if the decomposed matrix is singular.
+     * @see IterativeRefinement
+     */
+    public RefinedSolution getRefinedSolution() throws LinearEquationException {
+        int n = factorization.getDimension();
+        try (SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.SOLVE, n)) {
+            double[] b = vector.toArray();
+            RefinedSolution solution = factorization instanceof MixedPrecisionFactorization
+                    ? ((MixedPrecisionFactorization) factorization).solveRefined(b)
+                    : IterativeRefinement.refine(matrix, IterativeRefinement.infinityNorm(matrix), factorization::solve,
+                    b, IterativeRefinement.DOUBLE_ITERATIONS, false);
+            // a substitution and a residual of 2 n² operations each per step
+            timer.addFlops(4.0 * n * n * (solution.getIterations() + 1));
+            return solution;
+        } catch (Exception ex) {
+            throw new LinearEquationException(ex);
+        }
+    }
+
+    /**
+     * Solves the linear equation A × X = B for matrix A and another vector B, reusing the factorization.
+     *
+     * @param rightHandSide the vector B.
+     * @return the solution vector X.
+     * @throws LinearEquationException if the dimensions do not match or if the decomposed matrix is singular.
+     */
+    public RealVector getSolution(RealVector rightHandSide) throws LinearEquationException {
+        try {
+            return new ArrayRealVector(solve(rightHandSide.toArray(), 1), false);
+        } catch (Exception ex) {
+            throw new LinearEquationException(ex);
+        }
+    }
+
+    /**
+     * Solves the linear equation A × X = B for every column of the matrix B, reusing the factorization.
+     * <br>All columns are solved together by one blocked forward and back substitution.
+     *
+     * @param rightHandSides the n × k matrix B.
+     * @return the n × k solution matrix X.
+     * @throws LinearEquationException if the dimensions do not match or if the decomposed matrix is singular.
+     */
+    public RealMatrix getSolution(RealMatrix rightHandSides) throws LinearEquationException {
+        try {
+            int rows = rightHandSides.getRowDimension();
+            int columns = rightHandSides.getColumnDimension();
+            double[] b;
+            if (rightHandSides instanceof FlatRealMatrix) {
+                b = ((FlatRealMatrix) rightHandSides).getDataRef();
+            } else {
+                b = new double[rows * columns];
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0; j < columns; j++) {
+                        b[i * columns + j] = rightHandSides.getEntry(i, j);
+                    }
+                }
+            }
+            return new FlatRealMatrix(rows, columns, solve(b, columns));
+        } catch (Exception ex) {
+            throw new LinearEquationException(ex);
+        }
+    }
+
+    /**
+     * Solves the linear equation A × X = B lazily for a stream of vectors B, reusing the factorization.
+     * <br>The vectors are solved in batches; errors are thrown as unchecked exceptions when the stream is consumed.
+     *
+     * @param rightHandSides the vectors B.
+     * @return the solution vectors in the order of the input.
+     */
+    public Stream<RealVector> getSolutions(Stream<RealVector> rightHandSides) {
+        return getBatchSolver().solveAll(rightHandSides.map(RealVector::toArray))
+                .map(x -> new ArrayRealVector(x, false));
+    }
+
+    /**
+     * Returns the solver of further right-hand sides sharing the factorization of this equation.
+     * <br>Vectors submitted concurrently to the returned solver are coalesced into batches.
+     *
+     * @return the batch solver.
+     */
+    public synchronized BatchSolver getBatchSolver() {
+        if (batchSolver == null) {
+            batchSolver = new BatchSolver(factorization);
+        }
+        return batchSolver;
+    }
+
     /**
      * Returns the determinant of the matrix.
      *
      * @return determinant of the matrix.
      */
     public double getDeterminant() {
-        return luDecomposition.getDeterminant();
+        SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.SOLVE,
+                factorization.getDimension());
+        try {
+            return factorization.getDeterminant();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Returns the determinant of the matrix as its sign and the logarithm of its absolute value, from the existing
+     * decomposition.
+     * <br>Unlike {@link LinearEquation#getDeterminant()} it is finite for every regular matrix; to compute only the
+     * determinant of a matrix use {@link LinearEquation#determinant(String, SolverOptions)}.
+     *
+     * @return the determinant of the matrix.
+     */
+    public Determinant getLogDeterminant() {
+        SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.SOLVE,
+                factorization.getDimension());
+        try {
+            return factorization.getLogDeterminant();
+        } finally {
+            timer.close();
+        }
     }
 
     /**
@@ -233,15 +900,68 @@ public class LinearEquation {
      * @return true if the decomposed matrix is singular.
      */
     public boolean isSingularMatrix() {
-        return !luDecomposition.getSolver().isNonSingular();
+        return factorization.isSingular();
+    }
+
+    /**
+     * Returns the estimated reciprocal condition number of the matrix in the 1-norm,
+     * 1 / (||A||<sub>1</sub> × ||A<sup>-1</sup>||<sub>1</sub>).
+     * <br>The estimate is computed from the factors by a few solves, O(n²) for a dense matrix, on the first call and
+     * kept for the next ones; the inverse is not formed. About {@code -log10(rcond)} digits of a solution may be lost.
+     *
+     * @return the estimate in [0, 1], 0 if the decomposed matrix is singular.
+     * @see ConditionEstimator
+     */
+    public synchronized double getReciprocalCondition() {
+        if (Double.isNaN(reciprocalCondition)) {
+            int n = factorization.getDimension();
+            SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.SOLVE, n);
+            try {
+                reciprocalCondition = ConditionEstimator.reciprocalCondition(matrix, factorization);
+            } finally {
+                timer.close();
+            }
+        }
+        return reciprocalCondition;
+    }
+
+    /**
+     * Checks if the matrix is singular or singular to working precision, its estimated reciprocal condition number
+     * below {@link LinearEquation#NEARLY_SINGULAR_RCOND}.
+     * <br>Unlike {@link LinearEquation#isSingularMatrix()} it also rejects the matrices whose pivots are all above
+     * the singularity threshold of the decomposition but whose solutions would be meaningless.
+     *
+     * @return true if the solutions and the inverse of the matrix should not be computed.
+     */
+    public boolean isNearlySingular() {
+        return factorization.isSingular() || getReciprocalCondition() < NEARLY_SINGULAR_RCOND;
+    }
+
+    /**
+     * Returns the kind of the decomposition chosen for the matrix.
+     *
+     * @return the solver path.
+     */
+    public SolverPath getSolverPath() {
+        return factorization.getPath();
+    }
+
+    /**
+     * Returns the factorization of the matrix.
+     *
+     * @return the factorization.
+     */
+    public Factorization getFactorization() {
+        return factorization;
     }
 
     /**
      * Checks if the decomposition can compute.
+     * <br>The factors are not formed, a decomposition exists exactly when the matrix is not singular.
      *
      * @return true if the decomposition can compute.
      */
     public boolean isLUDecomposition() {
-        return luDecomposition.getL() != null;
+        return !factorization.isSingular();
     }
 }
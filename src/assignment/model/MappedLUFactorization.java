@@ -0,0 +1,561 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.AbstractRealMatrix;
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * LU-decomposition with partial pivoting computed in place on a {@link MappedRealMatrix}.
+ * <br>The matrix is processed in panels of {@link MappedLUFactorization#PANEL_SIZE} columns: the panel is copied to
+ * the heap and factorized, the row exchanges are applied to the rest of the file, the block row of U is solved and
+ * the trailing matrix is updated in tiles of {@link MappedLUFactorization#TILE_ROWS} rows. The heap holds three
+ * buffers of at most {@code PANEL_SIZE × n} entries, so a matrix much larger than the heap can be factorized.
+ * <br>The packed factors overwrite the matrix and the pivot vector is stored in the same file, which is reopened by
+ * {@link MappedLUFactorization#open(Path)} without factorizing again.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see MappedRealMatrix
+ */
+public class MappedLUFactorization extends AbstractFactorization {
+
+    /**
+     * The number of columns of a panel.
+     */
+    static final int PANEL_SIZE = 256;
+
+    /**
+     * The number of rows of a tile of the trailing matrix.
+     */
+    static final int TILE_ROWS = 256;
+
+    /**
+     * The flag of the header marking an even number of row exchanges.
+     */
+    private static final int FLAG_EVEN = 1;
+
+    /**
+     * The flag of the header marking a singular matrix.
+     */
+    private static final int FLAG_SINGULAR = 2;
+
+    /**
+     * The packed L and U factors.
+     */
+    private final MappedRealMatrix lu;
+
+    /**
+     * The pivot permutation vector.
+     */
+    private final int[] pivot;
+
+    /**
+     * True if the number of row exchanges is even.
+     */
+    private boolean even = true;
+
+    /**
+     * True if a pivot smaller than {@link PackedLUFactorization#SINGULARITY_THRESHOLD} was found.
+     */
+    private boolean singular;
+
+    /**
+     * Calculates the LU-decomposition in place, the matrix is overwritten by the factors.
+     *
+     * @param matrix the writable matrix.
+     * @throws IOException              if the file can not be written.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    public MappedLUFactorization(MappedRealMatrix matrix) throws IOException {
+        this(matrix, 0L);
+    }
+
+    /**
+     * Calculates the LU-decomposition in place and records the stamp of the source matrix.
+     *
+     * @param matrix the writable matrix.
+     * @param stamp  the stamp of the source matrix.
+     * @throws IOException              if the file can not be written.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    private MappedLUFactorization(MappedRealMatrix matrix, long stamp) throws IOException {
+        super(squareDimension(matrix));
+        this.lu = matrix;
+        this.pivot = identityPivot(n);
+        factorize();
+        lu.force();
+        lu.writePivot(pivot);
+        lu.writeHeader(MappedRealMatrix.KIND_LU, (even ? FLAG_EVEN : 0) | (singular ? FLAG_SINGULAR : 0), stamp);
+    }
+
+    /**
+     * Creates the factorization from the factors stored in a file.
+     *
+     * @param lu     the packed factors.
+     * @param pivot  the pivot vector.
+     * @param flags  the flags of the header.
+     */
+    private MappedLUFactorization(MappedRealMatrix lu, int[] pivot, int flags) {
+        super(lu.getRowDimension());
+        this.lu = lu;
+        this.pivot = pivot;
+        this.even = (flags & FLAG_EVEN) != 0;
+        this.singular = (flags & FLAG_SINGULAR) != 0;
+    }
+
+    /**
+     * Copies the matrix file and calculates the LU-decomposition of the copy, the matrix is not modified.
+     * <br>The copy is made by the file system, it does not pass through the heap.
+     *
+     * @param matrix  the matrix.
+     * @param factors the file of the factors, overwritten if it exists.
+     * @return the factorization.
+     * @throws IOException              if a file can not be read or written.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    public static MappedLUFactorization factorize(MappedRealMatrix matrix, Path factors) throws IOException {
+        squareDimension(matrix);
+        matrix.force();
+        Files.copy(matrix.getPath(), factors, StandardCopyOption.REPLACE_EXISTING);
+        return new MappedLUFactorization(MappedRealMatrix.open(factors, true), stamp(matrix.getPath()));
+    }
+
+    /**
+     * Writes the factors computed on the heap to a file which {@link MappedLUFactorization#open(Path)} reopens.
+     * <br>The packed factors of the blocked LU-decomposition are written as they are; any other factorization is
+     * replaced by the LU-decomposition of the matrix file.
+     *
+     * @param factorization the factorization of the matrix.
+     * @param matrix        the matrix saved by {@link MappedRealMatrix#copyOf(RealMatrix, Path)}.
+     * @param factors       the file of the factors, overwritten if it exists.
+     * @return the stored factorization.
+     * @throws IOException if a file can not be written.
+     */
+    public static MappedLUFactorization save(Factorization factorization, MappedRealMatrix matrix, Path factors)
+            throws IOException {
+        if (!(factorization instanceof PackedLUFactorization)) {
+            return factorize(matrix, factors);
+        }
+        PackedLUFactorization packed = (PackedLUFactorization) factorization;
+        int size = packed.getDimension();
+        MappedRealMatrix lu = MappedRealMatrix.copyOf(new FlatRealMatrix(size, size, packed.lu), factors);
+        lu.writePivot(packed.pivot);
+        lu.writeHeader(MappedRealMatrix.KIND_LU, (packed.even ? FLAG_EVEN : 0)
+                | (packed.singular ? FLAG_SINGULAR : 0), stamp(matrix.getPath()));
+        return new MappedLUFactorization(lu, packed.getPivot(), lu.readFlags());
+    }
+
+    /**
+     * Opens the factors stored by a previous factorization.
+     *
+     * @param factors the file of the factors.
+     * @return the factorization.
+     * @throws IOException if the file can not be read or does not hold LU factors.
+     */
+    public static MappedLUFactorization open(Path factors) throws IOException {
+        MappedRealMatrix lu = MappedRealMatrix.open(factors, false);
+        if (lu.readKind() != MappedRealMatrix.KIND_LU) {
+            lu.close();
+            throw new IOException("Not a factorization file: " + factors);
+        }
+        return new MappedLUFactorization(lu, lu.readPivot(), lu.readFlags());
+    }
+
+    /**
+     * Opens the factors of the matrix if they were computed from its current content, otherwise factorizes it.
+     * <br>The factors file records the size and modification time of the matrix file.
+     *
+     * @param matrix  the matrix.
+     * @param factors the file of the factors.
+     * @return the factorization.
+     * @throws IOException              if a file can not be read or written.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    public static MappedLUFactorization openOrFactorize(MappedRealMatrix matrix, Path factors) throws IOException {
+        if (Files.exists(factors)) {
+            MappedLUFactorization stored = open(factors);
+            if (stored.n == matrix.getRowDimension() && stored.lu.readStamp() == stamp(matrix.getPath())) {
+                return stored;
+            }
+            stored.lu.close();
+        }
+        return factorize(matrix, factors);
+    }
+
+    /**
+     * Returns the stamp identifying the content of a file: its size and modification time.
+     *
+     * @param path the file.
+     * @return the stamp.
+     * @throws IOException if the attributes can not be read.
+     */
+    private static long stamp(Path path) throws IOException {
+        return Files.getLastModifiedTime(path).toMillis() * 31 + Files.size(path);
+    }
+
+    /**
+     * Returns the dimension of the square matrix.
+     *
+     * @param matrix the matrix.
+     * @return the number of rows.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    private static int squareDimension(MappedRealMatrix matrix) {
+        if (matrix.getRowDimension() != matrix.getColumnDimension()) {
+            throw new NonSquareMatrixException(matrix.getRowDimension(), matrix.getColumnDimension());
+        }
+        return matrix.getRowDimension();
+    }
+
+    /**
+     * Factorizes the matrix panel by panel.
+     */
+    private void factorize() {
+        int width = Math.min(PANEL_SIZE, n);
+        double[] panel = new double[n * width];
+        double[] block = new double[width * n];
+        double[] tile = new double[Math.min(TILE_ROWS, n) * n];
+        double[] row0 = new double[n];
+        double[] row1 = new double[n];
+        for (int k0 = 0; k0 < n; k0 += width) {
+            BlockKernels.checkCancelled();
+            int k1 = Math.min(k0 + width, n);
+            int w = k1 - k0;
+            int m = n - k0;
+            for (int i = 0; i < m; i++) {
+                lu.getRow(k0 + i, k0, panel, i * w, w);
+            }
+            for (int k = 0; k < w; k++) {
+                int p = k;
+                double largest = Math.abs(panel[k * w + k]);
+                for (int i = k + 1; i < m; i++) {
+                    double value = Math.abs(panel[i * w + k]);
+                    if (value > largest) {
+                        largest = value;
+                        p = i;
+                    }
+                }
+                if (largest < PackedLUFactorization.SINGULARITY_THRESHOLD) {
+                    singular = true;
+                    return;
+                }
+                if (p != k) {
+                    for (int c = 0; c < w; c++) {
+                        double t = panel[k * w + c];
+                        panel[k * w + c] = panel[p * w + c];
+                        panel[p * w + c] = t;
+                    }
+                    swapOutside(k0 + k, k0 + p, k0, k1, row0, row1);
+                }
+                double inverse = 1.0 / panel[k * w + k];
+                for (int i = k + 1; i < m; i++) {
+                    double l = panel[i * w + k] * inverse;
+                    panel[i * w + k] = l;
+                    if (l != 0.0) {
+                        for (int c = k + 1; c < w; c++) {
+                            panel[i * w + c] -= l * panel[k * w + c];
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < m; i++) {
+                lu.setRow(k0 + i, k0, panel, i * w, w);
+            }
+            if (k1 == n) {
+                continue;
+            }
+            int rest = n - k1;
+            for (int i = 0; i < w; i++) {
+                lu.getRow(k0 + i, k1, block, i * rest, rest);
+            }
+            for (int j = 0; j < w; j++) {
+                for (int i = j + 1; i < w; i++) {
+                    double l = panel[i * w + j];
+                    if (l != 0.0) {
+                        for (int c = 0; c < rest; c++) {
+                            block[i * rest + c] -= l * block[j * rest + c];
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < w; i++) {
+                lu.setRow(k0 + i, k1, block, i * rest, rest);
+            }
+            for (int r0 = k1; r0 < n; r0 += TILE_ROWS) {
+                int r1 = Math.min(r0 + TILE_ROWS, n);
+                for (int i = r0; i < r1; i++) {
+                    lu.getRow(i, k1, tile, (i - r0) * rest, rest);
+                }
+                BlockKernels.multiplySubtract(tile, 0, rest, panel, (r0 - k0) * w, w, block, 0, rest,
+                        r1 - r0, rest, w);
+                for (int i = r0; i < r1; i++) {
+                    lu.setRow(i, k1, tile, (i - r0) * rest, rest);
+                }
+            }
+        }
+    }
+
+    /**
+     * Exchanges two rows of the file outside the columns of the current panel and records the exchange.
+     *
+     * @param i    the first row.
+     * @param j    the second row.
+     * @param k0   the first column of the panel.
+     * @param k1   the end of the panel.
+     * @param row0 a work row of n elements.
+     * @param row1 a work row of n elements.
+     */
+    private void swapOutside(int i, int j, int k0, int k1, double[] row0, double[] row1) {
+        lu.getRow(i, 0, row0, 0, n);
+        lu.getRow(j, 0, row1, 0, n);
+        lu.setRow(i, 0, row1, 0, k0);
+        lu.setRow(j, 0, row0, 0, k0);
+        lu.setRow(i, k1, row1, k1, n - k1);
+        lu.setRow(j, k1, row0, k1, n - k1);
+        int t = pivot[i];
+        pivot[i] = pivot[j];
+        pivot[j] = t;
+        even = !even;
+    }
+
+    /**
+     * Returns the storage of the packed factors.
+     *
+     * @return the mapped factors.
+     */
+    public MappedRealMatrix getStorage() {
+        return lu;
+    }
+
+    @Override
+    public SolverPath getPath() {
+        return SolverPath.LU;
+    }
+
+    /**
+     * Returns a read-only view of the unit lower triangular factor backed by the file.
+     *
+     * @return the L matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getL() {
+        return singular ? null : new FactorView(lu, true);
+    }
+
+    /**
+     * Returns a read-only view of the upper triangular factor backed by the file.
+     *
+     * @return the U matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getU() {
+        return singular ? null : new FactorView(lu, false);
+    }
+
+    @Override
+    public RealMatrix getP() {
+        return singular ? null : permutationMatrix(pivot);
+    }
+
+    @Override
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    @Override
+    public double getDeterminant() {
+        return getLogDeterminant().getValue();
+    }
+
+    @Override
+    public Determinant getLogDeterminant() {
+        if (singular) {
+            return Determinant.ZERO;
+        }
+        Determinant.Product product = new Determinant.Product(even ? 1 : -1);
+        for (int i = 0; i < n; i++) {
+            product.multiply(lu.getEntry(i, i));
+        }
+        return product.toDeterminant();
+    }
+
+    @Override
+    public boolean isSingular() {
+        return singular;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        checkSolvable(b);
+        return solve(b, 1);
+    }
+
+    /**
+     * Solves the linear equation A × X = B for several right-hand sides with one pass over the factors.
+     *
+     * @param b       the right-hand sides in row-major order.
+     * @param columns the number of right-hand sides k.
+     * @return the solutions in row-major order.
+     */
+    @Override
+    public double[] solve(double[] b, int columns) {
+        if (columns < 1 || b.length != n * columns) {
+            throw new DimensionMismatchException(b.length, n * Math.max(columns, 1));
+        }
+        if (singular) {
+            throw new SingularMatrixException();
+        }
+        double[] x = new double[b.length];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(b, pivot[i] * columns, x, i * columns, columns);
+        }
+        double[] row = new double[n];
+        for (int i = 1; i < n; i++) {
+            lu.getRow(i, 0, row, 0, i);
+            subtractRows(x, row, i, 0, i, columns);
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            lu.getRow(i, i, row, i, n - i);
+            subtractRows(x, row, i, i + 1, n, columns);
+            double inverse = 1.0 / row[i];
+            for (int c = i * columns; c < (i + 1) * columns; c++) {
+                x[c] *= inverse;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Solves A<sup>T</sup> × x = b with one pass over the rows of the file for each of U<sup>T</sup> and
+     * L<sup>T</sup>: a row of a factor is a column of its transpose, which is subtracted from the unknowns not yet
+     * solved.
+     */
+    @Override
+    public double[] solveTransposed(double[] b) {
+        checkSolvable(b);
+        double[] y = b.clone();
+        double[] row = new double[n];
+        for (int i = 0; i < n; i++) {
+            lu.getRow(i, i, row, i, n - i);
+            double yi = y[i] / row[i];
+            y[i] = yi;
+            if (yi != 0.0) {
+                Kernels.INSTANCE.subtractScaled(yi, row, i + 1, y, i + 1, n - i - 1);
+            }
+        }
+        for (int i = n - 1; i > 0; i--) {
+            double yi = y[i];
+            if (yi != 0.0) {
+                lu.getRow(i, 0, row, 0, i);
+                Kernels.INSTANCE.subtractScaled(yi, row, 0, y, 0, i);
+            }
+        }
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[pivot[i]] = y[i];
+        }
+        return x;
+    }
+
+    /**
+     * Subtracts a combination of the rows {@code [from, to)} of X from row i.
+     *
+     * @param x       the right-hand sides in row-major order.
+     * @param factors the coefficients, indexed by the row.
+     * @param i       the updated row.
+     * @param from    the first combined row.
+     * @param to      the end of the combined rows.
+     * @param columns the number of right-hand sides.
+     */
+    private static void subtractRows(double[] x, double[] factors, int i, int from, int to, int columns) {
+        int target = i * columns;
+        for (int j = from; j < to; j++) {
+            double factor = factors[j];
+            if (factor != 0.0) {
+                int source = j * columns;
+                for (int c = 0; c < columns; c++) {
+                    x[target + c] -= factor * x[source + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Read-only view of one of the packed factors.
+     */
+    private static final class FactorView extends AbstractRealMatrix {
+
+        /**
+         * The packed factors.
+         */
+        private final MappedRealMatrix lu;
+
+        /**
+         * True for the unit lower triangular factor, false for the upper one.
+         */
+        private final boolean lower;
+
+        /**
+         * Creates the view.
+         *
+         * @param lu    the packed factors.
+         * @param lower true for L, false for U.
+         */
+        private FactorView(MappedRealMatrix lu, boolean lower) {
+            super(lu.getRowDimension(), lu.getColumnDimension());
+            this.lu = lu;
+            this.lower = lower;
+        }
+
+        @Override
+        public int getRowDimension() {
+            return lu.getRowDimension();
+        }
+
+        @Override
+        public int getColumnDimension() {
+            return lu.getColumnDimension();
+        }
+
+        @Override
+        public RealMatrix createMatrix(int rowDimension, int columnDimension) throws NotStrictlyPositiveException {
+            return new FlatRealMatrix(rowDimension, columnDimension);
+        }
+
+        @Override
+        public RealMatrix copy() {
+            int size = getRowDimension();
+            FlatRealMatrix copy = new FlatRealMatrix(size, size);
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    copy.getDataRef()[i * size + j] = getEntry(i, j);
+                }
+            }
+            return copy;
+        }
+
+        @Override
+        public double getEntry(int row, int column) throws OutOfRangeException {
+            double value = lu.getEntry(row, column);
+            if (lower) {
+                return row > column ? value : row == column ? 1.0 : 0.0;
+            }
+            return row <= column ? value : 0.0;
+        }
+
+        @Override
+        public void setEntry(int row, int column, double value) {
+            throw new MathUnsupportedOperationException();
+        }
+    }
+}
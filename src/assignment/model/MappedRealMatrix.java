@@ -0,0 +1,449 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.AbstractRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Implementation of {@link RealMatrix} stored off-heap in a memory-mapped file.
+ * <br>The entries are kept in row-major order as little-endian {@code double} values, so the size of the matrix is
+ * limited by the disk and the address space instead of the heap. The file is mapped in segments of whole rows of at
+ * most {@link MappedRealMatrix#SEGMENT_BYTES} bytes; rows are read and written in bulk with
+ * {@link MappedRealMatrix#getRow(int, int, double[], int, int)} and
+ * {@link MappedRealMatrix#setRow(int, int, double[], int, int)}.
+ * <br>The file starts with a header of {@link MappedRealMatrix#HEADER_BYTES} bytes: the magic number, the version,
+ * the kind of content (a matrix or the packed LU factors of {@link MappedLUFactorization}), the flags, the
+ * dimensions and a stamp of the source matrix. The entries are followed by room for the pivot vector, so the file
+ * is reopened without parsing.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see MappedLUFactorization
+ */
+public class MappedRealMatrix extends AbstractRealMatrix implements Closeable {
+
+    /**
+     * The number of bytes of the header.
+     */
+    static final int HEADER_BYTES = 32;
+
+    /**
+     * The kind of a file holding a matrix.
+     */
+    static final int KIND_MATRIX = 0;
+
+    /**
+     * The kind of a file holding the packed LU factors.
+     */
+    static final int KIND_LU = 1;
+
+    /**
+     * The first four bytes of the file, "LUMX" in ASCII.
+     */
+    private static final int MAGIC = 0x584D554C;
+
+    /**
+     * The version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The maximum size of one mapped segment.
+     */
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    /**
+     * The file.
+     */
+    private final Path path;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The number of rows.
+     */
+    private final int rows;
+
+    /**
+     * The number of columns.
+     */
+    private final int columns;
+
+    /**
+     * The number of rows in every segment.
+     */
+    private final int rowsPerSegment;
+
+    /**
+     * The mapped segments.
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * The double views of the segments.
+     */
+    private final DoubleBuffer[] views;
+
+    /**
+     * Maps the entries of an open file.
+     *
+     * @param path     the file.
+     * @param channel  the channel of the file.
+     * @param rows     the number of rows.
+     * @param columns  the number of columns.
+     * @param writable true to map the file for writing.
+     * @throws IOException if the mapping failed.
+     */
+    private MappedRealMatrix(Path path, FileChannel channel, int rows, int columns, boolean writable)
+            throws IOException {
+        super(rows, columns);
+        this.path = path;
+        this.channel = channel;
+        this.rows = rows;
+        this.columns = columns;
+        long rowBytes = 8L * columns;
+        this.rowsPerSegment = (int) Math.max(1, Math.min(rows, SEGMENT_BYTES / rowBytes));
+        int count = (rows + rowsPerSegment - 1) / rowsPerSegment;
+        this.segments = new MappedByteBuffer[count];
+        this.views = new DoubleBuffer[count];
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        for (int s = 0; s < count; s++) {
+            int segmentRows = Math.min(rowsPerSegment, rows - s * rowsPerSegment);
+            segments[s] = channel.map(mode, HEADER_BYTES + s * rowsPerSegment * rowBytes, segmentRows * rowBytes);
+            segments[s].order(ByteOrder.LITTLE_ENDIAN);
+            views[s] = segments[s].asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Creates a file for a matrix filled with zeros and maps it for writing.
+     * <br>An existing file is overwritten.
+     *
+     * @param path    the file.
+     * @param rows    the number of rows.
+     * @param columns the number of columns.
+     * @return the matrix.
+     * @throws IOException                  if the file can not be created or mapped.
+     * @throws NotStrictlyPositiveException if a dimension is not positive.
+     */
+    public static MappedRealMatrix create(Path path, int rows, int columns) throws IOException {
+        if (rows < 1 || columns < 1) {
+            throw new NotStrictlyPositiveException(Math.min(rows, columns));
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            channel.write(ByteBuffer.allocate(1), fileBytes(rows, columns) - 1);
+            MappedRealMatrix matrix = new MappedRealMatrix(path, channel, rows, columns, true);
+            matrix.writeHeader(KIND_MATRIX, 0, 0L);
+            return matrix;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens a file written by {@link MappedRealMatrix#create(Path, int, int)} or {@link MappedLUFactorization}.
+     *
+     * @param path     the file.
+     * @param writable true to map the file for writing.
+     * @return the matrix.
+     * @throws IOException if the file can not be read or mapped or it is not a matrix file.
+     */
+    public static MappedRealMatrix open(Path path, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            int rows = header.getInt(16);
+            int columns = header.getInt(20);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || rows < 1 || columns < 1
+                    || channel.size() < fileBytes(rows, columns)) {
+                throw new IOException("Not a matrix file: " + path);
+            }
+            return new MappedRealMatrix(path, channel, rows, columns, writable);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes a copy of the matrix to a new file, row by row.
+     *
+     * @param matrix the matrix.
+     * @param path   the file.
+     * @return the mapped copy.
+     * @throws IOException if the file can not be written.
+     */
+    public static MappedRealMatrix copyOf(RealMatrix matrix, Path path) throws IOException {
+        MappedRealMatrix copy = create(path, matrix.getRowDimension(), matrix.getColumnDimension());
+        int n = matrix.getColumnDimension();
+        if (matrix instanceof FlatRealMatrix) {
+            double[] data = ((FlatRealMatrix) matrix).getDataRef();
+            for (int i = 0; i < matrix.getRowDimension(); i++) {
+                copy.setRow(i, 0, data, i * n, n);
+            }
+        } else {
+            for (int i = 0; i < matrix.getRowDimension(); i++) {
+                copy.setRow(i, 0, matrix.getRow(i), 0, n);
+            }
+        }
+        copy.force();
+        return copy;
+    }
+
+    /**
+     * Returns the size of the file of a matrix including the header and the room for the pivot vector.
+     *
+     * @param rows    the number of rows.
+     * @param columns the number of columns.
+     * @return the number of bytes.
+     */
+    static long fileBytes(int rows, int columns) {
+        return HEADER_BYTES + 8L * rows * columns + 4L * rows;
+    }
+
+    /**
+     * Reads a block of the file.
+     *
+     * @param channel  the channel.
+     * @param position the position of the block.
+     * @param size     the number of bytes.
+     * @return the little-endian buffer of the block.
+     * @throws IOException if the file is shorter or the read failed.
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Writes a block of the file.
+     *
+     * @param position the position of the block.
+     * @param buffer   the block.
+     * @throws IOException if the write failed.
+     */
+    private void writeFully(long position, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Writes the header of the file.
+     *
+     * @param kind  the kind of the content.
+     * @param flags the flags of the content.
+     * @param stamp the stamp of the source matrix.
+     * @throws IOException if the write failed.
+     */
+    void writeHeader(int kind, int flags, long stamp) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(flags).putInt(rows).putInt(columns).putLong(stamp);
+        writeFully(0, header);
+    }
+
+    /**
+     * Reads the kind of the content from the header.
+     *
+     * @return the kind.
+     * @throws IOException if the read failed.
+     */
+    int readKind() throws IOException {
+        return readFully(channel, 0, HEADER_BYTES).getInt(8);
+    }
+
+    /**
+     * Reads the flags of the content from the header.
+     *
+     * @return the flags.
+     * @throws IOException if the read failed.
+     */
+    int readFlags() throws IOException {
+        return readFully(channel, 0, HEADER_BYTES).getInt(12);
+    }
+
+    /**
+     * Reads the stamp of the source matrix from the header.
+     *
+     * @return the stamp.
+     * @throws IOException if the read failed.
+     */
+    long readStamp() throws IOException {
+        return readFully(channel, 0, HEADER_BYTES).getLong(24);
+    }
+
+    /**
+     * Reads the pivot vector stored after the entries.
+     *
+     * @return the pivot vector of {@code rows} elements.
+     * @throws IOException if the read failed.
+     */
+    int[] readPivot() throws IOException {
+        ByteBuffer buffer = readFully(channel, HEADER_BYTES + 8L * rows * columns, 4 * rows);
+        int[] pivot = new int[rows];
+        buffer.asIntBuffer().get(pivot);
+        return pivot;
+    }
+
+    /**
+     * Writes the pivot vector after the entries.
+     *
+     * @param pivot the pivot vector of {@code rows} elements.
+     * @throws IOException if the write failed.
+     */
+    void writePivot(int[] pivot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * rows).order(ByteOrder.LITTLE_ENDIAN);
+        for (int p : pivot) {
+            buffer.putInt(p);
+        }
+        writeFully(HEADER_BYTES + 8L * rows * columns, buffer);
+    }
+
+    /**
+     * Reads consecutive entries of a row into an array.
+     *
+     * @param row    the row.
+     * @param column the first column.
+     * @param dst    the destination array.
+     * @param offset the first index in the destination.
+     * @param length the number of entries.
+     */
+    public void getRow(int row, int column, double[] dst, int offset, int length) {
+        views[row / rowsPerSegment].get((row % rowsPerSegment) * columns + column, dst, offset, length);
+    }
+
+    /**
+     * Writes consecutive entries of a row from an array.
+     *
+     * @param row    the row.
+     * @param column the first column.
+     * @param src    the source array.
+     * @param offset the first index in the source.
+     * @param length the number of entries.
+     */
+    public void setRow(int row, int column, double[] src, int offset, int length) {
+        views[row / rowsPerSegment].put((row % rowsPerSegment) * columns + column, src, offset, length);
+    }
+
+    /**
+     * Returns the file.
+     *
+     * @return the path of the file.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Writes the modified entries to the disk.
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            if (!segment.isReadOnly()) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Writes the modified entries to the disk and closes the file.
+     * <br>The mapping itself is released by the garbage collector; the matrix must not be used afterwards.
+     *
+     * @throws IOException if closing failed.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Creates a heap matrix, a result of this size may not fit the heap.
+     *
+     * @param rowDimension    the number of rows.
+     * @param columnDimension the number of columns.
+     * @return the new matrix.
+     */
+    @Override
+    public RealMatrix createMatrix(int rowDimension, int columnDimension) throws NotStrictlyPositiveException {
+        return new FlatRealMatrix(rowDimension, columnDimension);
+    }
+
+    /**
+     * Returns a heap copy of the matrix.
+     *
+     * @return the copy.
+     */
+    @Override
+    public RealMatrix copy() {
+        FlatRealMatrix copy = new FlatRealMatrix(rows, columns);
+        for (int i = 0; i < rows; i++) {
+            getRow(i, 0, copy.getDataRef(), i * columns, columns);
+        }
+        return copy;
+    }
+
+    @Override
+    public double getEntry(int row, int column) throws OutOfRangeException {
+        checkIndex(row, column);
+        return views[row / rowsPerSegment].get((row % rowsPerSegment) * columns + column);
+    }
+
+    @Override
+    public void setEntry(int row, int column, double value) throws OutOfRangeException {
+        checkIndex(row, column);
+        views[row / rowsPerSegment].put((row % rowsPerSegment) * columns + column, value);
+    }
+
+    @Override
+    public int getRowDimension() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnDimension() {
+        return columns;
+    }
+
+    /**
+     * Checks the row and column index.
+     *
+     * @param row    the row index.
+     * @param column the column index.
+     * @throws OutOfRangeException if an index is out of range.
+     */
+    private void checkIndex(int row, int column) {
+        if (row < 0 || row >= rows) {
+            throw new OutOfRangeException(row, 0, rows - 1);
+        }
+        if (column < 0 || column >= columns) {
+            throw new OutOfRangeException(column, 0, columns - 1);
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package assignment.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads a matrix file in the whitespace separated text format and factorizes it while it is read.
+ * <br>Three stages run at the same time: a reader thread streams the file with a {@link FileChannel} in chunks of
+ * {@link MatrixFileReader#CHUNK_SIZE} bytes cut at the last end of the line, parser threads convert the chunks by
+ * {@link MatrixParser#parseRows(double[], int, int)} straight into the array of the matrix, and the calling thread
+ * copies every panel of rows parsed without gaps from the first row into the factors and eliminates it by
+ * {@link StreamedLUFactorization#factorRows(int)}. The first panel is eliminated as soon as its rows are parsed, so
+ * with enough processors the wall-clock time approaches the longer of reading and factorizing instead of their sum.
+ * <br>At most two chunks per parser thread are in memory besides the matrix, so the reader waits for slow parsers.
+ * A file in the coordinate format, with or without the header, is not streamed, see
+ * {@link MatrixFileReader#isCoordinateFormat(Path)}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see StreamedLUFactorization
+ */
+final class MatrixFileReader {
+
+    /**
+     * The number of bytes read at once.
+     */
+    static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The number of bytes checked for the header of the coordinate format.
+     */
+    private static final int HEADER_SIZE = 256;
+
+    /**
+     * The number of the next reader thread.
+     */
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    /**
+     * The file.
+     */
+    private final Path file;
+
+    /**
+     * The solver options.
+     */
+    private final SolverOptions options;
+
+    /**
+     * The threads parsing the chunks.
+     */
+    private final ExecutorService parsers;
+
+    /**
+     * The chunks read but not parsed yet, two per parser thread.
+     */
+    private final Semaphore chunks;
+
+    /**
+     * The dimension of the matrix, -1 until the first row is read.
+     */
+    private int n = -1;
+
+    /**
+     * The matrix in row-major order, allocated when the first row is read.
+     */
+    private double[] data;
+
+    /**
+     * The parsed rows.
+     */
+    private BitSet parsed;
+
+    /**
+     * The number of rows parsed without gaps from the first row.
+     */
+    private int available;
+
+    /**
+     * The number of rows in the file, -1 until the end of the file is reached.
+     */
+    private int totalRows = -1;
+
+    /**
+     * The first failure of the reader or of a parser thread.
+     */
+    private Exception failure;
+
+    /**
+     * Creates the reader of the file.
+     *
+     * @param file    the file.
+     * @param options the solver options: the number of parser threads and the pool of the factorization.
+     */
+    MatrixFileReader(Path file, SolverOptions options) {
+        this.file = file;
+        this.options = options;
+        int parallelism = options.getParallelism();
+        this.chunks = new Semaphore(2 * parallelism);
+        this.parsers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "matrix-parser-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks if the file starts with the header of the coordinate format or with triplet lines {@code i j value}.
+     * <br>A dense matrix whose first row has three elements has three rows, so such a file is small and is read whole
+     * to tell the formats apart by {@link MatrixParser#isCoordinateFormat(CharSequence)}.
+     *
+     * @param file the file.
+     * @return true if the file should be read whole and parsed by {@link MatrixParser#parseCoordinates()}.
+     * @throws IOException if the file can not be read.
+     */
+    static boolean isCoordinateFormat(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            boolean end = false;
+            while (header.hasRemaining() && !end) {
+                end = channel.read(header) < 0;
+            }
+            String text = new String(header.array(), 0, header.position(), StandardCharsets.UTF_8);
+            int complete = end ? text.length() : text.lastIndexOf('\n') + 1;
+            return MatrixParser.hasCoordinateHeader(text) || MatrixParser.isTriplets(text, complete, !end);
+        }
+    }
+
+    /**
+     * Reads the file and factorizes the matrix while it is read.
+     * <br>The progress listener of the options is notified before reading and before the first panel.
+     *
+     * @return the factorization; {@link MatrixFileReader#getMatrix()} returns the matrix.
+     * @throws IOException              if the file can not be read.
+     * @throws NumberFormatException    if an element is not a number; the message contains the row and column.
+     * @throws IllegalArgumentException if the matrix is empty, not square or the rows have different lengths.
+     * @throws CancellationException    if the thread was interrupted.
+     */
+    StreamedLUFactorization readAndFactorize() throws IOException {
+        options.getProgressListener().stageStarted(ComputationStage.PARSE);
+        Thread reader = new Thread(this::readChunks, "matrix-reader-" + THREADS.incrementAndGet());
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            int size = awaitDimension();
+            ForkJoinPool pool = options.isParallel(size) ? BlockedLUFactorization.pool(options.getParallelism()) : null;
+            double[] lu = new double[size * size];
+            StreamedLUFactorization factors = new StreamedLUFactorization(size, lu, pool);
+            options.getProgressListener().stageStarted(ComputationStage.FACTOR);
+            try (SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.FACTOR, size)) {
+                int copied = 0;
+                while (copied < size) {
+                    int ready = awaitRows(Math.min(size, copied + StreamedLUFactorization.PANEL_SIZE));
+                    System.arraycopy(data, copied * size, lu, copied * size, (ready - copied) * size);
+                    copied = ready;
+                    factors.factorRows(copied);
+                }
+                awaitEnd();
+                factors.finish();
+                timer.addFlops(SolverMetrics.factorizationFlops(factors));
+            }
+            return factors;
+        } finally {
+            parsers.shutdownNow();
+            reader.interrupt();
+        }
+    }
+
+    /**
+     * Returns the matrix read by {@link MatrixFileReader#readAndFactorize()}.
+     *
+     * @return the matrix.
+     */
+    synchronized FlatRealMatrix getMatrix() {
+        return new FlatRealMatrix(n, n, data);
+    }
+
+    /**
+     * Reads the chunks of the file and hands them to the parser threads, run by the reader thread.
+     * <br>A chunk ends after its last end of the line; the rest is moved to the next chunk, and the buffer grows if a
+     * line does not fit it. The non-blank lines are counted here, so every chunk knows the index of its first row.
+     */
+    private void readChunks() {
+        SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.PARSE, 0);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            int rows = 0;
+            boolean end = false;
+            while (!end) {
+                BlockKernels.checkCancelled();
+                while (buffer.hasRemaining() && !end) {
+                    end = channel.read(buffer) < 0;
+                }
+                byte[] bytes = buffer.array();
+                int length = end ? buffer.position() : lastLine(bytes, buffer.position());
+                if (length == 0 && !end) {
+                    // a line longer than the buffer
+                    ByteBuffer grown = ByteBuffer.allocate(bytes.length * 2);
+                    grown.put(bytes, 0, buffer.position());
+                    buffer = grown;
+                    continue;
+                }
+                if (n < 0) {
+                    setDimension(firstRowLength(bytes, length));
+                }
+                int count = countRows(bytes, length);
+                if (count > 0 && rows + count <= n) {
+                    chunks.acquire();
+                    int firstRow = rows;
+                    parsers.execute(() -> parse(bytes, length, firstRow));
+                }
+                rows += count;
+                ByteBuffer next = ByteBuffer.allocate(Math.max(CHUNK_SIZE, buffer.position() - length));
+                next.put(bytes, length, buffer.position() - length);
+                buffer = next;
+            }
+            synchronized (this) {
+                totalRows = rows;
+                notifyAll();
+            }
+        } catch (InterruptedException ex) {
+            fail(new CancellationException("Computation interrupted"));
+        } catch (Exception ex) {
+            fail(ex);
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Parses one chunk into the matrix, run by a parser thread.
+     *
+     * @param bytes    the bytes of the chunk.
+     * @param length   the number of bytes.
+     * @param firstRow the index of the first row of the chunk.
+     */
+    private void parse(byte[] bytes, int length, int firstRow) {
+        try {
+            String text = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            int count = new MatrixParser(text).parseRows(data, firstRow, n);
+            synchronized (this) {
+                parsed.set(firstRow, firstRow + count);
+                available = parsed.nextClearBit(available);
+                notifyAll();
+            }
+        } catch (Exception ex) {
+            fail(ex);
+        } finally {
+            chunks.release();
+        }
+    }
+
+    /**
+     * Records the first failure and wakes up the calling thread.
+     *
+     * @param ex the failure.
+     */
+    private synchronized void fail(Exception ex) {
+        if (failure == null) {
+            failure = ex;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Sets the dimension from the length of the first row and allocates the matrix.
+     *
+     * @param columns the number of elements of the first row, 0 if no row was read yet.
+     * @throws IllegalArgumentException if the matrix does not fit an array.
+     */
+    private synchronized void setDimension(int columns) {
+        if (columns == 0) {
+            return;
+        }
+        if ((long) columns * columns > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Matrix is too large: " + columns + "x" + columns);
+        }
+        data = new double[columns * columns];
+        parsed = new BitSet(columns);
+        n = columns;
+        notifyAll();
+    }
+
+    /**
+     * Waits until the first row is read.
+     *
+     * @return the dimension of the matrix.
+     * @throws IOException              if the file can not be read.
+     * @throws IllegalArgumentException if the file has no row.
+     */
+    private synchronized int awaitDimension() throws IOException {
+        while (n < 0) {
+            checkFailure();
+            if (totalRows >= 0) {
+                throw new IllegalArgumentException("Empty matrix");
+            }
+            await();
+        }
+        return n;
+    }
+
+    /**
+     * Waits until the rows up to the given one are parsed.
+     *
+     * @param rows the number of rows from the first one.
+     * @return the number of rows parsed without gaps, at least the given one.
+     * @throws IOException              if the file can not be read.
+     * @throws IllegalArgumentException if the file has more or fewer rows than columns.
+     */
+    private synchronized int awaitRows(int rows) throws IOException {
+        while (available < rows) {
+            checkFailure();
+            if (totalRows >= 0 && totalRows != n) {
+                throw new IllegalArgumentException("Matrix is not square: " + totalRows + "x" + n);
+            }
+            await();
+        }
+        return available;
+    }
+
+    /**
+     * Waits until the end of the file is reached.
+     *
+     * @throws IOException              if the file can not be read.
+     * @throws IllegalArgumentException if the file has more rows than columns.
+     */
+    private synchronized void awaitEnd() throws IOException {
+        while (totalRows < 0) {
+            checkFailure();
+            await();
+        }
+        checkFailure();
+        if (totalRows != n) {
+            throw new IllegalArgumentException("Matrix is not square: " + totalRows + "x" + n);
+        }
+    }
+
+    /**
+     * Waits for the next change of the state.
+     *
+     * @throws CancellationException if the thread was interrupted.
+     */
+    private void await() {
+        try {
+            wait();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Computation interrupted");
+        }
+    }
+
+    /**
+     * Rethrows the first failure of the reader or of a parser thread.
+     *
+     * @throws IOException if the file can not be read.
+     */
+    private void checkFailure() throws IOException {
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    /**
+     * Returns the length of the complete lines of a chunk.
+     *
+     * @param bytes  the bytes of the chunk.
+     * @param length the number of bytes.
+     * @return the number of bytes up to and including the last end of the line, 0 if there is none.
+     */
+    private static int lastLine(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Counts the non-blank lines of a chunk, the rows of the matrix.
+     *
+     * @param bytes  the bytes of the chunk.
+     * @param length the number of bytes.
+     * @return the number of rows.
+     */
+    private static int countRows(byte[] bytes, int length) {
+        int rows = 0;
+        boolean blank = true;
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
+            if (b == '\n') {
+                if (!blank) {
+                    rows++;
+                }
+                blank = true;
+            } else if (!MatrixParser.isWhitespace(b)) {
+                blank = false;
+            }
+        }
+        return blank ? rows : rows + 1;
+    }
+
+    /**
+     * Counts the elements of the first non-blank line of a chunk.
+     *
+     * @param bytes  the bytes of the chunk.
+     * @param length the number of bytes.
+     * @return the number of elements, 0 if the chunk has only blank lines.
+     */
+    private static int firstRowLength(byte[] bytes, int length) {
+        int elements = 0;
+        boolean separator = true;
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
+            if (b == '\n') {
+                if (elements > 0) {
+                    return elements;
+                }
+                separator = true;
+            } else if (MatrixParser.isWhitespace(b)) {
+                separator = true;
+            } else if (separator) {
+                elements++;
+                separator = false;
+            }
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,713 @@
+package assignment.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Single-pass parser of the whitespace separated text format used for matrices and vectors.
+ * <br>Rows of a matrix are separated by the end of the line, elements by any other whitespace.
+ * <br>Numbers are written straight into one row-major {@code double} array; short decimal numbers are
+ * converted without creating intermediate {@code String} objects.
+ * <br>Sparse matrices may be given in the MatrixMarket coordinate format: the header line
+ * {@code %%MatrixMarket matrix coordinate real general} (or {@code symmetric}), comment lines starting with
+ * {@code %}, the line {@code rows columns entries} and one line {@code i j value} per entry with one-based indices.
+ * The triplet lines may also be given alone, without the header and the size line; the size of the matrix is then
+ * given by the largest indices, see {@link MatrixParser#isCoordinateFormat(CharSequence)}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+public class MatrixParser {
+
+    /**
+     * The size of the character buffer.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The maximum number of significant digits which are converted exactly by the fast path.
+     */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    /**
+     * The first characters of the coordinate format.
+     */
+    private static final String COORDINATE_HEADER = "%%MatrixMarket";
+
+    /**
+     * Powers of ten which are exactly representable as {@code double}.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The input reader or {@code null} if the input is a {@link CharSequence}.
+     */
+    private final Reader reader;
+
+    /**
+     * The input sequence or {@code null} if the input is a {@link Reader}.
+     */
+    private final CharSequence sequence;
+
+    /**
+     * The position of the next character to copy from {@link MatrixParser#sequence}.
+     */
+    private int sequenceOffset;
+
+    /**
+     * The character buffer.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /**
+     * The position of the next character in the buffer.
+     */
+    private int position;
+
+    /**
+     * The number of valid characters in the buffer.
+     */
+    private int limit;
+
+    /**
+     * The characters of the current number.
+     */
+    private char[] token = new char[64];
+
+    /**
+     * The length of the current number.
+     */
+    private int tokenLength;
+
+    /**
+     * The number of parsed rows.
+     */
+    private int rows;
+
+    /**
+     * The number of parsed columns.
+     */
+    private int columns;
+
+    /**
+     * Creates a parser reading from the character sequence.
+     *
+     * @param sequence the input sequence.
+     */
+    public MatrixParser(CharSequence sequence) {
+        this.sequence = sequence;
+        this.reader = null;
+    }
+
+    /**
+     * Creates a parser reading from the reader.
+     * <br>The reader is not closed by the parser.
+     *
+     * @param reader the input reader.
+     */
+    public MatrixParser(Reader reader) {
+        this.sequence = null;
+        this.reader = reader;
+    }
+
+    /**
+     * Parses a matrix.
+     * <br>Every non-blank line is a row; all rows must have the same number of elements.
+     *
+     * @return the elements of the matrix in row-major order.
+     * @throws IOException              if the reader failed.
+     * @throws NumberFormatException    if an element is not a number; the message contains the row and column.
+     * @throws IllegalArgumentException if the matrix is empty or the rows have different lengths.
+     */
+    public double[] parseMatrix() throws IOException {
+        double[] data = new double[16];
+        int size = 0;
+        int column = 0;
+        rows = 0;
+        columns = -1;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '\n') {
+                if (column > 0) {
+                    endRow(column);
+                    column = 0;
+                    if (rows == 1 && data.length < columns * columns) {
+                        // the first row tells the size of the square matrix
+                        data = Arrays.copyOf(data, columns * columns);
+                    }
+                }
+            } else if (!isWhitespace(c)) {
+                readToken(c);
+                if (columns > 0 && column == columns) {
+                    throw rowLengthMismatch(column + 1);
+                }
+                if (size == data.length) {
+                    data = Arrays.copyOf(data, size * 2);
+                }
+                data[size++] = parseToken(rows, column);
+                column++;
+            }
+        }
+        if (column > 0) {
+            endRow(column);
+        }
+        if (rows == 0) {
+            throw new IllegalArgumentException("Empty matrix");
+        }
+        return size == data.length ? data : Arrays.copyOf(data, size);
+    }
+
+    /**
+     * Parses a block of whole rows of a matrix whose dimension is already known, e.g. one chunk of a file, straight
+     * into the array of the complete matrix.
+     * <br>The rows in the messages of the exceptions count from the first row of the matrix.
+     *
+     * @param data     the row-major array of the matrix.
+     * @param firstRow the index of the first row of the block in the matrix.
+     * @param columns  the number of elements of every row.
+     * @return the number of parsed rows.
+     * @throws IOException              if the reader failed.
+     * @throws NumberFormatException    if an element is not a number; the message contains the row and column.
+     * @throws IllegalArgumentException if a row has a different length or the rows do not fit the array.
+     */
+    int parseRows(double[] data, int firstRow, int columns) throws IOException {
+        rows = firstRow;
+        this.columns = columns;
+        int maxRows = data.length / columns;
+        int column = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '\n') {
+                if (column > 0) {
+                    endRow(column);
+                    column = 0;
+                }
+            } else if (!isWhitespace(c)) {
+                readToken(c);
+                if (column == columns) {
+                    throw rowLengthMismatch(column + 1);
+                }
+                if (rows == maxRows) {
+                    throw new IllegalArgumentException("Row " + (rows + 1) + " is beyond the last row " + maxRows);
+                }
+                data[rows * columns + column] = parseToken(rows, column);
+                column++;
+            }
+        }
+        if (column > 0) {
+            endRow(column);
+        }
+        return rows - firstRow;
+    }
+
+    /**
+     * Parses a vector.
+     * <br>Elements may be separated by any whitespace, including the end of the line.
+     *
+     * @return the elements of the vector.
+     * @throws IOException              if the reader failed.
+     * @throws NumberFormatException    if an element is not a number; the message contains the column.
+     * @throws IllegalArgumentException if the vector is empty.
+     */
+    public double[] parseVector() throws IOException {
+        double[] data = new double[16];
+        int size = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (!isWhitespace(c) && c != '\n') {
+                readToken(c);
+                if (size == data.length) {
+                    data = Arrays.copyOf(data, size * 2);
+                }
+                data[size] = parseToken(0, size);
+                size++;
+            }
+        }
+        if (size == 0) {
+            throw new IllegalArgumentException("Empty vector");
+        }
+        rows = 1;
+        columns = size;
+        return Arrays.copyOf(data, size);
+    }
+
+    /**
+     * Checks if the input is in the coordinate format: it starts with the header of the format or all its lines are
+     * triplets {@code i j value} with positive integer indices.
+     * <br>A dense matrix with three elements per row is square only with three rows, so one, two or more than three
+     * triplet lines can not be a dense matrix. Three lines always form a square grid and are parsed as a dense 3 × 3
+     * matrix; three triplets need the header.
+     *
+     * @param input the input.
+     * @return true if the input should be parsed with {@link MatrixParser#parseCoordinates()}.
+     */
+    public static boolean isCoordinateFormat(CharSequence input) {
+        return hasCoordinateHeader(input) || isTriplets(input, input.length(), false);
+    }
+
+    /**
+     * Checks if the input starts with the header of the coordinate format.
+     *
+     * @param input the input.
+     * @return true if the first characters other than whitespace are the header.
+     */
+    static boolean hasCoordinateHeader(CharSequence input) {
+        int start = 0;
+        while (start < input.length() && Character.isWhitespace(input.charAt(start))) {
+            start++;
+        }
+        if (input.length() - start < COORDINATE_HEADER.length()) {
+            return false;
+        }
+        for (int i = 0; i < COORDINATE_HEADER.length(); i++) {
+            if (Character.toLowerCase(input.charAt(start + i)) != Character.toLowerCase(COORDINATE_HEADER.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the lines of the input are triplets {@code i j value} with positive integer indices.
+     *
+     * @param input  the input.
+     * @param length the number of characters to check, the end of a line or of the input.
+     * @param prefix true if the characters are the start of a longer input: any number of triplet lines is accepted.
+     * @return true if every non-blank line is a triplet and the lines can not be a dense 3 × 3 matrix.
+     */
+    static boolean isTriplets(CharSequence input, int length, boolean prefix) {
+        int lines = 0;
+        int i = 0;
+        while (i < length) {
+            int field = 0;
+            while (i < length && input.charAt(i) != '\n') {
+                char c = input.charAt(i);
+                if (isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+                long index = 0;
+                boolean digits = true;
+                for (; i < length && !isWhitespace(input.charAt(i)) && input.charAt(i) != '\n'; i++) {
+                    char d = input.charAt(i);
+                    if (d < '0' || d > '9') {
+                        digits = false;
+                    } else if (index <= Integer.MAX_VALUE) {
+                        index = index * 10 + (d - '0');
+                    }
+                }
+                if (field < 2 && (!digits || index < 1 || index > Integer.MAX_VALUE)) {
+                    return false;
+                }
+                if (++field > 3) {
+                    return false;
+                }
+            }
+            i++;
+            if (field == 0) {
+                continue;
+            }
+            if (field != 3) {
+                return false;
+            }
+            lines++;
+        }
+        return lines > 0 && (prefix || lines != 3);
+    }
+
+    /**
+     * Parses a sparse matrix in the coordinate format.
+     * <br>Entries with the same coordinates are added; the entries of a symmetric matrix are mirrored. Without the
+     * header the input is only triplet lines and the matrix is as large as the largest indices.
+     *
+     * @return the matrix in the compressed sparse row format.
+     * @throws IOException              if the reader failed.
+     * @throws NumberFormatException    if a field is not a number; the message contains the line and field.
+     * @throws IllegalArgumentException if the header, the size line or the number of entries is invalid, or if three
+     *                                  triplets without the header may as well be a dense 3 × 3 matrix.
+     */
+    public CsrRealMatrix parseCoordinates() throws IOException {
+        boolean header = false;
+        boolean symmetric = false;
+        int line = 1;
+        int field = 0;
+        long[] size = new long[3];
+        int sizeFields = 0;
+        int[] rowOf = null;
+        int[] columnOf = null;
+        double[] valueOf = null;
+        int count = 0;
+        int declared = 0;
+        int read = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '\n') {
+                if (field != 0 && field != 3) {
+                    throw new IllegalArgumentException("Line " + line + " has " + field + " fields, expected 3");
+                }
+                field = 0;
+                line++;
+            } else if (c == '%' && field == 0) {
+                readLine(c);
+                String comment = new String(token, 0, tokenLength).toLowerCase();
+                if (line == 1) {
+                    if (!comment.startsWith(COORDINATE_HEADER.toLowerCase()) || !comment.contains("coordinate")
+                            || comment.contains("pattern") || comment.contains("complex")) {
+                        throw new IllegalArgumentException("Unsupported header: " + comment);
+                    }
+                    header = true;
+                    symmetric = comment.contains("symmetric");
+                }
+            } else if (!isWhitespace(c)) {
+                readToken(c);
+                if (sizeFields == 0 && !header) {
+                    // triplets without the header and the size line
+                    size[0] = Integer.MAX_VALUE;
+                    size[1] = Integer.MAX_VALUE;
+                    sizeFields = 3;
+                    declared = Integer.MAX_VALUE;
+                    rowOf = new int[16];
+                    columnOf = new int[16];
+                    valueOf = new double[16];
+                }
+                if (sizeFields < 3) {
+                    size[sizeFields++] = parseIndex(line, field + 1);
+                    if (sizeFields == 3) {
+                        if (size[0] < 1 || size[1] < 1 || size[0] > Integer.MAX_VALUE || size[1] > Integer.MAX_VALUE
+                                || size[2] > (symmetric ? Integer.MAX_VALUE / 2 : Integer.MAX_VALUE)) {
+                            throw new IllegalArgumentException("Invalid size at line " + line);
+                        }
+                        declared = (int) size[2];
+                        int capacity = symmetric ? declared * 2 : declared;
+                        rowOf = new int[capacity];
+                        columnOf = new int[capacity];
+                        valueOf = new double[capacity];
+                    }
+                } else {
+                    if (field == 0 && read == declared) {
+                        throw new IllegalArgumentException("More than " + declared + " entries at line " + line);
+                    }
+                    if (field == 0 && count == rowOf.length) {
+                        rowOf = Arrays.copyOf(rowOf, count * 2);
+                        columnOf = Arrays.copyOf(columnOf, count * 2);
+                        valueOf = Arrays.copyOf(valueOf, count * 2);
+                    }
+                    if (field == 0 || field == 1) {
+                        long index = parseIndex(line, field + 1);
+                        if (index < 1 || index > size[field]) {
+                            throw new IllegalArgumentException("Index " + index + " out of range [1, " + size[field]
+                                    + "] at line " + line + ", field " + (field + 1));
+                        }
+                        if (field == 0) {
+                            rowOf[count] = (int) index - 1;
+                        } else {
+                            columnOf[count] = (int) index - 1;
+                        }
+                    } else if (field == 2) {
+                        double value;
+                        try {
+                            value = parseDouble(token, tokenLength);
+                        } catch (NumberFormatException ex) {
+                            throw new NumberFormatException("Invalid number \"" + new String(token, 0, tokenLength)
+                                    + "\" at line " + line + ", field 3");
+                        }
+                        valueOf[count++] = value;
+                        read++;
+                        if (symmetric && rowOf[count - 1] != columnOf[count - 1]) {
+                            rowOf[count] = columnOf[count - 1];
+                            columnOf[count] = rowOf[count - 1];
+                            valueOf[count++] = value;
+                        }
+                    } else {
+                        throw new IllegalArgumentException("Line " + line + " has more than 3 fields");
+                    }
+                }
+                field++;
+            }
+        }
+        if (field != 0 && field != 3) {
+            throw new IllegalArgumentException("Line " + line + " has " + field + " fields, expected 3");
+        }
+        if (sizeFields < 3) {
+            throw new IllegalArgumentException("Missing size line");
+        }
+        if (!header) {
+            rows = 0;
+            columns = 0;
+            for (int t = 0; t < count; t++) {
+                rows = Math.max(rows, rowOf[t] + 1);
+                columns = Math.max(columns, columnOf[t] + 1);
+            }
+            return CsrRealMatrix.fromTriplets(rows, columns, count, rowOf, columnOf, valueOf);
+        }
+        if (read != declared) {
+            throw new IllegalArgumentException("Expected " + declared + " entries, found " + read);
+        }
+        rows = (int) size[0];
+        columns = (int) size[1];
+        return CsrRealMatrix.fromTriplets(rows, columns, count, rowOf, columnOf, valueOf);
+    }
+
+    /**
+     * Returns the number of rows of the last parsed matrix or vector.
+     *
+     * @return the number of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns of the last parsed matrix or vector.
+     *
+     * @return the number of columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Parses a single number using the fast path when possible.
+     *
+     * @param chars  the characters of the number.
+     * @param length the number of characters.
+     * @return the parsed number.
+     * @throws NumberFormatException if the characters are not a number.
+     */
+    public static double parseDouble(char[] chars, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (chars[0] == '-' || chars[0] == '+')) {
+            negative = chars[0] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        char c;
+        for (; i < length && (c = chars[i]) >= '0' && c <= '9'; i++) {
+            anyDigit = true;
+            if (mantissa != 0 || c != '0') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+            }
+            if (digits > MAX_FAST_DIGITS) {
+                return Double.parseDouble(new String(chars, 0, length));
+            }
+        }
+        if (i < length && chars[i] == '.') {
+            for (i++; i < length && (c = chars[i]) >= '0' && c <= '9'; i++) {
+                anyDigit = true;
+                if (mantissa != 0 || c != '0') {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                }
+                exponent--;
+                if (digits > MAX_FAST_DIGITS) {
+                    return Double.parseDouble(new String(chars, 0, length));
+                }
+            }
+        }
+        if (anyDigit && i < length && (chars[i] == 'e' || chars[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (chars[i] == '-' || chars[i] == '+')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            int start = i;
+            int value = 0;
+            for (; i < length && (c = chars[i]) >= '0' && c <= '9' && value < 10000; i++) {
+                value = value * 10 + (c - '0');
+            }
+            if (i == start) {
+                anyDigit = false;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (!anyDigit || i != length || exponent < -POWERS_OF_TEN.length + 1 || exponent >= POWERS_OF_TEN.length) {
+            // NaN, Infinity, hexadecimal, type suffixes, large exponents and errors are left to the JDK
+            return Double.parseDouble(new String(chars, 0, length));
+        }
+        double value = mantissa;
+        if (mantissa != 0) {
+            value = exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Finishes the current row of a matrix.
+     * <br>Parsing stops here if the thread was interrupted, see {@link BlockKernels#checkCancelled()}.
+     *
+     * @param column the number of elements in the row.
+     */
+    private void endRow(int column) {
+        BlockKernels.checkCancelled();
+        if (columns < 0) {
+            columns = column;
+        } else if (column != columns) {
+            throw rowLengthMismatch(column);
+        }
+        rows++;
+    }
+
+    /**
+     * Creates an exception for a row which does not have the same length as the first row.
+     *
+     * @param length the length of the row.
+     * @return the exception.
+     */
+    private IllegalArgumentException rowLengthMismatch(int length) {
+        return new IllegalArgumentException("Row " + (rows + 1) + " has " + length
+                + " elements, expected " + columns);
+    }
+
+    /**
+     * Converts the current token and reports the position on failure.
+     *
+     * @param row    the zero-based row of the token.
+     * @param column the zero-based column of the token.
+     * @return the parsed number.
+     * @throws NumberFormatException if the token is not a number.
+     */
+    private double parseToken(int row, int column) {
+        try {
+            return parseDouble(token, tokenLength);
+        } catch (NumberFormatException ex) {
+            throw new NumberFormatException("Invalid number \"" + new String(token, 0, tokenLength)
+                    + "\" at row " + (row + 1) + ", column " + (column + 1));
+        }
+    }
+
+    /**
+     * Converts the current token to a non-negative integer and reports the position on failure.
+     *
+     * @param line  the one-based line of the token.
+     * @param field the one-based field of the token.
+     * @return the parsed integer.
+     * @throws NumberFormatException if the token is not a non-negative integer.
+     */
+    private long parseIndex(int line, int field) {
+        long value = 0;
+        for (int i = 0; i < tokenLength; i++) {
+            char c = token[i];
+            if (c < '0' || c > '9' || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Invalid index \"" + new String(token, 0, tokenLength)
+                        + "\" at line " + line + ", field " + field);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Copies the rest of the line, without the end of the line, into {@link MatrixParser#token}.
+     *
+     * @param first the first character of the line.
+     * @throws IOException if the reader failed.
+     */
+    private void readLine(int first) throws IOException {
+        token[0] = (char) first;
+        tokenLength = 1;
+        while (true) {
+            if (position == limit && !fill()) {
+                return;
+            }
+            char c = buffer[position];
+            if (c == '\n') {
+                return;
+            }
+            position++;
+            if (tokenLength == token.length) {
+                token = Arrays.copyOf(token, tokenLength * 2);
+            }
+            token[tokenLength++] = c;
+        }
+    }
+
+    /**
+     * Copies the characters of a token into {@link MatrixParser#token}.
+     *
+     * @param first the first character of the token.
+     * @throws IOException if the reader failed.
+     */
+    private void readToken(int first) throws IOException {
+        token[0] = (char) first;
+        tokenLength = 1;
+        while (true) {
+            if (position == limit && !fill()) {
+                return;
+            }
+            char c = buffer[position];
+            if (isWhitespace(c) || c == '\n') {
+                return;
+            }
+            position++;
+            if (tokenLength == token.length) {
+                token = Arrays.copyOf(token, tokenLength * 2);
+            }
+            token[tokenLength++] = c;
+        }
+    }
+
+    /**
+     * Reads the next character.
+     *
+     * @return the next character or -1 at the end of the input.
+     * @throws IOException if the reader failed.
+     */
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    /**
+     * Refills the buffer.
+     *
+     * @return false at the end of the input.
+     * @throws IOException if the reader failed.
+     */
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = 0;
+        if (reader != null) {
+            int count;
+            do {
+                count = reader.read(buffer, 0, buffer.length);
+            } while (count == 0);
+            if (count > 0) {
+                limit = count;
+            }
+        } else if (sequence != null) {
+            int count = Math.min(buffer.length, sequence.length() - sequenceOffset);
+            if (sequence instanceof String) {
+                ((String) sequence).getChars(sequenceOffset, sequenceOffset + count, buffer, 0);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    buffer[i] = sequence.charAt(sequenceOffset + i);
+                }
+            }
+            sequenceOffset += count;
+            limit = count;
+        }
+        return limit > 0;
+    }
+
+    /**
+     * Checks if the character is a whitespace other than the end of the line.
+     *
+     * @param c the character.
+     * @return true if the character separates elements of a row.
+     */
+    static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\f' || c == 0x0B;
+    }
+}
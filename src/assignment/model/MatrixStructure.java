@@ -0,0 +1,220 @@
+package assignment.model;
+
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+
+/**
+ * The structure of a square matrix found by one pass over its entries: the bandwidths, the symmetry,
+ * the sign of the diagonal and the number of non-zero entries.
+ * <br>{@link MatrixStructure#selectPath(SolverOptions)} chooses the cheapest factorization for the structure.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SolverPath
+ */
+public final class MatrixStructure {
+
+    /**
+     * The number of non-zero diagonals below and above the main diagonal, multiplied by this factor, may not exceed
+     * the dimension of a matrix factorized by {@link SolverPath#BANDED}.
+     */
+    private static final int BAND_RATIO = 4;
+
+    /**
+     * The dimension of the matrix.
+     */
+    private final int dimension;
+
+    /**
+     * The number of non-zero diagonals below the main diagonal.
+     */
+    private final int lowerBandwidth;
+
+    /**
+     * The number of non-zero diagonals above the main diagonal.
+     */
+    private final int upperBandwidth;
+
+    /**
+     * True if the matrix equals its transpose.
+     */
+    private final boolean symmetric;
+
+    /**
+     * True if all diagonal entries are positive.
+     */
+    private final boolean positiveDiagonal;
+
+    /**
+     * The number of non-zero entries.
+     */
+    private final long nonZeroCount;
+
+    /**
+     * Creates the structure.
+     *
+     * @param dimension        the dimension of the matrix.
+     * @param lowerBandwidth   the number of non-zero diagonals below the main diagonal.
+     * @param upperBandwidth   the number of non-zero diagonals above the main diagonal.
+     * @param symmetric        true if the matrix equals its transpose.
+     * @param positiveDiagonal true if all diagonal entries are positive.
+     * @param nonZeroCount     the number of non-zero entries.
+     */
+    private MatrixStructure(int dimension, int lowerBandwidth, int upperBandwidth, boolean symmetric,
+                            boolean positiveDiagonal, long nonZeroCount) {
+        this.dimension = dimension;
+        this.lowerBandwidth = lowerBandwidth;
+        this.upperBandwidth = upperBandwidth;
+        this.symmetric = symmetric;
+        this.positiveDiagonal = positiveDiagonal;
+        this.nonZeroCount = nonZeroCount;
+    }
+
+    /**
+     * Finds the structure of the matrix.
+     * <br>The rows are scanned once; the symmetry check stops at the first mismatch.
+     *
+     * @param matrix the square matrix.
+     * @return the structure.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    public static MatrixStructure analyze(FlatRealMatrix matrix) {
+        int n = matrix.getRowDimension();
+        if (matrix.getColumnDimension() != n) {
+            throw new NonSquareMatrixException(n, matrix.getColumnDimension());
+        }
+        double[] a = matrix.getDataRef();
+        int lower = 0;
+        int upper = 0;
+        boolean positiveDiagonal = true;
+        long count = 0;
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            int first = -1;
+            int last = -1;
+            for (int j = 0; j < n; j++) {
+                if (a[row + j] != 0.0) {
+                    if (first < 0) {
+                        first = j;
+                    }
+                    last = j;
+                    count++;
+                }
+            }
+            if (first >= 0) {
+                lower = Math.max(lower, i - first);
+                upper = Math.max(upper, last - i);
+            }
+            positiveDiagonal &= a[row + i] > 0.0;
+        }
+        boolean symmetric = lower == upper;
+        for (int i = 0; symmetric && i < n; i++) {
+            int end = Math.min(n, i + upper + 1);
+            for (int j = i + 1; j < end; j++) {
+                if (a[i * n + j] != a[j * n + i]) {
+                    symmetric = false;
+                    break;
+                }
+            }
+        }
+        return new MatrixStructure(n, lower, upper, symmetric, positiveDiagonal, count);
+    }
+
+    /**
+     * Chooses the factorization for the structure.
+     * <br>Triangular matrices are solved by substitution, narrow banded matrices by the banded LU-decomposition,
+     * sparse matrices by the sparse LU-decomposition and symmetric matrices with a positive diagonal by the Cholesky
+     * decomposition; any other matrix by the general LU-decomposition.
+     *
+     * @param options the solver options.
+     * @return the path.
+     */
+    public SolverPath selectPath(SolverOptions options) {
+        if (options.isStructureDetection()) {
+            if (isTriangular()) {
+                return SolverPath.TRIANGULAR;
+            }
+            if (isNarrowBanded()) {
+                return SolverPath.BANDED;
+            }
+        }
+        if (options.isSparse(dimension, getDensity())) {
+            return SolverPath.SPARSE_LU;
+        }
+        if (options.isStructureDetection() && symmetric && positiveDiagonal) {
+            return SolverPath.CHOLESKY;
+        }
+        return SolverPath.LU;
+    }
+
+    /**
+     * Returns the dimension of the matrix.
+     *
+     * @return the dimension.
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the number of non-zero diagonals below the main diagonal.
+     *
+     * @return the lower bandwidth.
+     */
+    public int getLowerBandwidth() {
+        return lowerBandwidth;
+    }
+
+    /**
+     * Returns the number of non-zero diagonals above the main diagonal.
+     *
+     * @return the upper bandwidth.
+     */
+    public int getUpperBandwidth() {
+        return upperBandwidth;
+    }
+
+    /**
+     * Checks if the matrix equals its transpose.
+     *
+     * @return true if the matrix is symmetric.
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    /**
+     * Checks if all diagonal entries are positive, which is necessary for a positive definite matrix.
+     *
+     * @return true if the diagonal is positive.
+     */
+    public boolean isPositiveDiagonal() {
+        return positiveDiagonal;
+    }
+
+    /**
+     * Checks if the matrix is lower or upper triangular.
+     *
+     * @return true if one of the bandwidths is 0.
+     */
+    public boolean isTriangular() {
+        return lowerBandwidth == 0 || upperBandwidth == 0;
+    }
+
+    /**
+     * Checks if the band is narrow enough for the banded LU-decomposition to be faster than the dense one.
+     *
+     * @return true if the matrix is banded.
+     */
+    public boolean isNarrowBanded() {
+        return (long) BAND_RATIO * (lowerBandwidth + upperBandwidth) <= dimension;
+    }
+
+    /**
+     * Returns the ratio of non-zero entries to all entries.
+     *
+     * @return the density between 0 and 1.
+     */
+    public double getDensity() {
+        return nonZeroCount / ((double) dimension * dimension);
+    }
+}
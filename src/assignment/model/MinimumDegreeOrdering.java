@@ -0,0 +1,176 @@
+package assignment.model;
+
+import java.util.Arrays;
+
+/**
+ * Fill-reducing ordering of a sparse matrix by the minimum degree heuristic.
+ * <br>The graph of the symmetric pattern A + A<sup>T</sup> is eliminated explicitly: the node of the smallest degree
+ * is removed and its neighbours become a clique. Nodes are kept in buckets by degree, so the node of the smallest
+ * degree is found in constant time.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SparseLUFactorization
+ */
+final class MinimumDegreeOrdering {
+
+    /**
+     * Private constructor of the utility class.
+     */
+    private MinimumDegreeOrdering() {
+    }
+
+    /**
+     * Computes the elimination order of the square matrix.
+     *
+     * @param matrix the sparse matrix.
+     * @return the order: the k-th eliminated row and column is {@code order[k]}.
+     */
+    static int[] order(CsrRealMatrix matrix) {
+        int n = matrix.getRowDimension();
+        int[][] adjacency = symmetricPattern(matrix);
+        int[] degree = new int[n];
+        int[] head = new int[n];
+        int[] next = new int[n];
+        int[] previous = new int[n];
+        Arrays.fill(head, -1);
+        for (int i = 0; i < n; i++) {
+            degree[i] = adjacency[i].length;
+            insert(i, degree[i], head, next, previous);
+        }
+        boolean[] eliminated = new boolean[n];
+        int[] mark = new int[n];
+        int stamp = 0;
+        int[] neighbours = new int[n];
+        int[] merged = new int[n];
+        int[] order = new int[n];
+        int minimum = 0;
+        for (int step = 0; step < n; step++) {
+            while (head[minimum] == -1) {
+                minimum++;
+            }
+            int pivot = head[minimum];
+            remove(pivot, degree[pivot], head, next, previous);
+            eliminated[pivot] = true;
+            order[step] = pivot;
+            int count = 0;
+            for (int u : adjacency[pivot]) {
+                if (!eliminated[u]) {
+                    neighbours[count++] = u;
+                }
+            }
+            adjacency[pivot] = null;
+            for (int a = 0; a < count; a++) {
+                int u = neighbours[a];
+                stamp++;
+                int size = 0;
+                mark[u] = stamp;
+                for (int v : adjacency[u]) {
+                    if (!eliminated[v] && mark[v] != stamp) {
+                        mark[v] = stamp;
+                        merged[size++] = v;
+                    }
+                }
+                for (int b = 0; b < count; b++) {
+                    int v = neighbours[b];
+                    if (mark[v] != stamp) {
+                        mark[v] = stamp;
+                        merged[size++] = v;
+                    }
+                }
+                adjacency[u] = Arrays.copyOf(merged, size);
+                remove(u, degree[u], head, next, previous);
+                degree[u] = size;
+                insert(u, size, head, next, previous);
+                if (size < minimum) {
+                    minimum = size;
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Builds the adjacency lists of the pattern of A + A<sup>T</sup> without the diagonal.
+     *
+     * @param matrix the sparse matrix.
+     * @return the neighbours of every node.
+     */
+    private static int[][] symmetricPattern(CsrRealMatrix matrix) {
+        int n = matrix.getRowDimension();
+        CsrRealMatrix transposed = matrix.transposeSparse();
+        int[][] adjacency = new int[n][];
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        int[] buffer = new int[n];
+        for (int i = 0; i < n; i++) {
+            int size = 0;
+            mark[i] = i;
+            size = collect(matrix, i, mark, buffer, size);
+            size = collect(transposed, i, mark, buffer, size);
+            adjacency[i] = Arrays.copyOf(buffer, size);
+        }
+        return adjacency;
+    }
+
+    /**
+     * Appends the unmarked column indices of a row to the buffer.
+     *
+     * @param matrix the sparse matrix.
+     * @param row    the row.
+     * @param mark   the marks, a column is marked if its mark equals the row.
+     * @param buffer the buffer.
+     * @param size   the number of collected indices.
+     * @return the new number of collected indices.
+     */
+    private static int collect(CsrRealMatrix matrix, int row, int[] mark, int[] buffer, int size) {
+        int[] pointers = matrix.getRowPointers();
+        int[] indices = matrix.getColumnIndices();
+        for (int k = pointers[row]; k < pointers[row + 1]; k++) {
+            int column = indices[k];
+            if (mark[column] != row) {
+                mark[column] = row;
+                buffer[size++] = column;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Inserts the node at the front of the bucket of its degree.
+     *
+     * @param node     the node.
+     * @param degree   the degree of the node.
+     * @param head     the first node of every bucket.
+     * @param next     the next node in the bucket.
+     * @param previous the previous node in the bucket.
+     */
+    private static void insert(int node, int degree, int[] head, int[] next, int[] previous) {
+        next[node] = head[degree];
+        previous[node] = -1;
+        if (head[degree] != -1) {
+            previous[head[degree]] = node;
+        }
+        head[degree] = node;
+    }
+
+    /**
+     * Removes the node from the bucket of its degree.
+     *
+     * @param node     the node.
+     * @param degree   the degree of the node.
+     * @param head     the first node of every bucket.
+     * @param next     the next node in the bucket.
+     * @param previous the previous node in the bucket.
+     */
+    private static void remove(int node, int degree, int[] head, int[] next, int[] previous) {
+        if (previous[node] != -1) {
+            next[previous[node]] = next[node];
+        } else {
+            head[degree] = next[node];
+        }
+        if (next[node] != -1) {
+            previous[next[node]] = previous[node];
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package assignment.model;
+
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+import org.apache.commons.math3.linear.RealMatrix;
+
+/**
+ * Mixed precision LU-decomposition: the matrix is factorized in single precision and every solution is refined in
+ * double precision against the original matrix until its residual matches a double precision solve.
+ * <br>The O(n³) factorization runs on {@code float} values, see {@link FloatLUFactorization}; each refinement step
+ * costs O(n²). If the refinement does not converge, e.g. because the matrix is too ill-conditioned for single
+ * precision, the matrix is factorized once in double precision by {@link SolverBackend#BLOCKED} and the solution is
+ * refined with those factors. A matrix singular in single precision is factorized in double precision at once.
+ * <br>L, U, the pivots and the determinant come from the single precision factors, accurate to about
+ * 10<sup>-7</sup> relative to the matrix; the rounding errors of the pivots add up, so the relative error of the
+ * determinant grows with the dimension, about 10<sup>-6</sup> for n = 50 and 10<sup>-5</sup> to 10<sup>-4</sup> for
+ * n = 300 to 1000. Once the double precision factors exist, or if the estimated reciprocal condition number of the
+ * single precision factors is below {@link MixedPrecisionFactorization#FLOAT_EPSILON}, all of them come from the
+ * double precision factors instead. The solutions, also of the transposed equation, have the accuracy of a double
+ * precision solve.
+ * <br>The factorization keeps a reference to the matrix, which must not be modified.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see IterativeRefinement
+ */
+public class MixedPrecisionFactorization extends AbstractFactorization {
+
+    /**
+     * The unit roundoff of {@code float}, the reciprocal condition number below which the single precision factors
+     * carry no correct digit.
+     */
+    static final double FLOAT_EPSILON = 0x1p-24;
+
+    /**
+     * The original matrix.
+     */
+    private final FlatRealMatrix matrix;
+
+    /**
+     * The infinity norm of the matrix.
+     */
+    private final double matrixNorm;
+
+    /**
+     * The options of the double precision fallback.
+     */
+    private final SolverOptions options;
+
+    /**
+     * The single precision factors.
+     */
+    private final FloatLUFactorization single;
+
+    /**
+     * The double precision factors or {@code null} until a refinement fails.
+     */
+    private volatile Factorization fallback;
+
+    /**
+     * True once the condition of the single precision factors was estimated.
+     */
+    private volatile boolean conditionEstimated;
+
+    /**
+     * Calculates the single precision LU-decomposition of the matrix.
+     *
+     * @param matrix  the matrix to decompose, it is not modified and must not be modified later.
+     * @param options the solver options, the parallelism of the factorization.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    public MixedPrecisionFactorization(FlatRealMatrix matrix, SolverOptions options) {
+        super(matrix.getRowDimension());
+        if (matrix.getRowDimension() != matrix.getColumnDimension()) {
+            throw new NonSquareMatrixException(matrix.getRowDimension(), matrix.getColumnDimension());
+        }
+        this.matrix = matrix;
+        this.options = options;
+        this.matrixNorm = IterativeRefinement.infinityNorm(matrix);
+        this.single = new FloatLUFactorization(matrix, options.isParallel(n)
+                ? BlockedLUFactorization.pool(options.getParallelism()) : null);
+        if (single.isSingular()) {
+            fallback = SolverBackend.BLOCKED.factorize(matrix, options);
+        }
+    }
+
+    /**
+     * Returns the double precision factorization, computing it on the first call.
+     *
+     * @return the double precision factors.
+     */
+    private Factorization getFallback() {
+        Factorization factorization = fallback;
+        if (factorization == null) {
+            synchronized (this) {
+                factorization = fallback;
+                if (factorization == null) {
+                    factorization = SolverBackend.BLOCKED.factorize(matrix, options);
+                    fallback = factorization;
+                }
+            }
+        }
+        return factorization;
+    }
+
+    /**
+     * Checks if the matrix was factorized in double precision, because the single precision factors were singular
+     * or a refinement did not converge.
+     *
+     * @return true if the double precision factors are used.
+     */
+    public boolean isFallback() {
+        return fallback != null;
+    }
+
+    /**
+     * Solves A × x = b with the single precision factors and refines the solution in double precision.
+     * <br>If the refinement does not converge, the solution is computed again with the double precision factors.
+     *
+     * @param b the right-hand side vector.
+     * @return the solution with its residual norm and the number of refinement steps.
+     * @throws org.apache.commons.math3.linear.SingularMatrixException       if the decomposed matrix is singular.
+     * @throws org.apache.commons.math3.exception.DimensionMismatchException if the vector dimension does not match.
+     */
+    public RefinedSolution solveRefined(double[] b) {
+        checkSolvable(b);
+        if (!single.isSingular()) {
+            RefinedSolution solution = IterativeRefinement.refine(matrix, matrixNorm, single::solve, b,
+                    IterativeRefinement.MAX_ITERATIONS, false);
+            if (solution.isConverged()) {
+                return solution;
+            }
+        }
+        Factorization factors = getFallback();
+        return IterativeRefinement.refine(matrix, matrixNorm, factors::solve, b,
+                IterativeRefinement.DOUBLE_ITERATIONS, true);
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        return solveRefined(b).getSolution();
+    }
+
+    /**
+     * Solves A<sup>T</sup> × x = b with the single precision factors and refines the solution in double precision
+     * against A<sup>T</sup>, so that the condition estimate does not rebuild L and U.
+     * <br>If the refinement does not converge, the solution is computed again with the double precision factors.
+     */
+    @Override
+    public double[] solveTransposed(double[] b) {
+        checkSolvable(b);
+        if (!single.isSingular()) {
+            RefinedSolution solution = IterativeRefinement.refineTransposed(matrix, ConditionEstimator.oneNorm(matrix),
+                    single::solveTransposed, b, IterativeRefinement.MAX_ITERATIONS);
+            if (solution.isConverged()) {
+                return solution.getSolution();
+            }
+        }
+        return getFallback().solveTransposed(b);
+    }
+
+    /**
+     * Estimates ||A<sup>-1</sup>||<sub>1</sub> with the unrefined single precision solves, as the LAPACK routine
+     * {@code sgecon} does: the estimate needs only the order of magnitude of the solutions, so it costs a float
+     * substitution per solve instead of several refinement steps.
+     * <br>If the double precision factors exist, or the estimated reciprocal condition number is below
+     * {@link MixedPrecisionFactorization#FLOAT_EPSILON}, the norm is estimated again with the double precision factors.
+     *
+     * @return the estimate, a lower bound of the norm.
+     */
+    double estimateInverseNorm() {
+        Factorization factorization = fallback;
+        if (factorization == null) {
+            double estimate = ConditionEstimator.inverseNorm(n, single::solve, single::solveTransposed);
+            conditionEstimated = true;
+            if (ConditionEstimator.oneNorm(matrix) * estimate * FLOAT_EPSILON < 1.0) {
+                return estimate;
+            }
+            factorization = getFallback();
+        }
+        return ConditionEstimator.inverseNorm(factorization);
+    }
+
+    /**
+     * Returns the double precision factors if they exist or the matrix is too ill-conditioned for the single precision
+     * factors, estimating the condition on the first call.
+     *
+     * @return the double precision factors or {@code null} if the single precision factors are used.
+     */
+    private Factorization doubleFactors() {
+        if (fallback == null && !conditionEstimated) {
+            estimateInverseNorm();
+        }
+        return fallback;
+    }
+
+    @Override
+    public SolverPath getPath() {
+        return SolverPath.LU;
+    }
+
+    @Override
+    public RealMatrix getL() {
+        Factorization factorization = doubleFactors();
+        return factorization != null ? factorization.getL() : single.getL();
+    }
+
+    @Override
+    public RealMatrix getU() {
+        Factorization factorization = doubleFactors();
+        return factorization != null ? factorization.getU() : single.getU();
+    }
+
+    @Override
+    public RealMatrix getP() {
+        Factorization factorization = doubleFactors();
+        return factorization != null ? factorization.getP() : permutationMatrix(single.getPivot());
+    }
+
+    @Override
+    public int[] getPivot() {
+        Factorization factorization = doubleFactors();
+        return factorization != null ? factorization.getPivot() : single.getPivot();
+    }
+
+    @Override
+    public double getDeterminant() {
+        return getLogDeterminant().getValue();
+    }
+
+    /**
+     * Returns the determinant of the single precision factors, with a relative error growing with the dimension, or
+     * of the double precision factors if they exist or the matrix is too ill-conditioned for single precision.
+     */
+    @Override
+    public Determinant getLogDeterminant() {
+        Factorization factorization = doubleFactors();
+        return factorization != null ? factorization.getLogDeterminant() : single.getLogDeterminant();
+    }
+
+    /**
+     * Checks if the matrix is singular in double precision.
+     * <br>A matrix regular in single precision is known to be singular only after its fallback factorization.
+     *
+     * @return true if the double precision factors are singular.
+     */
+    @Override
+    public boolean isSingular() {
+        Factorization factorization = fallback;
+        return factorization != null && factorization.isSingular();
+    }
+}
@@ -0,0 +1,414 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+/**
+ * Base class of LU factorizations storing both factors in one row-major array.
+ * <br>The strictly lower part holds L without its unit diagonal, the upper part holds U.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see Factorization
+ */
+public abstract class PackedLUFactorization implements Factorization {
+
+    /**
+     * The threshold of the pivot below which the matrix is considered singular.
+     * <br>Same as the default of the commons-math {@code LUDecomposition}.
+     */
+    public static final double SINGULARITY_THRESHOLD = 1e-11;
+
+    /**
+     * The number of rows of the right-hand sides processed together by the multiple right-hand side solve.
+     */
+    static final int SOLVE_BLOCK = 64;
+
+    /**
+     * The dimension of the matrix.
+     */
+    protected final int n;
+
+    /**
+     * The packed L and U factors in row-major order.
+     */
+    protected final double[] lu;
+
+    /**
+     * The pivot permutation vector.
+     */
+    protected final int[] pivot;
+
+    /**
+     * True if the number of row exchanges is even.
+     */
+    protected boolean even = true;
+
+    /**
+     * True if a pivot smaller than {@link PackedLUFactorization#SINGULARITY_THRESHOLD} was found.
+     */
+    protected boolean singular;
+
+    /**
+     * Creates the factorization state of the given matrix.
+     *
+     * @param n  the dimension of the matrix.
+     * @param lu the matrix in row-major order; it is overwritten by the factors.
+     */
+    protected PackedLUFactorization(int n, double[] lu) {
+        this.n = n;
+        this.lu = lu;
+        this.pivot = new int[n];
+        for (int i = 0; i < n; i++) {
+            pivot[i] = i;
+        }
+    }
+
+    /**
+     * Exchanges two rows of the packed matrix and records the exchange in the pivot vector.
+     *
+     * @param i the first row.
+     * @param j the second row.
+     */
+    protected void swapRows(int i, int j) {
+        int oi = i * n;
+        int oj = j * n;
+        for (int c = 0; c < n; c++) {
+            double t = lu[oi + c];
+            lu[oi + c] = lu[oj + c];
+            lu[oj + c] = t;
+        }
+        int t = pivot[i];
+        pivot[i] = pivot[j];
+        pivot[j] = t;
+        even = !even;
+    }
+
+    @Override
+    public int getDimension() {
+        return n;
+    }
+
+    @Override
+    public SolverPath getPath() {
+        return SolverPath.LU;
+    }
+
+    /**
+     * Returns the unit lower triangular factor, a new matrix on every call: the factorization may be shared by the
+     * {@link FactorizationCache}, so its callers must not see each other's changes.
+     *
+     * @return the L matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getL() {
+        if (singular) {
+            return null;
+        }
+        FlatRealMatrix l = new FlatRealMatrix(n, n);
+        double[] data = l.getDataRef();
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(lu, i * n, data, i * n, i);
+            data[i * n + i] = 1.0;
+        }
+        return l;
+    }
+
+    /**
+     * Returns the upper triangular factor, a new matrix on every call.
+     *
+     * @return the U matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getU() {
+        if (singular) {
+            return null;
+        }
+        FlatRealMatrix u = new FlatRealMatrix(n, n);
+        double[] data = u.getDataRef();
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(lu, i * n + i, data, i * n + i, n - i);
+        }
+        return u;
+    }
+
+    @Override
+    public RealMatrix getP() {
+        if (singular) {
+            return null;
+        }
+        FlatRealMatrix p = new FlatRealMatrix(n, n);
+        for (int i = 0; i < n; i++) {
+            p.getDataRef()[i * n + pivot[i]] = 1.0;
+        }
+        return p;
+    }
+
+    @Override
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    @Override
+    public double getDeterminant() {
+        return getLogDeterminant().getValue();
+    }
+
+    @Override
+    public Determinant getLogDeterminant() {
+        if (singular) {
+            return Determinant.ZERO;
+        }
+        Determinant.Product product = new Determinant.Product(even ? 1 : -1);
+        for (int i = 0; i < n; i++) {
+            product.multiply(lu[i * n + i]);
+        }
+        return product.toDeterminant();
+    }
+
+    @Override
+    public boolean isSingular() {
+        return singular;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != n) {
+            throw new DimensionMismatchException(b.length, n);
+        }
+        if (singular) {
+            throw new SingularMatrixException();
+        }
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = b[pivot[i]];
+        }
+        substitute(x);
+        return x;
+    }
+
+    /**
+     * Solves A<sup>T</sup> × x = b by substitutions with U<sup>T</sup> and L<sup>T</sup>, subtracting whole rows of
+     * the packed factors so that they are read in storage order.
+     */
+    @Override
+    public double[] solveTransposed(double[] b) {
+        if (b.length != n) {
+            throw new DimensionMismatchException(b.length, n);
+        }
+        if (singular) {
+            throw new SingularMatrixException();
+        }
+        double[] y = b.clone();
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            double yi = y[i] / lu[row + i];
+            y[i] = yi;
+            if (yi != 0.0) {
+                Kernels.INSTANCE.subtractScaled(yi, lu, row + i + 1, y, i + 1, n - i - 1);
+            }
+        }
+        for (int i = n - 1; i > 0; i--) {
+            double yi = y[i];
+            if (yi != 0.0) {
+                Kernels.INSTANCE.subtractScaled(yi, lu, i * n, y, 0, i);
+            }
+        }
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[pivot[i]] = y[i];
+        }
+        return x;
+    }
+
+    @Override
+    public double[] solve(double[] b, int columns) {
+        if (columns < 1 || b.length != n * columns) {
+            throw new DimensionMismatchException(b.length, n * Math.max(columns, 1));
+        }
+        if (singular) {
+            throw new SingularMatrixException();
+        }
+        double[] x = new double[b.length];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(b, pivot[i] * columns, x, i * columns, columns);
+        }
+        substitute(x, columns);
+        return x;
+    }
+
+    /**
+     * Returns the inverse of the decomposed matrix computed in place from the factors.
+     * <br>A<sup>-1</sup> = U<sup>-1</sup> × L<sup>-1</sup> × P: U is inverted in the output buffer, then
+     * X × L = U<sup>-1</sup> is solved in panels of columns and the columns are permuted. Apart from the output
+     * only a panel copy of L and one row of work space are allocated.
+     *
+     * @return the inverse matrix.
+     * @throws SingularMatrixException if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getInverse() {
+        if (singular) {
+            throw new SingularMatrixException();
+        }
+        double[] w = lu.clone();
+        double[] row = new double[n];
+        BlockKernels.invertUpper(w, n, row);
+        int panel = Math.min(SOLVE_BLOCK, n);
+        double[] lower = new double[n * panel];
+        for (int j1 = n; j1 > 0; j1 -= panel) {
+            BlockKernels.checkCancelled();
+            int j0 = Math.max(j1 - panel, 0);
+            int width = j1 - j0;
+            // move the strictly lower part of the panel columns of L out of the buffer
+            for (int k = j0 + 1; k < n; k++) {
+                for (int j = j0; j < Math.min(k, j1); j++) {
+                    lower[k * panel + j - j0] = w[k * n + j];
+                    w[k * n + j] = 0.0;
+                }
+            }
+            // subtract the product of the final columns right of the panel and the copied panel of L
+            BlockKernels.multiplySubtract(w, j0, n, w, j1, n, lower, j1 * panel, panel, n, width, n - j1);
+            for (int i = 0; i < n; i++) {
+                int target = i * n;
+                for (int j = j1 - 1; j >= j0; j--) {
+                    double sum = w[target + j];
+                    for (int m = j + 1; m < j1; m++) {
+                        sum -= w[target + m] * lower[m * panel + j - j0];
+                    }
+                    w[target + j] = sum;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            int offset = i * n;
+            for (int j = 0; j < n; j++) {
+                row[pivot[j]] = w[offset + j];
+            }
+            System.arraycopy(row, 0, w, offset, n);
+        }
+        return new FlatRealMatrix(n, n, w);
+    }
+
+    @Override
+    public RealMatrix getInverseColumns(int... columns) {
+        if (singular) {
+            throw new SingularMatrixException();
+        }
+        int k = columns.length;
+        double[] b = new double[n * k];
+        for (int j = 0; j < k; j++) {
+            if (columns[j] < 0 || columns[j] >= n) {
+                throw new OutOfRangeException(columns[j], 0, n - 1);
+            }
+            b[columns[j] * k + j] = 1.0;
+        }
+        return new FlatRealMatrix(n, k, solve(b, k));
+    }
+
+    /**
+     * Returns the diagonal of the inverse of the decomposed matrix without forming the inverse.
+     * <br>U and L are inverted in one buffer, then every diagonal entry is the product of a row of U<sup>-1</sup> and a
+     * column of L<sup>-1</sup> × P, which takes about half of the work of the full inverse.
+     *
+     * @return the diagonal of the inverse.
+     * @throws SingularMatrixException if the decomposed matrix is singular.
+     */
+    @Override
+    public double[] getInverseDiagonal() {
+        if (singular) {
+            throw new SingularMatrixException();
+        }
+        double[] w = lu.clone();
+        double[] row = new double[n];
+        BlockKernels.invertUpper(w, n, row);
+        BlockKernels.invertUnitLower(w, n, row);
+        int[] inversePivot = new int[n];
+        for (int i = 0; i < n; i++) {
+            inversePivot[pivot[i]] = i;
+        }
+        double[] diagonal = new double[n];
+        for (int j = 0; j < n; j++) {
+            int q = inversePivot[j];
+            int offset = j * n;
+            double sum = 0.0;
+            for (int k = Math.max(j, q); k < n; k++) {
+                double l = k == q ? 1.0 : w[k * n + q];
+                sum += w[offset + k] * l;
+            }
+            diagonal[j] = sum;
+        }
+        return diagonal;
+    }
+
+    /**
+     * Solves L × U × X = Y in place for a permuted right-hand side Y.
+     *
+     * @param x the permuted right-hand side, overwritten by the solution.
+     */
+    protected void substitute(double[] x) {
+        Kernels kernels = Kernels.INSTANCE;
+        for (int i = 1; i < n; i++) {
+            x[i] -= kernels.dot(lu, i * n, x, 0, i);
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            int row = i * n;
+            x[i] = (x[i] - kernels.dot(lu, row + i + 1, x, i + 1, n - i - 1)) / lu[row + i];
+        }
+    }
+
+    /**
+     * Solves L × U × X = Y in place for permuted right-hand sides Y stored in row-major order.
+     * <br>The rows are processed in blocks of {@link PackedLUFactorization#SOLVE_BLOCK}: a block is first updated with
+     * every finished block, one block at a time so that it stays in the cache, and then solved with the diagonal block.
+     *
+     * @param x       the permuted right-hand sides, overwritten by the solutions.
+     * @param columns the number of right-hand sides.
+     */
+    protected void substitute(double[] x, int columns) {
+        for (int i0 = 0; i0 < n; i0 += SOLVE_BLOCK) {
+            BlockKernels.checkCancelled();
+            int i1 = Math.min(i0 + SOLVE_BLOCK, n);
+            for (int k0 = 0; k0 < i0; k0 += SOLVE_BLOCK) {
+                subtractRows(x, columns, i0, i1, k0, k0 + SOLVE_BLOCK);
+            }
+            for (int i = i0 + 1; i < i1; i++) {
+                subtractRows(x, columns, i, i + 1, i0, i);
+            }
+        }
+        int lastBlock = (n - 1) / SOLVE_BLOCK * SOLVE_BLOCK;
+        for (int i0 = lastBlock; i0 >= 0; i0 -= SOLVE_BLOCK) {
+            BlockKernels.checkCancelled();
+            int i1 = Math.min(i0 + SOLVE_BLOCK, n);
+            for (int k0 = i1; k0 < n; k0 += SOLVE_BLOCK) {
+                subtractRows(x, columns, i0, i1, k0, Math.min(k0 + SOLVE_BLOCK, n));
+            }
+            for (int i = i1 - 1; i >= i0; i--) {
+                subtractRows(x, columns, i, i + 1, i + 1, i1);
+                double diagonal = lu[i * n + i];
+                int row = i * columns;
+                for (int c = 0; c < columns; c++) {
+                    x[row + c] /= diagonal;
+                }
+            }
+        }
+    }
+
+    /**
+     * Subtracts the rows {@code [k0, k1)} of X weighted by the rows {@code [i0, i1)} of the packed factors from the
+     * rows {@code [i0, i1)} of X.
+     *
+     * @param x       the right-hand sides in row-major order.
+     * @param columns the number of right-hand sides.
+     * @param i0      the first updated row.
+     * @param i1      the end of the updated rows.
+     * @param k0      the first subtracted row.
+     * @param k1      the end of the subtracted rows.
+     */
+    private void subtractRows(double[] x, int columns, int i0, int i1, int k0, int k1) {
+        BlockKernels.multiplySubtract(x, i0 * columns, columns, lu, i0 * n + k0, n, x, k0 * columns, columns,
+                i1 - i0, columns, k1 - k0);
+    }
+}
@@ -0,0 +1,25 @@
+package assignment.model;
+
+/**
+ * Listener of the stages of a computation, set by {@link SolverOptions#withProgressListener(ProgressListener)}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * The listener ignoring every stage.
+     */
+    ProgressListener NONE = stage -> {
+    };
+
+    /**
+     * Called on the computing thread when a stage starts.
+     *
+     * @param stage the started stage.
+     * @throws java.util.concurrent.CancellationException to stop the computation.
+     */
+    void stageStarted(ComputationStage stage);
+}
@@ -0,0 +1,98 @@
+package assignment.model;
+
+/**
+ * The solution of A × x = b after iterative refinement, with the quality of the solution.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see IterativeRefinement
+ */
+public final class RefinedSolution {
+
+    /**
+     * The solution.
+     */
+    private final double[] solution;
+
+    /**
+     * The infinity norm of the final residual b - A × x.
+     */
+    private final double residualNorm;
+
+    /**
+     * The number of corrections added to the first solution.
+     */
+    private final int iterations;
+
+    /**
+     * True if the residual reached the accuracy of a double precision solve.
+     */
+    private final boolean converged;
+
+    /**
+     * True if the single precision factors did not converge and the matrix was factorized in double precision.
+     */
+    private final boolean fallback;
+
+    /**
+     * Creates the refined solution.
+     *
+     * @param solution     the solution.
+     * @param residualNorm the infinity norm of the final residual.
+     * @param iterations   the number of corrections.
+     * @param converged    true if the residual reached the accuracy of a double precision solve.
+     * @param fallback     true if the matrix was factorized in double precision after all.
+     */
+    RefinedSolution(double[] solution, double residualNorm, int iterations, boolean converged, boolean fallback) {
+        this.solution = solution;
+        this.residualNorm = residualNorm;
+        this.iterations = iterations;
+        this.converged = converged;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Returns the solution.
+     *
+     * @return the solution vector, not copied.
+     */
+    public double[] getSolution() {
+        return solution;
+    }
+
+    /**
+     * Returns the infinity norm of the final residual b - A × x, computed in double precision.
+     *
+     * @return the residual norm.
+     */
+    public double getResidualNorm() {
+        return residualNorm;
+    }
+
+    /**
+     * Returns the number of refinement steps.
+     *
+     * @return the number of corrections added to the first solution, 0 if it was accurate already.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Checks if the residual reached the accuracy of a double precision solve.
+     *
+     * @return true if the refinement converged.
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Checks if the mixed precision solve fell back to the double precision factorization.
+     *
+     * @return true if the matrix was factorized in double precision.
+     */
+    public boolean isFallback() {
+        return fallback;
+    }
+}
@@ -0,0 +1,95 @@
+package assignment.model;
+
+/**
+ * The kernels in plain Java loops, used when the Vector API is not available.
+ * <br>The product update processes two rows of C and four inner indices per pass, so every element of C is loaded
+ * and stored once per four rank-1 updates.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see VectorKernels
+ */
+final class ScalarKernels extends Kernels {
+
+    @Override
+    String getName() {
+        return "scalar";
+    }
+
+    @Override
+    int getLanes() {
+        return 1;
+    }
+
+    @Override
+    void multiplySubtract(double[] c, int cOffset, int ldc, double[] a, int aOffset, int lda,
+                          double[] b, int bOffset, int ldb, int rows, int columns, int inner) {
+        int i = 0;
+        for (; i + 1 < rows; i += 2) {
+            int row0 = cOffset + i * ldc;
+            int row1 = row0 + ldc;
+            int a0 = aOffset + i * lda;
+            int a1 = a0 + lda;
+            int k = 0;
+            for (; k + 3 < inner; k += 4) {
+                double l00 = a[a0 + k];
+                double l01 = a[a0 + k + 1];
+                double l02 = a[a0 + k + 2];
+                double l03 = a[a0 + k + 3];
+                double l10 = a[a1 + k];
+                double l11 = a[a1 + k + 1];
+                double l12 = a[a1 + k + 2];
+                double l13 = a[a1 + k + 3];
+                int u0 = bOffset + k * ldb;
+                int u1 = u0 + ldb;
+                int u2 = u1 + ldb;
+                int u3 = u2 + ldb;
+                for (int j = 0; j < columns; j++) {
+                    double b0 = b[u0 + j];
+                    double b1 = b[u1 + j];
+                    double b2 = b[u2 + j];
+                    double b3 = b[u3 + j];
+                    c[row0 + j] -= l00 * b0 + l01 * b1 + l02 * b2 + l03 * b3;
+                    c[row1 + j] -= l10 * b0 + l11 * b1 + l12 * b2 + l13 * b3;
+                }
+            }
+            for (; k < inner; k++) {
+                double l0 = a[a0 + k];
+                double l1 = a[a1 + k];
+                int u = bOffset + k * ldb;
+                for (int j = 0; j < columns; j++) {
+                    double v = b[u + j];
+                    c[row0 + j] -= l0 * v;
+                    c[row1 + j] -= l1 * v;
+                }
+            }
+        }
+        for (; i < rows; i++) {
+            int row = cOffset + i * ldc;
+            int a0 = aOffset + i * lda;
+            for (int k = 0; k < inner; k++) {
+                double l = a[a0 + k];
+                int u = bOffset + k * ldb;
+                for (int j = 0; j < columns; j++) {
+                    c[row + j] -= l * b[u + j];
+                }
+            }
+        }
+    }
+
+    @Override
+    void subtractScaled(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int j = 0; j < length; j++) {
+            y[yOffset + j] -= alpha * x[xOffset + j];
+        }
+    }
+
+    @Override
+    double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int j = 0; j < length; j++) {
+            sum += a[aOffset + j] * b[bOffset + j];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,62 @@
+package assignment.model;
+
+/**
+ * The implementations of the LU-decomposition available to {@link LinearEquation}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see Factorization
+ */
+public enum SolverBackend {
+
+    /**
+     * The blocked LU-decomposition on a row-major array.
+     * <br>Large matrices are factorized in parallel according to the options.
+     *
+     * @see BlockedLUFactorization
+     */
+    BLOCKED {
+        @Override
+        public Factorization factorize(FlatRealMatrix matrix, SolverOptions options) {
+            if (options.isParallel(matrix.getRowDimension())) {
+                return new BlockedLUFactorization(matrix, BlockedLUFactorization.pool(options.getParallelism()));
+            }
+            return new BlockedLUFactorization(matrix);
+        }
+    },
+
+    /**
+     * The reference LU-decomposition of commons-math.
+     *
+     * @see CommonsMathFactorization
+     */
+    COMMONS_MATH {
+        @Override
+        public Factorization factorize(FlatRealMatrix matrix, SolverOptions options) {
+            return new CommonsMathFactorization(matrix);
+        }
+    },
+
+    /**
+     * The LU-decomposition in single precision with iterative refinement of the solutions in double precision.
+     * <br>Falls back to {@link SolverBackend#BLOCKED} if the refinement does not converge.
+     *
+     * @see MixedPrecisionFactorization
+     */
+    MIXED_PRECISION {
+        @Override
+        public Factorization factorize(FlatRealMatrix matrix, SolverOptions options) {
+            return new MixedPrecisionFactorization(matrix, options);
+        }
+    };
+
+    /**
+     * Calculates the factorization of the given matrix.
+     *
+     * @param matrix  the matrix to decompose, it is not modified.
+     * @param options the solver options.
+     * @return the factorization.
+     * @throws org.apache.commons.math3.linear.NonSquareMatrixException if the matrix is not square.
+     */
+    public abstract Factorization factorize(FlatRealMatrix matrix, SolverOptions options);
+}
@@ -0,0 +1,397 @@
+package assignment.model;
+
+import jdk.jfr.FlightRecorder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide instrumentation of the solver: the time, the allocated bytes and the floating-point operations of
+ * every {@link ComputationStage}, and the counters of singular inputs and of the factorization caches.
+ * <br>{@link LinearEquation} measures parsing, the decomposition, the solutions, the inverse and the determinant;
+ * {@link assignment.report.Report} measures the formatting of whole reports. A stage is measured by a
+ * {@link StageTimer}: two reads of {@link System#nanoTime()} and of the allocation counter of the thread, and a
+ * {@link StageEvent} for the flight recorder.
+ * <br>The metrics are published through JMX under {@value SolverMetrics#OBJECT_NAME} once
+ * {@link SolverMetrics#registerMBean()} is called, and as JSON by {@link SolverMetrics#getDump()}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SolverMetricsMXBean
+ */
+public final class SolverMetrics implements SolverMetricsMXBean {
+
+    /**
+     * The name of the MBean.
+     */
+    public static final String OBJECT_NAME = "assignment:type=SolverMetrics";
+
+    /**
+     * The allocation counters of the threads, {@code null} until {@link SolverMetrics#registerMBean()} or if the JVM
+     * does not provide them.
+     */
+    private static volatile com.sun.management.ThreadMXBean threads;
+
+    /**
+     * The system property which publishes the metrics through JMX at start-up if it is {@code true}.
+     */
+    public static final String JMX_PROPERTY = "assignment.jmx";
+
+    /**
+     * The metrics of the process.
+     */
+    private static final SolverMetrics GLOBAL = new SolverMetrics();
+
+    static {
+        if (Boolean.getBoolean(JMX_PROPERTY)) {
+            registerMBean();
+        }
+    }
+
+    /**
+     * The number of runs of every stage.
+     */
+    private final LongAdder[] counts = adders();
+
+    /**
+     * The time of every stage in nanoseconds.
+     */
+    private final LongAdder[] nanos = adders();
+
+    /**
+     * The bytes allocated in every stage.
+     */
+    private final LongAdder[] allocatedBytes = adders();
+
+    /**
+     * The floating-point operations of every stage.
+     */
+    private final DoubleAdder[] flops = new DoubleAdder[ComputationStage.values().length];
+
+    /**
+     * The number of singular inputs.
+     */
+    private final LongAdder singularInputs = new LongAdder();
+
+    /**
+     * The number of cache hits.
+     */
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * The number of cache misses.
+     */
+    private final LongAdder cacheMisses = new LongAdder();
+
+    /**
+     * Creates empty metrics.
+     */
+    private SolverMetrics() {
+        for (int i = 0; i < flops.length; i++) {
+            flops[i] = new DoubleAdder();
+        }
+    }
+
+    /**
+     * Returns the metrics of the process.
+     *
+     * @return the global metrics.
+     */
+    public static SolverMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the allocation counters of the threads if the JVM supports and enables them.
+     *
+     * @return the thread bean or {@code null}.
+     */
+    private static com.sun.management.ThreadMXBean threads() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads;
+                }
+            }
+        } catch (LinkageError | SecurityException ex) {
+            // without the module jdk.management the allocations are not measured
+        }
+        return null;
+    }
+
+    /**
+     * Publishes the metrics of the process through JMX under {@value SolverMetrics#OBJECT_NAME}, once, and starts
+     * measuring the allocations of the stages.
+     * <br>The platform MBean server and the allocation counters of the threads load hundreds of classes, more than a
+     * short run of the command line needs in all, so neither is touched by the first use of the metrics:
+     * {@link assignment.server.SolveServer}, the {@code --metrics} option of the command line and the application call
+     * this method, any other process may set {@code -D}{@value SolverMetrics#JMX_PROPERTY}{@code =true}. Until then
+     * the stages are timed and counted without their allocations. The metrics are collected even if the registration
+     * fails.
+     *
+     * @return true if the metrics are registered.
+     */
+    public static boolean registerMBean() {
+        return Registration.REGISTERED;
+    }
+
+    /**
+     * Creates one counter per stage.
+     *
+     * @return the counters.
+     */
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[ComputationStage.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far.
+     *
+     * @return the allocated bytes, -1 if they are not measured.
+     */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = threads;
+        return bean != null ? Math.max(bean.getCurrentThreadAllocatedBytes(), 0) : -1;
+    }
+
+    /**
+     * Starts measuring a stage on the current thread.
+     *
+     * @param stage     the stage.
+     * @param dimension the dimension of the matrix, 0 if unknown.
+     * @return the timer, to be closed at the end of the stage.
+     */
+    public StageTimer start(ComputationStage stage, int dimension) {
+        return new StageTimer(stage, dimension);
+    }
+
+    /**
+     * Returns the number of floating-point operations of a decomposition by its textbook formula: 2/3 n³ for the
+     * dense LU-decomposition, 1/3 n³ for the Cholesky decomposition.
+     *
+     * @param factorization the decomposition.
+     * @return the operations or 0 if they are not counted for the path.
+     */
+    static double factorizationFlops(Factorization factorization) {
+        double n = factorization.getDimension();
+        switch (factorization.getPath()) {
+            case LU:
+            case STREAMED_LU:
+                return 2.0 / 3.0 * n * n * n;
+            case CHOLESKY:
+                return n * n * n / 3.0;
+            default:
+                return 0.0;
+        }
+    }
+
+    /**
+     * Counts a decomposed matrix which turned out to be singular.
+     */
+    void singularInput() {
+        singularInputs.increment();
+    }
+
+    /**
+     * Counts a factorization taken from a cache.
+     */
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    /**
+     * Counts a factorization a cache had to compute.
+     */
+    void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    @Override
+    public StageStatistics[] getStages() {
+        ComputationStage[] stages = ComputationStage.values();
+        StageStatistics[] statistics = new StageStatistics[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            statistics[i] = new StageStatistics(stages[i].name(), counts[i].sum(), nanos[i].sum(),
+                    allocatedBytes[i].sum(), flops[i].sum());
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the statistics of one stage.
+     *
+     * @param stage the stage.
+     * @return the snapshot of its counters.
+     */
+    public StageStatistics getStage(ComputationStage stage) {
+        int i = stage.ordinal();
+        return new StageStatistics(stage.name(), counts[i].sum(), nanos[i].sum(), allocatedBytes[i].sum(),
+                flops[i].sum());
+    }
+
+    @Override
+    public long getSingularInputs() {
+        return singularInputs.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * Returns all metrics as one JSON object: the stages by name with their count, time in nanoseconds, allocated
+     * bytes, floating-point operations and GFLOP/s, the counters and the kernels in use.
+     *
+     * @return the machine-readable dump.
+     */
+    @Override
+    public String getDump() {
+        StringBuilder json = new StringBuilder("{\"stages\":{");
+        StageStatistics[] stages = getStages();
+        for (int i = 0; i < stages.length; i++) {
+            StageStatistics stage = stages[i];
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(stage.getStage()).append("\":{\"count\":").append(stage.getCount())
+                    .append(",\"nanos\":").append(stage.getNanos())
+                    .append(",\"allocatedBytes\":").append(stage.getAllocatedBytes())
+                    .append(",\"flops\":").append(String.format(Locale.ROOT, "%.0f", stage.getFlops()))
+                    .append(",\"gflops\":").append(String.format(Locale.ROOT, "%.3f", stage.getGflops()))
+                    .append('}');
+        }
+        json.append("},\"singularInputs\":").append(getSingularInputs())
+                .append(",\"cacheHits\":").append(getCacheHits())
+                .append(",\"cacheMisses\":").append(getCacheMisses())
+                .append(",\"kernels\":\"").append(Kernels.describe()).append("\"}");
+        return json.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i].reset();
+            nanos[i].reset();
+            allocatedBytes[i].reset();
+            flops[i].reset();
+        }
+        singularInputs.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+    }
+
+    /**
+     * The registration of the global metrics with the platform MBean server, done when the class is initialized.
+     */
+    private static final class Registration {
+
+        /**
+         * True if the metrics are registered.
+         */
+        static final boolean REGISTERED = register();
+
+        /**
+         * Registers the global metrics.
+         *
+         * @return true if the metrics are registered.
+         */
+        private static boolean register() {
+            threads = threads();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, new ObjectName(OBJECT_NAME));
+                return true;
+            } catch (JMException | SecurityException ex) {
+                // not published through JMX
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The measurement of one run of a stage on the thread which started it.
+     * <br>Used in a try-with-resources statement, or closed in a {@code finally} block where the body does not use
+     * the timer; the run is recorded when the timer is closed, also if the stage failed.
+     */
+    public final class StageTimer implements AutoCloseable {
+
+        /**
+         * The measured stage.
+         */
+        private final ComputationStage stage;
+
+        /**
+         * The flight recorder event of the run or {@code null} if the recorder does not run.
+         */
+        private final StageEvent event;
+
+        /**
+         * The start in nanoseconds.
+         */
+        private final long start;
+
+        /**
+         * The bytes allocated by the thread before the start, -1 if the allocations are not measured.
+         */
+        private final long startBytes;
+
+        /**
+         * The floating-point operations of the run.
+         */
+        private double operations;
+
+        /**
+         * Starts the measurement.
+         *
+         * @param stage     the stage.
+         * @param dimension the dimension of the matrix.
+         */
+        private StageTimer(ComputationStage stage, int dimension) {
+            this.stage = stage;
+            this.startBytes = allocatedBytes();
+            this.event = FlightRecorder.isInitialized() ? StageEvent.begin(dimension) : null;
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * Adds floating-point operations to the run.
+         *
+         * @param count the number of operations.
+         */
+        public void addFlops(double count) {
+            operations += count;
+        }
+
+        /**
+         * Records the run and commits its flight recorder event if it is enabled.
+         */
+        @Override
+        public void close() {
+            long elapsed = System.nanoTime() - start;
+            long allocated = startBytes < 0 ? 0 : Math.max(allocatedBytes() - startBytes, 0);
+            int i = stage.ordinal();
+            counts[i].increment();
+            nanos[i].add(elapsed);
+            allocatedBytes[i].add(allocated);
+            flops[i].add(operations);
+            if (event != null) {
+                event.end(stage.name(), operations, allocated);
+            }
+        }
+    }
+}
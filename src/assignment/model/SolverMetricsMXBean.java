@@ -0,0 +1,51 @@
+package assignment.model;
+
+/**
+ * Management interface of {@link SolverMetrics}, registered with the platform MBean server under
+ * {@value SolverMetrics#OBJECT_NAME}, e.g. for JConsole or Java Mission Control.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+public interface SolverMetricsMXBean {
+
+    /**
+     * Returns the statistics of every stage.
+     *
+     * @return the statistics in the order of {@link ComputationStage}.
+     */
+    StageStatistics[] getStages();
+
+    /**
+     * Returns the number of decomposed matrices which turned out to be singular.
+     *
+     * @return the number of singular inputs.
+     */
+    long getSingularInputs();
+
+    /**
+     * Returns the number of factorizations taken from a {@link FactorizationCache}.
+     *
+     * @return the number of cache hits.
+     */
+    long getCacheHits();
+
+    /**
+     * Returns the number of factorizations a {@link FactorizationCache} had to compute.
+     *
+     * @return the number of cache misses.
+     */
+    long getCacheMisses();
+
+    /**
+     * Returns all metrics as one JSON object.
+     *
+     * @return the machine-readable dump.
+     */
+    String getDump();
+
+    /**
+     * Sets all counters to zero.
+     */
+    void reset();
+}
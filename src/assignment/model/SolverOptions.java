@@ -0,0 +1,264 @@
+package assignment.model;
+
+/**
+ * Immutable options controlling how {@link LinearEquation} decomposes the matrix.
+ * <br>Every {@code with} method returns a modified copy.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+public final class SolverOptions {
+
+    /**
+     * The default options.
+     */
+    private static final SolverOptions DEFAULTS = new SolverOptions(SolverBackend.BLOCKED,
+            Runtime.getRuntime().availableProcessors(), 256, FactorizationCache.shared(), 0.05, true,
+            ProgressListener.NONE);
+
+    /**
+     * The smallest dimension factorized by the sparse LU-decomposition, smaller matrices are always dense.
+     */
+    private static final int SPARSE_MIN_DIMENSION = 100;
+
+    /**
+     * The LU-decomposition implementation.
+     */
+    private final SolverBackend backend;
+
+    /**
+     * The number of threads used by the parallel factorization.
+     */
+    private final int parallelism;
+
+    /**
+     * The dimension below which the factorization runs on the calling thread only.
+     */
+    private final int sequentialThreshold;
+
+    /**
+     * The cache of factorizations or {@code null} to factorize every matrix.
+     */
+    private final FactorizationCache cache;
+
+    /**
+     * The density below which a matrix is factorized by the sparse LU-decomposition.
+     */
+    private final double sparseThreshold;
+
+    /**
+     * True if the structure of the matrix selects the factorization.
+     */
+    private final boolean structureDetection;
+
+    /**
+     * The listener notified when a stage of the computation starts.
+     */
+    private final ProgressListener progressListener;
+
+    /**
+     * Creates the options.
+     *
+     * @param backend             the LU-decomposition implementation.
+     * @param parallelism         the number of threads used by the parallel factorization.
+     * @param sequentialThreshold the dimension below which the factorization is sequential.
+     * @param cache               the cache of factorizations or {@code null}.
+     * @param sparseThreshold     the density below which the sparse LU-decomposition is used.
+     * @param structureDetection  true if the structure of the matrix selects the factorization.
+     * @param progressListener    the listener of the stages of the computation.
+     */
+    private SolverOptions(SolverBackend backend, int parallelism, int sequentialThreshold, FactorizationCache cache,
+                          double sparseThreshold, boolean structureDetection, ProgressListener progressListener) {
+        this.backend = backend;
+        this.parallelism = parallelism;
+        this.sequentialThreshold = sequentialThreshold;
+        this.cache = cache;
+        this.sparseThreshold = sparseThreshold;
+        this.structureDetection = structureDetection;
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Returns the default options.
+     *
+     * @return the default options.
+     */
+    public static SolverOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Returns the options with the given LU-decomposition implementation.
+     *
+     * @param backend the LU-decomposition implementation.
+     * @return the modified options.
+     */
+    public SolverOptions withBackend(SolverBackend backend) {
+        return new SolverOptions(backend, parallelism, sequentialThreshold, cache, sparseThreshold, structureDetection,
+                progressListener);
+    }
+
+    /**
+     * Returns the options with the given number of threads of the parallel factorization.
+     * <br>The value 1 disables the parallel factorization.
+     *
+     * @param parallelism the number of threads.
+     * @return the modified options.
+     * @throws IllegalArgumentException if the number of threads is not positive.
+     */
+    public SolverOptions withParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        return new SolverOptions(backend, parallelism, sequentialThreshold, cache, sparseThreshold, structureDetection,
+                progressListener);
+    }
+
+    /**
+     * Returns the options with the given dimension below which the factorization is sequential.
+     *
+     * @param sequentialThreshold the dimension below which the factorization is sequential.
+     * @return the modified options.
+     */
+    public SolverOptions withSequentialThreshold(int sequentialThreshold) {
+        return new SolverOptions(backend, parallelism, sequentialThreshold, cache, sparseThreshold, structureDetection,
+                progressListener);
+    }
+
+    /**
+     * Returns the options with the given cache of factorizations.
+     *
+     * @param cache the cache of factorizations or {@code null} to factorize every matrix.
+     * @return the modified options.
+     */
+    public SolverOptions withCache(FactorizationCache cache) {
+        return new SolverOptions(backend, parallelism, sequentialThreshold, cache, sparseThreshold, structureDetection,
+                progressListener);
+    }
+
+    /**
+     * Returns the options with the given density below which the sparse LU-decomposition is used.
+     * <br>The value 0 disables the sparse LU-decomposition.
+     *
+     * @param sparseThreshold the density between 0 and 1.
+     * @return the modified options.
+     * @throws IllegalArgumentException if the density is not between 0 and 1.
+     */
+    public SolverOptions withSparseThreshold(double sparseThreshold) {
+        if (!(sparseThreshold >= 0.0 && sparseThreshold <= 1.0)) {
+            throw new IllegalArgumentException("Sparse threshold must be between 0 and 1: " + sparseThreshold);
+        }
+        return new SolverOptions(backend, parallelism, sequentialThreshold, cache, sparseThreshold, structureDetection,
+                progressListener);
+    }
+
+    /**
+     * Returns the options with the structure detection enabled or disabled.
+     * <br>With the detection enabled triangular, banded and symmetric positive definite matrices are factorized by
+     * the specialized paths of {@link SolverPath}; disabled, every dense matrix is factorized by the backend.
+     *
+     * @param structureDetection true to select the factorization by the structure of the matrix.
+     * @return the modified options.
+     */
+    public SolverOptions withStructureDetection(boolean structureDetection) {
+        return new SolverOptions(backend, parallelism, sequentialThreshold, cache, sparseThreshold, structureDetection,
+                progressListener);
+    }
+
+    /**
+     * Returns the options with the given listener of the stages of the computation.
+     * <br>The listener is called on the computing thread; it may stop the computation by throwing
+     * {@link java.util.concurrent.CancellationException}.
+     *
+     * @param progressListener the listener or {@link ProgressListener#NONE}.
+     * @return the modified options.
+     */
+    public SolverOptions withProgressListener(ProgressListener progressListener) {
+        return new SolverOptions(backend, parallelism, sequentialThreshold, cache, sparseThreshold, structureDetection,
+                progressListener);
+    }
+
+    /**
+     * Returns the LU-decomposition implementation.
+     *
+     * @return the LU-decomposition implementation.
+     */
+    public SolverBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Returns the number of threads used by the parallel factorization.
+     *
+     * @return the number of threads.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns the dimension below which the factorization runs on the calling thread only.
+     *
+     * @return the sequential threshold.
+     */
+    public int getSequentialThreshold() {
+        return sequentialThreshold;
+    }
+
+    /**
+     * Returns the cache of factorizations.
+     *
+     * @return the cache or {@code null} if every matrix is factorized.
+     */
+    public FactorizationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Checks if a matrix of the given dimension is factorized in parallel.
+     *
+     * @param dimension the dimension of the matrix.
+     * @return true if the factorization should use several threads.
+     */
+    public boolean isParallel(int dimension) {
+        return parallelism > 1 && dimension >= sequentialThreshold;
+    }
+
+    /**
+     * Returns the density below which a matrix is factorized by the sparse LU-decomposition.
+     *
+     * @return the sparse threshold.
+     */
+    public double getSparseThreshold() {
+        return sparseThreshold;
+    }
+
+    /**
+     * Checks if the structure of the matrix selects the factorization.
+     *
+     * @return true if the structure detection is enabled.
+     */
+    public boolean isStructureDetection() {
+        return structureDetection;
+    }
+
+    /**
+     * Returns the listener of the stages of the computation.
+     *
+     * @return the progress listener.
+     */
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * Checks if a matrix of the given dimension and density is factorized by the sparse LU-decomposition.
+     *
+     * @param dimension the dimension of the matrix.
+     * @param density   the ratio of non-zero entries to all entries.
+     * @return true if the sparse LU-decomposition should be used.
+     */
+    public boolean isSparse(int dimension, double density) {
+        return dimension >= SPARSE_MIN_DIMENSION && density < sparseThreshold;
+    }
+}
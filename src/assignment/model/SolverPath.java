@@ -0,0 +1,133 @@
+package assignment.model;
+
+/**
+ * The kinds of factorization {@link LinearEquation} chooses from the structure of the matrix.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see MatrixStructure
+ */
+public enum SolverPath {
+
+    /**
+     * The general LU-decomposition with partial pivoting of the backend selected in the options.
+     *
+     * @see SolverBackend
+     */
+    LU("LU decomposition with partial pivoting") {
+        @Override
+        public Factorization factorize(FlatRealMatrix matrix, MatrixStructure structure, SolverOptions options) {
+            return options.getBackend().factorize(matrix, options);
+        }
+    },
+
+    /**
+     * The Cholesky decomposition of a symmetric positive definite matrix, half the work of the LU-decomposition.
+     * <br>A matrix which turns out not to be positive definite is factorized by {@link SolverPath#LU}.
+     *
+     * @see CholeskyFactorization
+     */
+    CHOLESKY("Cholesky decomposition") {
+        @Override
+        public Factorization factorize(FlatRealMatrix matrix, MatrixStructure structure, SolverOptions options) {
+            Factorization cholesky = CholeskyFactorization.factorize(matrix);
+            return cholesky != null ? cholesky : LU.factorize(matrix, structure, options);
+        }
+    },
+
+    /**
+     * The LU-decomposition with partial pivoting restricted to the band of a banded matrix.
+     *
+     * @see BandedLUFactorization
+     */
+    BANDED("Banded LU decomposition") {
+        @Override
+        public Factorization factorize(FlatRealMatrix matrix, MatrixStructure structure, SolverOptions options) {
+            return new BandedLUFactorization(matrix, structure.getLowerBandwidth(), structure.getUpperBandwidth());
+        }
+    },
+
+    /**
+     * Direct substitution with a lower or upper triangular matrix.
+     *
+     * @see TriangularFactorization
+     */
+    TRIANGULAR("Triangular substitution") {
+        @Override
+        public Factorization factorize(FlatRealMatrix matrix, MatrixStructure structure, SolverOptions options) {
+            return new TriangularFactorization(matrix);
+        }
+    },
+
+    /**
+     * The sparse LU-decomposition of a matrix with few non-zero entries.
+     *
+     * @see SparseLUFactorization
+     */
+    SPARSE_LU("Sparse LU decomposition") {
+        @Override
+        public Factorization factorize(FlatRealMatrix matrix, MatrixStructure structure, SolverOptions options) {
+            return new SparseLUFactorization(CsrRealMatrix.fromDense(matrix));
+        }
+    },
+
+    /**
+     * The LU-decomposition with column pivoting computed while the rows of a matrix file are read.
+     *
+     * @see StreamedLUFactorization
+     * @see MatrixFileReader
+     */
+    STREAMED_LU("LU decomposition with column pivoting") {
+        @Override
+        public Factorization factorize(FlatRealMatrix matrix, MatrixStructure structure, SolverOptions options) {
+            return new StreamedLUFactorization(matrix);
+        }
+    };
+
+    /**
+     * The description shown to the user.
+     */
+    private final String description;
+
+    /**
+     * Creates the path.
+     *
+     * @param description the description shown to the user.
+     */
+    SolverPath(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Returns the description shown to the user.
+     *
+     * @return the description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Analyzes the structure of the matrix and calculates its factorization on the selected path.
+     *
+     * @param matrix  the matrix to decompose, it is not modified.
+     * @param options the solver options.
+     * @return the factorization, {@link Factorization#getPath()} returns the path actually taken.
+     * @throws org.apache.commons.math3.linear.NonSquareMatrixException if the matrix is not square.
+     */
+    public static Factorization factorizeDetected(FlatRealMatrix matrix, SolverOptions options) {
+        MatrixStructure structure = MatrixStructure.analyze(matrix);
+        return structure.selectPath(options).factorize(matrix, structure, options);
+    }
+
+    /**
+     * Calculates the factorization of the given matrix on this path.
+     *
+     * @param matrix    the matrix to decompose, it is not modified.
+     * @param structure the structure of the matrix.
+     * @param options   the solver options.
+     * @return the factorization.
+     * @throws org.apache.commons.math3.linear.NonSquareMatrixException if the matrix is not square.
+     */
+    public abstract Factorization factorize(FlatRealMatrix matrix, MatrixStructure structure, SolverOptions options);
+}
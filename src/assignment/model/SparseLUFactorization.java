@@ -0,0 +1,436 @@
+package assignment.model;
+
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Sparse LU-decomposition P × A × Q = L × U of a matrix in the compressed sparse row format.
+ * <br>The columns are ordered by {@link MinimumDegreeOrdering} to reduce the fill-in, then every column is computed by
+ * a sparse triangular solve with the columns found so far (left-looking Gilbert-Peierls algorithm). Rows are chosen by
+ * threshold partial pivoting which prefers the diagonal of the ordered matrix while it is not smaller than
+ * {@link SparseLUFactorization#PIVOT_TOLERANCE} times the largest candidate.
+ * <br>L and U are stored by columns, only their non-zero entries are kept. Unlike the dense factorizations,
+ * {@link SparseLUFactorization#getL()} and {@link SparseLUFactorization#getU()} are the factors of P × A × Q,
+ * the column order is returned by {@link SparseLUFactorization#getColumnPermutation()}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see CsrRealMatrix
+ */
+public class SparseLUFactorization extends AbstractFactorization {
+
+    /**
+     * The relative size of the diagonal pivot preferred over the largest pivot.
+     */
+    static final double PIVOT_TOLERANCE = 0.1;
+
+    /**
+     * The number of columns eliminated between two checks of cancellation, a power of two.
+     */
+    private static final int CANCELLATION_INTERVAL = 64;
+
+    /**
+     * The column order: column k of A × Q is column {@code q[k]} of A.
+     */
+    private final int[] q;
+
+    /**
+     * The row order: row k of P × A is row {@code p[k]} of A.
+     */
+    private final int[] p;
+
+    /**
+     * The start of every column of L.
+     */
+    private final int[] lp;
+
+    /**
+     * The row indices of L, the unit diagonal is the first entry of every column.
+     */
+    private int[] li;
+
+    /**
+     * The values of L.
+     */
+    private double[] lx;
+
+    /**
+     * The start of every column of U.
+     */
+    private final int[] up;
+
+    /**
+     * The row indices of U, the diagonal is the last entry of every column.
+     */
+    private int[] ui;
+
+    /**
+     * The values of U.
+     */
+    private double[] ux;
+
+    /**
+     * True if no acceptable pivot was found for a column.
+     */
+    private boolean singular;
+
+    /**
+     * The determinant of the matrix.
+     */
+    private Determinant determinant = Determinant.ZERO;
+
+    /**
+     * Calculates the sparse LU-decomposition of the given matrix.
+     *
+     * @param matrix the matrix to decompose, it is not modified.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    public SparseLUFactorization(CsrRealMatrix matrix) {
+        super(squareDimension(matrix));
+        q = MinimumDegreeOrdering.order(matrix);
+        p = new int[n];
+        lp = new int[n + 1];
+        up = new int[n + 1];
+        int capacity = 4 * matrix.getNonZeroCount() + n;
+        li = new int[capacity];
+        lx = new double[capacity];
+        ui = new int[capacity];
+        ux = new double[capacity];
+        factorize(matrix.transposeSparse());
+    }
+
+    /**
+     * Returns the dimension of the square matrix.
+     *
+     * @param matrix the matrix.
+     * @return the number of rows.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    private static int squareDimension(CsrRealMatrix matrix) {
+        if (matrix.getRowDimension() != matrix.getColumnDimension()) {
+            throw new NonSquareMatrixException(matrix.getRowDimension(), matrix.getColumnDimension());
+        }
+        return matrix.getRowDimension();
+    }
+
+    /**
+     * Computes the factors column by column.
+     *
+     * @param columns the matrix stored by columns, i.e. the transposed matrix in the compressed sparse row format.
+     */
+    private void factorize(CsrRealMatrix columns) {
+        int[] ap = columns.getRowPointers();
+        int[] ai = columns.getColumnIndices();
+        double[] ax = columns.getValues();
+        int[] pinv = new int[n];
+        Arrays.fill(pinv, -1);
+        double[] x = new double[n];
+        int[] pattern = new int[n];
+        int[] stack = new int[n];
+        int[] positions = new int[n];
+        int[] mark = new int[n];
+        int lnz = 0;
+        int unz = 0;
+        for (int k = 0; k < n; k++) {
+            if ((k & (CANCELLATION_INTERVAL - 1)) == 0) {
+                BlockKernels.checkCancelled();
+            }
+            lp[k] = lnz;
+            up[k] = unz;
+            if (lnz + n > li.length) {
+                int size = Math.max(2 * li.length, lnz + n);
+                li = Arrays.copyOf(li, size);
+                lx = Arrays.copyOf(lx, size);
+            }
+            if (unz + n > ui.length) {
+                int size = Math.max(2 * ui.length, unz + n);
+                ui = Arrays.copyOf(ui, size);
+                ux = Arrays.copyOf(ux, size);
+            }
+            int column = q[k];
+            int top = reach(ap, ai, column, pinv, pattern, stack, positions, mark, k + 1);
+            for (int t = top; t < n; t++) {
+                x[pattern[t]] = 0.0;
+            }
+            for (int t = ap[column]; t < ap[column + 1]; t++) {
+                x[ai[t]] = ax[t];
+            }
+            for (int t = top; t < n; t++) {
+                int j = pattern[t];
+                int jNew = pinv[j];
+                if (jNew >= 0) {
+                    double xj = x[j];
+                    for (int e = lp[jNew] + 1; e < lp[jNew + 1]; e++) {
+                        x[li[e]] -= lx[e] * xj;
+                    }
+                }
+            }
+            int pivotRow = -1;
+            double largest = -1.0;
+            for (int t = top; t < n; t++) {
+                int i = pattern[t];
+                if (pinv[i] < 0) {
+                    double value = Math.abs(x[i]);
+                    if (value > largest) {
+                        largest = value;
+                        pivotRow = i;
+                    }
+                } else {
+                    ui[unz] = pinv[i];
+                    ux[unz++] = x[i];
+                }
+            }
+            if (pivotRow == -1 || largest < PackedLUFactorization.SINGULARITY_THRESHOLD) {
+                singular = true;
+                return;
+            }
+            if (pinv[column] < 0 && Math.abs(x[column]) >= PIVOT_TOLERANCE * largest) {
+                pivotRow = column;
+            }
+            double pivot = x[pivotRow];
+            ui[unz] = k;
+            ux[unz++] = pivot;
+            pinv[pivotRow] = k;
+            li[lnz] = pivotRow;
+            lx[lnz++] = 1.0;
+            for (int t = top; t < n; t++) {
+                int i = pattern[t];
+                if (pinv[i] < 0) {
+                    li[lnz] = i;
+                    lx[lnz++] = x[i] / pivot;
+                }
+                x[i] = 0.0;
+            }
+        }
+        lp[n] = lnz;
+        up[n] = unz;
+        for (int e = 0; e < lnz; e++) {
+            li[e] = pinv[li[e]];
+        }
+        for (int i = 0; i < n; i++) {
+            p[pinv[i]] = i;
+        }
+        Determinant.Product product = new Determinant.Product(Determinant.parity(p) * Determinant.parity(q));
+        for (int k = 0; k < n; k++) {
+            product.multiply(ux[up[k + 1] - 1]);
+        }
+        determinant = product.toDeterminant();
+    }
+
+    /**
+     * Finds the rows of the non-zero entries of the solution of L × x = A(:, column) in topological order.
+     * <br>The graph of L is searched depth-first from every non-zero row of the column without recursion.
+     *
+     * @param ap        the start of every column of A.
+     * @param ai        the row indices of A.
+     * @param column    the column of A.
+     * @param pinv      the step at which every row was chosen as pivot or -1.
+     * @param pattern   the output, the rows are stored in {@code pattern[top .. n)}.
+     * @param stack     the work stack of the search.
+     * @param positions the position of the search in every column on the stack.
+     * @param mark      the marks of the visited rows.
+     * @param stamp     the value marking the rows visited for this column.
+     * @return the start of the rows in {@code pattern}.
+     */
+    private int reach(int[] ap, int[] ai, int column, int[] pinv, int[] pattern, int[] stack, int[] positions,
+                      int[] mark, int stamp) {
+        int top = n;
+        for (int t = ap[column]; t < ap[column + 1]; t++) {
+            if (mark[ai[t]] == stamp) {
+                continue;
+            }
+            int head = 0;
+            stack[0] = ai[t];
+            while (head >= 0) {
+                int j = stack[head];
+                int jNew = pinv[j];
+                if (mark[j] != stamp) {
+                    mark[j] = stamp;
+                    positions[head] = jNew < 0 ? 0 : lp[jNew];
+                }
+                boolean done = true;
+                int end = jNew < 0 ? 0 : lp[jNew + 1];
+                for (int e = positions[head]; e < end; e++) {
+                    int i = li[e];
+                    if (mark[i] != stamp) {
+                        positions[head] = e + 1;
+                        stack[++head] = i;
+                        done = false;
+                        break;
+                    }
+                }
+                if (done) {
+                    head--;
+                    pattern[--top] = j;
+                }
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Returns the column order: column k of A × Q is column {@code q[k]} of A.
+     *
+     * @return a copy of the column permutation.
+     */
+    @Override
+    public int[] getColumnPermutation() {
+        return q.clone();
+    }
+
+    /**
+     * Returns the number of non-zero entries of L and U.
+     *
+     * @return the number of stored entries of the factors.
+     */
+    public int getFactorNonZeroCount() {
+        return lp[n] + up[n];
+    }
+
+    @Override
+    public SolverPath getPath() {
+        return SolverPath.SPARSE_LU;
+    }
+
+    /**
+     * Returns the unit lower triangular factor of P × A × Q.
+     *
+     * @return the L matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getL() {
+        return singular ? null : new CsrRealMatrix(n, n, lp, li, lx).transposeSparse();
+    }
+
+    /**
+     * Returns the upper triangular factor of P × A × Q.
+     *
+     * @return the U matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getU() {
+        return singular ? null : new CsrRealMatrix(n, n, up, ui, ux).transposeSparse();
+    }
+
+    @Override
+    public RealMatrix getP() {
+        if (singular) {
+            return null;
+        }
+        int[] pointers = new int[n + 1];
+        double[] ones = new double[n];
+        for (int i = 0; i < n; i++) {
+            pointers[i + 1] = i + 1;
+            ones[i] = 1.0;
+        }
+        return new CsrRealMatrix(n, n, pointers, p.clone(), ones);
+    }
+
+    /**
+     * Returns the column permutation matrix Q in the compressed sparse row format.
+     *
+     * @return the Q matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getQ() {
+        if (singular) {
+            return null;
+        }
+        int[] pointers = new int[n + 1];
+        int[] columns = new int[n];
+        double[] ones = new double[n];
+        for (int k = 0; k < n; k++) {
+            pointers[k + 1] = k + 1;
+            columns[q[k]] = k;
+            ones[k] = 1.0;
+        }
+        return new CsrRealMatrix(n, n, pointers, columns, ones);
+    }
+
+    @Override
+    public int[] getPivot() {
+        return p.clone();
+    }
+
+    @Override
+    public double getDeterminant() {
+        return getLogDeterminant().getValue();
+    }
+
+    @Override
+    public Determinant getLogDeterminant() {
+        return singular ? Determinant.ZERO : determinant;
+    }
+
+    @Override
+    public boolean isSingular() {
+        return singular;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        checkSolvable(b);
+        double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            y[k] = b[p[k]];
+        }
+        for (int j = 0; j < n; j++) {
+            double yj = y[j];
+            if (yj != 0.0) {
+                for (int e = lp[j] + 1; e < lp[j + 1]; e++) {
+                    y[li[e]] -= lx[e] * yj;
+                }
+            }
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            int diagonal = up[j + 1] - 1;
+            double yj = y[j] / ux[diagonal];
+            y[j] = yj;
+            if (yj != 0.0) {
+                for (int e = up[j]; e < diagonal; e++) {
+                    y[ui[e]] -= ux[e] * yj;
+                }
+            }
+        }
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) {
+            x[q[k]] = y[k];
+        }
+        return x;
+    }
+
+    /**
+     * Solves A<sup>T</sup> × x = b: as A<sup>T</sup> = Q × U<sup>T</sup> × L<sup>T</sup> × P, the columns of U and L
+     * are the rows of the transposed factors and every unknown is a sparse dot product.
+     */
+    @Override
+    public double[] solveTransposed(double[] b) {
+        checkSolvable(b);
+        double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            y[k] = b[q[k]];
+        }
+        for (int j = 0; j < n; j++) {
+            int diagonal = up[j + 1] - 1;
+            double sum = y[j];
+            for (int e = up[j]; e < diagonal; e++) {
+                sum -= ux[e] * y[ui[e]];
+            }
+            y[j] = sum / ux[diagonal];
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            double sum = y[j];
+            for (int e = lp[j] + 1; e < lp[j + 1]; e++) {
+                sum -= lx[e] * y[li[e]];
+            }
+            y[j] = sum;
+        }
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) {
+            x[p[k]] = y[k];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,81 @@
+package assignment.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of one {@link ComputationStage}, committed by {@link SolverMetrics.StageTimer}.
+ * <br>The event is only recorded while a recording with it enabled is running, e.g. started by
+ * {@code -XX:StartFlightRecording} or by {@code jcmd JFR.start}; before the recorder is initialized the class is
+ * not even loaded.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+@Name("assignment.Stage")
+@Label("Linear Equation Stage")
+@Category("Linear Equation")
+@Description("A stage of solving a linear equation")
+@StackTrace(false)
+final class StageEvent extends jdk.jfr.Event {
+
+    /**
+     * The name of the stage.
+     */
+    @Label("Stage")
+    String stage;
+
+    /**
+     * The dimension of the matrix, 0 if unknown.
+     */
+    @Label("Dimension")
+    int dimension;
+
+    /**
+     * The number of floating-point operations, 0 if unknown.
+     */
+    @Label("Floating-Point Operations")
+    double flops;
+
+    /**
+     * The bytes allocated by the thread during the stage.
+     */
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    /**
+     * Begins the event of a stage.
+     * <br>Called only while the flight recorder is initialized: loading the first event class makes the recorder
+     * register and instrument it, which would double the start-up time of a short run.
+     *
+     * @param dimension the dimension of the matrix, 0 if unknown.
+     * @return the begun event.
+     */
+    static StageEvent begin(int dimension) {
+        StageEvent event = new StageEvent();
+        event.dimension = dimension;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if the recording has it enabled.
+     *
+     * @param stageName      the name of the stage.
+     * @param operations     the floating-point operations of the stage.
+     * @param allocatedBytes the bytes allocated by the thread during the stage.
+     */
+    void end(String stageName, double operations, long allocatedBytes) {
+        if (shouldCommit()) {
+            stage = stageName;
+            flops = operations;
+            allocated = allocatedBytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package assignment.model;
+
+/**
+ * The accumulated statistics of one {@link ComputationStage}, a snapshot taken by {@link SolverMetrics}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SolverMetricsMXBean#getStages()
+ */
+public final class StageStatistics {
+
+    /**
+     * The name of the stage.
+     */
+    private final String stage;
+
+    /**
+     * The number of measured runs of the stage.
+     */
+    private final long count;
+
+    /**
+     * The total time in nanoseconds.
+     */
+    private final long nanos;
+
+    /**
+     * The total number of bytes allocated by the measuring threads.
+     */
+    private final long allocatedBytes;
+
+    /**
+     * The total number of floating-point operations of the runs with a known count.
+     */
+    private final double flops;
+
+    /**
+     * Creates the statistics.
+     *
+     * @param stage          the name of the stage.
+     * @param count          the number of runs.
+     * @param nanos          the total time in nanoseconds.
+     * @param allocatedBytes the total number of allocated bytes.
+     * @param flops          the total number of floating-point operations.
+     */
+    StageStatistics(String stage, long count, long nanos, long allocatedBytes, double flops) {
+        this.stage = stage;
+        this.count = count;
+        this.nanos = nanos;
+        this.allocatedBytes = allocatedBytes;
+        this.flops = flops;
+    }
+
+    /**
+     * Returns the name of the stage.
+     *
+     * @return the name of the {@link ComputationStage}.
+     */
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * Returns the number of measured runs of the stage.
+     *
+     * @return the number of runs.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the total time spent in the stage.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns the number of bytes allocated during the stage by the thread running it; the worker threads of a
+     * parallel factorization are not counted.
+     *
+     * @return the allocated bytes, 0 if the JVM does not measure allocations.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the number of floating-point operations of the stage.
+     * <br>Only the operations of the dense LU and Cholesky decompositions, the substitutions and the inverse are
+     * counted, by their textbook formulas.
+     *
+     * @return the number of operations.
+     */
+    public double getFlops() {
+        return flops;
+    }
+
+    /**
+     * Returns the achieved rate of floating-point operations.
+     *
+     * @return the operations per nanosecond, 0 if the stage did not run.
+     */
+    public double getGflops() {
+        return nanos > 0 ? flops / nanos : 0.0;
+    }
+}
@@ -0,0 +1,472 @@
+package assignment.model;
+
+import org.apache.commons.math3.linear.NonSquareMatrixException;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * LU-decomposition A × Q = L × U with column pivoting, computed block of rows by block of rows while the rows of A
+ * arrive, e.g. while the rest of a matrix file is still read and parsed.
+ * <br>Partial pivoting by rows needs the whole first column before the first elimination step, so nothing could be
+ * done before the last row is read. Pivoting by columns chooses the pivot of step k in row k: it is the partial
+ * pivoting of A<sup>T</sup>, with the same stability, and a block of {@link StreamedLUFactorization#PANEL_SIZE} rows is
+ * eliminated as soon as it and the rows above it are there. Every new block is first updated by the factored blocks
+ * above it, left-looking, one block product per factored block like the trailing update of
+ * {@link BlockedLUFactorization}, then it is factorized itself.
+ * <br>L keeps the pivots on its diagonal and U has a unit diagonal; both are packed in one row-major array. The column
+ * exchanges of a block reach the rows factored before it only in {@link StreamedLUFactorization#finish()}, every row
+ * in one pass. Like {@link SparseLUFactorization#getL()}, {@link StreamedLUFactorization#getL()} and
+ * {@link StreamedLUFactorization#getU()} are the factors of A × Q, the column order is returned by
+ * {@link StreamedLUFactorization#getColumnPermutation()}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see MatrixFileReader
+ */
+public class StreamedLUFactorization extends AbstractFactorization {
+
+    /**
+     * The number of rows of a block.
+     */
+    static final int PANEL_SIZE = BlockedLUFactorization.PANEL_SIZE;
+
+    /**
+     * The number of columns updated at once.
+     */
+    static final int COLUMN_BLOCK = BlockedLUFactorization.COLUMN_BLOCK;
+
+    /**
+     * The factors packed in row-major order: L in the lower triangle with the diagonal, U in the strictly upper one.
+     */
+    private final double[] lu;
+
+    /**
+     * The column exchanged with column k at step k.
+     */
+    private final int[] exchanges;
+
+    /**
+     * The pool running the block updates or {@code null} if the factorization is sequential.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of factorized rows.
+     */
+    private int factored;
+
+    /**
+     * True if the number of column exchanges is even.
+     */
+    private boolean even = true;
+
+    /**
+     * True if a pivot was below {@link PackedLUFactorization#SINGULARITY_THRESHOLD}.
+     */
+    private boolean singular;
+
+    /**
+     * The column order, computed by {@link StreamedLUFactorization#finish()}: column k of A × Q is column
+     * {@code q[k]} of A.
+     */
+    private int[] q;
+
+    /**
+     * Calculates the LU-decomposition of the given matrix, all rows at once.
+     *
+     * @param matrix the matrix to decompose, it is not modified.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    public StreamedLUFactorization(FlatRealMatrix matrix) {
+        this(matrix.getRowDimension(), copyOfSquare(matrix), null);
+        factorRows(n);
+        finish();
+    }
+
+    /**
+     * Creates the factorization of a matrix whose rows are written to the array later, before
+     * {@link StreamedLUFactorization#factorRows(int)} is called for them.
+     *
+     * @param n    the dimension of the matrix.
+     * @param lu   the array of the matrix in row-major order; it is overwritten by the factors.
+     * @param pool the pool running the block updates or {@code null} to run on the calling thread.
+     */
+    StreamedLUFactorization(int n, double[] lu, ForkJoinPool pool) {
+        super(n);
+        this.lu = lu;
+        this.pool = pool;
+        this.exchanges = identityPivot(n);
+    }
+
+    /**
+     * Returns a copy of the entries of a square matrix.
+     *
+     * @param matrix the matrix.
+     * @return the entries in row-major order.
+     * @throws NonSquareMatrixException if the matrix is not square.
+     */
+    private static double[] copyOfSquare(FlatRealMatrix matrix) {
+        if (matrix.getRowDimension() != matrix.getColumnDimension()) {
+            throw new NonSquareMatrixException(matrix.getRowDimension(), matrix.getColumnDimension());
+        }
+        return Arrays.copyOf(matrix.getDataRef(), matrix.getDataRef().length);
+    }
+
+    /**
+     * Factorizes the complete blocks of the rows written so far.
+     * <br>Only whole blocks are factorized until the last row, the rest of a block waits for the next call.
+     *
+     * @param available the number of rows written to the array, from the first one.
+     * @return the number of factorized rows.
+     */
+    int factorRows(int available) {
+        while (!singular && factored < n && (available == n || factored + PANEL_SIZE <= available)) {
+            BlockKernels.checkCancelled();
+            int j0 = factored;
+            int j1 = Math.min(j0 + PANEL_SIZE, n);
+            for (int s0 = 0; s0 < j0; s0 += PANEL_SIZE) {
+                update(s0, s0 + PANEL_SIZE, j0, j1);
+            }
+            factorBlock(j0, j1);
+            factored = j1;
+        }
+        return factored;
+    }
+
+    /**
+     * Returns the number of factorized rows.
+     *
+     * @return the rows from the first one which are factorized.
+     */
+    int getFactoredRows() {
+        return factored;
+    }
+
+    /**
+     * Updates the rows {@code [j0, j1)} by the factored block of the rows {@code [s0, s1)}: applies its column
+     * exchanges, solves for the block of L left of its diagonal and subtracts the product with its block of U.
+     *
+     * @param s0 the first row of the factored block.
+     * @param s1 the end of the factored block.
+     * @param j0 the first updated row.
+     * @param j1 the end of the updated rows.
+     */
+    private void update(int s0, int s1, int j0, int j1) {
+        for (int r = j0; r < j1; r++) {
+            int row = r * n;
+            for (int k = s0; k < s1; k++) {
+                swap(row, k, exchanges[k]);
+            }
+            for (int s = s0; s < s1; s++) {
+                double l = lu[row + s];
+                if (l != 0.0) {
+                    Kernels.INSTANCE.subtractScaled(l, lu, s * n + s + 1, lu, row + s + 1, s1 - s - 1);
+                }
+            }
+        }
+        if (pool != null && s1 < n) {
+            pool.invoke(new ColumnBlockTask(s0, s1, j0, j1, s1, n));
+            return;
+        }
+        for (int c0 = s1; c0 < n; c0 += COLUMN_BLOCK) {
+            BlockKernels.multiplySubtract(lu, n, s0, s1, j0, j1, c0, Math.min(c0 + COLUMN_BLOCK, n));
+        }
+    }
+
+    /**
+     * Factorizes the updated rows {@code [j0, j1)} with pivoting in the rows: the largest entry right of the diagonal
+     * is exchanged into the diagonal, in the rows of the block only.
+     *
+     * @param j0 the first row of the block.
+     * @param j1 the end of the block.
+     */
+    private void factorBlock(int j0, int j1) {
+        for (int k = j0; k < j1; k++) {
+            int row = k * n;
+            int max = k;
+            double largest = Math.abs(lu[row + k]);
+            for (int c = k + 1; c < n; c++) {
+                double value = Math.abs(lu[row + c]);
+                if (value > largest) {
+                    largest = value;
+                    max = c;
+                }
+            }
+            if (largest < PackedLUFactorization.SINGULARITY_THRESHOLD) {
+                singular = true;
+                return;
+            }
+            exchanges[k] = max;
+            if (max != k) {
+                for (int r = j0; r < j1; r++) {
+                    swap(r * n, k, max);
+                }
+                even = !even;
+            }
+            double pivot = lu[row + k];
+            for (int c = k + 1; c < n; c++) {
+                lu[row + c] /= pivot;
+            }
+            for (int r = k + 1; r < j1; r++) {
+                double l = lu[r * n + k];
+                if (l != 0.0) {
+                    Kernels.INSTANCE.subtractScaled(l, lu, row + k + 1, lu, r * n + k + 1, n - k - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Exchanges two entries of a row.
+     *
+     * @param row the index of the first entry of the row.
+     * @param i   the first column.
+     * @param j   the second column.
+     */
+    private void swap(int row, int i, int j) {
+        if (i != j) {
+            double t = lu[row + i];
+            lu[row + i] = lu[row + j];
+            lu[row + j] = t;
+        }
+    }
+
+    /**
+     * Completes the factorization after the last row: applies the column exchanges of every block to the rows
+     * factored before it and computes the column order.
+     */
+    void finish() {
+        if (singular || q != null) {
+            return;
+        }
+        for (int s0 = 0; s0 < n; s0 += PANEL_SIZE) {
+            int s1 = Math.min(s0 + PANEL_SIZE, n);
+            for (int r = s0; r < s1; r++) {
+                for (int k = s1; k < n; k++) {
+                    swap(r * n, k, exchanges[k]);
+                }
+            }
+        }
+        int[] order = identityPivot(n);
+        for (int k = 0; k < n; k++) {
+            int t = order[k];
+            order[k] = order[exchanges[k]];
+            order[exchanges[k]] = t;
+        }
+        q = order;
+    }
+
+    /**
+     * Returns the column order: column k of A × Q is column {@code q[k]} of A.
+     *
+     * @return a copy of the column permutation.
+     */
+    @Override
+    public int[] getColumnPermutation() {
+        return q.clone();
+    }
+
+    @Override
+    public SolverPath getPath() {
+        return SolverPath.STREAMED_LU;
+    }
+
+    /**
+     * Returns the lower triangular factor of A × Q, with the pivots on its diagonal.
+     *
+     * @return the L matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getL() {
+        if (singular) {
+            return null;
+        }
+        FlatRealMatrix l = new FlatRealMatrix(n, n);
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(lu, i * n, l.getDataRef(), i * n, i + 1);
+        }
+        return l;
+    }
+
+    /**
+     * Returns the upper triangular factor of A × Q, with a unit diagonal.
+     *
+     * @return the U matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getU() {
+        if (singular) {
+            return null;
+        }
+        FlatRealMatrix u = new FlatRealMatrix(n, n);
+        for (int i = 0; i < n; i++) {
+            u.getDataRef()[i * n + i] = 1.0;
+            System.arraycopy(lu, i * n + i + 1, u.getDataRef(), i * n + i + 1, n - i - 1);
+        }
+        return u;
+    }
+
+    /**
+     * Returns the row permutation, the identity: the rows are not exchanged.
+     *
+     * @return the identity matrix or {@code null} if the decomposed matrix is singular.
+     */
+    @Override
+    public RealMatrix getP() {
+        return singular ? null : permutationMatrix(identityPivot(n));
+    }
+
+    @Override
+    public int[] getPivot() {
+        return identityPivot(n);
+    }
+
+    @Override
+    public double getDeterminant() {
+        return getLogDeterminant().getValue();
+    }
+
+    @Override
+    public Determinant getLogDeterminant() {
+        if (singular) {
+            return Determinant.ZERO;
+        }
+        Determinant.Product product = new Determinant.Product(even ? 1 : -1);
+        for (int i = 0; i < n; i++) {
+            product.multiply(lu[i * n + i]);
+        }
+        return product.toDeterminant();
+    }
+
+    @Override
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * Solves L × z = b and U × y = z by contiguous dot products with the rows of the factors, then permutes the
+     * solution back by Q.
+     *
+     * @param b the right-hand side vector.
+     * @return the solution vector.
+     */
+    @Override
+    public double[] solve(double[] b) {
+        checkSolvable(b);
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            y[i] = (b[i] - Kernels.INSTANCE.dot(lu, row, y, 0, i)) / lu[row + i];
+        }
+        for (int i = n - 2; i >= 0; i--) {
+            y[i] -= Kernels.INSTANCE.dot(lu, i * n + i + 1, y, i + 1, n - i - 1);
+        }
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) {
+            x[q[k]] = y[k];
+        }
+        return x;
+    }
+
+    /**
+     * Solves A<sup>T</sup> × x = b as U<sup>T</sup> × L<sup>T</sup> × x = Q<sup>T</sup> × b by row updates.
+     *
+     * @param b the right-hand side vector.
+     * @return the solution vector.
+     */
+    @Override
+    public double[] solveTransposed(double[] b) {
+        checkSolvable(b);
+        double[] x = new double[n];
+        for (int k = 0; k < n; k++) {
+            x[k] = b[q[k]];
+        }
+        for (int i = 0; i < n - 1; i++) {
+            if (x[i] != 0.0) {
+                Kernels.INSTANCE.subtractScaled(x[i], lu, i * n + i + 1, x, i + 1, n - i - 1);
+            }
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            int row = i * n;
+            x[i] /= lu[row + i];
+            if (x[i] != 0.0) {
+                Kernels.INSTANCE.subtractScaled(x[i], lu, row, x, 0, i);
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Task updating a range of columns of a block of rows by the product of a factored block.
+     */
+    private final class ColumnBlockTask extends RecursiveAction {
+
+        /**
+         * The serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first row of the factored block.
+         */
+        private final int s0;
+
+        /**
+         * The end of the factored block.
+         */
+        private final int s1;
+
+        /**
+         * The first updated row.
+         */
+        private final int j0;
+
+        /**
+         * The end of the updated rows.
+         */
+        private final int j1;
+
+        /**
+         * The first column of the range.
+         */
+        private final int c0;
+
+        /**
+         * The end of the column range.
+         */
+        private final int c1;
+
+        /**
+         * Creates the task.
+         *
+         * @param s0 the first row of the factored block.
+         * @param s1 the end of the factored block.
+         * @param j0 the first updated row.
+         * @param j1 the end of the updated rows.
+         * @param c0 the first column of the range.
+         * @param c1 the end of the column range.
+         */
+        ColumnBlockTask(int s0, int s1, int j0, int j1, int c0, int c1) {
+            this.s0 = s0;
+            this.s1 = s1;
+            this.j0 = j0;
+            this.j1 = j1;
+            this.c0 = c0;
+            this.c1 = c1;
+        }
+
+        @Override
+        protected void compute() {
+            if (c1 - c0 > COLUMN_BLOCK) {
+                int middle = c0 + (c1 - c0) / 2;
+                invokeAll(new ColumnBlockTask(s0, s1, j0, j1, c0, middle),
+                        new ColumnBlockTask(s0, s1, j0, j1, middle, c1));
+                return;
+            }
+            BlockKernels.multiplySubtract(lu, n, s0, s1, j0, j1, c0, c1);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+
+import java.util.Arrays;
+
+/**
+ * Many independent linear systems A × x = b in one structure of arrays: the matrices in row-major order one after
+ * another in one array, the vectors in another, and the solutions, determinants and singularity flags written by
+ * {@link ThroughputEngine} in arrays of the same layout.
+ * <br>The matrices are stored back to back, not interleaved entry by entry across the systems. Every system is
+ * eliminated by one thread on its own and its rows are contiguous, so the elimination reads them with unit stride and
+ * the JIT compiler can vectorize the row updates. An interleaved layout only pays off with SIMD lanes across systems
+ * of one common dimension; here it would pad every system to the largest dimension and spread each row over the
+ * batch.
+ * <br>The systems may have different dimensions. The arrays grow as systems are added and are kept by
+ * {@link SystemBatch#clear()}, so a batch reused for the next chunk of systems of the same sizes does not allocate.
+ * <br>A batch is not thread-safe; it must not be modified while it is solved.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see ThroughputEngine
+ */
+public final class SystemBatch {
+
+    /**
+     * The number of systems the arrays have room for at first.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The number of systems.
+     */
+    private int count;
+
+    /**
+     * The largest dimension of a system.
+     */
+    private int maxDimension;
+
+    /**
+     * The number of used entries of {@link SystemBatch#matrices}.
+     */
+    private int matrixSize;
+
+    /**
+     * The number of used entries of {@link SystemBatch#vectors}.
+     */
+    private int vectorSize;
+
+    /**
+     * The dimension of every system.
+     */
+    private int[] dimensions;
+
+    /**
+     * The start of every matrix in {@link SystemBatch#matrices}.
+     */
+    private int[] matrixOffsets;
+
+    /**
+     * The start of every vector in {@link SystemBatch#vectors} and of its solution in {@link SystemBatch#solutions}.
+     */
+    private int[] vectorOffsets;
+
+    /**
+     * The matrices in row-major order.
+     */
+    private double[] matrices;
+
+    /**
+     * The right-hand sides.
+     */
+    private double[] vectors;
+
+    /**
+     * The solutions, NaN for a singular matrix.
+     */
+    private double[] solutions;
+
+    /**
+     * The determinants of the matrices, 0 for a singular matrix.
+     */
+    private double[] determinants;
+
+    /**
+     * True for every singular matrix.
+     */
+    private boolean[] singular;
+
+    /**
+     * Creates an empty batch.
+     */
+    public SystemBatch() {
+        this(INITIAL_CAPACITY, 4);
+    }
+
+    /**
+     * Creates an empty batch with room for the given number of systems of the given dimension.
+     *
+     * @param capacity  the expected number of systems.
+     * @param dimension the expected dimension of the systems.
+     * @throws IllegalArgumentException if the capacity or the dimension is not positive.
+     */
+    public SystemBatch(int capacity, int dimension) {
+        if (capacity < 1 || dimension < 1) {
+            throw new IllegalArgumentException("Capacity and dimension must be positive: " + capacity + ", "
+                    + dimension);
+        }
+        dimensions = new int[capacity];
+        matrixOffsets = new int[capacity];
+        vectorOffsets = new int[capacity];
+        determinants = new double[capacity];
+        singular = new boolean[capacity];
+        matrices = new double[Math.multiplyExact(capacity, dimension * dimension)];
+        vectors = new double[Math.multiplyExact(capacity, dimension)];
+        solutions = new double[vectors.length];
+    }
+
+    /**
+     * Adds the system A × x = b.
+     * <br>The matrix and the vector are copied into the batch.
+     *
+     * @param matrix the n × n matrix A in row-major order.
+     * @param vector the vector b of length n.
+     * @return the index of the system.
+     * @throws DimensionMismatchException if the matrix is not n × n.
+     * @throws IllegalArgumentException   if the vector is empty.
+     * @throws ArithmeticException        if the batch would hold more than 2<sup>31</sup> - 1 values.
+     */
+    public int add(double[] matrix, double[] vector) {
+        int n = vector.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("Empty vector");
+        }
+        if (matrix.length != n * n) {
+            throw new DimensionMismatchException(matrix.length, n * n);
+        }
+        ensureCapacity(count + 1, Math.addExact(matrixSize, matrix.length), Math.addExact(vectorSize, n));
+        dimensions[count] = n;
+        matrixOffsets[count] = matrixSize;
+        vectorOffsets[count] = vectorSize;
+        System.arraycopy(matrix, 0, matrices, matrixSize, matrix.length);
+        System.arraycopy(vector, 0, vectors, vectorSize, n);
+        determinants[count] = 0.0;
+        singular[count] = false;
+        matrixSize += matrix.length;
+        vectorSize += n;
+        maxDimension = Math.max(maxDimension, n);
+        return count++;
+    }
+
+    /**
+     * Grows the arrays to the given sizes, by half of their length at least.
+     *
+     * @param systems     the number of systems.
+     * @param matrixTotal the number of matrix entries.
+     * @param vectorTotal the number of vector entries.
+     */
+    private void ensureCapacity(int systems, int matrixTotal, int vectorTotal) {
+        if (systems > dimensions.length) {
+            int capacity = grow(dimensions.length, systems);
+            dimensions = Arrays.copyOf(dimensions, capacity);
+            matrixOffsets = Arrays.copyOf(matrixOffsets, capacity);
+            vectorOffsets = Arrays.copyOf(vectorOffsets, capacity);
+            determinants = Arrays.copyOf(determinants, capacity);
+            singular = Arrays.copyOf(singular, capacity);
+        }
+        if (matrixTotal > matrices.length) {
+            matrices = Arrays.copyOf(matrices, grow(matrices.length, matrixTotal));
+        }
+        if (vectorTotal > vectors.length) {
+            int capacity = grow(vectors.length, vectorTotal);
+            vectors = Arrays.copyOf(vectors, capacity);
+            solutions = Arrays.copyOf(solutions, capacity);
+        }
+    }
+
+    /**
+     * Returns the grown length of an array.
+     *
+     * @param length   the current length.
+     * @param required the required length.
+     * @return the new length, at least the required one.
+     */
+    private static int grow(int length, int required) {
+        return Math.min(Integer.MAX_VALUE - 8, Math.max(required, length + (length >> 1)));
+    }
+
+    /**
+     * Removes all systems, keeping the arrays for the next ones.
+     */
+    public void clear() {
+        count = 0;
+        maxDimension = 0;
+        matrixSize = 0;
+        vectorSize = 0;
+    }
+
+    /**
+     * Returns the number of systems.
+     *
+     * @return the number of systems.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the largest dimension of a system.
+     *
+     * @return the largest dimension, 0 if the batch is empty.
+     */
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * Returns the dimension of a system.
+     *
+     * @param index the index of the system.
+     * @return the dimension n.
+     * @throws OutOfRangeException if the index is out of range.
+     */
+    public int getDimension(int index) {
+        checkIndex(index);
+        return dimensions[index];
+    }
+
+    /**
+     * Copies the solution of a solved system.
+     *
+     * @param index       the index of the system.
+     * @param destination the array receiving the n entries of the solution.
+     * @param offset      the position of the first entry in the array.
+     * @throws OutOfRangeException if the index is out of range.
+     */
+    public void getSolution(int index, double[] destination, int offset) {
+        checkIndex(index);
+        System.arraycopy(solutions, vectorOffsets[index], destination, offset, dimensions[index]);
+    }
+
+    /**
+     * Returns the solution of a solved system.
+     *
+     * @param index the index of the system.
+     * @return a copy of the solution, NaN entries if the matrix is singular.
+     * @throws OutOfRangeException if the index is out of range.
+     */
+    public double[] getSolution(int index) {
+        double[] solution = new double[getDimension(index)];
+        getSolution(index, solution, 0);
+        return solution;
+    }
+
+    /**
+     * Returns the determinant of the matrix of a solved system.
+     *
+     * @param index the index of the system.
+     * @return the determinant, 0 if the matrix is singular.
+     * @throws OutOfRangeException if the index is out of range.
+     */
+    public double getDeterminant(int index) {
+        checkIndex(index);
+        return determinants[index];
+    }
+
+    /**
+     * Checks if the matrix of a solved system is singular.
+     *
+     * @param index the index of the system.
+     * @return true if a pivot was below {@link PackedLUFactorization#SINGULARITY_THRESHOLD}.
+     * @throws OutOfRangeException if the index is out of range.
+     */
+    public boolean isSingular(int index) {
+        checkIndex(index);
+        return singular[index];
+    }
+
+    /**
+     * Checks the index of a system.
+     *
+     * @param index the index.
+     * @throws OutOfRangeException if the index is out of range.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new OutOfRangeException(index, 0, count - 1);
+        }
+    }
+
+    /**
+     * Solves the systems {@code [from, to)} with the scratch array of the calling thread.
+     * <br>Every matrix is copied to the scratch array and eliminated with partial pivoting while the same row
+     * operations are applied to the solution, then the solution is found by back substitution. Nothing is allocated.
+     * <br>The rows are too short for {@link Kernels}; the plain loops are compiled to the fastest code for them.
+     *
+     * @param from    the first system.
+     * @param to      the end of the systems.
+     * @param scratch the scratch array of at least {@code maxDimension²} entries.
+     * @return the number of singular matrices in the range.
+     */
+    int solve(int from, int to, double[] scratch) {
+        int singularCount = 0;
+        for (int s = from; s < to; s++) {
+            int n = dimensions[s];
+            int x = vectorOffsets[s];
+            System.arraycopy(matrices, matrixOffsets[s], scratch, 0, n * n);
+            System.arraycopy(vectors, x, solutions, x, n);
+            double determinant = eliminate(n, scratch, solutions, x);
+            boolean isSingular = Double.isNaN(determinant);
+            determinants[s] = isSingular ? 0.0 : determinant;
+            singular[s] = isSingular;
+            if (isSingular) {
+                Arrays.fill(solutions, x, x + n, Double.NaN);
+                singularCount++;
+            }
+        }
+        return singularCount;
+    }
+
+    /**
+     * Solves one system in place: Gaussian elimination with partial pivoting of the matrix and the right-hand side,
+     * then back substitution.
+     *
+     * @param n      the dimension.
+     * @param lu     the matrix in row-major order, overwritten by its factor U.
+     * @param x      the array of the right-hand side, overwritten by the solution.
+     * @param offset the start of the right-hand side in the array.
+     * @return the determinant, NaN if a pivot was below {@link PackedLUFactorization#SINGULARITY_THRESHOLD}.
+     */
+    private static double eliminate(int n, double[] lu, double[] x, int offset) {
+        double determinant = 1.0;
+        for (int k = 0; k < n; k++) {
+            int p = k;
+            double largest = Math.abs(lu[k * n + k]);
+            for (int i = k + 1; i < n; i++) {
+                double value = Math.abs(lu[i * n + k]);
+                if (value > largest) {
+                    largest = value;
+                    p = i;
+                }
+            }
+            if (!(largest >= PackedLUFactorization.SINGULARITY_THRESHOLD)) {
+                return Double.NaN;
+            }
+            int row = k * n;
+            if (p != k) {
+                int other = p * n;
+                for (int j = k; j < n; j++) {
+                    double t = lu[row + j];
+                    lu[row + j] = lu[other + j];
+                    lu[other + j] = t;
+                }
+                double t = x[offset + k];
+                x[offset + k] = x[offset + p];
+                x[offset + p] = t;
+                determinant = -determinant;
+            }
+            double pivot = lu[row + k];
+            determinant *= pivot;
+            double xk = x[offset + k];
+            for (int i = k + 1; i < n; i++) {
+                int target = i * n;
+                double m = lu[target + k] / pivot;
+                if (m != 0.0) {
+                    for (int j = k + 1; j < n; j++) {
+                        lu[target + j] -= m * lu[row + j];
+                    }
+                    x[offset + i] -= m * xk;
+                }
+            }
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            int row = i * n;
+            double sum = x[offset + i];
+            for (int j = i + 1; j < n; j++) {
+                sum -= lu[row + j] * x[offset + j];
+            }
+            x[offset + i] = sum / lu[row + i];
+        }
+        return determinant;
+    }
+
+    /**
+     * Returns the number of floating-point operations of solving the systems {@code [from, to)}: 2/3 n³ for the
+     * elimination and 2 n² for the substitutions of every system.
+     *
+     * @param from the first system.
+     * @param to   the end of the systems.
+     * @return the number of operations.
+     */
+    double flops(int from, int to) {
+        double flops = 0.0;
+        for (int s = from; s < to; s++) {
+            double n = dimensions[s];
+            flops += 2.0 / 3.0 * n * n * n + 2.0 * n * n;
+        }
+        return flops;
+    }
+}
@@ -0,0 +1,176 @@
+package assignment.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Solves many small independent systems for throughput, e.g. millions of systems with n = 4 to 64.
+ * <br>The systems of a {@link SystemBatch} are split in halves by fork/join tasks down to ranges of about
+ * {@link ThroughputEngine#LEAF_WORK} multiply-adds, so idle threads steal the unsolved halves of the busy ones. Every
+ * thread eliminates the matrices of its ranges in its own scratch array, kept between the batches, so in steady state
+ * nothing is allocated per system: no {@link LinearEquation}, no factorization object and no copy of the results.
+ * <br>The engine is thread-safe, several batches may be solved at the same time.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SystemBatch
+ */
+public class ThroughputEngine {
+
+    /**
+     * The number of multiply-adds of the systems solved by one task without splitting, about a millisecond of work,
+     * so the tasks cost nothing per system even for n = 64.
+     */
+    static final double LEAF_WORK = 1 << 20;
+
+    /**
+     * The scratch memory of every thread, kept between the batches.
+     */
+    private static final ThreadLocal<Workspace> WORKSPACES = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * The pool running the tasks.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates the engine running on one thread per processor.
+     */
+    public ThroughputEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates the engine running on the given number of threads.
+     *
+     * @param parallelism the number of threads.
+     * @throws IllegalArgumentException if the number of threads is not positive.
+     */
+    public ThroughputEngine(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.pool = BlockedLUFactorization.pool(parallelism);
+    }
+
+    /**
+     * Solves every system of the batch.
+     * <br>The solutions, determinants and singularity flags are written to the batch; a singular matrix gets NaN
+     * solutions. The run is measured as a {@link ComputationStage#SOLVE} stage by {@link SolverMetrics}.
+     *
+     * @param batch the systems.
+     * @return the number of systems, the singular ones and the time.
+     */
+    public ThroughputStatistics solve(SystemBatch batch) {
+        int count = batch.getCount();
+        int maxDimension = batch.getMaxDimension();
+        long start = System.nanoTime();
+        int singular = 0;
+        try (SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.SOLVE, maxDimension)) {
+            if (count > 0) {
+                double n = maxDimension;
+                int leaf = (int) Math.max(1, Math.min(count, LEAF_WORK / (n * n * n / 3.0 + n * n)));
+                singular = count <= leaf
+                        ? solve(batch, 0, count)
+                        : pool.invoke(new RangeTask(batch, 0, count, leaf));
+            }
+            timer.addFlops(batch.flops(0, count));
+        }
+        return new ThroughputStatistics(count, singular, System.nanoTime() - start);
+    }
+
+    /**
+     * Solves a range of systems on the calling thread with its scratch array.
+     *
+     * @param batch the systems.
+     * @param from  the first system.
+     * @param to    the end of the systems.
+     * @return the number of singular matrices in the range.
+     */
+    private static int solve(SystemBatch batch, int from, int to) {
+        int n = batch.getMaxDimension();
+        return batch.solve(from, to, WORKSPACES.get().scratch(n * n));
+    }
+
+    /**
+     * The scratch memory of one thread.
+     */
+    private static final class Workspace {
+
+        /**
+         * The array the matrices are eliminated in.
+         */
+        private double[] matrix = new double[0];
+
+        /**
+         * Returns the scratch array, grown to the given size if it is smaller.
+         *
+         * @param size the number of entries needed.
+         * @return the array of at least the given size.
+         */
+        double[] scratch(int size) {
+            if (matrix.length < size) {
+                matrix = new double[size];
+            }
+            return matrix;
+        }
+    }
+
+    /**
+     * Task solving a range of systems, split in halves while it is larger than a leaf.
+     */
+    private static final class RangeTask extends RecursiveTask<Integer> {
+
+        /**
+         * The serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The systems.
+         */
+        private final SystemBatch batch;
+
+        /**
+         * The first system.
+         */
+        private final int from;
+
+        /**
+         * The end of the systems.
+         */
+        private final int to;
+
+        /**
+         * The largest number of systems solved without splitting.
+         */
+        private final int leaf;
+
+        /**
+         * Creates the task.
+         *
+         * @param batch the systems.
+         * @param from  the first system.
+         * @param to    the end of the systems.
+         * @param leaf  the largest number of systems solved without splitting.
+         */
+        RangeTask(SystemBatch batch, int from, int to, int leaf) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= leaf) {
+                return solve(batch, from, to);
+            }
+            int middle = from + (to - from) / 2;
+            RangeTask right = new RangeTask(batch, middle, to, leaf);
+            right.fork();
+            int left = new RangeTask(batch, from, middle, leaf).compute();
+            return left + right.join();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package assignment.model;
+
+/**
+ * The outcome of one run of {@link ThroughputEngine}: the number of systems, the singular ones and the time.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see ThroughputEngine#solve(SystemBatch)
+ */
+public final class ThroughputStatistics {
+
+    /**
+     * The number of solved systems, including the singular ones.
+     */
+    private final int systems;
+
+    /**
+     * The number of singular matrices.
+     */
+    private final int singular;
+
+    /**
+     * The time of the run in nanoseconds.
+     */
+    private final long nanos;
+
+    /**
+     * Creates the statistics.
+     *
+     * @param systems  the number of systems.
+     * @param singular the number of singular matrices.
+     * @param nanos    the time in nanoseconds.
+     */
+    ThroughputStatistics(int systems, int singular, long nanos) {
+        this.systems = systems;
+        this.singular = singular;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Returns the number of solved systems.
+     *
+     * @return the number of systems, including the singular ones.
+     */
+    public int getSystems() {
+        return systems;
+    }
+
+    /**
+     * Returns the number of singular matrices.
+     *
+     * @return the number of systems without a solution.
+     */
+    public int getSingular() {
+        return singular;
+    }
+
+    /**
+     * Returns the time of the run.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns the throughput of the run.
+     *
+     * @return the systems per second, 0 if no time was measured.
+     */
+    public double getSystemsPerSecond() {
+        return nanos > 0 ? systems * 1e9 / nanos : 0.0;
+    }
+}
@@ -0,0 +1,211 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+/**
+ * Factorization of a lower or upper triangular matrix, which is solved by direct substitution.
+ * <br>An upper triangular matrix A has the factors L = I and U = A. A lower triangular matrix is split into the unit
+ * lower triangular L = A × D<sup>-1</sup> and the diagonal U = D. P is always the identity.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SolverPath#TRIANGULAR
+ */
+public class TriangularFactorization extends AbstractFactorization {
+
+    /**
+     * A copy of the matrix in row-major order.
+     */
+    private final double[] a;
+
+    /**
+     * True if the matrix is lower triangular, false if it is upper triangular.
+     */
+    private final boolean lower;
+
+    /**
+     * True if a diagonal entry is smaller than {@link PackedLUFactorization#SINGULARITY_THRESHOLD}.
+     */
+    private final boolean singular;
+
+    /**
+     * Creates the factorization of the given triangular matrix.
+     * <br>A matrix with entries above the diagonal is treated as upper triangular, its lower part must be zero.
+     *
+     * @param matrix the triangular matrix, it is not modified.
+     */
+    public TriangularFactorization(FlatRealMatrix matrix) {
+        super(matrix.getRowDimension());
+        this.a = matrix.getDataRef().clone();
+        boolean upperEntries = false;
+        boolean small = false;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n && !upperEntries; j++) {
+                upperEntries = a[i * n + j] != 0.0;
+            }
+            small |= Math.abs(a[i * n + i]) < PackedLUFactorization.SINGULARITY_THRESHOLD;
+        }
+        this.lower = !upperEntries;
+        this.singular = small;
+    }
+
+    @Override
+    public SolverPath getPath() {
+        return SolverPath.TRIANGULAR;
+    }
+
+    @Override
+    public RealMatrix getL() {
+        if (singular) {
+            return null;
+        }
+        FlatRealMatrix l = new FlatRealMatrix(n, n);
+        double[] data = l.getDataRef();
+        for (int i = 0; i < n; i++) {
+            if (lower) {
+                for (int j = 0; j < i; j++) {
+                    data[i * n + j] = a[i * n + j] / a[j * n + j];
+                }
+            }
+            data[i * n + i] = 1.0;
+        }
+        return l;
+    }
+
+    @Override
+    public RealMatrix getU() {
+        if (singular) {
+            return null;
+        }
+        FlatRealMatrix u = new FlatRealMatrix(n, n);
+        double[] data = u.getDataRef();
+        for (int i = 0; i < n; i++) {
+            if (lower) {
+                data[i * n + i] = a[i * n + i];
+            } else {
+                System.arraycopy(a, i * n + i, data, i * n + i, n - i);
+            }
+        }
+        return u;
+    }
+
+    @Override
+    public RealMatrix getP() {
+        return singular ? null : permutationMatrix(identityPivot(n));
+    }
+
+    @Override
+    public int[] getPivot() {
+        return identityPivot(n);
+    }
+
+    @Override
+    public double getDeterminant() {
+        return getLogDeterminant().getValue();
+    }
+
+    @Override
+    public Determinant getLogDeterminant() {
+        if (singular) {
+            return Determinant.ZERO;
+        }
+        Determinant.Product product = new Determinant.Product(1);
+        for (int i = 0; i < n; i++) {
+            product.multiply(a[i * n + i]);
+        }
+        return product.toDeterminant();
+    }
+
+    @Override
+    public boolean isSingular() {
+        return singular;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        checkSolvable(b);
+        double[] x = new double[n];
+        if (lower) {
+            for (int i = 0; i < n; i++) {
+                int row = i * n;
+                x[i] = (b[i] - Kernels.INSTANCE.dot(a, row, x, 0, i)) / a[row + i];
+            }
+        } else {
+            for (int i = n - 1; i >= 0; i--) {
+                int row = i * n;
+                x[i] = (b[i] - Kernels.INSTANCE.dot(a, row + i + 1, x, i + 1, n - i - 1)) / a[row + i];
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Solves A<sup>T</sup> × x = b by the substitution in the opposite direction, subtracting whole rows of A.
+     */
+    @Override
+    public double[] solveTransposed(double[] b) {
+        checkSolvable(b);
+        double[] x = b.clone();
+        if (lower) {
+            for (int i = n - 1; i >= 0; i--) {
+                int row = i * n;
+                double xi = x[i] / a[row + i];
+                x[i] = xi;
+                if (xi != 0.0) {
+                    Kernels.INSTANCE.subtractScaled(xi, a, row, x, 0, i);
+                }
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                int row = i * n;
+                double xi = x[i] / a[row + i];
+                x[i] = xi;
+                if (xi != 0.0) {
+                    Kernels.INSTANCE.subtractScaled(xi, a, row + i + 1, x, i + 1, n - i - 1);
+                }
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Solves the linear equation A × X = B for several right-hand sides, updating whole rows of B at once.
+     *
+     * @param b       the right-hand sides in row-major order.
+     * @param columns the number of right-hand sides k.
+     * @return the solutions in row-major order.
+     */
+    @Override
+    public double[] solve(double[] b, int columns) {
+        if (columns < 1 || b.length != n * columns) {
+            throw new DimensionMismatchException(b.length, n * Math.max(columns, 1));
+        }
+        if (singular) {
+            throw new SingularMatrixException();
+        }
+        double[] x = b.clone();
+        for (int s = 0; s < n; s++) {
+            int i = lower ? s : n - 1 - s;
+            int row = i * n;
+            int xi = i * columns;
+            int from = lower ? 0 : i + 1;
+            int to = lower ? i : n;
+            for (int j = from; j < to; j++) {
+                double factor = a[row + j];
+                if (factor != 0.0) {
+                    int xj = j * columns;
+                    for (int c = 0; c < columns; c++) {
+                        x[xi + c] -= factor * x[xj + c];
+                    }
+                }
+            }
+            double inverse = 1.0 / a[row + i];
+            for (int c = 0; c < columns; c++) {
+                x[xi + c] *= inverse;
+            }
+        }
+        return x;
+    }
+}
@@ -0,0 +1,353 @@
+package assignment.model;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * Factorization of a matrix A = A<sub>0</sub> + U × V<sup>T</sup> which differs from an already factorized matrix
+ * A<sub>0</sub> by the low-rank update U × V<sup>T</sup>, e.g. a changed row, column or entry.
+ * <br>The solutions are computed by the Sherman-Morrison-Woodbury formula
+ * A<sup>-1</sup> = A<sub>0</sub><sup>-1</sup> - Z × C<sup>-1</sup> × V<sup>T</sup> × A<sub>0</sub><sup>-1</sup> with
+ * Z = A<sub>0</sub><sup>-1</sup> × U and the k × k capacitance matrix C = I + V<sup>T</sup> × Z, and the determinant
+ * as det(A<sub>0</sub>) × det(C). A rank-1 update costs one solve with the factors of A<sub>0</sub>, O(n²); a solve
+ * costs O(n² + n × k) instead of the O(n³) refactorization.
+ * <br>The formula loses accuracy when C is ill-conditioned and the solves get slower with every update, so
+ * {@link UpdatedFactorization#isRefactorizationDue()} tells when the updated matrix should be factorized from scratch.
+ * <br>L, U and P are not available from the formula; they are computed from the updated matrix on the first request.
+ * <br>Instances are immutable: {@link UpdatedFactorization#update(FlatRealMatrix, double[], double[])} returns a new
+ * factorization sharing the work of the previous updates.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see LinearEquation#updateEntry(int, int, double)
+ */
+public class UpdatedFactorization extends AbstractFactorization {
+
+    /**
+     * The smallest ratio of the smallest to the largest pivot of the capacitance matrix before the updated matrix is
+     * factorized from scratch.
+     */
+    public static final double STABILITY_THRESHOLD = 1e-8;
+
+    /**
+     * The rank of the update is limited to n / RANK_DIVISOR: the updates then cost less than half of the
+     * refactorization and a solve at most a quarter more than without updates.
+     */
+    public static final int RANK_DIVISOR = 8;
+
+    /**
+     * The factorization of the matrix before the updates.
+     */
+    private final Factorization base;
+
+    /**
+     * The updated matrix.
+     */
+    private final FlatRealMatrix matrix;
+
+    /**
+     * The options of the factorization of the updated matrix.
+     */
+    private final SolverOptions options;
+
+    /**
+     * The columns of Z = A<sub>0</sub><sup>-1</sup> × U.
+     */
+    private final double[][] z;
+
+    /**
+     * The columns of V.
+     */
+    private final double[][] v;
+
+    /**
+     * The capacitance matrix C = I + V<sup>T</sup> × Z in row-major order.
+     */
+    private final double[] capacitance;
+
+    /**
+     * The factorization of the capacitance matrix or {@code null} without updates.
+     */
+    private final PackedLUFactorization capacitanceFactors;
+
+    /**
+     * The factorization of the updated matrix, computed on the first request of L, U or P.
+     */
+    private volatile Factorization exact;
+
+    /**
+     * Creates the factorization of an updated matrix.
+     *
+     * @param base        the factorization of the matrix before the updates.
+     * @param matrix      the updated matrix.
+     * @param options     the options of the factorization of the updated matrix.
+     * @param z           the columns of Z.
+     * @param v           the columns of V.
+     * @param capacitance the capacitance matrix.
+     */
+    private UpdatedFactorization(Factorization base, FlatRealMatrix matrix, SolverOptions options, double[][] z,
+                                 double[][] v, double[] capacitance) {
+        super(base.getDimension());
+        this.base = base;
+        this.matrix = matrix;
+        this.options = options;
+        this.z = z;
+        this.v = v;
+        this.capacitance = capacitance;
+        this.capacitanceFactors = z.length == 0
+                ? null : new BlockedLUFactorization(new FlatRealMatrix(z.length, z.length, capacitance.clone()));
+    }
+
+    /**
+     * Starts the updates of a factorized matrix.
+     * <br>The returned factorization has rank 0 and solves like the given one.
+     *
+     * @param base    the factorization of the matrix.
+     * @param matrix  the factorized matrix.
+     * @param options the options of the factorization of the updated matrix.
+     * @return the factorization without updates.
+     * @throws DimensionMismatchException if the matrix dimension does not match the factorization.
+     */
+    public static UpdatedFactorization of(Factorization base, FlatRealMatrix matrix, SolverOptions options) {
+        if (matrix.getRowDimension() != base.getDimension()) {
+            throw new DimensionMismatchException(matrix.getRowDimension(), base.getDimension());
+        }
+        return new UpdatedFactorization(base, matrix, options, new double[0][], new double[0][], new double[0]);
+    }
+
+    /**
+     * Adds the rank-1 update u × v<sup>T</sup>.
+     * <br>The cost is one solve with the factors of A<sub>0</sub> and O(n × k + k³) for the capacitance matrix.
+     *
+     * @param updated the matrix after the update, A + u × v<sup>T</sup>.
+     * @param u       the column vector of the update.
+     * @param v       the row vector of the update.
+     * @return the factorization of the updated matrix.
+     * @throws SingularMatrixException    if A<sub>0</sub> is singular.
+     * @throws DimensionMismatchException if a vector dimension does not match.
+     */
+    public UpdatedFactorization update(FlatRealMatrix updated, double[] u, double[] v) {
+        if (v.length != n) {
+            throw new DimensionMismatchException(v.length, n);
+        }
+        double[] zk = base.solve(u);
+        int k = z.length;
+        double[][] zs = Arrays.copyOf(z, k + 1);
+        double[][] vs = Arrays.copyOf(this.v, k + 1);
+        zs[k] = zk;
+        vs[k] = v.clone();
+        int size = k + 1;
+        double[] c = new double[size * size];
+        for (int i = 0; i < k; i++) {
+            System.arraycopy(capacitance, i * k, c, i * size, k);
+            c[i * size + k] = Kernels.INSTANCE.dot(vs[i], 0, zk, 0, n);
+            c[k * size + i] = Kernels.INSTANCE.dot(v, 0, zs[i], 0, n);
+        }
+        c[k * size + k] = 1.0 + Kernels.INSTANCE.dot(v, 0, zk, 0, n);
+        return new UpdatedFactorization(base, updated, options, zs, vs, c);
+    }
+
+    /**
+     * Returns the rank k of the accumulated update.
+     *
+     * @return the number of rank-1 updates since the last factorization.
+     */
+    public int getRank() {
+        return z.length;
+    }
+
+    /**
+     * Returns the updated matrix.
+     *
+     * @return the matrix, it must not be modified.
+     */
+    public FlatRealMatrix getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * Checks if the updated matrix should be factorized from scratch: if A<sub>0</sub> or the capacitance matrix is
+     * singular, if the ratio of the pivots of the capacitance matrix is below
+     * {@link UpdatedFactorization#STABILITY_THRESHOLD} or if the rank exceeds n / {@link UpdatedFactorization#RANK_DIVISOR}.
+     *
+     * @return true if the updated matrix should be factorized again.
+     */
+    public boolean isRefactorizationDue() {
+        if (base.isSingular()) {
+            return true;
+        }
+        if (capacitanceFactors == null) {
+            return false;
+        }
+        if (capacitanceFactors.isSingular() || z.length > n / RANK_DIVISOR) {
+            return true;
+        }
+        int k = z.length;
+        double min = Double.POSITIVE_INFINITY;
+        double max = 0.0;
+        for (int i = 0; i < k; i++) {
+            double pivot = Math.abs(capacitanceFactors.lu[i * k + i]);
+            min = Math.min(min, pivot);
+            max = Math.max(max, pivot);
+        }
+        return min < STABILITY_THRESHOLD * max;
+    }
+
+    /**
+     * Returns the factorization of the updated matrix, computing it on the first call.
+     *
+     * @return the factorization on the path selected by the structure of the updated matrix.
+     */
+    private Factorization getExact() {
+        Factorization factorization = exact;
+        if (factorization == null) {
+            synchronized (this) {
+                factorization = exact;
+                if (factorization == null) {
+                    factorization = z.length == 0 ? base : SolverPath.factorizeDetected(matrix, options);
+                    exact = factorization;
+                }
+            }
+        }
+        return factorization;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        checkSolvable(b);
+        double[] x = base.solve(b);
+        int k = z.length;
+        if (k > 0) {
+            double[] w = new double[k];
+            for (int j = 0; j < k; j++) {
+                w[j] = Kernels.INSTANCE.dot(v[j], 0, x, 0, n);
+            }
+            double[] t = capacitanceFactors.solve(w);
+            for (int j = 0; j < k; j++) {
+                Kernels.INSTANCE.subtractScaled(t[j], z[j], 0, x, 0, n);
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Solves all right-hand sides with the factors of A<sub>0</sub> at once and corrects them together.
+     */
+    @Override
+    public double[] solve(double[] b, int columns) {
+        if (columns < 1 || b.length != n * columns) {
+            throw new DimensionMismatchException(b.length, n * Math.max(columns, 1));
+        }
+        if (isSingular()) {
+            throw new SingularMatrixException();
+        }
+        double[] x = base.solve(b, columns);
+        int k = z.length;
+        if (k > 0) {
+            double[] w = new double[k * columns];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < k; j++) {
+                    Kernels.INSTANCE.subtractScaled(-v[j][i], x, i * columns, w, j * columns, columns);
+                }
+            }
+            double[] t = capacitanceFactors.solve(w, columns);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < k; j++) {
+                    Kernels.INSTANCE.subtractScaled(z[j][i], t, j * columns, x, i * columns, columns);
+                }
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Solves A<sup>T</sup> × x = b by the transposed formula
+     * A<sup>-T</sup> = A<sub>0</sub><sup>-T</sup> × (I - V × C<sup>-T</sup> × Z<sup>T</sup>), with one transposed solve
+     * with the factors of A<sub>0</sub>.
+     */
+    @Override
+    public double[] solveTransposed(double[] b) {
+        checkSolvable(b);
+        int k = z.length;
+        if (k == 0) {
+            return base.solveTransposed(b);
+        }
+        double[] w = new double[k];
+        for (int j = 0; j < k; j++) {
+            w[j] = Kernels.INSTANCE.dot(z[j], 0, b, 0, n);
+        }
+        double[] t = capacitanceFactors.solveTransposed(w);
+        double[] r = b.clone();
+        for (int j = 0; j < k; j++) {
+            Kernels.INSTANCE.subtractScaled(t[j], v[j], 0, r, 0, n);
+        }
+        return base.solveTransposed(r);
+    }
+
+    /**
+     * Returns the path of the factorization of A<sub>0</sub>.
+     *
+     * @return the path of the updated factors.
+     */
+    @Override
+    public SolverPath getPath() {
+        return base.getPath();
+    }
+
+    @Override
+    public RealMatrix getL() {
+        return getExact().getL();
+    }
+
+    @Override
+    public RealMatrix getU() {
+        return getExact().getU();
+    }
+
+    @Override
+    public RealMatrix getP() {
+        return getExact().getP();
+    }
+
+    @Override
+    public int[] getPivot() {
+        return getExact().getPivot();
+    }
+
+    @Override
+    public RealMatrix getQ() {
+        return getExact().getQ();
+    }
+
+    @Override
+    public int[] getColumnPermutation() {
+        return getExact().getColumnPermutation();
+    }
+
+    /**
+     * Returns det(A<sub>0</sub>) × det(C) without a factorization of the updated matrix.
+     *
+     * @return the determinant or 0 if the updated matrix is singular.
+     */
+    @Override
+    public double getDeterminant() {
+        return getLogDeterminant().getValue();
+    }
+
+    @Override
+    public Determinant getLogDeterminant() {
+        if (isSingular()) {
+            return Determinant.ZERO;
+        }
+        Determinant determinant = base.getLogDeterminant();
+        return capacitanceFactors == null ? determinant : determinant.multiply(capacitanceFactors.getLogDeterminant());
+    }
+
+    @Override
+    public boolean isSingular() {
+        return base.isSingular() || capacitanceFactors != null && capacitanceFactors.isSingular();
+    }
+}
@@ -0,0 +1,170 @@
+package assignment.model;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The kernels on the Vector API with the widest vectors of the processor, e.g. four {@code double} values with AVX2
+ * and eight with AVX-512.
+ * <br>The JIT compiler does not vectorize the scalar loops by itself when the updated and the read rows lie in the
+ * same array, which is the case in the in-place factorizations; the explicit vector loads and stores do not depend on
+ * that analysis. The products are fused multiply-adds, so the results may differ from the scalar loops in the last
+ * bit.
+ * <br>The class is only loaded by {@link Kernels} when the module {@code jdk.incubator.vector} is present.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see ScalarKernels
+ */
+final class VectorKernels extends Kernels {
+
+    /**
+     * The preferred vector shape of the processor.
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * The number of values per vector.
+     */
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    String getName() {
+        return "Vector API";
+    }
+
+    @Override
+    int getLanes() {
+        return LANES;
+    }
+
+    /**
+     * Subtracts A × B from C, two rows of C and four inner indices per pass: every vector of C is loaded and stored
+     * once per four fused multiply-adds with the broadcast entries of A. A last odd row is updated alone, also four
+     * inner indices per pass.
+     */
+    @Override
+    void multiplySubtract(double[] c, int cOffset, int ldc, double[] a, int aOffset, int lda,
+                          double[] b, int bOffset, int ldb, int rows, int columns, int inner) {
+        int bound = SPECIES.loopBound(columns);
+        int i = 0;
+        for (; i + 1 < rows; i += 2) {
+            int row0 = cOffset + i * ldc;
+            int row1 = row0 + ldc;
+            int a0 = aOffset + i * lda;
+            int a1 = a0 + lda;
+            int k = 0;
+            for (; k + 3 < inner; k += 4) {
+                double l00 = a[a0 + k];
+                double l01 = a[a0 + k + 1];
+                double l02 = a[a0 + k + 2];
+                double l03 = a[a0 + k + 3];
+                double l10 = a[a1 + k];
+                double l11 = a[a1 + k + 1];
+                double l12 = a[a1 + k + 2];
+                double l13 = a[a1 + k + 3];
+                DoubleVector n00 = DoubleVector.broadcast(SPECIES, -l00);
+                DoubleVector n01 = DoubleVector.broadcast(SPECIES, -l01);
+                DoubleVector n02 = DoubleVector.broadcast(SPECIES, -l02);
+                DoubleVector n03 = DoubleVector.broadcast(SPECIES, -l03);
+                DoubleVector n10 = DoubleVector.broadcast(SPECIES, -l10);
+                DoubleVector n11 = DoubleVector.broadcast(SPECIES, -l11);
+                DoubleVector n12 = DoubleVector.broadcast(SPECIES, -l12);
+                DoubleVector n13 = DoubleVector.broadcast(SPECIES, -l13);
+                int u0 = bOffset + k * ldb;
+                int u1 = u0 + ldb;
+                int u2 = u1 + ldb;
+                int u3 = u2 + ldb;
+                int j = 0;
+                for (; j < bound; j += LANES) {
+                    DoubleVector b0 = DoubleVector.fromArray(SPECIES, b, u0 + j);
+                    DoubleVector b1 = DoubleVector.fromArray(SPECIES, b, u1 + j);
+                    DoubleVector b2 = DoubleVector.fromArray(SPECIES, b, u2 + j);
+                    DoubleVector b3 = DoubleVector.fromArray(SPECIES, b, u3 + j);
+                    DoubleVector c0 = DoubleVector.fromArray(SPECIES, c, row0 + j);
+                    DoubleVector c1 = DoubleVector.fromArray(SPECIES, c, row1 + j);
+                    b0.fma(n00, b1.fma(n01, b2.fma(n02, b3.fma(n03, c0)))).intoArray(c, row0 + j);
+                    b0.fma(n10, b1.fma(n11, b2.fma(n12, b3.fma(n13, c1)))).intoArray(c, row1 + j);
+                }
+                for (; j < columns; j++) {
+                    double b0 = b[u0 + j];
+                    double b1 = b[u1 + j];
+                    double b2 = b[u2 + j];
+                    double b3 = b[u3 + j];
+                    c[row0 + j] -= l00 * b0 + l01 * b1 + l02 * b2 + l03 * b3;
+                    c[row1 + j] -= l10 * b0 + l11 * b1 + l12 * b2 + l13 * b3;
+                }
+            }
+            for (; k < inner; k++) {
+                subtractScaled(a[a0 + k], b, bOffset + k * ldb, c, row0, columns);
+                subtractScaled(a[a1 + k], b, bOffset + k * ldb, c, row1, columns);
+            }
+        }
+        if (i < rows) {
+            int row = cOffset + i * ldc;
+            int a0 = aOffset + i * lda;
+            int k = 0;
+            for (; k + 3 < inner; k += 4) {
+                double l0 = a[a0 + k];
+                double l1 = a[a0 + k + 1];
+                double l2 = a[a0 + k + 2];
+                double l3 = a[a0 + k + 3];
+                DoubleVector n0 = DoubleVector.broadcast(SPECIES, -l0);
+                DoubleVector n1 = DoubleVector.broadcast(SPECIES, -l1);
+                DoubleVector n2 = DoubleVector.broadcast(SPECIES, -l2);
+                DoubleVector n3 = DoubleVector.broadcast(SPECIES, -l3);
+                int u0 = bOffset + k * ldb;
+                int u1 = u0 + ldb;
+                int u2 = u1 + ldb;
+                int u3 = u2 + ldb;
+                int j = 0;
+                for (; j < bound; j += LANES) {
+                    DoubleVector b0 = DoubleVector.fromArray(SPECIES, b, u0 + j);
+                    DoubleVector b1 = DoubleVector.fromArray(SPECIES, b, u1 + j);
+                    DoubleVector b2 = DoubleVector.fromArray(SPECIES, b, u2 + j);
+                    DoubleVector b3 = DoubleVector.fromArray(SPECIES, b, u3 + j);
+                    DoubleVector c0 = DoubleVector.fromArray(SPECIES, c, row + j);
+                    b0.fma(n0, b1.fma(n1, b2.fma(n2, b3.fma(n3, c0)))).intoArray(c, row + j);
+                }
+                for (; j < columns; j++) {
+                    c[row + j] -= l0 * b[u0 + j] + l1 * b[u1 + j] + l2 * b[u2 + j] + l3 * b[u3 + j];
+                }
+            }
+            for (; k < inner; k++) {
+                subtractScaled(a[a0 + k], b, bOffset + k * ldb, c, row, columns);
+            }
+        }
+    }
+
+    @Override
+    void subtractScaled(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        DoubleVector negative = DoubleVector.broadcast(SPECIES, -alpha);
+        int bound = SPECIES.loopBound(length);
+        int j = 0;
+        for (; j < bound; j += LANES) {
+            DoubleVector.fromArray(SPECIES, x, xOffset + j)
+                    .fma(negative, DoubleVector.fromArray(SPECIES, y, yOffset + j))
+                    .intoArray(y, yOffset + j);
+        }
+        for (; j < length; j++) {
+            y[yOffset + j] -= alpha * x[xOffset + j];
+        }
+    }
+
+    @Override
+    double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int j = 0;
+        for (; j < bound; j += LANES) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, a, aOffset + j);
+            sum = x.fma(DoubleVector.fromArray(SPECIES, b, bOffset + j), sum);
+        }
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; j < length; j++) {
+            result += a[aOffset + j] * b[bOffset + j];
+        }
+        return result;
+    }
+}
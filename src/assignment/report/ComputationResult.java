@@ -0,0 +1,401 @@
+package assignment.report;
+
+import assignment.exception.LinearEquationException;
+import assignment.exception.MatrixException;
+import assignment.model.LinearEquation;
+import assignment.model.RefinedSolution;
+import assignment.model.SolverPath;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.util.Locale;
+
+/**
+ * The results of solving a linear equation or inverting a matrix: the matrices and vectors shown to the user.
+ * <br>For a singular matrix, or one singular to working precision by its estimated condition number, only the input
+ * is kept. The results are turned into text by
+ * {@link ComputationResult#toReport()} and stored in binary form by {@link ResultFile}.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+public final class ComputationResult {
+
+    /**
+     * The kinds of computation.
+     */
+    public enum Kind {
+
+        /**
+         * The LU-decomposition and the solution of A × x = b.
+         */
+        SOLUTION,
+
+        /**
+         * The LU-decomposition and the inverse of A.
+         */
+        INVERSE
+    }
+
+    /**
+     * The kind of computation.
+     */
+    private final Kind kind;
+
+    /**
+     * The decomposition used or {@code null} if the matrix is singular.
+     */
+    private final SolverPath path;
+
+    /**
+     * The matrix A.
+     */
+    private final RealMatrix matrix;
+
+    /**
+     * The vector b or {@code null} for an inverse.
+     */
+    private final RealVector vector;
+
+    /**
+     * The factor L or {@code null} if the matrix is singular.
+     */
+    private final RealMatrix lower;
+
+    /**
+     * The factor U or {@code null} if the matrix is singular.
+     */
+    private final RealMatrix upper;
+
+    /**
+     * The column order of L × U = P × A × Q or {@code null} if the columns are not ordered.
+     */
+    private final int[] columnPermutation;
+
+    /**
+     * The solution or {@code null} if it was not computed.
+     */
+    private final RealVector solution;
+
+    /**
+     * The inverse or {@code null} if it was not computed.
+     */
+    private final RealMatrix inverse;
+
+    /**
+     * The determinant of the matrix.
+     */
+    private final double determinant;
+
+    /**
+     * The infinity norm of the residual b - A × x or NaN if no solution was computed.
+     */
+    private final double residualNorm;
+
+    /**
+     * The number of refinement steps of the solution.
+     */
+    private final int iterations;
+
+    /**
+     * The estimated reciprocal condition number of the matrix or NaN if it was not estimated.
+     */
+    private final double reciprocalCondition;
+
+    /**
+     * Creates the results.
+     *
+     * @param kind                the kind of computation.
+     * @param path                the decomposition used or {@code null} if the matrix is singular.
+     * @param matrix              the matrix A.
+     * @param vector              the vector b or {@code null}.
+     * @param lower               the factor L or {@code null}.
+     * @param upper               the factor U or {@code null}.
+     * @param columnPermutation   the column order of the factors or {@code null} for the identity.
+     * @param solution            the solution or {@code null}.
+     * @param inverse             the inverse or {@code null}.
+     * @param determinant         the determinant.
+     * @param residualNorm        the infinity norm of the residual or NaN.
+     * @param iterations          the number of refinement steps.
+     * @param reciprocalCondition the estimated reciprocal condition number or NaN.
+     */
+    ComputationResult(Kind kind, SolverPath path, RealMatrix matrix, RealVector vector, RealMatrix lower,
+                      RealMatrix upper, int[] columnPermutation, RealVector solution, RealMatrix inverse,
+                      double determinant, double residualNorm, int iterations, double reciprocalCondition) {
+        this.kind = kind;
+        this.path = path;
+        this.matrix = matrix;
+        this.vector = vector;
+        this.lower = lower;
+        this.upper = upper;
+        this.columnPermutation = columnPermutation;
+        this.solution = solution;
+        this.inverse = inverse;
+        this.determinant = determinant;
+        this.residualNorm = residualNorm;
+        this.iterations = iterations;
+        this.reciprocalCondition = reciprocalCondition;
+    }
+
+    /**
+     * Solves the linear equation, refining the solution until its residual is as small as the one of a backward
+     * stable solve.
+     * <br>A matrix singular to working precision is rejected by its estimated condition number before the solve.
+     *
+     * @param linearEquation the decomposed linear equation with a vector.
+     * @return the results, only the input if the matrix is singular.
+     * @throws LinearEquationException if the solution can not be computed.
+     */
+    public static ComputationResult solve(LinearEquation linearEquation) throws LinearEquationException {
+        if (linearEquation.isNearlySingular()) {
+            return new ComputationResult(Kind.SOLUTION, null, linearEquation.getMatrix(), linearEquation.getVector(),
+                    null, null, null, null, null, 0, Double.NaN, 0, reciprocalCondition(linearEquation));
+        }
+        RefinedSolution solution = linearEquation.getRefinedSolution();
+        return new ComputationResult(Kind.SOLUTION, linearEquation.getSolverPath(), linearEquation.getMatrix(),
+                linearEquation.getVector(), linearEquation.getLowerMatrix(), linearEquation.getUpperMatrix(),
+                columnPermutation(linearEquation), new ArrayRealVector(solution.getSolution(), false), null,
+                linearEquation.getDeterminant(), solution.getResidualNorm(), solution.getIterations(),
+                linearEquation.getReciprocalCondition());
+    }
+
+    /**
+     * Inverts the matrix of the linear equation.
+     * <br>A matrix singular to working precision is rejected by its estimated condition number before the O(n³)
+     * inversion.
+     *
+     * @param linearEquation the decomposed linear equation.
+     * @return the results, only the input if the matrix is singular.
+     * @throws MatrixException if the inverse can not be computed.
+     */
+    public static ComputationResult invert(LinearEquation linearEquation) throws MatrixException {
+        if (linearEquation.isNearlySingular()) {
+            return new ComputationResult(Kind.INVERSE, null, linearEquation.getMatrix(), null, null, null, null, null,
+                    null, 0, Double.NaN, 0, reciprocalCondition(linearEquation));
+        }
+        RealMatrix inverse = linearEquation.getInverseMatrix();
+        return new ComputationResult(Kind.INVERSE, linearEquation.getSolverPath(), linearEquation.getMatrix(), null,
+                linearEquation.getLowerMatrix(), linearEquation.getUpperMatrix(), columnPermutation(linearEquation),
+                null, inverse, linearEquation.getDeterminant(), Double.NaN, 0, linearEquation.getReciprocalCondition());
+    }
+
+    /**
+     * Returns the column order of the factors.
+     *
+     * @param linearEquation the decomposed linear equation.
+     * @return the column permutation or {@code null} if it is the identity.
+     */
+    private static int[] columnPermutation(LinearEquation linearEquation) {
+        int[] q = linearEquation.getColumnPermutation();
+        for (int k = 0; k < q.length; k++) {
+            if (q[k] != k) {
+                return q;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the reciprocal condition number of a rejected matrix, without estimating it for a singular one.
+     *
+     * @param linearEquation the decomposed linear equation.
+     * @return the estimate, 0 if the matrix is singular.
+     */
+    private static double reciprocalCondition(LinearEquation linearEquation) {
+        return linearEquation.isSingularMatrix() ? 0.0 : linearEquation.getReciprocalCondition();
+    }
+
+    /**
+     * Creates the report of the results, the text shown to the user.
+     *
+     * @return the report.
+     */
+    public Report toReport() {
+        Report.Builder builder = Report.builder();
+        if (isSingular()) {
+            builder.line("No LU decomposition singular matrix");
+            builder.matrix("Original matrix", matrix);
+            if (vector != null) {
+                builder.vector("Original vector", vector);
+            }
+            if (reciprocalCondition > 0) {
+                builder.line("Reciprocal condition number = " + reciprocalCondition
+                        + ", singular to working precision");
+            }
+            return builder.line("Singular matrix").build();
+        }
+        builder.line(kind == Kind.SOLUTION ? "LU Decomposition with scaled partial pivoting" : "Matrix Inversion");
+        builder.line("Solver path: " + path.getDescription());
+        if (!Double.isNaN(reciprocalCondition)) {
+            builder.line("Reciprocal condition number = " + reciprocalCondition);
+            if (isIllConditioned()) {
+                builder.line(String.format(Locale.ROOT,
+                        "Warning: the matrix is ill-conditioned, about %.0f digits of the results may be lost",
+                        -Math.log10(reciprocalCondition)));
+            }
+        }
+        builder.matrix("Original matrix", matrix);
+        if (vector != null) {
+            builder.vector("Original vector", vector);
+        }
+        builder.matrix("Lower matrix", lower);
+        builder.matrix("Upper matrix", upper);
+        if (columnPermutation != null) {
+            StringBuilder order = new StringBuilder("Column order, L × U = P × A × Q and column k of A × Q is column"
+                    + " q[k] of A: q =");
+            for (int column : columnPermutation) {
+                order.append(' ').append(column + 1);
+            }
+            builder.line(order.toString());
+        }
+        if (solution != null) {
+            builder.vector("Solution", solution);
+            if (!Double.isNaN(residualNorm)) {
+                builder.line("Residual norm = " + residualNorm + ", refinement iterations = " + iterations);
+            }
+        }
+        if (inverse != null) {
+            builder.matrix("Inverse matrix", inverse);
+        }
+        return builder.line("Determinant = " + determinant).build();
+    }
+
+    /**
+     * Returns the kind of computation.
+     *
+     * @return the kind of computation.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Checks if the matrix is singular and only the input is kept.
+     *
+     * @return true if the matrix is singular.
+     */
+    public boolean isSingular() {
+        return path == null;
+    }
+
+    /**
+     * Returns the decomposition used.
+     *
+     * @return the solver path or {@code null} if the matrix is singular.
+     */
+    public SolverPath getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the matrix A.
+     *
+     * @return the matrix.
+     */
+    public RealMatrix getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * Returns the vector b.
+     *
+     * @return the vector or {@code null} for an inverse.
+     */
+    public RealVector getVector() {
+        return vector;
+    }
+
+    /**
+     * Returns the factor L.
+     *
+     * @return the lower matrix or {@code null} if the matrix is singular.
+     */
+    public RealMatrix getLowerMatrix() {
+        return lower;
+    }
+
+    /**
+     * Returns the factor U.
+     *
+     * @return the upper matrix or {@code null} if the matrix is singular.
+     */
+    public RealMatrix getUpperMatrix() {
+        return upper;
+    }
+
+    /**
+     * Returns the column order of the factors L and U.
+     *
+     * @return the column permutation, column k of A × Q is column {@code q[k]} of A, or {@code null} if the columns
+     * are not ordered.
+     */
+    public int[] getColumnPermutation() {
+        return columnPermutation == null ? null : columnPermutation.clone();
+    }
+
+    /**
+     * Returns the solution.
+     *
+     * @return the solution or {@code null} if it was not computed.
+     */
+    public RealVector getSolution() {
+        return solution;
+    }
+
+    /**
+     * Returns the inverse.
+     *
+     * @return the inverse or {@code null} if it was not computed.
+     */
+    public RealMatrix getInverseMatrix() {
+        return inverse;
+    }
+
+    /**
+     * Returns the determinant.
+     *
+     * @return the determinant, 0 if the matrix is singular.
+     */
+    public double getDeterminant() {
+        return determinant;
+    }
+
+    /**
+     * Returns the infinity norm of the residual b - A × x of the solution.
+     *
+     * @return the residual norm or NaN if no solution was computed.
+     */
+    public double getResidualNorm() {
+        return residualNorm;
+    }
+
+    /**
+     * Returns the number of refinement steps of the solution.
+     *
+     * @return the number of corrections added to the first solution.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the estimated reciprocal condition number of the matrix in the 1-norm.
+     *
+     * @return the estimate, 0 if the matrix is singular, NaN if it was not estimated.
+     * @see LinearEquation#getReciprocalCondition()
+     */
+    public double getReciprocalCondition() {
+        return reciprocalCondition;
+    }
+
+    /**
+     * Checks if the estimated reciprocal condition number is below {@link LinearEquation#ILL_CONDITIONED_RCOND}, so
+     * the results are computed but may be inaccurate.
+     *
+     * @return true if the results come with a warning.
+     */
+    public boolean isIllConditioned() {
+        return reciprocalCondition < LinearEquation.ILL_CONDITIONED_RCOND;
+    }
+}
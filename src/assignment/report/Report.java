@@ -0,0 +1,597 @@
+package assignment.report;
+
+import assignment.model.ComputationStage;
+import assignment.model.FlatRealMatrix;
+import assignment.model.MappedRealMatrix;
+import assignment.model.SolverMetrics;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The results of a computation as a read-only list of text lines, formatted on demand.
+ * <br>A report is a sequence of sections: plain lines, matrices and vectors. A matrix section is its title, one line
+ * per row and an empty line; a vector section is its title, one line with all entries and an empty line. Only the
+ * matrices and vectors are kept, so a viewer formats just the lines, and the columns of the lines, it shows.
+ * <br>The lines joined by {@code '\n'} give the text of the report, {@link Report#writeTo(Writer)} streams it
+ * without building it in memory.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see ResultFormatter
+ */
+public final class Report extends AbstractList<String> {
+
+    /**
+     * The sections of the report.
+     */
+    private final List<Section> sections;
+
+    /**
+     * The first line of every section, the last element is the number of lines.
+     */
+    private final int[] starts;
+
+    /**
+     * The largest number of columns of a line.
+     */
+    private final int columnCount;
+
+    /**
+     * Creates the report of the given sections.
+     *
+     * @param sections the sections.
+     */
+    private Report(List<Section> sections) {
+        this.sections = sections;
+        this.starts = new int[sections.size() + 1];
+        int columns = 0;
+        for (int i = 0; i < sections.size(); i++) {
+            starts[i + 1] = starts[i] + sections.get(i).size();
+            columns = Math.max(columns, sections.get(i).columnCount());
+        }
+        this.columnCount = columns;
+    }
+
+    /**
+     * Creates an empty builder of a report.
+     *
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates the report of a text, e.g. a loaded file.
+     *
+     * @param text the text, lines are separated by {@code '\n'}.
+     * @return the report.
+     */
+    public static Report ofText(String text) {
+        return builder().lines(Arrays.asList(text.split("\n", -1))).build();
+    }
+
+    /**
+     * Returns the number of lines.
+     *
+     * @return the number of lines.
+     */
+    @Override
+    public int size() {
+        return starts[sections.size()];
+    }
+
+    /**
+     * Returns the whole line.
+     *
+     * @param index the index of the line.
+     * @return the text of the line.
+     * @throws IndexOutOfBoundsException if the index is not a line of the report.
+     */
+    @Override
+    public String get(int index) {
+        return getLine(index, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the columns {@code [firstColumn, firstColumn + columns)} of the line.
+     * <br>Only the rows of matrices and the entries of vectors have columns, other lines are returned whole.
+     *
+     * @param index       the index of the line.
+     * @param firstColumn the first shown column.
+     * @param columns     the number of shown columns.
+     * @return the text of the line.
+     * @throws IndexOutOfBoundsException if the index is not a line of the report.
+     */
+    public String getLine(int index, int firstColumn, int columns) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Line " + index + " out of range [0, " + size() + ")");
+        }
+        int section = Arrays.binarySearch(starts, index);
+        if (section < 0) {
+            section = -section - 2;
+        } else {
+            while (starts[section + 1] == index) {
+                section++;
+            }
+        }
+        StringBuilder text = new StringBuilder();
+        sections.get(section).appendLine(text, new ResultFormatter(), index - starts[section], firstColumn,
+                columns);
+        return text.toString();
+    }
+
+    /**
+     * Returns the largest number of columns of a line.
+     *
+     * @return the number of columns of the widest matrix or vector.
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Returns the summary of the report: every matrix shows only its first and last rows and every vector its first
+     * and last entries, followed by their norms.
+     *
+     * @param k the number of rows or entries shown at each end.
+     * @return the summary report.
+     */
+    public Report summary(int k) {
+        List<Section> summary = new ArrayList<>(sections.size());
+        for (Section section : sections) {
+            summary.add(section.summary(k));
+        }
+        return new Report(summary);
+    }
+
+    /**
+     * Computes the norms of the matrices shown by the summaries, so that showing a summary does not compute them.
+     * <br>The norms are computed once per matrix and shared by the report and all its summaries; this method may be
+     * called on any thread.
+     */
+    public void computeNorms() {
+        for (Section section : sections) {
+            if (section instanceof MatrixSection) {
+                ((MatrixSection) section).norms.get();
+            }
+        }
+    }
+
+    /**
+     * Writes the text of the report, the lines separated by {@code '\n'}.
+     * <br>The lines are formatted one at a time, the whole text is never held in memory. The writing is measured as
+     * a {@link ComputationStage#FORMAT} stage in the {@link SolverMetrics}.
+     *
+     * @param writer the destination, it is not closed.
+     * @throws IOException if the text can not be written.
+     */
+    public void writeTo(Writer writer) throws IOException {
+        ResultFormatter formatter = new ResultFormatter();
+        StringBuilder line = new StringBuilder();
+        int size = size();
+        int section = 0;
+        SolverMetrics.StageTimer timer = SolverMetrics.global().start(ComputationStage.FORMAT, 0);
+        try {
+            for (int i = 0; i < size; i++) {
+                while (starts[section + 1] <= i) {
+                    section++;
+                }
+                line.setLength(0);
+                sections.get(section).appendLine(line, formatter, i - starts[section], 0, Integer.MAX_VALUE);
+                if (i + 1 < size) {
+                    line.append('\n');
+                }
+                writer.append(line);
+            }
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Builder of a report.
+     */
+    public static final class Builder {
+
+        /**
+         * The sections added so far.
+         */
+        private final List<Section> sections = new ArrayList<>();
+
+        /**
+         * Private constructor, see {@link Report#builder()}.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Adds one line of text.
+         *
+         * @param line the line without the end of the line.
+         * @return this builder.
+         */
+        public Builder line(String line) {
+            return lines(List.of(line));
+        }
+
+        /**
+         * Adds lines of text.
+         *
+         * @param lines the lines without the ends of the lines.
+         * @return this builder.
+         */
+        public Builder lines(List<String> lines) {
+            sections.add(new TextSection(lines));
+            return this;
+        }
+
+        /**
+         * Adds a matrix: the title, one line per row and an empty line.
+         *
+         * @param title  the title line.
+         * @param matrix the matrix, it is formatted when its lines are read.
+         * @return this builder.
+         */
+        public Builder matrix(String title, RealMatrix matrix) {
+            sections.add(new MatrixSection(title, matrix, 0));
+            return this;
+        }
+
+        /**
+         * Adds a vector: the title, one line with the entries and an empty line.
+         *
+         * @param title  the title line.
+         * @param vector the vector, it is formatted when its line is read.
+         * @return this builder.
+         */
+        public Builder vector(String title, RealVector vector) {
+            sections.add(new VectorSection(title, vector, 0));
+            return this;
+        }
+
+        /**
+         * Creates the report.
+         *
+         * @return the report of the added sections.
+         */
+        public Report build() {
+            return new Report(new ArrayList<>(sections));
+        }
+    }
+
+    /**
+     * A part of the report producing consecutive lines.
+     */
+    private interface Section {
+
+        /**
+         * Returns the number of lines.
+         *
+         * @return the number of lines.
+         */
+        int size();
+
+        /**
+         * Returns the number of columns of the widest line.
+         *
+         * @return the number of columns or 0 for text.
+         */
+        int columnCount();
+
+        /**
+         * Appends a line of the section.
+         *
+         * @param text        the builder to append to.
+         * @param formatter   the formatter of the numbers.
+         * @param line        the index of the line within the section.
+         * @param firstColumn the first shown column.
+         * @param columns     the number of shown columns.
+         */
+        void appendLine(StringBuilder text, ResultFormatter formatter, int line, int firstColumn, int columns);
+
+        /**
+         * Returns the summary of the section.
+         *
+         * @param k the number of rows or entries shown at each end.
+         * @return the summary section.
+         */
+        Section summary(int k);
+    }
+
+    /**
+     * Lines of plain text.
+     */
+    private static final class TextSection implements Section {
+
+        /**
+         * The lines.
+         */
+        private final List<String> lines;
+
+        /**
+         * Creates the section.
+         *
+         * @param lines the lines.
+         */
+        TextSection(List<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public int size() {
+            return lines.size();
+        }
+
+        @Override
+        public int columnCount() {
+            return 0;
+        }
+
+        @Override
+        public void appendLine(StringBuilder text, ResultFormatter formatter, int line, int firstColumn, int columns) {
+            text.append(lines.get(line));
+        }
+
+        @Override
+        public Section summary(int k) {
+            return this;
+        }
+    }
+
+    /**
+     * A matrix with its title, one line per shown row and an empty line.
+     * <br>A summary shows the first and last rows, a line with the number of hidden rows and a line with the norms.
+     */
+    private static final class MatrixSection implements Section {
+
+        /**
+         * The title line.
+         */
+        private final String title;
+
+        /**
+         * The matrix.
+         */
+        private final RealMatrix matrix;
+
+        /**
+         * The number of rows shown at each end or 0 if all rows are shown.
+         */
+        private final int k;
+
+        /**
+         * The norms of the matrix, shared with the summaries.
+         */
+        private final MatrixNorms norms;
+
+        /**
+         * True if the norms line is shown, in a summary.
+         */
+        private final boolean showNorms;
+
+        /**
+         * Creates the section.
+         *
+         * @param title  the title line.
+         * @param matrix the matrix.
+         * @param k      the number of rows shown at each end in a summary or 0 to show the whole matrix.
+         */
+        MatrixSection(String title, RealMatrix matrix, int k) {
+            this(title, matrix, k, new MatrixNorms(matrix));
+        }
+
+        /**
+         * Creates the section sharing the norms of another section of the matrix.
+         *
+         * @param title  the title line.
+         * @param matrix the matrix.
+         * @param k      the number of rows shown at each end in a summary or 0 to show the whole matrix.
+         * @param norms  the norms of the matrix, computed on first use.
+         */
+        private MatrixSection(String title, RealMatrix matrix, int k, MatrixNorms norms) {
+            this.title = title;
+            this.matrix = matrix;
+            this.k = 2 * k < matrix.getRowDimension() ? k : 0;
+            this.norms = norms;
+            this.showNorms = k > 0;
+        }
+
+        /**
+         * Returns the number of lines showing rows, including the line of the hidden rows.
+         *
+         * @return the number of row lines.
+         */
+        private int rowLines() {
+            return k > 0 ? 2 * k + 1 : matrix.getRowDimension();
+        }
+
+        @Override
+        public int size() {
+            return rowLines() + (showNorms ? 3 : 2);
+        }
+
+        @Override
+        public int columnCount() {
+            return matrix.getColumnDimension();
+        }
+
+        @Override
+        public void appendLine(StringBuilder text, ResultFormatter formatter, int line, int firstColumn, int columns) {
+            int shown = rowLines();
+            if (line == 0) {
+                text.append(title);
+            } else if (line <= shown) {
+                int row = line - 1;
+                if (k > 0 && row == k) {
+                    text.append("\t... ").append(matrix.getRowDimension() - 2 * k).append(" rows ...");
+                    return;
+                }
+                if (k > 0 && row > k) {
+                    row = matrix.getRowDimension() - (shown - row);
+                }
+                int from = Math.min(firstColumn, matrix.getColumnDimension());
+                int to = (int) Math.min((long) from + columns, matrix.getColumnDimension());
+                formatter.appendRow(text, matrix, row, from, to);
+            } else if (showNorms && line == shown + 1) {
+                text.append(norms.get());
+            }
+        }
+
+        @Override
+        public Section summary(int k) {
+            return new MatrixSection(title, matrix, k, norms);
+        }
+    }
+
+    /**
+     * The norms line of a matrix, computed on first use.
+     * <br>The matrix is read once, row by row in its storage order, for both norms.
+     */
+    private static final class MatrixNorms {
+
+        /**
+         * The matrix.
+         */
+        private final RealMatrix matrix;
+
+        /**
+         * The norms line or {@code null} until it is computed.
+         */
+        private volatile String line;
+
+        /**
+         * Creates the norms of the matrix.
+         *
+         * @param matrix the matrix.
+         */
+        MatrixNorms(RealMatrix matrix) {
+            this.matrix = matrix;
+        }
+
+        /**
+         * Returns the norms line, computing it on the first call.
+         *
+         * @return the 1-norm and the Frobenius norm.
+         */
+        String get() {
+            String norms = line;
+            if (norms == null) {
+                synchronized (this) {
+                    norms = line;
+                    if (norms == null) {
+                        norms = compute();
+                        line = norms;
+                    }
+                }
+            }
+            return norms;
+        }
+
+        /**
+         * Computes the norms, accumulating the column sums and the squares row by row.
+         *
+         * @return the norms line.
+         */
+        private String compute() {
+            int rows = matrix.getRowDimension();
+            int columns = matrix.getColumnDimension();
+            double[] sums = new double[columns];
+            double squares = 0.0;
+            double[] row = new double[columns];
+            for (int i = 0; i < rows; i++) {
+                if (matrix instanceof FlatRealMatrix) {
+                    System.arraycopy(((FlatRealMatrix) matrix).getDataRef(), i * columns, row, 0, columns);
+                } else if (matrix instanceof MappedRealMatrix) {
+                    ((MappedRealMatrix) matrix).getRow(i, 0, row, 0, columns);
+                } else {
+                    row = matrix.getRow(i);
+                }
+                for (int j = 0; j < columns; j++) {
+                    sums[j] += Math.abs(row[j]);
+                    squares += row[j] * row[j];
+                }
+            }
+            double norm = 0.0;
+            for (double sum : sums) {
+                norm = Math.max(norm, sum);
+            }
+            return "Norm (1) = " + norm + ", Frobenius norm = " + Math.sqrt(squares);
+        }
+    }
+
+    /**
+     * A vector with its title, one line with the entries and an empty line.
+     * <br>A summary shows the first and last entries and a line with the norm.
+     */
+    private static final class VectorSection implements Section {
+
+        /**
+         * The title line.
+         */
+        private final String title;
+
+        /**
+         * The vector.
+         */
+        private final RealVector vector;
+
+        /**
+         * The number of entries shown at each end in a summary or 0 if all entries are shown.
+         */
+        private final int k;
+
+        /**
+         * Creates the section.
+         *
+         * @param title  the title line.
+         * @param vector the vector.
+         * @param k      the number of entries shown at each end or 0 to show all entries.
+         */
+        VectorSection(String title, RealVector vector, int k) {
+            this.title = title;
+            this.vector = vector;
+            this.k = k;
+        }
+
+        @Override
+        public int size() {
+            return k > 0 ? 4 : 3;
+        }
+
+        @Override
+        public int columnCount() {
+            return vector.getDimension();
+        }
+
+        @Override
+        public void appendLine(StringBuilder text, ResultFormatter formatter, int line, int firstColumn, int columns) {
+            int dimension = vector.getDimension();
+            if (line == 0) {
+                text.append(title);
+            } else if (line == 1 && k > 0 && 2 * k < dimension) {
+                formatter.appendVector(text, vector, 0, k);
+                text.append("\t...");
+                formatter.appendVector(text, vector, dimension - k, dimension);
+            } else if (line == 1) {
+                int from = Math.min(firstColumn, dimension);
+                int to = (int) Math.min((long) from + columns, dimension);
+                formatter.appendVector(text, vector, from, to);
+            } else if (line == 2 && k > 0) {
+                text.append("Norm (2) = ").append(vector.getNorm());
+            }
+        }
+
+        @Override
+        public Section summary(int k) {
+            return new VectorSection(title, vector, k);
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package assignment.report;
+
+import assignment.model.FlatRealMatrix;
+import assignment.model.SolverPath;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reading and writing of the results as text or in a compact binary format.
+ * <br>Text is written in UTF-8 straight from the {@link Report} to a buffered file channel, line by line. Reading
+ * detects the older UTF-16 files by their byte order mark or by the zero bytes of ASCII text.
+ * <br>The binary format starts with a header of {@link ResultFile#HEADER_BYTES} bytes: the magic number, the
+ * version, the kind of computation, the ordinal of the {@link SolverPath} (-1 for a singular matrix), the dimension,
+ * the mask of the stored sections, the determinant, the residual norm of the solution and the number of refinement
+ * steps followed by four reserved bytes, and the estimated reciprocal condition number. The sections A, b, L, U, x
+ * and A<sup>-1</sup> follow in this order as raw little-endian {@code double} values in row-major order; reading maps
+ * them and copies them straight into the matrices. The file ends with the column order Q of the factors, stored the
+ * same way, if the columns were ordered.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see ComputationResult
+ */
+public final class ResultFile {
+
+    /**
+     * The number of bytes of the header.
+     */
+    private static final int HEADER_BYTES = 56;
+
+    /**
+     * The first four bytes of a binary file, "LURS" in ASCII.
+     */
+    private static final int MAGIC = 0x5352554C;
+
+    /**
+     * The version of the binary format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The section bit of the matrix A.
+     */
+    private static final int MATRIX = 1;
+
+    /**
+     * The section bit of the vector b.
+     */
+    private static final int VECTOR = 2;
+
+    /**
+     * The section bit of the factor L.
+     */
+    private static final int LOWER = 4;
+
+    /**
+     * The section bit of the factor U.
+     */
+    private static final int UPPER = 8;
+
+    /**
+     * The section bit of the solution.
+     */
+    private static final int SOLUTION = 16;
+
+    /**
+     * The section bit of the inverse.
+     */
+    private static final int INVERSE = 32;
+
+    /**
+     * The section bit of the column order of the factors.
+     */
+    private static final int COLUMNS = 64;
+
+    /**
+     * The size of the buffers of the channels.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The maximum size of one mapped segment, a multiple of 8.
+     */
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    /**
+     * Private constructor of the utility class.
+     */
+    private ResultFile() {
+    }
+
+    /**
+     * Writes the text of the report in UTF-8, see {@link Report#writeTo(Writer)}.
+     * <br>An existing file is overwritten.
+     *
+     * @param report the report.
+     * @param path   the file.
+     * @throws IOException if the file can not be written.
+     */
+    public static void writeText(Report report, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             Writer writer = new BufferedWriter(
+                     Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE)) {
+            report.writeTo(writer);
+        }
+    }
+
+    /**
+     * Reads a text file as a report of plain lines separated by {@code '\n'}.
+     * <br>The text is read in UTF-8, unless a byte order mark or zero bytes show UTF-16.
+     *
+     * @param path the file.
+     * @return the report.
+     * @throws IOException if the file can not be read.
+     */
+    public static Report readText(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = readHead(channel, 3);
+            Charset charset = detectCharset(head);
+            channel.position(charset == StandardCharsets.UTF_8 && head.remaining() == 3
+                    && (head.get(0) & 0xFF) == 0xEF && (head.get(1) & 0xFF) == 0xBB && (head.get(2) & 0xFF) == 0xBF
+                    ? 3 : 0);
+            List<String> lines = new ArrayList<>();
+            StringBuilder line = new StringBuilder();
+            char[] buffer = new char[BUFFER_SIZE];
+            try (Reader reader = Channels.newReader(channel, charset.newDecoder(), BUFFER_SIZE)) {
+                int count;
+                while ((count = reader.read(buffer)) >= 0) {
+                    int start = 0;
+                    for (int i = 0; i < count; i++) {
+                        if (buffer[i] == '\n') {
+                            line.append(buffer, start, i - start);
+                            lines.add(line.toString());
+                            line.setLength(0);
+                            start = i + 1;
+                        }
+                    }
+                    line.append(buffer, start, count - start);
+                }
+            }
+            lines.add(line.toString());
+            return Report.builder().lines(lines).build();
+        }
+    }
+
+    /**
+     * Reads the first bytes of the file.
+     *
+     * @param channel the channel of the file.
+     * @param size    the number of bytes.
+     * @return the buffer of the bytes read, fewer if the file is shorter.
+     * @throws IOException if the file can not be read.
+     */
+    private static ByteBuffer readHead(FileChannel channel, int size) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(size);
+        int count = 0;
+        while (head.hasRemaining() && count >= 0) {
+            count = channel.read(head);
+        }
+        return head.flip();
+    }
+
+    /**
+     * Detects the encoding of a text from its first bytes.
+     *
+     * @param head up to three first bytes of the file.
+     * @return UTF-16 with the byte order mark, UTF-16BE or UTF-16LE if the first character is ASCII preceded or
+     * followed by a zero byte, otherwise UTF-8.
+     */
+    private static Charset detectCharset(ByteBuffer head) {
+        if (head.remaining() < 2) {
+            return StandardCharsets.UTF_8;
+        }
+        int first = head.get(0) & 0xFF;
+        int second = head.get(1) & 0xFF;
+        if (first == 0xFE && second == 0xFF || first == 0xFF && second == 0xFE) {
+            return StandardCharsets.UTF_16;
+        } else if (first == 0 && second != 0) {
+            return StandardCharsets.UTF_16BE;
+        } else if (first != 0 && second == 0) {
+            return StandardCharsets.UTF_16LE;
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Checks if the file is in the binary format.
+     *
+     * @param path the file.
+     * @return true if the file starts with the magic number of the binary format.
+     * @throws IOException if the file can not be read.
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = readHead(channel, 4).order(ByteOrder.LITTLE_ENDIAN);
+            return head.remaining() == 4 && head.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Writes the results in the binary format.
+     * <br>An existing file is overwritten.
+     *
+     * @param result the results.
+     * @param path   the file.
+     * @throws IOException if the file can not be written.
+     */
+    public static void writeBinary(ComputationResult result, Path path) throws IOException {
+        int n = result.getMatrix().getRowDimension();
+        int sections = MATRIX
+                | (result.getVector() != null ? VECTOR : 0)
+                | (result.getLowerMatrix() != null ? LOWER : 0)
+                | (result.getUpperMatrix() != null ? UPPER : 0)
+                | (result.getSolution() != null ? SOLUTION : 0)
+                | (result.getInverseMatrix() != null ? INVERSE : 0)
+                | (result.getColumnPermutation() != null ? COLUMNS : 0);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(result.getKind().ordinal())
+                    .putInt(result.isSingular() ? -1 : result.getPath().ordinal()).putInt(n).putInt(sections)
+                    .putDouble(result.getDeterminant()).putDouble(result.getResidualNorm())
+                    .putInt(result.getIterations()).putInt(0).putDouble(result.getReciprocalCondition());
+            writeMatrix(channel, buffer, result.getMatrix());
+            writeVector(channel, buffer, result.getVector());
+            writeMatrix(channel, buffer, result.getLowerMatrix());
+            writeMatrix(channel, buffer, result.getUpperMatrix());
+            writeVector(channel, buffer, result.getSolution());
+            writeMatrix(channel, buffer, result.getInverseMatrix());
+            writeColumns(channel, buffer, result.getColumnPermutation());
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Writes the entries of the matrix in row-major order.
+     *
+     * @param channel the channel of the file.
+     * @param buffer  the buffer of the channel.
+     * @param matrix  the matrix or {@code null} to write nothing.
+     * @throws IOException if the file can not be written.
+     */
+    private static void writeMatrix(FileChannel channel, ByteBuffer buffer, RealMatrix matrix) throws IOException {
+        if (matrix == null) {
+            return;
+        }
+        int columns = matrix.getColumnDimension();
+        if (matrix instanceof FlatRealMatrix) {
+            writeValues(channel, buffer, ((FlatRealMatrix) matrix).getDataRef());
+            return;
+        }
+        for (int i = 0; i < matrix.getRowDimension(); i++) {
+            for (int j = 0; j < columns; j++) {
+                if (buffer.remaining() < Double.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putDouble(matrix.getEntry(i, j));
+            }
+        }
+    }
+
+    /**
+     * Writes the entries of the vector.
+     *
+     * @param channel the channel of the file.
+     * @param buffer  the buffer of the channel.
+     * @param vector  the vector or {@code null} to write nothing.
+     * @throws IOException if the file can not be written.
+     */
+    private static void writeVector(FileChannel channel, ByteBuffer buffer, RealVector vector) throws IOException {
+        if (vector != null) {
+            writeValues(channel, buffer, vector instanceof ArrayRealVector
+                    ? ((ArrayRealVector) vector).getDataRef() : vector.toArray());
+        }
+    }
+
+    /**
+     * Writes the column order as {@code double} values.
+     *
+     * @param channel the channel of the file.
+     * @param buffer  the buffer of the channel.
+     * @param columns the column permutation or {@code null}.
+     * @throws IOException if the file can not be written.
+     */
+    private static void writeColumns(FileChannel channel, ByteBuffer buffer, int[] columns) throws IOException {
+        if (columns != null) {
+            double[] values = new double[columns.length];
+            for (int k = 0; k < columns.length; k++) {
+                values[k] = columns[k];
+            }
+            writeValues(channel, buffer, values);
+        }
+    }
+
+    /**
+     * Writes the values through the buffer in bulk.
+     *
+     * @param channel the channel of the file.
+     * @param buffer  the buffer of the channel.
+     * @param values  the values.
+     * @throws IOException if the file can not be written.
+     */
+    private static void writeValues(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            if (buffer.remaining() < Double.BYTES) {
+                flush(channel, buffer);
+            }
+            int count = Math.min(buffer.remaining() / Double.BYTES, values.length - offset);
+            buffer.asDoubleBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + count * Double.BYTES);
+            offset += count;
+        }
+    }
+
+    /**
+     * Writes the content of the buffer to the channel and clears it.
+     *
+     * @param channel the channel of the file.
+     * @param buffer  the buffer of the channel.
+     * @throws IOException if the file can not be written.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads the results in the binary format.
+     * <br>The sections are memory-mapped and copied into {@link FlatRealMatrix} and {@link ArrayRealVector}
+     * objects; the file is not parsed.
+     *
+     * @param path the file.
+     * @return the results.
+     * @throws IOException if the file can not be read or is not in the binary format.
+     */
+    public static ComputationResult readBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Not a result file: " + path);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            int magic = header.getInt();
+            int version = header.getInt();
+            int kind = header.getInt();
+            int pathOrdinal = header.getInt();
+            int n = header.getInt();
+            int sections = header.getInt();
+            double determinant = header.getDouble();
+            double residualNorm = header.getDouble();
+            int iterations = header.getInt();
+            header.getInt();
+            double reciprocalCondition = header.getDouble();
+            if (magic != MAGIC || version != VERSION || kind < 0 || kind >= ComputationResult.Kind.values().length
+                    || pathOrdinal < -1 || pathOrdinal >= SolverPath.values().length || n < 1) {
+                throw new IOException("Not a result file: " + path);
+            }
+            long expected = HEADER_BYTES;
+            for (int bit = MATRIX; bit <= COLUMNS; bit <<= 1) {
+                if ((sections & bit) != 0) {
+                    expected += (bit == VECTOR || bit == SOLUTION || bit == COLUMNS ? 8L * n : 8L * n * n);
+                }
+            }
+            if (channel.size() != expected) {
+                throw new IOException("Truncated result file: " + path + ", " + channel.size() + " of " + expected
+                        + " bytes");
+            }
+            long[] position = {HEADER_BYTES};
+            RealMatrix matrix = readMatrix(channel, position, n, (sections & MATRIX) != 0);
+            RealVector vector = readVector(channel, position, n, (sections & VECTOR) != 0);
+            RealMatrix lower = readMatrix(channel, position, n, (sections & LOWER) != 0);
+            RealMatrix upper = readMatrix(channel, position, n, (sections & UPPER) != 0);
+            RealVector solution = readVector(channel, position, n, (sections & SOLUTION) != 0);
+            RealMatrix inverse = readMatrix(channel, position, n, (sections & INVERSE) != 0);
+            int[] columns = (sections & COLUMNS) != 0 ? readColumns(channel, position, n, path) : null;
+            SolverPath solverPath = pathOrdinal < 0 ? null : SolverPath.values()[pathOrdinal];
+            return new ComputationResult(ComputationResult.Kind.values()[kind], solverPath, matrix, vector, lower,
+                    upper, columns, solution, inverse, determinant, residualNorm, iterations, reciprocalCondition);
+        }
+    }
+
+    /**
+     * Reads a square matrix section.
+     *
+     * @param channel  the channel of the file.
+     * @param position the position of the section, advanced past it.
+     * @param n        the dimension.
+     * @param present  true if the section is stored.
+     * @return the matrix or {@code null} if the section is not stored.
+     * @throws IOException if the file can not be mapped.
+     */
+    private static RealMatrix readMatrix(FileChannel channel, long[] position, int n, boolean present)
+            throws IOException {
+        return present ? new FlatRealMatrix(n, n, readValues(channel, position, n * n)) : null;
+    }
+
+    /**
+     * Reads a vector section.
+     *
+     * @param channel  the channel of the file.
+     * @param position the position of the section, advanced past it.
+     * @param n        the dimension.
+     * @param present  true if the section is stored.
+     * @return the vector or {@code null} if the section is not stored.
+     * @throws IOException if the file can not be mapped.
+     */
+    private static RealVector readVector(FileChannel channel, long[] position, int n, boolean present)
+            throws IOException {
+        return present ? new ArrayRealVector(readValues(channel, position, n), false) : null;
+    }
+
+    /**
+     * Reads the column order section.
+     *
+     * @param channel  the channel of the file.
+     * @param position the position of the section, advanced past it.
+     * @param n        the dimension.
+     * @param path     the file, for the error message.
+     * @return the column permutation.
+     * @throws IOException if the file can not be mapped or the section is not a permutation.
+     */
+    private static int[] readColumns(FileChannel channel, long[] position, int n, Path path) throws IOException {
+        double[] values = readValues(channel, position, n);
+        int[] columns = new int[n];
+        boolean[] seen = new boolean[n];
+        for (int k = 0; k < n; k++) {
+            int column = (int) values[k];
+            if (column != values[k] || column < 0 || column >= n || seen[column]) {
+                throw new IOException("Invalid column order in the result file: " + path);
+            }
+            seen[column] = true;
+            columns[k] = column;
+        }
+        return columns;
+    }
+
+    /**
+     * Maps the values of a section in segments of at most {@link ResultFile#SEGMENT_BYTES} bytes and copies them.
+     *
+     * @param channel  the channel of the file.
+     * @param position the position of the section, advanced past it.
+     * @param count    the number of values.
+     * @return the values.
+     * @throws IOException if the file can not be mapped.
+     */
+    private static double[] readValues(FileChannel channel, long[] position, int count) throws IOException {
+        double[] values = new double[count];
+        int offset = 0;
+        while (offset < count) {
+            int length = (int) Math.min(count - offset, SEGMENT_BYTES / Double.BYTES);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position[0],
+                    (long) length * Double.BYTES);
+            segment.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values, offset, length);
+            position[0] += (long) length * Double.BYTES;
+            offset += length;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,253 @@
+package assignment.report;
+
+import assignment.model.FlatRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formatter of the numbers in the results, writing straight into one {@code StringBuilder}.
+ * <br>Every element is written as a tab followed by the text of {@code String.format("% .7f", value)}, where 0 and
+ * -0 are both written as positive zero: a space or a minus sign, the integer digits, the decimal separator of the
+ * locale and seven fraction digits. The output is identical to the formatter's one; values which can not be rounded
+ * safely with {@code long} arithmetic, i.e. very large numbers, non-finite numbers and numbers lying close to the
+ * midpoint between two results, are passed to {@link String#format(Locale, String, Object...)}.
+ * <br>The width 3 of the matrix format {@code "% 3.7f"} is always exceeded, so matrices and vectors share the
+ * number format.
+ * <br>A formatter keeps a digit buffer, it must not be shared between threads.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+public class ResultFormatter {
+
+    /**
+     * The number of fraction digits.
+     */
+    private static final int PRECISION = 7;
+
+    /**
+     * The scale of the fraction digits, 10<sup>7</sup>.
+     */
+    private static final double SCALE = 1e7;
+
+    /**
+     * The largest magnitude formatted without the fallback, the scaled value stays below 2<sup>53</sup>.
+     */
+    private static final double FAST_LIMIT = 1e8;
+
+    /**
+     * The distance from the midpoint, in units of the last digit, below which the rounding is left to the fallback.
+     */
+    private static final double TIE_MARGIN = 1e-6;
+
+    /**
+     * The number of characters reserved for one element: a tab, the sign, up to 8 integer digits, the separator and
+     * the fraction digits.
+     */
+    private static final int ELEMENT_CAPACITY = 18;
+
+    /**
+     * The locale of the formatted numbers.
+     */
+    private final Locale locale;
+
+    /**
+     * The decimal separator of {@link ResultFormatter#locale}.
+     */
+    private final char separator;
+
+    /**
+     * True if the locale writes the ASCII digits, otherwise every number is passed to the fallback.
+     */
+    private final boolean asciiDigits;
+
+    /**
+     * The digits of the current number, written from the end.
+     */
+    private final char[] digits = new char[24];
+
+    /**
+     * Creates the formatter for the default locale of formatting, the one used by {@link String#format(String,
+     * Object...)}.
+     */
+    public ResultFormatter() {
+        this(Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Creates the formatter for the given locale.
+     *
+     * @param locale the locale of the decimal separator.
+     */
+    public ResultFormatter(Locale locale) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        this.locale = locale;
+        this.separator = symbols.getDecimalSeparator();
+        this.asciiDigits = symbols.getZeroDigit() == '0';
+    }
+
+    /**
+     * Formats the matrix: every row on its own line, every element preceded by a tab.
+     *
+     * @param matrix the matrix to format.
+     * @return the text.
+     */
+    public StringBuilder formatMatrix(RealMatrix matrix) {
+        StringBuilder text = new StringBuilder(matrixCapacity(matrix));
+        appendMatrix(text, matrix);
+        return text;
+    }
+
+    /**
+     * Formats the vector: every element preceded by a tab, followed by the end of the line.
+     *
+     * @param vector the vector to format.
+     * @return the text.
+     */
+    public StringBuilder formatVector(RealVector vector) {
+        StringBuilder text = new StringBuilder(vector.getDimension() * ELEMENT_CAPACITY + 1);
+        appendVector(text, vector);
+        return text;
+    }
+
+    /**
+     * Returns the number of characters reserved for the text of the matrix.
+     *
+     * @param matrix the matrix to format.
+     * @return the initial capacity of the builder.
+     */
+    public static int matrixCapacity(RealMatrix matrix) {
+        long capacity = (long) matrix.getRowDimension() * (matrix.getColumnDimension() * (long) ELEMENT_CAPACITY + 1);
+        return (int) Math.min(capacity, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Appends the text of the matrix.
+     * <br>The entries of a {@link FlatRealMatrix} are read in place, other matrices are read one row at a time.
+     *
+     * @param text   the builder to append to.
+     * @param matrix the matrix to format.
+     */
+    public void appendMatrix(StringBuilder text, RealMatrix matrix) {
+        int rows = matrix.getRowDimension();
+        int columns = matrix.getColumnDimension();
+        double[] data = matrix instanceof FlatRealMatrix ? ((FlatRealMatrix) matrix).getDataRef() : null;
+        for (int i = 0; i < rows; i++) {
+            if (data != null) {
+                appendEntries(text, data, i * columns, i * columns + columns);
+            } else {
+                appendEntries(text, matrix.getRow(i), 0, columns);
+            }
+            text.append('\n');
+        }
+    }
+
+    /**
+     * Appends the columns {@code [from, to)} of one row of the matrix, without the end of the line.
+     *
+     * @param text   the builder to append to.
+     * @param matrix the matrix to format.
+     * @param row    the row.
+     * @param from   the first column.
+     * @param to     the end of the columns.
+     */
+    public void appendRow(StringBuilder text, RealMatrix matrix, int row, int from, int to) {
+        if (matrix instanceof FlatRealMatrix) {
+            int offset = row * matrix.getColumnDimension();
+            appendEntries(text, ((FlatRealMatrix) matrix).getDataRef(), offset + from, offset + to);
+        } else {
+            for (int j = from; j < to; j++) {
+                text.append('\t');
+                appendNumber(text, matrix.getEntry(row, j));
+            }
+        }
+    }
+
+    /**
+     * Appends the text of the vector.
+     *
+     * @param text   the builder to append to.
+     * @param vector the vector to format.
+     */
+    public void appendVector(StringBuilder text, RealVector vector) {
+        appendVector(text, vector, 0, vector.getDimension());
+        text.append('\n');
+    }
+
+    /**
+     * Appends the entries {@code [from, to)} of the vector, without the end of the line.
+     *
+     * @param text   the builder to append to.
+     * @param vector the vector to format.
+     * @param from   the first entry.
+     * @param to     the end of the entries.
+     */
+    public void appendVector(StringBuilder text, RealVector vector, int from, int to) {
+        if (vector instanceof ArrayRealVector) {
+            appendEntries(text, ((ArrayRealVector) vector).getDataRef(), from, to);
+        } else {
+            for (int i = from; i < to; i++) {
+                text.append('\t');
+                appendNumber(text, vector.getEntry(i));
+            }
+        }
+    }
+
+    /**
+     * Appends the entries {@code [from, to)} of the array, every one preceded by a tab.
+     *
+     * @param text the builder to append to.
+     * @param data the entries.
+     * @param from the first entry.
+     * @param to   the end of the entries.
+     */
+    public void appendEntries(StringBuilder text, double[] data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            text.append('\t');
+            appendNumber(text, data[i]);
+        }
+    }
+
+    /**
+     * Appends one number with seven fraction digits, without the preceding tab.
+     *
+     * @param text  the builder to append to.
+     * @param value the number, -0 is written as 0.
+     */
+    public void appendNumber(StringBuilder text, double value) {
+        if (value == 0.0) {
+            value = 0.0;
+        }
+        double magnitude = Math.abs(value);
+        if (!asciiDigits || !(magnitude < FAST_LIMIT)) {
+            text.append(String.format(locale, "% .7f", value));
+            return;
+        }
+        double scaled = magnitude * SCALE;
+        double error = Math.fma(magnitude, SCALE, -scaled);
+        double floor = Math.floor(scaled);
+        double fraction = (scaled - floor) + error;
+        double margin = TIE_MARGIN + 4 * Math.ulp(scaled);
+        if (Math.abs(fraction - 0.5) < margin) {
+            text.append(String.format(locale, "% .7f", value));
+            return;
+        }
+        long rounded = (long) floor + (fraction > 0.5 ? 1 : 0);
+        text.append(value < 0 ? '-' : ' ');
+        int position = digits.length;
+        for (int i = 0; i < PRECISION; i++) {
+            digits[--position] = (char) ('0' + rounded % 10);
+            rounded /= 10;
+        }
+        digits[--position] = separator;
+        do {
+            digits[--position] = (char) ('0' + rounded % 10);
+            rounded /= 10;
+        } while (rounded != 0);
+        text.append(digits, position, digits.length - position);
+    }
+}
@@ -0,0 +1,352 @@
+package assignment.server;
+
+import assignment.cli.InputSystem;
+import assignment.cli.SystemReader;
+import assignment.exception.LinearEquationException;
+import assignment.exception.MatrixException;
+import assignment.model.BatchSolver;
+import assignment.model.ComputationStage;
+import assignment.model.Factorization;
+import assignment.model.FlatRealMatrix;
+import assignment.model.LinearEquation;
+import assignment.model.SolverOptions;
+import assignment.model.SolverPath;
+import assignment.report.ResultFormatter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.commons.math3.linear.ArrayRealVector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The handler of {@code POST /solve}: solves A × x = b for one request.
+ * <br>The body is either text, the matrix, an empty line and the vector as read by {@link SystemReader}, or
+ * {@value SolveHandler#BINARY_TYPE}: the little-endian {@code int} n followed by the n × n entries of A in row-major
+ * order and the n entries of b as little-endian {@code double} values. The response has the same format as the
+ * request: the text of the solution, or n followed by the n entries of x.
+ * <br>Every response carries the {@code Server-Timing} header with the parsing, factorization and solve times in
+ * milliseconds; a text response repeats them in its body.
+ * <br>The factorizations of repeated matrices come from the cache of the solver options. Requests with the same
+ * matrix share one {@link BatchSolver}, kept in the cache entry of the factorization, so the right-hand sides of
+ * concurrent requests are solved together by one multiple right-hand side substitution.
+ * <br>At most {@code maxConcurrent} requests are solved at the same time, further requests are rejected at once with
+ * 503; a body larger than {@code maxBodyBytes} is rejected with 413 and a malformed {@code Content-Length} with 400.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SolveServer
+ */
+public class SolveHandler implements HttpHandler {
+
+    /**
+     * The content type of the binary requests and responses.
+     */
+    public static final String BINARY_TYPE = "application/octet-stream";
+
+    /**
+     * The content type of the text responses.
+     */
+    private static final String TEXT_TYPE = "text/plain; charset=utf-8";
+
+    /**
+     * The options of the solver, with the cache of factorizations.
+     */
+    private final SolverOptions options;
+
+    /**
+     * The permits of the requests solved at the same time.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The maximum number of bytes of a request body.
+     */
+    private final long maxBodyBytes;
+
+    /**
+     * The number of solved requests.
+     */
+    private final AtomicLong solved = new AtomicLong();
+
+    /**
+     * The number of requests rejected with 503 or 413.
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * The number of requests failed because of the input or a singular matrix.
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Creates the handler.
+     *
+     * @param options       the options of the solver.
+     * @param maxConcurrent the maximum number of requests solved at the same time.
+     * @param maxBodyBytes  the maximum number of bytes of a request body.
+     */
+    public SolveHandler(SolverOptions options, int maxConcurrent, long maxBodyBytes) {
+        this.options = options;
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Handles one request.
+     *
+     * @param exchange the request and response.
+     * @throws IOException if the request can not be read or the response can not be written.
+     */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendText(exchange, 405, "Method not allowed, use POST");
+                return;
+            }
+            String header = exchange.getRequestHeaders().getFirst("Content-Length");
+            long length;
+            try {
+                length = header != null ? Long.parseLong(header.trim()) : 0;
+            } catch (NumberFormatException ex) {
+                length = -1;
+            }
+            if (length < 0) {
+                failed.incrementAndGet();
+                sendText(exchange, 400, "Invalid Content-Length: " + header);
+                return;
+            }
+            if (length > maxBodyBytes) {
+                rejectBody(exchange);
+                return;
+            }
+            if (!permits.tryAcquire()) {
+                rejected.incrementAndGet();
+                discardBody(exchange.getRequestBody());
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendText(exchange, 503, "Too many requests");
+                return;
+            }
+            try {
+                solve(exchange);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Reads the request, solves the system and sends the solution.
+     * <br>The request body is rejected if it turns out larger than the limit without a {@code Content-Length}.
+     *
+     * @param exchange the request and response.
+     * @throws IOException if the request can not be read or the response can not be written.
+     */
+    private void solve(HttpExchange exchange) throws IOException {
+        byte[] body = readBody(exchange.getRequestBody());
+        if (body == null) {
+            rejectBody(exchange);
+            return;
+        }
+        String type = exchange.getRequestHeaders().getFirst("Content-Type");
+        boolean binary = type != null && type.startsWith(BINARY_TYPE);
+        Timing timing = new Timing();
+        try {
+            Factorization factorization;
+            double[] b;
+            if (binary) {
+                ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+                int n = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : 0;
+                if (n < 1 || buffer.remaining() != 8L * n * (n + 1L)) {
+                    failed.incrementAndGet();
+                    sendText(exchange, 400, "Binary body must be n, the n x n matrix and the vector");
+                    return;
+                }
+                double[] a = new double[n * n];
+                b = new double[n];
+                buffer.asDoubleBuffer().get(a).get(b);
+                timing.stageStarted(ComputationStage.FACTOR);
+                factorization = factorize(new FlatRealMatrix(n, n, a));
+            } else {
+                InputSystem system = new SystemReader(new StringReader(new String(body, StandardCharsets.UTF_8)),
+                        "request", 1).next();
+                if (system == null || !system.hasVector()) {
+                    failed.incrementAndGet();
+                    sendText(exchange, 400, "Body must be the matrix, an empty line and the vector");
+                    return;
+                }
+                LinearEquation equation = new LinearEquation(system.getMatrixText(), system.getVectorText(),
+                        options.withProgressListener(timing));
+                factorization = equation.getFactorization();
+                b = equation.getVector().toArray();
+            }
+            timing.stageStarted(ComputationStage.SOLVE);
+            if (factorization.isSingular()) {
+                failed.incrementAndGet();
+                sendText(exchange, 422, "Singular matrix");
+                return;
+            }
+            double[] x = batchSolver(factorization).submit(b).get();
+            timing.stageStarted(ComputationStage.FORMAT);
+            solved.incrementAndGet();
+            exchange.getResponseHeaders().set("Server-Timing", timing.toHeader());
+            if (binary) {
+                ByteBuffer response = ByteBuffer.allocate(Integer.BYTES + x.length * Double.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN).putInt(x.length);
+                response.asDoubleBuffer().put(x);
+                send(exchange, 200, BINARY_TYPE, response.array());
+            } else {
+                StringBuilder text = new StringBuilder("Solution\n");
+                new ResultFormatter().appendVector(text, new ArrayRealVector(x, false));
+                text.append("Solver path: ").append(factorization.getPath().getDescription()).append('\n');
+                timing.appendTo(text);
+                sendText(exchange, 200, text.toString());
+            }
+        } catch (LinearEquationException ex) {
+            failed.incrementAndGet();
+            sendText(exchange, 400, ex.getUserMessage());
+        } catch (ExecutionException ex) {
+            failed.incrementAndGet();
+            sendText(exchange, 400, "Error in input data. " + ex.getCause().getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            sendText(exchange, 503, "Interrupted");
+        }
+    }
+
+    /**
+     * Rejects a request body above the limit with 413 and closes the connection, the rest of the body is not read.
+     *
+     * @param exchange the request and response.
+     * @throws IOException if the response can not be written.
+     */
+    private void rejectBody(HttpExchange exchange) throws IOException {
+        rejected.incrementAndGet();
+        exchange.getResponseHeaders().set("Connection", "close");
+        sendText(exchange, 413, "Request body larger than " + maxBodyBytes + " bytes");
+    }
+
+    /**
+     * Factorizes the matrix of a binary request, taking the factorization from the cache of the options.
+     *
+     * @param matrix the matrix.
+     * @return the factorization.
+     * @throws MatrixException if the matrix can not be decomposed.
+     */
+    private Factorization factorize(FlatRealMatrix matrix) throws MatrixException {
+        try {
+            return options.getCache() != null
+                    ? options.getCache().factorize(matrix, options)
+                    : SolverPath.factorizeDetected(matrix, options);
+        } catch (Exception ex) {
+            throw new MatrixException(ex);
+        }
+    }
+
+    /**
+     * Returns the batch solver of the factorization, kept in the cache entry of the factorization and evicted with it.
+     *
+     * @param factorization the factorization.
+     * @return the batch solver.
+     */
+    private BatchSolver batchSolver(Factorization factorization) {
+        return options.getCache() != null
+                ? options.getCache().batchSolver(factorization)
+                : new BatchSolver(factorization);
+    }
+
+    /**
+     * Reads the request body up to the limit.
+     *
+     * @param input the request body.
+     * @return the bytes or {@code null} if the body is larger than {@link SolveHandler#maxBodyBytes}.
+     * @throws IOException if the body can not be read.
+     */
+    private byte[] readBody(InputStream input) throws IOException {
+        byte[] body = input.readNBytes((int) Math.min(maxBodyBytes + 1, Integer.MAX_VALUE - 8));
+        return body.length > maxBodyBytes ? null : body;
+    }
+
+    /**
+     * Skips the body of a rejected request, so the client can read the response on the same connection.
+     * <br>At most {@link SolveHandler#maxBodyBytes} bytes are skipped, the body is not stored.
+     *
+     * @param input the request body.
+     * @throws IOException if the body can not be read.
+     */
+    private void discardBody(InputStream input) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = maxBodyBytes;
+        int count;
+        while (remaining > 0 && (count = input.read(buffer, 0, (int) Math.min(buffer.length, remaining))) >= 0) {
+            remaining -= count;
+        }
+    }
+
+    /**
+     * Sends a text response, the text followed by the end of the line.
+     *
+     * @param exchange the request and response.
+     * @param status   the status code.
+     * @param text     the text.
+     * @throws IOException if the response can not be written.
+     */
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        String line = text.endsWith("\n") ? text : text + "\n";
+        send(exchange, status, TEXT_TYPE, line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a response with a known length.
+     *
+     * @param exchange the request and response.
+     * @param status   the status code.
+     * @param type     the content type.
+     * @param body     the body.
+     * @throws IOException if the response can not be written.
+     */
+    private static void send(HttpExchange exchange, int status, String type, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Returns the number of solved requests.
+     *
+     * @return the number of solved requests.
+     */
+    public long getSolved() {
+        return solved.get();
+    }
+
+    /**
+     * Returns the number of requests rejected by the limits.
+     *
+     * @return the number of responses 503 and 413.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the number of requests failed because of the input or a singular matrix.
+     *
+     * @return the number of responses 400 and 422.
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+}
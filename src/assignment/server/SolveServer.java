@@ -0,0 +1,199 @@
+package assignment.server;
+
+import assignment.model.FactorizationCache;
+import assignment.model.SolverMetrics;
+import assignment.model.SolverOptions;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP service solving linear equations, built on the HTTP server of the JDK.
+ * <br>{@code POST /solve} solves one system, see {@link SolveHandler}; {@code GET /stats} returns the counters of
+ * the requests and of the cache of factorizations; {@code GET /metrics} returns the {@link SolverMetrics} of the process
+ * as JSON, which are also registered with JMX. The server listens on the loopback address only.
+ * <br>Every request is handled by its own virtual thread when the runtime has them (Java 21 or later, found by
+ * reflection so the code still runs on Java 17); otherwise by a cached pool of platform threads, which stays small
+ * because the requests above the limit of {@link SolveHandler} are rejected at once.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+public class SolveServer {
+
+    /**
+     * The default port.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * The default maximum number of requests solved at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT = 64;
+
+    /**
+     * The default maximum size of a request body, 64 MB.
+     */
+    public static final long DEFAULT_MAX_BODY_BYTES = 64L << 20;
+
+    /**
+     * The HTTP server.
+     */
+    private final HttpServer server;
+
+    /**
+     * The executor of the requests.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The handler of {@code /solve}.
+     */
+    private final SolveHandler handler;
+
+    /**
+     * The options of the solver.
+     */
+    private final SolverOptions options;
+
+    /**
+     * Creates the server on the loopback address; it is started by {@link SolveServer#start()}.
+     *
+     * @param port          the port or 0 for any free port.
+     * @param maxConcurrent the maximum number of requests solved at the same time.
+     * @param maxBodyBytes  the maximum number of bytes of a request body.
+     * @throws IOException if the port can not be bound.
+     */
+    public SolveServer(int port, int maxConcurrent, long maxBodyBytes) throws IOException {
+        SolverMetrics.registerMBean();
+        this.options = SolverOptions.defaults();
+        this.handler = new SolveHandler(options, maxConcurrent, maxBodyBytes);
+        this.executor = newRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/solve", handler);
+        server.createContext("/stats", this::sendStats);
+        server.createContext("/metrics", SolveServer::sendMetrics);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Creates the executor of the requests: a thread per request, virtual if the runtime supports it.
+     *
+     * @return the executor.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "solve-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Starts the server.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, waiting at most the given time for the running requests.
+     *
+     * @param delaySeconds the maximum time to wait in seconds.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the bound port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the handler of {@code /solve}.
+     *
+     * @return the handler with the counters of the requests.
+     */
+    public SolveHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * Sends the counters of the requests and of the cache, one {@code name = value} per line.
+     *
+     * @param exchange the request and response.
+     * @throws IOException if the response can not be written.
+     */
+    private void sendStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringBuilder text = new StringBuilder();
+            text.append("Solved = ").append(handler.getSolved()).append('\n');
+            text.append("Rejected = ").append(handler.getRejected()).append('\n');
+            text.append("Failed = ").append(handler.getFailed()).append('\n');
+            FactorizationCache cache = options.getCache();
+            if (cache != null) {
+                text.append("Cache hits = ").append(cache.getHits()).append('\n');
+                text.append("Cache misses = ").append(cache.getMisses()).append('\n');
+                text.append("Cache size = ").append(cache.getSize()).append('\n');
+            }
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+    /**
+     * Sends the dump of the solver metrics.
+     *
+     * @param exchange the request and response.
+     * @throws IOException if the response can not be written.
+     */
+    private static void sendMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body = SolverMetrics.global().getDump().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+    /**
+     * Starts the server until the process is stopped.
+     * <br>Arguments: {@code [port [maxConcurrent [maxBodyBytes]]]}.
+     *
+     * @param args the command-line arguments.
+     * @throws IOException if the port can not be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxConcurrent = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_CONCURRENT;
+        long maxBodyBytes = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_MAX_BODY_BYTES;
+        SolveServer server = new SolveServer(port, maxConcurrent, maxBodyBytes);
+        server.start();
+        System.err.println("Listening on http://localhost:" + server.getPort() + "/solve");
+    }
+}
@@ -0,0 +1,71 @@
+package assignment.server;
+
+import assignment.model.ComputationStage;
+import assignment.model.ProgressListener;
+
+import java.util.Locale;
+
+/**
+ * The times of the stages of one request, measured by the progress notifications of the solver.
+ * <br>The parsing starts when the timing is created; {@link ComputationStage#FORMAT} marks the end of the solve.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ * @see SolveHandler
+ */
+class Timing implements ProgressListener {
+
+    /**
+     * The start of every stage in nanoseconds, 0 if the stage was not started.
+     */
+    private final long[] starts = new long[ComputationStage.values().length];
+
+    /**
+     * Creates the timing, starting the parsing.
+     */
+    Timing() {
+        starts[ComputationStage.PARSE.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Records the start of a stage.
+     *
+     * @param stage the started stage.
+     */
+    @Override
+    public void stageStarted(ComputationStage stage) {
+        starts[stage.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Returns the duration of a stage, until the start of the next one.
+     *
+     * @param stage the stage, not the last one.
+     * @return the duration in milliseconds.
+     */
+    double getMillis(ComputationStage stage) {
+        return (starts[stage.ordinal() + 1] - starts[stage.ordinal()]) / 1e6;
+    }
+
+    /**
+     * Returns the value of the {@code Server-Timing} header.
+     *
+     * @return the parsing, factorization and solve times.
+     */
+    String toHeader() {
+        return String.format(Locale.ROOT, "parse;dur=%.3f, factor;dur=%.3f, solve;dur=%.3f",
+                getMillis(ComputationStage.PARSE), getMillis(ComputationStage.FACTOR),
+                getMillis(ComputationStage.SOLVE));
+    }
+
+    /**
+     * Appends the times as lines of text.
+     *
+     * @param text the builder to append to.
+     */
+    void appendTo(StringBuilder text) {
+        text.append(String.format(Locale.ROOT, "Parse time (ms) = %.3f\nFactorization time (ms) = %.3f\n"
+                        + "Solve time (ms) = %.3f\n", getMillis(ComputationStage.PARSE),
+                getMillis(ComputationStage.FACTOR), getMillis(ComputationStage.SOLVE)));
+    }
+}
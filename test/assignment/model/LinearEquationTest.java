@@ -0,0 +1,310 @@
+package assignment.model;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks every backend and every solver path against the LU-decomposition of commons-math: the solution, the
+ * determinant, the factors and the inverse.
+ * <br>The factors of every path must satisfy P × A × Q = L × U; the general LU-decomposition must also give the same
+ * L, U and P as commons-math, which pivots the same way.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+class LinearEquationTest {
+
+    /**
+     * The relative tolerance of the double precision results.
+     */
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * The relative tolerance of the single precision factors and determinant, whose error grows with the dimension.
+     */
+    private static final double SINGLE_TOLERANCE = 1e-3;
+
+    /**
+     * Solves general matrices, smaller and larger than a panel of the blocked decomposition, with every backend.
+     *
+     * @param backend the backend.
+     * @throws Exception if the equation can not be solved.
+     */
+    @ParameterizedTest
+    @EnumSource(SolverBackend.class)
+    void generalMatrixMatchesCommonsMath(SolverBackend backend) throws Exception {
+        double tolerance = backend == SolverBackend.MIXED_PRECISION ? SINGLE_TOLERANCE : TOLERANCE;
+        for (int n : new int[]{2, 7, 150}) {
+            double[][] a = randomMatrix(n, new Random(n));
+            LinearEquation equation = new LinearEquation(matrixText(a), vectorText(n),
+                    SolverOptions.defaults().withBackend(backend).withCache(null));
+            assertEquals(SolverPath.LU, equation.getSolverPath());
+            LUDecomposition expected = new LUDecomposition(new Array2DRowRealMatrix(a));
+            assertSameResults(expected, a, equation, tolerance);
+            assertClose(expected.getL(), equation.getLowerMatrix(), tolerance);
+            assertClose(expected.getU(), equation.getUpperMatrix(), tolerance);
+            assertClose(expected.getP(), equation.getFactorization().getP(), 0.0);
+        }
+    }
+
+    /**
+     * Takes the Cholesky path for a symmetric positive definite matrix.
+     *
+     * @throws Exception if the equation can not be solved.
+     */
+    @Test
+    void choleskyPathMatchesCommonsMath() throws Exception {
+        int n = 40;
+        double[][] b = randomMatrix(n, new Random(1));
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                for (int k = 0; k < n; k++) {
+                    a[i][j] += b[i][k] * b[j][k];
+                }
+            }
+            a[i][i] += n;
+        }
+        assertPath(SolverPath.CHOLESKY, a);
+    }
+
+    /**
+     * Takes the banded path for a tridiagonal matrix which is not symmetric.
+     *
+     * @throws Exception if the equation can not be solved.
+     */
+    @Test
+    void bandedPathMatchesCommonsMath() throws Exception {
+        int n = 60;
+        Random random = new Random(2);
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            a[i][i] = random.nextDouble() + 2.0;
+            if (i > 0) {
+                a[i][i - 1] = random.nextDouble() + 1.0;
+            }
+            if (i < n - 1) {
+                a[i][i + 1] = random.nextDouble() - 0.5;
+            }
+        }
+        assertPath(SolverPath.BANDED, a);
+    }
+
+    /**
+     * Takes the triangular path for an upper triangular matrix.
+     *
+     * @throws Exception if the equation can not be solved.
+     */
+    @Test
+    void triangularPathMatchesCommonsMath() throws Exception {
+        int n = 20;
+        double[][] a = randomMatrix(n, new Random(3));
+        for (int i = 0; i < n; i++) {
+            a[i][i] += 4.0;
+            for (int j = 0; j < i; j++) {
+                a[i][j] = 0.0;
+            }
+        }
+        assertPath(SolverPath.TRIANGULAR, a);
+    }
+
+    /**
+     * Takes the sparse path for a matrix in the coordinate format, whose columns are ordered.
+     *
+     * @throws Exception if the equation can not be solved.
+     */
+    @Test
+    void sparsePathMatchesCommonsMath() throws Exception {
+        int n = 120;
+        Random random = new Random(4);
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            a[i][i] = random.nextDouble() + 0.1;
+            for (int k = 0; k < 3; k++) {
+                a[i][random.nextInt(n)] += random.nextDouble() - 0.5;
+            }
+        }
+        StringBuilder text = new StringBuilder("%%MatrixMarket matrix coordinate real general\n");
+        int entries = 0;
+        StringBuilder triplets = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (a[i][j] != 0.0) {
+                    triplets.append(i + 1).append(' ').append(j + 1).append(' ').append(a[i][j]).append('\n');
+                    entries++;
+                }
+            }
+        }
+        text.append(n).append(' ').append(n).append(' ').append(entries).append('\n').append(triplets);
+        LinearEquation equation = new LinearEquation(text.toString(), vectorText(n),
+                SolverOptions.defaults().withCache(null));
+        assertEquals(SolverPath.SPARSE_LU, equation.getSolverPath());
+        assertSameResults(new LUDecomposition(new Array2DRowRealMatrix(a)), a, equation, TOLERANCE);
+    }
+
+    /**
+     * Takes the streamed path for a matrix read from a file, whose columns are pivoted while the file is read.
+     *
+     * @param directory the temporary directory.
+     * @throws Exception if the equation can not be solved.
+     */
+    @Test
+    void streamedPathMatchesCommonsMath(@TempDir Path directory) throws Exception {
+        int n = 90;
+        double[][] a = randomMatrix(n, new Random(5));
+        Path file = directory.resolve("matrix.txt");
+        Files.writeString(file, matrixText(a));
+        LinearEquation equation = new LinearEquation(file, vectorText(n), SolverOptions.defaults().withCache(null));
+        assertEquals(SolverPath.STREAMED_LU, equation.getSolverPath());
+        assertSameResults(new LUDecomposition(new Array2DRowRealMatrix(a)), a, equation, TOLERANCE);
+    }
+
+    /**
+     * Writes exactly the new entry, row and column of an updated matrix and solves it as commons-math does.
+     *
+     * @throws Exception if the equation can not be solved.
+     */
+    @Test
+    void updatedMatrixMatchesCommonsMath() throws Exception {
+        int n = 12;
+        double[][] a = randomMatrix(n, new Random(6));
+        LinearEquation equation = new LinearEquation(matrixText(a), vectorText(n),
+                SolverOptions.defaults().withCache(null));
+        for (int k = 0; k < 2 * n; k++) {
+            double value = 0.1 * k + 0.3;
+            a[k % n][(3 * k) % n] = value;
+            equation.updateEntry(k % n, (3 * k) % n, value);
+        }
+        a[2] = randomMatrix(n, new Random(7))[0];
+        equation.updateRow(2, new ArrayRealVector(a[2]));
+        double[] column = randomMatrix(n, new Random(8))[0];
+        for (int i = 0; i < n; i++) {
+            a[i][5] = column[i];
+        }
+        equation.updateColumn(5, new ArrayRealVector(column));
+        assertClose(new Array2DRowRealMatrix(a), equation.getMatrix(), 0.0);
+        assertSameResults(new LUDecomposition(new Array2DRowRealMatrix(a)), a, equation, TOLERANCE);
+    }
+
+    /**
+     * Checks that the equation takes the path and matches commons-math.
+     *
+     * @param path the expected path.
+     * @param a    the matrix.
+     * @throws Exception if the equation can not be solved.
+     */
+    private static void assertPath(SolverPath path, double[][] a) throws Exception {
+        LinearEquation equation = new LinearEquation(matrixText(a), vectorText(a.length),
+                SolverOptions.defaults().withCache(null));
+        assertEquals(path, equation.getSolverPath());
+        assertSameResults(new LUDecomposition(new Array2DRowRealMatrix(a)), a, equation, TOLERANCE);
+    }
+
+    /**
+     * Compares the solution, the determinant and the inverse with commons-math and checks P × A × Q = L × U.
+     *
+     * @param expected  the decomposition of commons-math.
+     * @param a         the matrix.
+     * @param equation  the equation.
+     * @param tolerance the relative tolerance of the factors and the determinant.
+     * @throws Exception if the equation can not be solved.
+     */
+    private static void assertSameResults(LUDecomposition expected, double[][] a, LinearEquation equation,
+                                          double tolerance) throws Exception {
+        RealMatrix matrix = new Array2DRowRealMatrix(a);
+        RealVector b = new ArrayRealVector(new MatrixParser(vectorText(a.length)).parseVector());
+        assertClose(expected.getSolver().solve(b), equation.getSolution(), TOLERANCE);
+        double determinant = expected.getDeterminant();
+        assertEquals(determinant, equation.getDeterminant(), tolerance * Math.abs(determinant));
+        assertClose(expected.getSolver().getInverse(), equation.getInverseMatrix(), TOLERANCE);
+        Factorization factorization = equation.getFactorization();
+        RealMatrix permuted = factorization.getP().multiply(matrix).multiply(factorization.getQ());
+        assertClose(permuted, factorization.getL().multiply(factorization.getU()), tolerance);
+    }
+
+    /**
+     * Checks that the matrices agree within the relative tolerance in the Frobenius norm.
+     *
+     * @param expected  the expected matrix.
+     * @param actual    the actual matrix.
+     * @param tolerance the relative tolerance.
+     */
+    private static void assertClose(RealMatrix expected, RealMatrix actual, double tolerance) {
+        double error = expected.subtract(actual).getFrobeniusNorm();
+        assertTrue(error <= tolerance * expected.getFrobeniusNorm(), () -> "error " + error);
+    }
+
+    /**
+     * Checks that the vectors agree within the relative tolerance.
+     *
+     * @param expected  the expected vector.
+     * @param actual    the actual vector.
+     * @param tolerance the relative tolerance.
+     */
+    private static void assertClose(RealVector expected, RealVector actual, double tolerance) {
+        double error = expected.subtract(actual).getNorm();
+        assertTrue(error <= tolerance * expected.getNorm(), () -> "error " + error);
+    }
+
+    /**
+     * Creates a matrix with uniform entries in [-1, 1).
+     *
+     * @param n      the dimension.
+     * @param random the source of the entries.
+     * @return the matrix.
+     */
+    private static double[][] randomMatrix(int n, Random random) {
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 2.0 * random.nextDouble() - 1.0;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Writes the matrix in the text format, every entry exactly.
+     *
+     * @param a the matrix.
+     * @return the text.
+     */
+    private static String matrixText(double[][] a) {
+        StringBuilder text = new StringBuilder();
+        for (double[] row : a) {
+            for (double value : row) {
+                text.append(value).append(' ');
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the vector 1, 2, ..., n in the text format.
+     *
+     * @param n the dimension.
+     * @return the text.
+     */
+    private static String vectorText(int n) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= n; i++) {
+            text.append(i).append(' ');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package assignment.model;
+
+import assignment.exception.LinearEquationException;
+import assignment.exception.MatrixException;
+import assignment.exception.VectorException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the errors reported for invalid input, with the row and column of the invalid element, and the detection of
+ * the coordinate format.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+class MatrixParserTest {
+
+    /**
+     * Reports the row and column of an invalid number in the matrix.
+     */
+    @Test
+    void invalidMatrixNumberReportsRowAndColumn() {
+        assertError(MatrixException.class, "1 2 3\n4 5 6\n7 8 x", "1 2 3",
+                "Error in matrix input. Invalid number \"x\" at row 3, column 3");
+        assertError(MatrixException.class, "1 2\n3e 4", "1 2",
+                "Error in matrix input. Invalid number \"3e\" at row 2, column 1");
+    }
+
+    /**
+     * Reports the column of an invalid number in the vector.
+     */
+    @Test
+    void invalidVectorNumberReportsColumn() {
+        assertError(VectorException.class, "1 2\n3 4", "1 -",
+                "Error in vector input. Invalid number \"-\" at row 1, column 2");
+    }
+
+    /**
+     * Reports the row whose length differs from the first row.
+     */
+    @Test
+    void shortRowIsReported() {
+        assertError(MatrixException.class, "1 2 3\n4 5\n7 8 9", "1 2 3",
+                "Error in matrix input. Row 2 has 2 elements, expected 3");
+    }
+
+    /**
+     * Reports a matrix which is not square.
+     */
+    @Test
+    void nonSquareMatrixIsReported() {
+        assertError(MatrixException.class, "1 2\n3 4\n5 6", "1 2 3",
+                "Error in matrix input. Matrix is not square: 3x2");
+    }
+
+    /**
+     * Reports the line and field of an invalid value in the coordinate format.
+     */
+    @Test
+    void invalidCoordinateReportsLineAndField() {
+        assertError(MatrixException.class, "%%MatrixMarket matrix coordinate real general\n2 2 2\n1 1 1\n2 2 y",
+                "1 1", "Error in matrix input. Invalid number \"y\" at line 4, field 3");
+        assertError(MatrixException.class, "%%MatrixMarket matrix coordinate real general\n2 2 2\n1 1 1\n2 3 1",
+                "1 1", "Error in matrix input. Index 3 out of range [1, 2] at line 4, field 2");
+    }
+
+    /**
+     * Parses three lines of three numbers as a dense matrix, even if they could be triplets.
+     *
+     * @throws Exception if the matrix can not be parsed.
+     */
+    @Test
+    void threeLinesAreDense() throws Exception {
+        for (String text : new String[]{"2 1 1\n1 2 1\n1 1 2", "1 2 3\n2 3 4\n3 1 2\n"}) {
+            assertFalse(MatrixParser.isCoordinateFormat(text));
+            LinearEquation equation = new LinearEquation(text, "1 2 3");
+            assertInstanceOf(FlatRealMatrix.class, equation.getMatrix());
+            assertEquals(3, equation.getMatrix().getRowDimension());
+        }
+    }
+
+    /**
+     * Parses header-less triplets when the lines can not be a dense square matrix.
+     *
+     * @throws Exception if the matrix can not be parsed.
+     */
+    @Test
+    void tripletsWithoutHeaderAreSparse() throws Exception {
+        String text = "1 1 4\n2 2 5\n3 3 6\n3 1 1";
+        assertTrue(MatrixParser.isCoordinateFormat(text));
+        CsrRealMatrix matrix = new MatrixParser(text).parseCoordinates();
+        assertEquals(3, matrix.getRowDimension());
+        assertEquals(4.0, matrix.getEntry(0, 0));
+        assertEquals(1.0, matrix.getEntry(2, 0));
+        assertEquals(0.0, matrix.getEntry(0, 2));
+    }
+
+    /**
+     * Checks the type and the message of the error of the equation.
+     *
+     * @param type    the expected type of the exception.
+     * @param matrix  the matrix text.
+     * @param vector  the vector text.
+     * @param message the expected message for the user.
+     */
+    private static void assertError(Class<? extends LinearEquationException> type, String matrix, String vector,
+                                    String message) {
+        LinearEquationException ex = assertThrows(type, () -> new LinearEquation(matrix, vector));
+        assertEquals(message, ex.getUserMessage());
+    }
+}
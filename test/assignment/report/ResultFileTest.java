@@ -0,0 +1,155 @@
+package assignment.report;
+
+import assignment.model.LinearEquation;
+import assignment.model.SolverOptions;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the results written by {@link ResultFile} in the text and in the binary format are read back unchanged.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+class ResultFileTest {
+
+    /**
+     * The matrix of the dense equation.
+     */
+    private static final String MATRIX = "4 1 0.5\n1 -3 0.25\n0.125 2 5";
+
+    /**
+     * The vector of the dense equation.
+     */
+    private static final String VECTOR = "1 2 3";
+
+    /**
+     * Reads back the solution of a dense equation in the binary format.
+     *
+     * @param directory the temporary directory.
+     * @throws Exception if the equation can not be solved or the file can not be written.
+     */
+    @Test
+    void binarySolutionRoundTrip(@TempDir Path directory) throws Exception {
+        assertBinaryRoundTrip(ComputationResult.solve(new LinearEquation(MATRIX, VECTOR)), directory);
+    }
+
+    /**
+     * Reads back the inverse of a dense matrix in the binary format.
+     *
+     * @param directory the temporary directory.
+     * @throws Exception if the matrix can not be inverted or the file can not be written.
+     */
+    @Test
+    void binaryInverseRoundTrip(@TempDir Path directory) throws Exception {
+        assertBinaryRoundTrip(ComputationResult.invert(new LinearEquation(MATRIX)), directory);
+    }
+
+    /**
+     * Reads back the solution of a sparse equation, with the column order of its factors, in the binary format.
+     *
+     * @param directory the temporary directory.
+     * @throws Exception if the equation can not be solved or the file can not be written.
+     */
+    @Test
+    void binarySparseRoundTrip(@TempDir Path directory) throws Exception {
+        int n = 100;
+        StringBuilder matrix = new StringBuilder();
+        StringBuilder vector = new StringBuilder();
+        for (int i = 1; i <= n; i++) {
+            matrix.append(i).append(' ').append(i).append(' ').append(i + 1).append('\n');
+            matrix.append(i).append(' ').append(n + 1 - i).append(' ').append(0.5).append('\n');
+            vector.append(i).append(' ');
+        }
+        ComputationResult result = ComputationResult.solve(new LinearEquation(matrix.toString(), vector.toString(),
+                SolverOptions.defaults().withCache(null)));
+        assertNotNull(result.getColumnPermutation());
+        assertBinaryRoundTrip(result, directory);
+    }
+
+    /**
+     * Reads back the text of a report line by line.
+     *
+     * @param directory the temporary directory.
+     * @throws Exception if the equation can not be solved or the file can not be written.
+     */
+    @Test
+    void textRoundTrip(@TempDir Path directory) throws Exception {
+        Report report = ComputationResult.solve(new LinearEquation(MATRIX, VECTOR)).toReport();
+        Path file = directory.resolve("result.txt");
+        ResultFile.writeText(report, file);
+        assertFalse(ResultFile.isBinary(file));
+        assertEquals(report, ResultFile.readText(file));
+    }
+
+    /**
+     * Rejects a binary file whose sections are cut short.
+     *
+     * @param directory the temporary directory.
+     * @throws Exception if the equation can not be solved or the file can not be written.
+     */
+    @Test
+    void truncatedBinaryIsRejected(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("result.bin");
+        ResultFile.writeBinary(ComputationResult.solve(new LinearEquation(MATRIX, VECTOR)), file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 8);
+        }
+        assertThrows(IOException.class, () -> ResultFile.readBinary(file));
+    }
+
+    /**
+     * Writes the results in the binary format and checks that every field is read back.
+     *
+     * @param result    the results.
+     * @param directory the temporary directory.
+     * @throws IOException if the file can not be written or read.
+     */
+    private static void assertBinaryRoundTrip(ComputationResult result, Path directory) throws IOException {
+        Path file = directory.resolve("result.bin");
+        ResultFile.writeBinary(result, file);
+        assertTrue(ResultFile.isBinary(file));
+        ComputationResult read = ResultFile.readBinary(file);
+        assertEquals(result.getKind(), read.getKind());
+        assertEquals(result.getPath(), read.getPath());
+        assertEquals(result.getDeterminant(), read.getDeterminant());
+        assertEquals(result.getResidualNorm(), read.getResidualNorm());
+        assertEquals(result.getIterations(), read.getIterations());
+        assertEquals(result.getReciprocalCondition(), read.getReciprocalCondition());
+        assertSameMatrix(result.getMatrix(), read.getMatrix());
+        assertSameMatrix(result.getLowerMatrix(), read.getLowerMatrix());
+        assertSameMatrix(result.getUpperMatrix(), read.getUpperMatrix());
+        assertSameMatrix(result.getInverseMatrix(), read.getInverseMatrix());
+        assertEquals(result.getVector(), read.getVector());
+        assertEquals(result.getSolution(), read.getSolution());
+        assertArrayEquals(result.getColumnPermutation(), read.getColumnPermutation());
+        assertEquals(result.toReport(), read.toReport());
+    }
+
+    /**
+     * Checks that both matrices are missing or have the same entries.
+     *
+     * @param expected the written matrix.
+     * @param actual   the read matrix.
+     */
+    private static void assertSameMatrix(RealMatrix expected, RealMatrix actual) {
+        assertEquals(expected == null, actual == null);
+        if (expected != null) {
+            assertArrayEquals(expected.getData(), actual.getData());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package assignment.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link ResultFormatter} writes every number as {@code String.format("% .7f", value)} does, with -0
+ * written as positive zero.
+ *
+ * @author Wiktor Florencki
+ * @version 1.0
+ */
+class ResultFormatterTest {
+
+    /**
+     * Formats zeros, tiny numbers rounded to zero, large and non-finite numbers.
+     */
+    @Test
+    void specialValuesMatchStringFormat() {
+        double[] values = {0.0, -0.0, 1e-9, -1e-9, -4.9e-8, 5e-8, -5e-8, 1.0, -1.0, 0.5, 99999999.99999999, 1e8,
+                -1e8, 1e300, -Double.MAX_VALUE, Double.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY};
+        for (double value : values) {
+            assertFormatted(Locale.US, value);
+        }
+    }
+
+    /**
+     * Formats the decimal midpoints between two results and their neighbours, where the binary value decides the
+     * direction of the rounding.
+     */
+    @Test
+    void midpointsMatchStringFormat() {
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            long digits = random.nextInt(1_000_000_000);
+            double midpoint = new BigDecimal(digits).add(BigDecimal.valueOf(0.5)).movePointLeft(7).doubleValue();
+            for (double value : new double[]{midpoint, Math.nextUp(midpoint), Math.nextDown(midpoint)}) {
+                assertFormatted(Locale.US, value);
+                assertFormatted(Locale.US, -value);
+            }
+        }
+    }
+
+    /**
+     * Formats numbers of every magnitude in a locale with the decimal comma.
+     */
+    @Test
+    void randomValuesMatchStringFormat() {
+        Random random = new Random(2);
+        for (int i = 0; i < 100_000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 10);
+            assertFormatted(Locale.US, value);
+            assertFormatted(Locale.GERMANY, value);
+        }
+    }
+
+    /**
+     * Checks one number against {@link String#format(Locale, String, Object...)}.
+     *
+     * @param locale the locale.
+     * @param value  the number.
+     */
+    private static void assertFormatted(Locale locale, double value) {
+        StringBuilder text = new StringBuilder();
+        new ResultFormatter(locale).appendNumber(text, value);
+        assertEquals(String.format(locale, "% .7f", value == 0.0 ? 0.0 : value), text.toString(), () -> "value "
+                + value);
+    }
+}